@@ -5,7 +5,7 @@ set "DB_PASSWORD=password"
 
 REM Compile all Java files
 echo Compiling Java files...
-javac -cp ".;lib/*" -d bin src\main\java\com\school\**\*.java src\main\java\com\school\*.java
+javac -cp ".;lib/*" -d bin sms-core\src\main\java\com\school\**\*.java sms-core\src\main\java\com\school\*.java sms-app\src\main\java\com\school\**\*.java sms-app\src\main\java\com\school\*.java
 
 if %errorlevel% neq 0 (
     echo Compilation failed.
@@ -0,0 +1,270 @@
+package com.school;
+
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Polls the change_log table, which triggers append a row to on every insert, update and delete,
+ * and tells a listener on the EDT which rows changed since the last poll. Each poll is a single
+ * range scan of the log's primary key ({@code change_id > last seen}), so an idle feed costs one
+ * near-empty query every few seconds instead of periodic full reloads.
+ * <p>
+ * Change ids are allocated when a row is logged but become visible when its transaction commits,
+ * so a hole in the ids may be a change that is still being committed. The feed stops in front of a
+ * hole and only skips it after {@link #GAP_GRACE_MILLIS} (it was a rolled back insert, or the entries
+ * were purged), reporting the batch as incomplete so the listener reloads rather than patches.
+ * The same happens when more than {@link #MAX_CHANGES_PER_POLL} changes arrive at once, and for the
+ * reload marker a bulk load logs per table instead of its rows.
+ */
+public class ChangeFeed {
+
+    private static final int POLL_INTERVAL_MILLIS = 3000;
+    private static final int MAX_CHANGES_PER_POLL = 500; // More than this is cheaper to handle as a reload
+    private static final long GAP_GRACE_MILLIS = 10000; // How long to wait for a missing change id to be committed
+    private static final long PURGE_INTERVAL_MILLIS = 60L * 60 * 1000; // Purge old log entries once an hour
+    private static final int RETENTION_HOURS = 24; // Log entries kept this long; clients only need the last few seconds
+    private static final int PURGE_BATCH_SIZE = 1000;
+    private static final String RELOAD_MARKER = "R"; // Logged once per table by a bulk load (DataGenerator)
+
+    /** What happened to a row. */
+    public enum Operation {
+        INSERT, UPDATE, DELETE;
+
+        static Operation fromCode(String code) {
+            switch (code) {
+                case "I": return INSERT;
+                case "D": return DELETE;
+                default: return UPDATE;
+            }
+        }
+    }
+
+    /** A logged change of one row. */
+    public static final class Change {
+        private final String tableName;
+        private final int rowId;
+        private final Operation operation;
+
+        Change(String tableName, int rowId, Operation operation) {
+            this.tableName = tableName;
+            this.rowId = rowId;
+            this.operation = operation;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        /** @return The primary key of the changed row. */
+        public int getRowId() {
+            return rowId;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+    }
+
+    /** Receives changes on the EDT. */
+    public interface Listener {
+        /**
+         * @param changes  The changes since the last call, oldest first.
+         * @param complete false if changes may be missing (too many at once, or a gap in the log);
+         *                 shown data should then be reloaded rather than patched.
+         */
+        void changesArrived(List<Change> changes, boolean complete);
+    }
+
+    private static class PollResult {
+        final List<Change> changes = new ArrayList<>();
+        boolean complete = true;
+        long lastSeenId;
+        long gapDetectedAt; // When the current hole in the ids was first seen, 0 if none
+    }
+
+    private final Listener listener;
+    private final boolean purgeOldEntries;
+    private final Timer pollTimer;
+    private boolean polling = false; // A poll is running
+    private boolean started = false; // The last seen change id has been read
+    private long lastSeenId;
+    private long gapDetectedAt;
+    private long nextPurgeMillis;
+
+    /**
+     * @param listener        Receives the changes.
+     * @param purgeOldEntries true if this feed should also delete log entries older than the retention
+     *                        period (one client per school is enough, e.g. the admin's).
+     */
+    public ChangeFeed(Listener listener, boolean purgeOldEntries) {
+        this.listener = listener;
+        this.purgeOldEntries = purgeOldEntries;
+        this.pollTimer = new Timer(POLL_INTERVAL_MILLIS, e -> poll());
+    }
+
+    /** Starts polling. Changes made before this call are not reported. */
+    public void start() {
+        pollTimer.start();
+    }
+
+    /** Stops polling. */
+    public void stop() {
+        pollTimer.stop();
+    }
+
+    private void poll() {
+        if (polling) return; // The database is slow; skip this tick rather than pile up queries
+        polling = true;
+        final boolean firstPoll = !started;
+        final long sinceId = lastSeenId;
+        final long gapSince = gapDetectedAt;
+        final boolean purge = purgeOldEntries && System.currentTimeMillis() >= nextPurgeMillis;
+
+        SwingWorker<PollResult, Void> worker = new SwingWorker<PollResult, Void>() {
+            @Override
+            protected PollResult doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    if (purge) {
+                        try {
+                            purgeOlderThan(conn, RETENTION_HOURS);
+                        } catch (SQLException e) {
+                            // E.g. a lock wait timeout; the entries are purged on the next attempt
+                            System.err.println("Error purging change log: " + e.getMessage());
+                        }
+                    }
+                    PollResult result = new PollResult();
+                    if (firstPoll) {
+                        result.lastSeenId = latestChangeId(conn);
+                        return result;
+                    }
+                    readChanges(conn, sinceId, gapSince, result);
+                    return result;
+                } catch (SQLException e) {
+                    throw new Exception("Database error reading change log: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            protected void done() {
+                polling = false;
+                PollResult result;
+                try {
+                    result = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                    if (DatabaseUtility.isMissingTable(e)) {
+                        // The change_log migration has not been run; there is nothing to poll
+                        System.err.println("Change log unavailable, automatic refresh is off: " + message);
+                        stop();
+                    } else {
+                        System.err.println(message); // E.g. a network error; the next tick tries again
+                    }
+                    return;
+                }
+                if (purge) {
+                    nextPurgeMillis = System.currentTimeMillis() + PURGE_INTERVAL_MILLIS;
+                }
+                started = true;
+                lastSeenId = result.lastSeenId;
+                gapDetectedAt = result.gapDetectedAt;
+                if (!result.changes.isEmpty() || !result.complete) {
+                    listener.changesArrived(Collections.unmodifiableList(result.changes), result.complete);
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    // Reads the changes after sinceId, stopping in front of a hole in the ids unless it has been there too long
+    private static void readChanges(Connection conn, long sinceId, long gapSince, PollResult result) throws SQLException {
+        result.lastSeenId = sinceId;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT change_id, table_name, row_id, operation FROM change_log WHERE change_id > ? ORDER BY change_id LIMIT ?")) {
+            pstmt.setLong(1, sinceId);
+            pstmt.setInt(2, MAX_CHANGES_PER_POLL + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long changeId = rs.getLong("change_id");
+                    if (changeId != result.lastSeenId + 1) {
+                        long now = System.currentTimeMillis();
+                        if (gapSince == 0) {
+                            result.gapDetectedAt = now; // Wait for it to be committed
+                            return;
+                        }
+                        if (now - gapSince < GAP_GRACE_MILLIS) {
+                            result.gapDetectedAt = gapSince;
+                            return;
+                        }
+                        result.complete = false; // Given up waiting: skip the hole, reload instead of patching
+                        gapSince = 0;
+                    }
+                    if (result.changes.size() == MAX_CHANGES_PER_POLL) {
+                        result.complete = false; // Too many; the rest are covered by the reload
+                        result.lastSeenId = latestChangeId(conn);
+                        result.changes.clear();
+                        return;
+                    }
+                    String operation = rs.getString("operation");
+                    if (RELOAD_MARKER.equals(operation)) {
+                        result.complete = false; // A table was bulk loaded without logging its rows
+                    } else {
+                        result.changes.add(new Change(rs.getString("table_name"), rs.getInt("row_id"), Operation.fromCode(operation)));
+                    }
+                    result.lastSeenId = changeId;
+                }
+            }
+        }
+    }
+
+    private static long latestChangeId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(change_id), 0) FROM change_log")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Deletes change log entries older than the given age, in small batches so the log's other
+     * writers are never blocked for long. The newest entry to delete is looked up first through
+     * the index on changed_at; the batches then delete by primary key range up to it, so they only
+     * lock the rows they delete and never scan the entries that are kept.
+     *
+     * @param conn  An open database connection (not closed by this method).
+     * @param hours The age in hours beyond which entries are deleted.
+     * @return The number of entries deleted.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static int purgeOlderThan(Connection conn, int hours) throws SQLException {
+        long cutoffId;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT MAX(change_id) FROM change_log WHERE changed_at < NOW() - INTERVAL ? HOUR")) {
+            pstmt.setInt(1, hours);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                cutoffId = rs.next() ? rs.getLong(1) : 0; // 0 (SQL NULL) if nothing is old enough
+            }
+        }
+        if (cutoffId == 0) {
+            return 0;
+        }
+        int total = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "DELETE FROM change_log WHERE change_id <= ? ORDER BY change_id LIMIT " + PURGE_BATCH_SIZE)) {
+            pstmt.setLong(1, cutoffId);
+            int deleted;
+            do {
+                deleted = pstmt.executeUpdate();
+                total += deleted;
+            } while (deleted == PURGE_BATCH_SIZE);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,136 @@
+package com.school;
+
+import javax.swing.SwingWorker;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares how fast a burst of database tasks completes on Swing's own worker pool (how the panels
+ * ran them before {@link DbTasks}), on DbTasks with platform threads, and on DbTasks with virtual
+ * threads (skipped on JVMs before Java 21).
+ * <p>
+ * Each task simulates a blocking query by sleeping, or with {@code --db} runs {@code SELECT SLEEP(...)}
+ * on a pooled connection using the database settings in config.properties. Usage:
+ * <pre>
+ *   java -cp &lt;classpath&gt; com.school.DbTasksBenchmark [--tasks 2000] [--latency 20] [--pool 10] [--db]
+ * </pre>
+ */
+public class DbTasksBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int tasks = 2000;
+        int latencyMillis = 20;
+        int pool = 10;
+        boolean useDatabase = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--tasks": tasks = Integer.parseInt(args[++i]); break;
+                case "--latency": latencyMillis = Integer.parseInt(args[++i]); break;
+                case "--pool": pool = Integer.parseInt(args[++i]); break;
+                case "--db": useDatabase = true; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (useDatabase) {
+            java.util.Properties prop = new java.util.Properties();
+            try (java.io.InputStream input = new java.io.FileInputStream("config.properties")) {
+                prop.load(input);
+            }
+            DatabaseUtility.setDatabaseUrl(prop.getProperty("db.url"));
+            DatabaseUtility.setDatabaseCredentials(prop.getProperty("db.user"), prop.getProperty("db.password"));
+        }
+        DatabaseUtility.setPoolSize(pool);
+
+        System.out.printf("%d tasks, %d ms each (%s), pool size %d, Java %s%n", tasks, latencyMillis,
+                useDatabase ? "SELECT SLEEP" : "simulated", pool, System.getProperty("java.version"));
+        System.out.printf("%-22s %10s %12s %13s%n", "executor", "wall ms", "tasks/s", "peak threads");
+
+        Workload workload = new Workload(latencyMillis, useDatabase);
+        run("SwingWorker pool", tasks, workload, null);
+        run("DbTasks platform", tasks, workload, DbTasks.PLATFORM);
+        DbTasks.configure(DbTasks.VIRTUAL, pool);
+        if (DbTasks.VIRTUAL.equals(DbTasks.getMode())) {
+            run("DbTasks virtual", tasks, workload, DbTasks.VIRTUAL);
+        } else {
+            System.out.printf("%-22s %s%n", "DbTasks virtual", "skipped (needs Java 21 or later)");
+        }
+        DatabaseUtility.closeIdleConnections();
+        System.exit(0); // Swing's worker threads are not daemons
+    }
+
+    // Runs the tasks once to warm up, then measures a second run
+    private static void run(String name, int tasks, Workload workload, String mode) throws Exception {
+        if (mode != null) {
+            DbTasks.configure(mode, DatabaseUtility.getPoolSize());
+        }
+        burst(tasks, workload, mode);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        burst(tasks, workload, mode);
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.printf("%-22s %10d %12.0f %13d%n", name, wallMillis, tasks * 1000.0 / Math.max(1, wallMillis), threads.getPeakThreadCount());
+    }
+
+    // Starts all tasks at once, as a fan-out load would, and waits for the last one
+    private static void burst(int tasks, final Workload workload, String mode) throws InterruptedException {
+        final CountDownLatch finished = new CountDownLatch(tasks);
+        final AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < tasks; i++) {
+            SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() {
+                    try {
+                        workload.run();
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        finished.countDown();
+                    }
+                    return null;
+                }
+            };
+            if (mode == null) {
+                worker.execute();
+            } else {
+                DbTasks.execute(worker);
+            }
+        }
+        finished.await();
+        if (failures.get() > 0) {
+            System.err.println(failures.get() + " tasks failed");
+        }
+    }
+
+    private static final class Workload {
+        private final int latencyMillis;
+        private final boolean useDatabase;
+
+        Workload(int latencyMillis, boolean useDatabase) {
+            this.latencyMillis = latencyMillis;
+            this.useDatabase = useDatabase;
+        }
+
+        void run() throws Exception {
+            if (!useDatabase) {
+                Thread.sleep(latencyMillis); // Blocks like a JDBC call waiting on the network
+                return;
+            }
+            try (Connection conn = DatabaseUtility.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement("SELECT SLEEP(?)")) {
+                pstmt.setDouble(1, latencyMillis / 1000.0);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.school;
+
+import java.awt.AWTEvent;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects when the Event Dispatch Thread is stuck in one event for longer than a threshold (the window
+ * is frozen meanwhile) and writes what it was doing to a rolling log,
+ * {@code ~/.school-management/edt-stalls.log}: the event, how long it took, the EDT's stack when the
+ * threshold was crossed, and how often each site (the innermost application frame) was seen while the
+ * EDT was sampled during the stall. At exit it also writes the sites of all stalls since startup, worst
+ * first, which is the list of freezes to fix.
+ * <p>
+ * {@link TracingEventQueue} reports each dispatch; a daemon thread checks on it a few times per
+ * threshold. A modal dialog dispatching events of its own, or waiting for them, is not a stall.
+ */
+public final class EdtWatchdog {
+
+    public static final long DEFAULT_THRESHOLD_MILLIS = 250;
+    private static final long MAX_LOG_BYTES = 1024 * 1024;
+    private static final int LOG_FILES = 5; // edt-stalls.log and edt-stalls.log.1 to .4
+    private static final int MAX_STACK_FRAMES = 60;
+
+    // Written on the EDT, read by the watchdog thread
+    private static volatile Thread edt;
+    private static volatile int depth; // Dispatches in progress, more than one inside a modal dialog
+    private static volatile long progressAt; // When a dispatch last started or ended
+    private static volatile long progressCount;
+    private static volatile AWTEvent currentEvent; // The innermost event being dispatched
+    private static final Deque<AWTEvent> dispatching = new ArrayDeque<>(); // EDT only
+
+    private static final Map<String, long[]> sitesSinceStartup = new ConcurrentHashMap<>(); // Site to {stalls, milliseconds}
+    private static Thread watcher;
+    private static volatile long thresholdNanos;
+    private static File logFile;
+
+    private EdtWatchdog() {
+    }
+
+    /**
+     * Starts watching, or changes the threshold.
+     *
+     * @param thresholdMillis How long one event may take before it counts as a stall; 0 stops watching.
+     */
+    public static synchronized void start(long thresholdMillis) {
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+        if (thresholdNanos == 0 || watcher != null) {
+            return;
+        }
+        logFile = new File(new File(System.getProperty("user.home"), ".school-management"), "edt-stalls.log");
+        watcher = new Thread(EdtWatchdog::watch, "edt-watchdog");
+        watcher.setDaemon(true);
+        watcher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(EdtWatchdog::writeSummary, "edt-watchdog-summary"));
+    }
+
+    static void dispatchStarted(AWTEvent event) {
+        edt = Thread.currentThread();
+        dispatching.push(event);
+        currentEvent = event;
+        depth++;
+        progress();
+    }
+
+    static void dispatchEnded() {
+        dispatching.pop();
+        currentEvent = dispatching.peek();
+        depth--;
+        progress();
+    }
+
+    private static void progress() {
+        progressAt = System.nanoTime();
+        progressCount++; // Only the EDT writes it
+    }
+
+    private static void watch() {
+        while (true) {
+            long threshold = thresholdNanos;
+            long interval = Math.max(TimeUnit.MILLISECONDS.toNanos(10), threshold / 4);
+            try {
+                TimeUnit.NANOSECONDS.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (threshold == 0) {
+                continue; // Stopped; the thread stays for a later start()
+            }
+            Thread thread = edt;
+            long since = progressAt;
+            long count = progressCount;
+            if (thread == null || depth == 0 || System.nanoTime() - since < threshold) {
+                continue;
+            }
+            StackTraceElement[] stack = thread.getStackTrace();
+            if (isWaitingForEvents(stack)) {
+                continue;
+            }
+            Stall stall = new Stall(describe(currentEvent), stack);
+            while (progressCount == count) { // Sample until the EDT moves on
+                try {
+                    TimeUnit.NANOSECONDS.sleep(interval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (progressCount != count) break;
+                StackTraceElement[] sample = thread.getStackTrace();
+                if (isWaitingForEvents(sample)) break; // E.g. a dialog opened by the event
+                stall.sample(sample);
+            }
+            stall.millis = TimeUnit.NANOSECONDS.toMillis((progressCount != count ? progressAt : System.nanoTime()) - since);
+            stall.finish();
+            write(stall.toString());
+        }
+    }
+
+    // A dispatch showing a modal dialog keeps the EDT responsive: it is inside the dialog's own event loop
+    private static boolean isWaitingForEvents(StackTraceElement[] stack) {
+        for (int i = 0; i < Math.min(stack.length, 12); i++) {
+            if ("java.awt.EventQueue".equals(stack[i].getClassName()) && "getNextEvent".equals(stack[i].getMethodName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The innermost frame of the application's own code, else the top frame
+    private static String site(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith("com.school.") && !className.equals(TracingEventQueue.class.getName())) {
+                return frame.toString();
+            }
+        }
+        return stack.length > 0 ? stack[0].toString() : "(no stack)";
+    }
+
+    private static String describe(AWTEvent event) {
+        if (event == null) return "(unknown event)";
+        String text = event.getClass().getSimpleName() + " " + event.paramString() + " on " + event.getSource().getClass().getName();
+        return text.length() > 300 ? text.substring(0, 300) + "..." : text;
+    }
+
+    private static final class Stall {
+        final long startedAt = System.currentTimeMillis();
+        final String event;
+        final StackTraceElement[] stack;
+        final Map<String, Integer> sites = new HashMap<>();
+        int samples;
+        long millis;
+
+        Stall(String event, StackTraceElement[] stack) {
+            this.event = event;
+            this.stack = stack;
+            sample(stack);
+        }
+
+        void sample(StackTraceElement[] sample) {
+            sites.merge(site(sample), 1, Integer::sum);
+            samples++;
+        }
+
+        void finish() {
+            for (Map.Entry<String, Integer> site : sites.entrySet()) {
+                long[] totals = sitesSinceStartup.computeIfAbsent(site.getKey(), k -> new long[2]);
+                synchronized (totals) {
+                    totals[0]++;
+                    totals[1] += millis * site.getValue() / samples; // Apportioned by how often the site was seen
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(startedAt)))
+                .append(" EDT stalled ").append(millis).append(" ms in ").append(event).append('\n');
+            text.append("  Sites (").append(samples).append(samples == 1 ? " sample):\n" : " samples):\n");
+            for (Map.Entry<String, Integer> site : sortedByCount(sites)) {
+                text.append("    ").append(site.getValue()).append("  ").append(site.getKey()).append('\n');
+            }
+            text.append("  Stack when the stall was detected:\n");
+            for (int i = 0; i < Math.min(stack.length, MAX_STACK_FRAMES); i++) {
+                text.append("    at ").append(stack[i]).append('\n');
+            }
+            if (stack.length > MAX_STACK_FRAMES) {
+                text.append("    ... ").append(stack.length - MAX_STACK_FRAMES).append(" more\n");
+            }
+            return text.toString();
+        }
+    }
+
+    private static List<Map.Entry<String, Integer>> sortedByCount(Map<String, Integer> counts) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> b.getValue() - a.getValue());
+        return entries;
+    }
+
+    private static void writeSummary() {
+        if (sitesSinceStartup.isEmpty()) return;
+        Map<String, long[]> sites = new LinkedHashMap<>();
+        sitesSinceStartup.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .forEach(e -> sites.put(e.getKey(), e.getValue()));
+        StringBuilder text = new StringBuilder();
+        text.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()))
+            .append(" Stall sites since startup (stalls, milliseconds):\n");
+        for (Map.Entry<String, long[]> site : sites.entrySet()) {
+            text.append("    ").append(site.getValue()[0]).append("  ").append(site.getValue()[1]).append(" ms  ").append(site.getKey()).append('\n');
+        }
+        write(text.toString());
+    }
+
+    private static synchronized void write(String entry) {
+        try {
+            logFile.getParentFile().mkdirs();
+            if (logFile.length() > MAX_LOG_BYTES) {
+                roll();
+            }
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8))) {
+                out.println(entry);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing " + logFile + ": " + e.getMessage());
+        }
+    }
+
+    private static void roll() throws IOException {
+        File oldest = new File(logFile.getPath() + "." + (LOG_FILES - 1));
+        if (oldest.exists() && !oldest.delete()) {
+            throw new IOException("Cannot delete " + oldest);
+        }
+        for (int i = LOG_FILES - 2; i >= 0; i--) {
+            File from = i == 0 ? logFile : new File(logFile.getPath() + "." + i);
+            if (from.exists() && !from.renameTo(new File(logFile.getPath() + "." + (i + 1)))) {
+                throw new IOException("Cannot rename " + from);
+            }
+        }
+    }
+}
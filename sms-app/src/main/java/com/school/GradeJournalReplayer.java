@@ -0,0 +1,256 @@
+package com.school;
+
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Writes the entries of a {@link GradeJournal} to the database in the background, in batches of up
+ * to {@link #BATCH_SIZE} entries per transaction. While the database cannot be reached the entries
+ * simply stay in the journal and the batch is retried on the next tick.
+ * <p>
+ * Replaying is idempotent, because an entry may be written to the database and the application stop
+ * before it is marked done. An added grade is inserted unless a grade for the same enrollment,
+ * subject and term already exists: if that grade has the entry's values it was this entry, otherwise
+ * it is a conflict. An update is compare-and-set on row_version: if the version has moved on but the
+ * row has the entry's values it was this entry, otherwise it is a conflict. An update made while an
+ * earlier update of the same grade was outstanding expects the version that one leaves, so if that one
+ * did not apply it is a conflict too, without being written. Conflicts are never overwritten; they are
+ * reported to the listener, as are entries the database refuses (e.g. because the enrollment was
+ * deleted meanwhile).
+ */
+public class GradeJournalReplayer {
+
+    private static final int REPLAY_INTERVAL_MILLIS = 2000;
+    private static final int BATCH_SIZE = 50;
+
+    /** What became of a replayed entry. */
+    public static final class Outcome {
+        private final GradeJournal.Entry entry;
+        private final GradeJournal.Status status;
+        private final int gradeId; // The grade written or in the way; 0 if none
+        private final String message; // Why it was not applied, null if it was
+
+        Outcome(GradeJournal.Entry entry, GradeJournal.Status status, int gradeId, String message) {
+            this.entry = entry;
+            this.status = status;
+            this.gradeId = gradeId;
+            this.message = message;
+        }
+
+        public GradeJournal.Entry getEntry() { return entry; }
+        public GradeJournal.Status getStatus() { return status; }
+        public int getGradeId() { return gradeId; }
+        public String getMessage() { return message; }
+    }
+
+    /** Receives the outcome of each batch on the EDT. */
+    public interface Listener {
+        void entriesReplayed(List<Outcome> outcomes);
+    }
+
+    private final GradeJournal journal;
+    private final Listener listener;
+    private final Timer replayTimer;
+    private boolean replaying = false;
+
+    public GradeJournalReplayer(GradeJournal journal, Listener listener) {
+        this.journal = journal;
+        this.listener = listener;
+        this.replayTimer = new Timer(REPLAY_INTERVAL_MILLIS, e -> replayNow());
+    }
+
+    public void start() {
+        replayTimer.start();
+        replayNow(); // Entries left from the last session
+    }
+
+    public void stop() {
+        replayTimer.stop();
+    }
+
+    /**
+     * Replays a batch right away, e.g. just after an entry was appended. Does nothing if a batch is
+     * already being replayed or nothing is outstanding.
+     */
+    public void replayNow() {
+        if (replaying) return;
+        final List<GradeJournal.Entry> batch = journal.pendingEntries(BATCH_SIZE);
+        if (batch.isEmpty()) return;
+        replaying = true;
+
+        SwingWorker<List<Outcome>, Void> worker = new SwingWorker<List<Outcome>, Void>() {
+            @Override
+            protected List<Outcome> doInBackground() throws Exception {
+                List<Outcome> outcomes = new ArrayList<>();
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    conn.setAutoCommit(false);
+                    try {
+                        Set<Long> unapplied = new HashSet<>(); // Entries of this batch that did not apply
+                        for (GradeJournal.Entry entry : batch) {
+                            long base = journal.baseOf(entry);
+                            Outcome outcome = base != 0 && (unapplied.contains(base) || journal.wasUnapplied(base))
+                                    ? conflict(entry) : apply(conn, entry);
+                            if (outcome.status != GradeJournal.Status.APPLIED) {
+                                unapplied.add(entry.getSequence());
+                            }
+                            outcomes.add(outcome);
+                        }
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                } catch (SQLException e) {
+                    // Typically the database is unreachable; the entries stay in the journal for the next attempt
+                    throw new Exception("Database error replaying grade journal: " + e.getMessage(), e);
+                }
+
+                Map<Long, GradeJournal.Status> done = new LinkedHashMap<>();
+                for (Outcome outcome : outcomes) {
+                    done.put(outcome.entry.getSequence(), outcome.status);
+                }
+                journal.markDone(done);
+                return outcomes;
+            }
+
+            @Override
+            protected void done() {
+                replaying = false;
+                List<Outcome> outcomes;
+                try {
+                    outcomes = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Grade journal not replayed yet, will retry: "
+                            + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+                    return;
+                }
+                listener.entriesReplayed(outcomes);
+                if (journal.pendingCount() > 0) {
+                    replayNow(); // More than one batch outstanding
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Applies one journal entry on the caller's connection and transaction (the caller commits): the same
+     * grade insert or compare-and-set update the teacher form makes, checked against what is already saved.
+     */
+    public static Outcome apply(Connection conn, GradeJournal.Entry entry) throws SQLException {
+        return entry.getKind() == GradeJournal.Kind.ADD ? replayAdd(conn, entry) : replayUpdate(conn, entry);
+    }
+
+    private static Outcome replayAdd(Connection conn, GradeJournal.Entry entry) throws SQLException {
+        // Locks the (enrollment, subject, term) slot, whether or not a grade exists there yet
+        try (PreparedStatement select = conn.prepareStatement(
+                "SELECT grade_id, score, comments FROM grades WHERE enrollment_id = ? AND subject_id = ? AND term = ? FOR UPDATE")) {
+            select.setInt(1, entry.getEnrollmentId());
+            select.setInt(2, entry.getSubjectId());
+            select.setString(3, entry.getTerm());
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) {
+                    int existingId = rs.getInt("grade_id");
+                    if (sameValues(entry, rs.getBigDecimal("score"), rs.getString("comments"))) {
+                        return new Outcome(entry, GradeJournal.Status.APPLIED, existingId, null); // Replayed before
+                    }
+                    return new Outcome(entry, GradeJournal.Status.CONFLICT, existingId,
+                            "A grade for " + entry.describe() + " was already entered by someone else (score " + rs.getBigDecimal("score") + ").");
+                }
+            }
+        }
+
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO grades (enrollment_id, subject_id, score, comments, term, date_recorded) VALUES (?, ?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            insert.setInt(1, entry.getEnrollmentId());
+            insert.setInt(2, entry.getSubjectId());
+            insert.setDouble(3, entry.getScore());
+            insert.setString(4, entry.getComments());
+            insert.setString(5, entry.getTerm());
+            insert.setDate(6, java.sql.Date.valueOf(entry.getDateRecorded()));
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                return new Outcome(entry, GradeJournal.Status.APPLIED, keys.next() ? keys.getInt(1) : 0, null);
+            }
+        } catch (SQLException e) {
+            if (isRefusal(e)) {
+                return new Outcome(entry, GradeJournal.Status.REJECTED, 0, "The grade for " + entry.describe() + " was refused: " + e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private static Outcome replayUpdate(Connection conn, GradeJournal.Entry entry) throws SQLException {
+        int gradeId = entry.getGradeId();
+        try (PreparedStatement update = conn.prepareStatement(
+                "UPDATE grades SET enrollment_id=?, subject_id=?, score=?, comments=?, term=?, date_recorded=?, row_version=row_version+1 " +
+                "WHERE grade_id=? AND row_version=?")) {
+            update.setInt(1, entry.getEnrollmentId());
+            update.setInt(2, entry.getSubjectId());
+            update.setDouble(3, entry.getScore());
+            update.setString(4, entry.getComments());
+            update.setString(5, entry.getTerm());
+            update.setDate(6, java.sql.Date.valueOf(entry.getDateRecorded()));
+            update.setInt(7, gradeId);
+            update.setInt(8, entry.getExpectedVersion());
+            if (update.executeUpdate() == 1) {
+                return new Outcome(entry, GradeJournal.Status.APPLIED, gradeId, null);
+            }
+        } catch (SQLException e) {
+            if (isRefusal(e)) {
+                return new Outcome(entry, GradeJournal.Status.REJECTED, gradeId, "The change to " + entry.describe() + " was refused: " + e.getMessage());
+            }
+            throw e;
+        }
+
+        try (PreparedStatement select = conn.prepareStatement(
+                "SELECT enrollment_id, subject_id, term, score, comments FROM grades WHERE grade_id = ?")) {
+            select.setInt(1, gradeId);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    return new Outcome(entry, GradeJournal.Status.REJECTED, 0,
+                            "The grade for " + entry.describe() + " was deleted by someone else, so your change was not saved.");
+                }
+                if (rs.getInt("enrollment_id") == entry.getEnrollmentId() && rs.getInt("subject_id") == entry.getSubjectId()
+                        && entry.getTerm().equals(rs.getString("term")) && sameValues(entry, rs.getBigDecimal("score"), rs.getString("comments"))) {
+                    return new Outcome(entry, GradeJournal.Status.APPLIED, gradeId, null); // Replayed before
+                }
+            }
+        }
+        return conflict(entry);
+    }
+
+    private static Outcome conflict(GradeJournal.Entry entry) {
+        return new Outcome(entry, GradeJournal.Status.CONFLICT, entry.getGradeId(),
+                "The grade for " + entry.describe() + " was changed by someone else before your change was saved.");
+    }
+
+    private static boolean sameValues(GradeJournal.Entry entry, BigDecimal score, String comments) {
+        BigDecimal entryScore = BigDecimal.valueOf(entry.getScore()).setScale(2, RoundingMode.HALF_UP); // As stored in DECIMAL(5,2)
+        return score != null && score.compareTo(entryScore) == 0 && Objects.equals(comments, entry.getComments());
+    }
+
+    // Errors caused by the entry itself (constraint, check or data errors), as opposed to the connection
+    private static boolean isRefusal(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException || e instanceof SQLDataException
+                || e.getErrorCode() == 3819; // MySQL: check constraint violated
+    }
+}
@@ -0,0 +1,597 @@
+package com.school;
+
+import com.school.panels.AdminPanel;
+import com.school.panels.LazyTableModel;
+import com.school.panels.StudentPanel;
+import com.school.panels.TeacherPanel;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates term end: teachers entering grades, the bursar working through fees and arrears, and students
+ * looking up their results, all at once against one database. Each session is a thread that runs the
+ * queries and writes its panel runs (the same SQL and table models), picking operations by weight and
+ * pausing for a random think time between them.
+ * <p>
+ * Run it against a local test database filled by {@code SchoolCli generate}: it saves grades and fee
+ * payments for real, so that writers block each other as they would in production. Reports, per operation,
+ * throughput and p50/p95/p99 latency (including any wait for a connection, as a user would see it), edit
+ * conflicts, deadlocks and lock wait timeouts, and for the whole run how often and how long sessions waited
+ * for a pooled connection. Every session stands for one desktop client, so by default the pool has a
+ * connection per session; a smaller --pool models clients sharing the data server's pool.
+ * <pre>
+ *   java -cp &lt;classpath&gt; com.school.LoadTest [--config config.properties] [--teachers 40] [--admins 4]
+ *        [--students 100] [--duration 60] [--warmup 10] [--think 1000] [--pool &lt;n&gt;] [--seed 1]
+ *        [--mix teacher.saveGrade=20,admin.arrears=0,...]
+ * </pre>
+ * Times are in seconds except --think, the mean pause between a session's operations in milliseconds
+ * (0 for a flat-out stress test). --mix changes the weights of the operations listed by --help.
+ */
+public class LoadTest {
+
+    private enum Role { TEACHER, ADMIN, STUDENT }
+
+    private enum Operation {
+        TEACHER_STUDENTS(Role.TEACHER, "teacher.students", 4), // Grade form: the students of a subject
+        TEACHER_GRADE_TABLE(Role.TEACHER, "teacher.gradeTable", 4), // Grade table: count and first block
+        TEACHER_SAVE_GRADE(Role.TEACHER, "teacher.saveGrade", 12), // Grade form: add, or update an existing grade
+        TEACHER_REPORT(Role.TEACHER, "teacher.report", 1), // Performance report for a class and subject
+        ADMIN_STUDENT_TABLE(Role.ADMIN, "admin.studentTable", 3),
+        ADMIN_FEE_TABLE(Role.ADMIN, "admin.feeTable", 3),
+        ADMIN_ARREARS(Role.ADMIN, "admin.arrears", 2),
+        ADMIN_PAYMENT(Role.ADMIN, "admin.payment", 4), // Fee form: record a payment
+        STUDENT_INFO(Role.STUDENT, "student.info", 2),
+        STUDENT_CLASSES(Role.STUDENT, "student.classes", 1),
+        STUDENT_GRADES(Role.STUDENT, "student.grades", 4), // Version check; the history again only if it changed
+        STUDENT_FEES(Role.STUDENT, "student.fees", 2);
+
+        final Role role;
+        final String label;
+        final int defaultWeight;
+
+        Operation(Role role, String label, int defaultWeight) {
+            this.role = role;
+            this.label = label;
+            this.defaultWeight = defaultWeight;
+        }
+    }
+
+    /** A save that lost to another user's save (compare-and-set miss or duplicate grade), as the form would report it. */
+    private static class ConflictException extends Exception {
+    }
+
+    /** Latencies and failures of one operation, shared by all sessions. */
+    private static final class Stats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long conflicts, deadlocks, lockTimeouts, errors;
+        private String firstError;
+
+        synchronized void record(long nanos) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+        }
+
+        synchronized void conflict(long nanos) {
+            record(nanos);
+            conflicts++;
+        }
+
+        synchronized void failure(SQLException e) {
+            if (isDeadlock(e)) {
+                deadlocks++;
+            } else if (isLockTimeout(e)) {
+                lockTimeouts++;
+            } else {
+                errors++;
+                if (firstError == null) firstError = e.getMessage();
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    /** What the sessions pick from: filled once before the run. */
+    private static final class Fixture {
+        final Map<Integer, List<int[]>> assignments = new LinkedHashMap<>(); // teacher ID -> {class ID, subject ID}
+        String currentTerm = "Term 1";
+        int minStudentId, maxStudentId, minFeeId, maxFeeId;
+
+        void load(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery("SELECT teacher_id, class_id, subject_id FROM class_assignments ORDER BY teacher_id")) {
+                    while (rs.next()) {
+                        assignments.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(new int[]{rs.getInt(2), rs.getInt(3)});
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT MAX(term) FROM grades")) {
+                    if (rs.next() && rs.getString(1) != null) currentTerm = rs.getString(1);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MIN(student_id), 0), COALESCE(MAX(student_id), 0) FROM students")) {
+                    rs.next();
+                    minStudentId = rs.getInt(1);
+                    maxStudentId = rs.getInt(2);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MIN(fee_id), 0), COALESCE(MAX(fee_id), 0) FROM fees")) {
+                    rs.next();
+                    minFeeId = rs.getInt(1);
+                    maxFeeId = rs.getInt(2);
+                }
+            }
+        }
+    }
+
+    private final Map<Operation, Integer> weights;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Fixture fixture;
+    private final int thinkMillis;
+    private volatile long measureFrom; // System.nanoTime() from which operations are counted
+    private volatile long stopAt;
+
+    private LoadTest(Map<Operation, Integer> weights, Fixture fixture, int thinkMillis) {
+        this.weights = weights;
+        this.fixture = fixture;
+        this.thinkMillis = thinkMillis;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String configFile = AppConfig.DEFAULT_FILE;
+        int teachers = 40, admins = 4, students = 100;
+        int durationSeconds = 60, warmupSeconds = 10, thinkMillis = 1000;
+        int pool = -1;
+        long seed = 1;
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            weights.put(operation, operation.defaultWeight);
+        }
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--config": configFile = args[++i]; break;
+                case "--teachers": teachers = Integer.parseInt(args[++i]); break;
+                case "--admins": admins = Integer.parseInt(args[++i]); break;
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--duration": durationSeconds = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmupSeconds = Integer.parseInt(args[++i]); break;
+                case "--think": thinkMillis = Integer.parseInt(args[++i]); break;
+                case "--pool": pool = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--mix": parseMix(args[++i], weights); break;
+                case "--help":
+                    System.out.println("Operations and their default weights:");
+                    for (Operation operation : Operation.values()) {
+                        System.out.printf("  %-20s %3d%n", operation.label, operation.defaultWeight);
+                    }
+                    return;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        AppConfig.load(configFile);
+        Map<Role, Integer> sessions = new EnumMap<>(Role.class);
+        sessions.put(Role.TEACHER, hasWork(weights, Role.TEACHER) ? teachers : 0);
+        sessions.put(Role.ADMIN, hasWork(weights, Role.ADMIN) ? admins : 0);
+        sessions.put(Role.STUDENT, hasWork(weights, Role.STUDENT) ? students : 0);
+        int sessionCount = sessions.get(Role.TEACHER) + sessions.get(Role.ADMIN) + sessions.get(Role.STUDENT);
+        DatabaseUtility.setPoolSize(pool > 0 ? pool : Math.max(1, sessionCount));
+
+        Fixture fixture = new Fixture();
+        try (Connection conn = DatabaseUtility.getConnection()) {
+            fixture.load(conn);
+        }
+        if (fixture.assignments.isEmpty() || fixture.maxStudentId == 0 || fixture.maxFeeId == 0) {
+            System.err.println("The database needs classes with assignments, students and fees; fill it first, e.g. SchoolCli generate --students 10000");
+            System.exit(1);
+        }
+
+        System.out.printf("%d teacher, %d admin and %d student sessions, think time %d ms, %d s after %d s warm-up, pool size %d%n",
+                sessions.get(Role.TEACHER), sessions.get(Role.ADMIN), sessions.get(Role.STUDENT), thinkMillis,
+                durationSeconds, warmupSeconds, DatabaseUtility.getPoolSize());
+        LoadTest test = new LoadTest(weights, fixture, thinkMillis);
+        long[] rowLocks = innodbRowLockWaits();
+        long elapsedNanos = test.run(sessions, seed, warmupSeconds, durationSeconds);
+        long[] rowLocksAfter = innodbRowLockWaits();
+        test.report(elapsedNanos);
+        if (rowLocks != null && rowLocksAfter != null) {
+            System.out.printf("InnoDB row lock waits: %d (%d ms in total), including warm-up%n",
+                    rowLocksAfter[0] - rowLocks[0], rowLocksAfter[1] - rowLocks[1]);
+        }
+        DatabaseUtility.closeIdleConnections();
+        System.exit(0);
+    }
+
+    private static void parseMix(String mix, Map<Operation, Integer> weights) {
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            Operation match = null;
+            for (Operation operation : Operation.values()) {
+                if (operation.label.equals(pair[0].trim())) match = operation;
+            }
+            if (match == null || pair.length != 2) {
+                System.err.println("Unknown operation in --mix: " + part + " (see --help)");
+                System.exit(2);
+            }
+            weights.put(match, Math.max(0, Integer.parseInt(pair[1].trim())));
+        }
+    }
+
+    private static boolean hasWork(Map<Operation, Integer> weights, Role role) {
+        for (Operation operation : Operation.values()) {
+            if (operation.role == role && weights.get(operation) > 0) return true;
+        }
+        return false;
+    }
+
+    // Starts the sessions, waits for them to finish, and returns the length of the measured interval
+    private long run(Map<Role, Integer> sessions, long seed, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        List<Integer> teacherIds = new ArrayList<>(fixture.assignments.keySet());
+        Collections.shuffle(teacherIds, new Random(seed));
+        List<Thread> threads = new ArrayList<>();
+        int index = 0;
+        for (Map.Entry<Role, Integer> entry : sessions.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++, index++) {
+                Random random = new Random(seed * 1_000_003 + index);
+                int teacherId = teacherIds.get(i % teacherIds.size()); // Shared when there are more sessions than teachers
+                Thread thread = new Thread(new Session(entry.getKey(), teacherId, random),
+                        entry.getKey().name().toLowerCase() + "-" + (i + 1));
+                thread.setDaemon(true);
+                threads.add(thread);
+            }
+        }
+        long start = System.nanoTime();
+        measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        stopAt = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        TimeUnit.NANOSECONDS.sleep(measureFrom - System.nanoTime());
+        DatabaseUtility.resetConnectionWaitStatistics();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - measureFrom; // Sessions finish the operation running at the end
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n%-20s %8s %8s %9s %9s %9s %9s %9s %9s %9s %7s%n", "operation", "count", "ops/s",
+                "p50 ms", "p95 ms", "p99 ms", "max ms", "conflicts", "deadlocks", "lock t/o", "errors");
+        long total = 0, deadlocks = 0, errors = 0;
+        for (Operation operation : Operation.values()) {
+            Stats s = stats.get(operation);
+            long[] sorted = s.sorted();
+            if (sorted.length == 0 && s.errors + s.deadlocks + s.lockTimeouts == 0) continue;
+            System.out.printf("%-20s %8d %8.1f %9.1f %9.1f %9.1f %9.1f %9d %9d %9d %7d%n", operation.label, sorted.length,
+                    sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0, s.conflicts, s.deadlocks, s.lockTimeouts, s.errors);
+            total += sorted.length;
+            deadlocks += s.deadlocks;
+            errors += s.errors;
+        }
+        System.out.printf("%-20s %8d %8.1f%n", "all", total, total / seconds);
+        System.out.printf("%nConnection waits: %d (%.0f ms in total, longest %.0f ms), timed out: %d%n",
+                DatabaseUtility.getConnectionWaits(), DatabaseUtility.getConnectionWaitNanos() / 1e6,
+                DatabaseUtility.getLongestConnectionWaitNanos() / 1e6, DatabaseUtility.getConnectionTimeouts());
+        System.out.println("Deadlocks: " + deadlocks + ", errors: " + errors);
+        for (Operation operation : Operation.values()) {
+            if (stats.get(operation).firstError != null) {
+                System.out.println("  first " + operation.label + " error: " + stats.get(operation).firstError);
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    // MySQL's server-wide row lock wait count and time (ms), or null on other databases
+    private static long[] innodbRowLockWaits() {
+        try (Connection conn = DatabaseUtility.getConnection();
+             Statement stmt = conn.createStatement()) {
+            if (!conn.getMetaData().getDriverName().startsWith("MySQL")) return null;
+            long[] waits = new long[2];
+            try (ResultSet rs = stmt.executeQuery("SHOW GLOBAL STATUS WHERE Variable_name IN ('Innodb_row_lock_waits', 'Innodb_row_lock_time')")) {
+                while (rs.next()) {
+                    waits["Innodb_row_lock_waits".equalsIgnoreCase(rs.getString(1)) ? 0 : 1] = rs.getLong(2);
+                }
+            }
+            return waits;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    static boolean isDeadlock(SQLException e) {
+        return e.getErrorCode() == 1213 || "40001".equals(e.getSQLState());
+    }
+
+    static boolean isLockTimeout(SQLException e) {
+        return e.getErrorCode() == 1205 || "HYT00".equals(e.getSQLState());
+    }
+
+    /** One simulated user: its own table models and state, like one open panel. */
+    private final class Session implements Runnable {
+        private final Role role;
+        private final int teacherId;
+        private final Random random;
+        private final List<Operation> operations = new ArrayList<>();
+        private final int totalWeight;
+        private final LazyTableModel gradeTable = TeacherPanel.createGradeTableModel();
+        private final LazyTableModel studentTable = AdminPanel.createStudentTableModel();
+        private final LazyTableModel feeTable = AdminPanel.createFeeTableModel();
+        private final int studentId; // For student sessions
+        private int[] assignment; // The class and subject chosen in the grade form
+        private List<Integer> enrollments = Collections.emptyList(); // Its students, from the last teacher.students
+        private String gradesVersion; // Student panel's cached grade history version
+
+        Session(Role role, int teacherId, Random random) {
+            this.role = role;
+            this.teacherId = teacherId;
+            this.random = random;
+            int sum = 0;
+            for (Operation operation : Operation.values()) {
+                if (operation.role == role && weights.get(operation) > 0) {
+                    operations.add(operation);
+                    sum += weights.get(operation);
+                }
+            }
+            this.totalWeight = sum;
+            this.studentId = fixture.minStudentId + random.nextInt(fixture.maxStudentId - fixture.minStudentId + 1);
+        }
+
+        @Override
+        public void run() {
+            try {
+                think(); // Sessions start spread out rather than all at once
+                while (System.nanoTime() < stopAt) {
+                    Operation operation = pick();
+                    long start = System.nanoTime();
+                    try {
+                        perform(operation);
+                        if (start >= measureFrom) stats.get(operation).record(System.nanoTime() - start);
+                    } catch (ConflictException e) {
+                        if (start >= measureFrom) stats.get(operation).conflict(System.nanoTime() - start);
+                    } catch (SQLException e) {
+                        if (start >= measureFrom) stats.get(operation).failure(e);
+                    }
+                    think();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void think() throws InterruptedException {
+            if (thinkMillis > 0) {
+                long pause = (long) (-thinkMillis * Math.log(1 - random.nextDouble())); // Exponential, mean thinkMillis
+                Thread.sleep(Math.min(pause, Math.max(0, TimeUnit.NANOSECONDS.toMillis(stopAt - System.nanoTime()))));
+            }
+        }
+
+        private Operation pick() {
+            int r = random.nextInt(totalWeight);
+            for (Operation operation : operations) {
+                r -= weights.get(operation);
+                if (r < 0) return operation;
+            }
+            return operations.get(operations.size() - 1);
+        }
+
+        private void perform(Operation operation) throws SQLException, ConflictException {
+            switch (operation) {
+                case TEACHER_STUDENTS: loadGradeFormStudents(); break;
+                case TEACHER_GRADE_TABLE: loadTable(gradeTable, TeacherPanel.GRADE_TABLE_WHERE, TeacherPanel.GRADE_TABLE_ORDER_BY,
+                        Collections.<Object>singletonList(teacherId)); break;
+                case TEACHER_SAVE_GRADE: saveGrade(); break;
+                case TEACHER_REPORT: teacherReport(); break;
+                case ADMIN_STUDENT_TABLE: loadTable(studentTable, "", " ORDER BY s.student_id ASC", Collections.emptyList()); break;
+                case ADMIN_FEE_TABLE: loadTable(feeTable, "", " ORDER BY f.fee_id ASC", Collections.emptyList()); break;
+                case ADMIN_ARREARS: arrears(); break;
+                case ADMIN_PAYMENT: recordPayment(); break;
+                case STUDENT_INFO: studentQuery(StudentPanel.MY_INFO_SQL); break;
+                case STUDENT_CLASSES: studentQuery(StudentPanel.MY_CLASSES_SQL); break;
+                case STUDENT_GRADES: studentGrades(); break;
+                case STUDENT_FEES: studentQuery(StudentPanel.MY_FEES_SQL); break;
+            }
+        }
+
+        // As the grade form fills its student list after a subject is chosen
+        private void loadGradeFormStudents() throws SQLException {
+            List<int[]> mine = fixture.assignments.get(teacherId);
+            assignment = mine.get(random.nextInt(mine.size()));
+            List<Integer> found = new ArrayList<>();
+            try (Connection conn = DatabaseUtility.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(TeacherPanel.GRADE_FORM_STUDENTS_SQL)) {
+                pstmt.setInt(1, teacherId);
+                pstmt.setInt(2, assignment[1]);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        found.add(rs.getInt("enrollment_id"));
+                    }
+                }
+            }
+            enrollments = found;
+        }
+
+        // A table tab opening: the count, then the block on screen
+        private void loadTable(LazyTableModel model, String where, String orderBy, List<Object> parameters) throws SQLException {
+            try (Connection conn = DatabaseUtility.getConnection()) {
+                int rows = model.countRows(conn, where, parameters);
+                model.reset(where, orderBy, parameters, rows);
+                model.fetchBlock(conn, 0);
+            }
+        }
+
+        // Add or update a grade in the current term for one of the form's students, then read the row back for the table
+        private void saveGrade() throws SQLException, ConflictException {
+            if (enrollments.isEmpty()) {
+                loadGradeFormStudents();
+                if (enrollments.isEmpty()) return;
+            }
+            int enrollmentId = enrollments.get(random.nextInt(enrollments.size()));
+            int subjectId = assignment[1];
+            double score = 40 + random.nextInt(6000) / 100.0;
+            try (Connection conn = DatabaseUtility.getConnection()) {
+                int gradeId = 0, version = 0; // What the teacher's table shows for this slot
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT grade_id, row_version FROM grades WHERE enrollment_id = ? AND subject_id = ? AND term = ?")) {
+                    pstmt.setInt(1, enrollmentId);
+                    pstmt.setInt(2, subjectId);
+                    pstmt.setString(3, fixture.currentTerm);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            gradeId = rs.getInt(1);
+                            version = rs.getInt(2);
+                        }
+                    }
+                }
+                java.sql.Date today = new java.sql.Date(System.currentTimeMillis());
+                if (gradeId == 0) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(TeacherPanel.GRADE_INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                        pstmt.setInt(1, enrollmentId);
+                        pstmt.setInt(2, subjectId);
+                        pstmt.setDouble(3, score);
+                        pstmt.setString(4, null);
+                        pstmt.setString(5, fixture.currentTerm);
+                        pstmt.setDate(6, today);
+                        pstmt.executeUpdate();
+                        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                            if (keys.next()) gradeTable.fetchRow(conn, keys.getInt(1));
+                        }
+                    } catch (SQLIntegrityConstraintViolationException e) {
+                        throw new ConflictException(); // Another session added it first
+                    }
+                } else {
+                    try (PreparedStatement pstmt = conn.prepareStatement(TeacherPanel.GRADE_UPDATE_SQL)) {
+                        pstmt.setInt(1, enrollmentId);
+                        pstmt.setInt(2, subjectId);
+                        pstmt.setDouble(3, score);
+                        pstmt.setString(4, "Revised");
+                        pstmt.setString(5, fixture.currentTerm);
+                        pstmt.setDate(6, today);
+                        pstmt.setInt(7, gradeId);
+                        pstmt.setInt(8, version);
+                        if (pstmt.executeUpdate() == 0) throw new ConflictException();
+                    }
+                    gradeTable.fetchRow(conn, gradeId);
+                }
+            }
+        }
+
+        private void teacherReport() throws SQLException {
+            List<int[]> mine = fixture.assignments.get(teacherId);
+            int[] chosen = mine.get(random.nextInt(mine.size()));
+            try (Connection conn = DatabaseUtility.getConnection()) {
+                PerformanceReport.generate(conn, "Class " + chosen[0], "Subject " + chosen[1], chosen[0], chosen[1],
+                        fixture.currentTerm, 10, teacherId);
+            }
+        }
+
+        private void arrears() throws SQLException {
+            try (Connection conn = DatabaseUtility.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(AdminPanel.ARREARS_SQL)) {
+                while (rs.next()) {
+                    rs.getBigDecimal("outstanding");
+                }
+            }
+        }
+
+        // The fee form: a record is selected, part of the balance paid, the record saved and read back
+        private void recordPayment() throws SQLException, ConflictException {
+            int feeId = fixture.minFeeId + random.nextInt(fixture.maxFeeId - fixture.minFeeId + 1);
+            try (Connection conn = DatabaseUtility.getConnection()) {
+                int studentId, classId, version;
+                String term;
+                BigDecimal due, paid;
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT student_id, class_id, term, amount_due, amount_paid, row_version FROM fees WHERE fee_id = ?")) {
+                    pstmt.setInt(1, feeId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) return; // A gap in the ids
+                        studentId = rs.getInt(1);
+                        classId = rs.getInt(2);
+                        term = rs.getString(3);
+                        due = rs.getBigDecimal(4);
+                        paid = rs.getBigDecimal(5);
+                        version = rs.getInt(6);
+                    }
+                }
+                BigDecimal payment = due.subtract(paid).multiply(BigDecimal.valueOf(1 + random.nextInt(10))).divide(BigDecimal.TEN);
+                try (PreparedStatement pstmt = conn.prepareStatement(AdminPanel.FEE_UPDATE_SQL)) {
+                    pstmt.setInt(1, studentId);
+                    pstmt.setInt(2, classId);
+                    pstmt.setString(3, term);
+                    pstmt.setBigDecimal(4, due);
+                    pstmt.setBigDecimal(5, paid.add(payment).setScale(2, RoundingMode.DOWN));
+                    pstmt.setDate(6, new java.sql.Date(System.currentTimeMillis()));
+                    pstmt.setInt(7, feeId);
+                    pstmt.setInt(8, version);
+                    if (pstmt.executeUpdate() == 0) throw new ConflictException();
+                }
+                feeTable.fetchRow(conn, feeId);
+            }
+        }
+
+        private void studentQuery(String sql) throws SQLException {
+            try (Connection conn = DatabaseUtility.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, studentId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString(1);
+                    }
+                }
+            }
+        }
+
+        private void studentGrades() throws SQLException {
+            String version;
+            try (Connection conn = DatabaseUtility.getConnection()) {
+                try (PreparedStatement pstmt = conn.prepareStatement(StudentPanel.MY_GRADES_VERSION_SQL)) {
+                    pstmt.setInt(1, studentId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        rs.next();
+                        version = rs.getLong("cnt") + ":" + rs.getLong("checksum");
+                    }
+                }
+                if (version.equals(gradesVersion)) return;
+                try (PreparedStatement pstmt = conn.prepareStatement(StudentPanel.MY_GRADES_SQL)) {
+                    pstmt.setInt(1, studentId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            rs.getString(1);
+                        }
+                    }
+                }
+            }
+            gradesVersion = version;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.school;
+
+import com.school.jobs.DataGenerator;
+import com.school.panels.AdminPanel;
+import com.school.panels.LazyTableModel;
+import com.school.panels.LoginPanel;
+import com.school.panels.StudentPanel;
+import com.school.panels.TableQueryState;
+import com.school.panels.TeacherPanel;
+import com.school.panels.TypeaheadComboBox;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Catches index regressions before they reach production: runs EXPLAIN on every read query the panels
+ * and reports run (the same SQL, from the panels' public constants and table models, with sample
+ * parameters taken from the data) and fails any plan that reads a table in full (a full table or full
+ * index scan) or sorts rows in a filesort, where MySQL expects to examine more than --max-rows rows of
+ * that table. A plan that is fine for the dummy data can turn into a full scan at 50,000 students, so
+ * run it against a database filled with realistic amounts of data, e.g. with --generate on an empty
+ * test database. A few queries read a whole table by design (the arrears summary, the assignments
+ * list, the counts of the admin tables and the loading of the global search index); their scans of
+ * that table are allowed, with the reason printed. The admin tables are checked as loaded, sorted by a
+ * column and filtered, through the same sort and filter state as the tabs.
+ * <pre>
+ *   java -cp &lt;classpath&gt; com.school.QueryPlanCheck [--config config.properties] [--generate &lt;students&gt;]
+ *        [--max-rows 1000] [--verbose]
+ * </pre>
+ * Runs ANALYZE TABLE first so the row estimates are current. Prints each query's verdict (the plans of
+ * failed queries, or of all with --verbose) and exits with status 0 if every plan passed, 3 if any
+ * failed, 1 on an error and 2 for a usage error. MySQL only.
+ */
+public class QueryPlanCheck {
+
+    public static final int DEFAULT_MAX_ROWS = 1000;
+
+    private static final String[] TABLES = {"users", "teachers", "students", "classes", "subjects", "class_assignments", "enrollments", "grades", "fees"};
+
+    private static final Runnable NO_ACTION = () -> { }; // The check never reloads a table
+
+    /** A registered query with its sample parameters. */
+    private static final class Query {
+        final String name;
+        final String sql;
+        final Object[] parameters;
+        final Map<String, String> allowedScans = new HashMap<>(); // Table alias to why reading it in full is fine
+
+        Query(String name, String sql, Object... parameters) {
+            this.name = name;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        Query allowScan(String table, String reason) {
+            allowedScans.put(table, reason);
+            return this;
+        }
+    }
+
+    /** Parameter values that exist in the data, so the plans are those of real lookups. */
+    private static final class Sample {
+        int teacherId, classId, subjectId, studentId;
+        String term = "Term 1";
+        String username = "admin";
+        String namePrefix = "A"; // Of a student's name, as typed into a search or filter
+        String teacherNamePrefix = "A";
+        String className = "";
+        String subjectName = "";
+
+        void load(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery("SELECT teacher_id, class_id, subject_id FROM class_assignments ORDER BY assignment_id LIMIT 1")) {
+                    if (!rs.next()) throw new SQLException("No class assignments; fill the database first, e.g. with --generate 10000");
+                    teacherId = rs.getInt(1);
+                    classId = rs.getInt(2);
+                    subjectId = rs.getInt(3);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT MAX(term) FROM grades")) {
+                    if (rs.next() && rs.getString(1) != null) term = rs.getString(1);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT username FROM users ORDER BY user_id LIMIT 1")) {
+                    if (rs.next()) username = rs.getString(1);
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT t.name, c.class_name, sub.subject_name FROM teachers t, classes c, subjects sub WHERE t.teacher_id = ? AND c.class_id = ? AND sub.subject_id = ?")) {
+                pstmt.setInt(1, teacherId);
+                pstmt.setInt(2, classId);
+                pstmt.setInt(3, subjectId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        teacherNamePrefix = prefix(rs.getString(1));
+                        className = rs.getString(2);
+                        subjectName = rs.getString(3);
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT e.student_id, s.name FROM enrollments e JOIN students s ON e.student_id = s.student_id WHERE e.class_id = ? LIMIT 1")) {
+                pstmt.setInt(1, classId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) throw new SQLException("No enrollments in class " + classId + "; fill the database first");
+                    studentId = rs.getInt(1);
+                    namePrefix = prefix(rs.getString(2));
+                }
+            }
+        }
+
+        private static String prefix(String name) {
+            return name.substring(0, Math.min(2, name.length()));
+        }
+    }
+
+    /** One row of EXPLAIN output. */
+    private static final class PlanRow {
+        String table, type, key, extra;
+        long rows;
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %-8s %-32s %10d  %s", table, type, key != null ? key : "-", rows, extra != null ? extra : "");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String configFile = AppConfig.DEFAULT_FILE;
+        int generate = 0;
+        long maxRows = DEFAULT_MAX_ROWS;
+        boolean verbose = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--config": configFile = args[++i]; break;
+                case "--generate": generate = Integer.parseInt(args[++i]); break;
+                case "--max-rows": maxRows = Long.parseLong(args[++i]); break;
+                case "--verbose": verbose = true; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        AppConfig.load(configFile);
+        int failed;
+        try {
+            if (generate > 0) {
+                long start = System.nanoTime();
+                DataGenerator.Result result = DataGenerator.load(generate, DataGenerator.DEFAULT_TERMS, DataGenerator.DEFAULT_SEED, DataGenerator.DEFAULT_BATCH_SIZE);
+                System.out.printf("Generated %d rows for %d students in %d s%n", result.getTotalRows(), generate, (System.nanoTime() - start) / 1_000_000_000L);
+            }
+            failed = run(maxRows, verbose);
+        } catch (SQLException e) {
+            System.err.println("Error: " + e.getMessage());
+            DatabaseUtility.closeIdleConnections();
+            System.exit(1);
+            return;
+        }
+        DatabaseUtility.closeIdleConnections();
+        System.exit(failed > 0 ? 3 : 0);
+    }
+
+    // Returns the number of failed plans
+    private static int run(long maxRows, boolean verbose) throws SQLException {
+        try (Connection conn = DatabaseUtility.getConnection()) {
+            String product = conn.getMetaData().getDatabaseProductName();
+            if (!product.contains("MySQL") && !product.contains("MariaDB")) {
+                throw new SQLException("Query plans are only checked on MySQL, not " + product + ".");
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE TABLE " + String.join(", ", TABLES)); // Row estimates as of now, e.g. right after generating
+            }
+            long students;
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM students")) {
+                rs.next();
+                students = rs.getLong(1);
+            }
+            Sample sample = new Sample();
+            sample.load(conn);
+            System.out.printf("Checking query plans against %d students; full scans and filesorts over %d rows fail%n", students, maxRows);
+
+            List<Query> queries = queries(sample);
+            int failed = 0;
+            for (Query query : queries) {
+                List<PlanRow> plan = explain(conn, query);
+                List<String> problems = new ArrayList<>();
+                List<String> allowed = new ArrayList<>();
+                for (PlanRow row : plan) {
+                    String problem = problem(row, maxRows);
+                    if (problem == null) continue;
+                    String reason = query.allowedScans.get(row.table);
+                    if (reason != null) {
+                        allowed.add(problem + " (allowed: " + reason + ")");
+                    } else {
+                        problems.add(problem);
+                    }
+                }
+                if (!problems.isEmpty()) failed++;
+                System.out.printf("%s  %-32s %s%n", problems.isEmpty() ? "PASS" : "FAIL", query.name,
+                        String.join("; ", problems.isEmpty() ? allowed : problems));
+                if (!problems.isEmpty() || verbose) {
+                    for (PlanRow row : plan) {
+                        System.out.println("        " + row);
+                    }
+                }
+            }
+            System.out.printf("%d of %d query plans failed%n", failed, queries.size());
+            return failed;
+        }
+    }
+
+    // What is wrong with one table's access, or null
+    private static String problem(PlanRow row, long maxRows) {
+        if (row.table == null || row.table.startsWith("<") || row.rows <= maxRows) {
+            return null; // A derived or union result is as big as the query that made it, which is checked itself
+        }
+        boolean fullScan = "ALL".equals(row.type) || "index".equals(row.type);
+        boolean filesort = row.extra != null && row.extra.contains("Using filesort");
+        if (!fullScan && !filesort) {
+            return null;
+        }
+        String what = fullScan && filesort ? "full scan and filesort" : fullScan ? ("ALL".equals(row.type) ? "full table scan" : "full index scan") : "filesort";
+        return what + " of " + row.table + " (~" + row.rows + " rows)";
+    }
+
+    private static List<PlanRow> explain(Connection conn, Query query) throws SQLException {
+        List<PlanRow> plan = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + query.sql)) {
+            for (int i = 0; i < query.parameters.length; i++) {
+                pstmt.setObject(i + 1, query.parameters[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    PlanRow row = new PlanRow();
+                    row.table = rs.getString("table");
+                    row.type = rs.getString("type");
+                    row.key = rs.getString("key");
+                    row.rows = rs.getLong("rows");
+                    row.extra = rs.getString("Extra");
+                    plan.add(row);
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Error explaining " + query.name + ": " + e.getMessage(), e);
+        }
+        return plan;
+    }
+
+    /**
+     * Registers a table's count and first block: unfiltered in key order as the tab first loads it, sorted by
+     * a column and filtered by a column.
+     *
+     * @param countedTables Aliases of the tables the unfiltered count may read in full; it counts every row.
+     */
+    private static void addTable(List<Query> all, String name, LazyTableModel model, Supplier<TableQueryState> states,
+                                 int sortColumn, boolean sortAscending, int filterColumn, String filter, String... countedTables) {
+        int block = LazyTableModel.BLOCK_SIZE;
+        TableQueryState plain = states.get();
+        Query count = new Query(name + ".count", model.countQuery(plain.whereClause()));
+        for (String table : countedTables) {
+            count.allowScan(table, "the tab shows the number of rows");
+        }
+        all.add(count);
+        all.add(new Query(name + ".block", model.blockQuery(plain.whereClause(), plain.orderByClause()), block, 0));
+
+        TableQueryState sorted = states.get();
+        sorted.sortBy(sortColumn, sortAscending);
+        all.add(new Query(name + ".sorted", model.blockQuery(sorted.whereClause(), sorted.orderByClause()), block, 0));
+
+        TableQueryState filtered = states.get();
+        filtered.setFilter(filterColumn, filter);
+        List<Object> parameters = filtered.filterParameters();
+        all.add(new Query(name + ".filteredCount", model.countQuery(filtered.whereClause()), parameters.toArray()));
+        parameters.add(block);
+        parameters.add(0);
+        all.add(new Query(name + ".filtered", model.blockQuery(filtered.whereClause(), filtered.orderByClause()), parameters.toArray()));
+    }
+
+    // The registry: every read query of the panels and reports. A query used by several panels is checked once.
+    private static List<Query> queries(Sample s) {
+        LazyTableModel grades = TeacherPanel.createGradeTableModel();
+        int block = LazyTableModel.BLOCK_SIZE;
+        List<Query> all = new ArrayList<>();
+
+        all.add(new Query("login.user", LoginPanel.USER_SQL, s.username));
+
+        all.add(new Query("student.info", StudentPanel.MY_INFO_SQL, s.studentId));
+        all.add(new Query("student.classes", StudentPanel.MY_CLASSES_SQL, s.studentId));
+        all.add(new Query("student.gradesVersion", StudentPanel.MY_GRADES_VERSION_SQL, s.studentId));
+        all.add(new Query("student.grades", StudentPanel.MY_GRADES_SQL, s.studentId));
+        all.add(new Query("student.fees", StudentPanel.MY_FEES_SQL, s.studentId));
+
+        all.add(new Query("teacher.gradeFormStudents", TeacherPanel.GRADE_FORM_STUDENTS_SQL, s.teacherId, s.subjectId));
+        all.add(new Query("teacher.subjects", TeacherPanel.TEACHER_SUBJECTS_SQL, s.teacherId));
+        all.add(new Query("teacher.students", TeacherPanel.TEACHER_STUDENTS_SQL, s.teacherId));
+        all.add(new Query("teacher.classes", TeacherPanel.TEACHER_CLASSES_SQL, s.teacherId));
+        all.add(new Query("teacher.terms", TeacherPanel.TEACHER_TERMS_SQL, s.teacherId));
+        all.add(new Query("teacher.classSubjects", TeacherPanel.TEACHER_CLASS_SUBJECTS_SQL, s.teacherId, s.classId));
+        all.add(new Query("teacher.reportTerms", TeacherPanel.REPORT_TERMS_SQL, s.teacherId, s.classId, s.subjectId));
+        all.add(new Query("teacher.studentTerms", TeacherPanel.STUDENT_SUBJECT_TERMS_SQL, s.studentId, s.subjectId));
+        all.add(new Query("teacher.enrollmentId", TeacherPanel.ENROLLMENT_ID_SQL, s.studentId, s.subjectId, s.teacherId));
+        all.add(new Query("teacher.gradeTableCount", grades.countQuery(TeacherPanel.GRADE_TABLE_WHERE), s.teacherId));
+        all.add(new Query("teacher.gradeTableBlock", grades.blockQuery(TeacherPanel.GRADE_TABLE_WHERE, TeacherPanel.GRADE_TABLE_ORDER_BY), s.teacherId, block, 0));
+        all.add(new Query("teacher.report", PerformanceReport.TEACHER_GRADES_SQL, s.teacherId, s.classId, s.subjectId, s.term));
+
+        all.add(new Query("terms", TeacherPanel.TERMS_SQL));
+        all.add(new Query("admin.terms", AdminPanel.TERMS_SQL));
+        all.add(new Query("admin.assignments", AdminPanel.ASSIGNMENTS_SQL)
+                .allowScan("ca", "the tab lists every assignment"));
+        all.add(new Query("admin.classSubjects", AdminPanel.CLASS_SUBJECTS_SQL, s.classId));
+        all.add(new Query("admin.classSubjectTerms", AdminPanel.CLASS_SUBJECT_TERMS_SQL, s.classId, s.subjectId));
+        all.add(new Query("admin.report", PerformanceReport.GRADES_SQL, s.classId, s.subjectId, s.term));
+        all.add(new Query("report.distribution", GradeDistribution.query(10), s.classId, s.subjectId, s.term));
+        all.add(new Query("admin.arrears", AdminPanel.ARREARS_SQL)
+                .allowScan("f", "sums every unpaid fee, from the covering index idx_fees_arrears"));
+        all.add(new Query("admin.studentSearch", TypeaheadComboBox.prefixQuery("students", "student_id", "name"), s.namePrefix + "%", 50));
+        for (SearchIndex.EntityType type : SearchIndex.EntityType.values()) {
+            String table = type.getLoadSql().substring(type.getLoadSql().lastIndexOf(' ') + 1);
+            all.add(new Query("search.load" + type.getDisplayName(), type.getLoadSql())
+                    .allowScan(table, "the global search index is built from every name"));
+        }
+
+        // The admin tables' paged queries, through the same table models and sort/filter state as the tabs:
+        // sorted by a column and filtered by one as from the header and the filter bar (column indexes are model columns)
+        addTable(all, "admin.students", AdminPanel.createStudentTableModel(), () -> AdminPanel.createStudentQueryState(NO_ACTION),
+                1, true, 1, s.namePrefix, "s");
+        addTable(all, "admin.teachers", AdminPanel.createTeacherTableModel(), () -> AdminPanel.createTeacherQueryState(NO_ACTION),
+                1, true, 1, s.teacherNamePrefix, "teachers");
+        addTable(all, "admin.classes", AdminPanel.createClassTableModel(), () -> AdminPanel.createClassQueryState(NO_ACTION),
+                1, true, 1, s.className, "classes");
+        addTable(all, "admin.subjects", AdminPanel.createSubjectTableModel(), () -> AdminPanel.createSubjectQueryState(NO_ACTION),
+                1, true, 1, s.subjectName, "subjects");
+        addTable(all, "admin.enrollments", AdminPanel.createEnrollmentTableModel(), () -> AdminPanel.createEnrollmentQueryState(NO_ACTION),
+                1, true, 2, s.className, "e", "s");
+        addTable(all, "admin.fees", AdminPanel.createFeeTableModel(), () -> AdminPanel.createFeeQueryState(NO_ACTION),
+                6, false, 3, s.term, "f");
+
+        Map<String, Query> bySql = new LinkedHashMap<>();
+        for (Query query : all) {
+            bySql.putIfAbsent(query.sql, query);
+        }
+        return new ArrayList<>(bySql.values());
+    }
+}
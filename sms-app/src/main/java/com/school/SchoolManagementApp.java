@@ -6,6 +6,7 @@ import com.school.panels.LoginPanel;
 import com.school.panels.TeacherPanel;
 import com.school.panels.StudentPanel; // Import StudentPanel
 import com.school.DatabaseUtility; // Ensure this import is present
+import com.school.server.DataServer;
 
 import javax.swing.*;
 import java.awt.*;
@@ -13,8 +14,6 @@ import java.sql.*;
 import java.io.File; // Keep for potential future use, though less critical for MySQL init
 import java.io.IOException;
 import java.util.Properties;
-import java.io.InputStream;
-import java.io.FileInputStream; // Import for reading config file
 
 // Implement LoginListener to receive login success notifications
 public class SchoolManagementApp extends JFrame implements LoginPanel.LoginListener {
@@ -24,11 +23,7 @@ public class SchoolManagementApp extends JFrame implements LoginPanel.LoginListe
 
     // --- Database Configuration ---\
     // Assumed to be in the application's working directory or classpath
-    private static final String CONFIG_FILE = "config.properties";
-    // These will be populated from config.properties
-    private static String dbUrl;
-    private static String dbUser;
-    private static String dbPassword;
+    private static final String CONFIG_FILE = AppConfig.DEFAULT_FILE;
     // private boolean useMemory = false; // Less relevant for MySQL, but can be kept for flexibility
 
     // Panels - Keep references to the main panels
@@ -63,7 +58,13 @@ public class SchoolManagementApp extends JFrame implements LoginPanel.LoginListe
         setLocationRelativeTo(null); // Center the window
 
         cardLayout = new CardLayout();
-        mainPanel = new JPanel(cardLayout);
+        mainPanel = new JPanel(cardLayout) {
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                StartupTimer.painted(); // The login screen or a dashboard has been drawn
+            }
+        };
 
         // Initialize and add the Login Panel
         loginPanel = new LoginPanel(this); // Pass 'this' as the LoginListener
@@ -73,6 +74,13 @@ public class SchoolManagementApp extends JFrame implements LoginPanel.LoginListe
 
         // Initially show the login panel
         cardLayout.show(mainPanel, "Login");
+
+        StartupTimer.expect(StartupTimer.LOGIN_SCREEN, true);
+        String autoLogin = StartupTimer.autoLogin(); // Startup benchmarks only
+        if (autoLogin != null) {
+            String[] credentials = autoLogin.split(":", 3);
+            SwingUtilities.invokeLater(() -> loginPanel.login(credentials[0], credentials[1].toCharArray(), credentials[2]));
+        }
     }
 
     /**
@@ -80,25 +88,9 @@ public class SchoolManagementApp extends JFrame implements LoginPanel.LoginListe
      * Sets the loaded properties in the DatabaseUtility class.
      */
     private void loadDatabaseConfig() {
-        Properties prop = new Properties();
-        try (InputStream input = new FileInputStream(CONFIG_FILE)) {
-            prop.load(input);
-            dbUrl = prop.getProperty("db.url");
-            dbUser = prop.getProperty("db.user");
-            dbPassword = prop.getProperty("db.password");
-
-            // Set the configuration in the DatabaseUtility
-            DatabaseUtility.setDatabaseUrl(dbUrl);
-            DatabaseUtility.setDatabaseCredentials(dbUser, dbPassword);
-
-            // Basic validation
-            if (dbUrl == null || dbUser == null || dbPassword == null) {
-                throw new IOException("Database configuration incomplete in " + CONFIG_FILE);
-            }
-
-            System.out.println("Database configuration loaded successfully.");
-
-        } catch (IOException ex) {
+        try {
+            loadConfig();
+        } catch (IOException | NumberFormatException ex) {
             System.err.println("Error loading database configuration file: " + CONFIG_FILE);
             System.err.println("Please ensure '" + CONFIG_FILE + "' exists in the application directory " +
                                "and contains 'db.url', 'db.user', and 'db.password'.");
@@ -112,6 +104,27 @@ public class SchoolManagementApp extends JFrame implements LoginPanel.LoginListe
         }
     }
 
+    /**
+     * Reads config.properties and applies the shared settings (see {@link AppConfig}), the login
+     * session cache setting and the UI stall threshold.
+     *
+     * @return The loaded properties.
+     * @throws IOException           If the file cannot be read or the database settings are incomplete.
+     * @throws NumberFormatException If a numeric setting is not a number.
+     */
+    public static Properties loadConfig() throws IOException {
+        Properties prop = AppConfig.load(CONFIG_FILE);
+        // Login session cache (optional)
+        String sessionMinutes = prop.getProperty("auth.session.ttl.minutes");
+        if (sessionMinutes != null) LoginPanel.setSessionTimeToLive(Integer.parseInt(sessionMinutes.trim()));
+        // Logging of UI freezes (optional; 0 turns it off)
+        String stallMillis = prop.getProperty("ui.stall.threshold.millis");
+        EdtWatchdog.start(stallMillis != null ? Long.parseLong(stallMillis.trim()) : EdtWatchdog.DEFAULT_THRESHOLD_MILLIS);
+
+        System.out.println("Database configuration loaded successfully.");
+        return prop;
+    }
+
 
     /**
      * Implementation of the LoginListener interface.
@@ -124,6 +137,8 @@ public class SchoolManagementApp extends JFrame implements LoginPanel.LoginListe
      */
     @Override
     public void onLoginSuccess(String role, int userId, int teacherId) {
+        StartupTimer.expect(StartupTimer.DASHBOARD, false);
+
         // Remove any previously displayed role panel
         Component[] components = mainPanel.getComponents();
         for (Component comp : components) {
@@ -213,6 +228,14 @@ public class SchoolManagementApp extends JFrame implements LoginPanel.LoginListe
 
     // Main method to start the application
     public static void main(String[] args) {
+        // Headless data server mode: no GUI, serves the data over HTTP to other clients
+        if (args.length > 0 && "--server".equals(args[0])) {
+            DataServer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        TracingEventQueue.install(); // Ties clicks to the queries they cause in flight recordings
+
         // Run the GUI creation on the Event Dispatch Thread (EDT)
         SwingUtilities.invokeLater(() -> {
              // Attempt to load FlatLaf Look and Feel first
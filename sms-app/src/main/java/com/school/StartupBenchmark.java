@@ -0,0 +1,113 @@
+package com.school;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the application several times in fresh JVMs and reports its time to the login screen and,
+ * with {@code --autologin}, to the dashboard (see {@link StartupTimer}), with and without the CDS
+ * archive built by the {@code cds} Maven profile. Exits with status 3 if a median is over its budget,
+ * so it can hold a startup budget in a build. Needs a display (e.g. xvfb-run on a build server).
+ * <pre>
+ *   java -cp target/SchoolManagementSystem-1.0-SNAPSHOT.jar com.school.StartupBenchmark [--runs 5]
+ *        [--archive target/sms.jsa] [--autologin admin:adminpass:Admin]
+ *        [--budget-login-screen 1500] [--budget-dashboard 500]
+ * </pre>
+ * Run it from the directory holding config.properties.
+ */
+public class StartupBenchmark {
+
+    private static final Pattern MILESTONE = Pattern.compile("\\[startup\\] ([\\w-]+): (\\d+) ms");
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        String archive = null;
+        String autoLogin = null;
+        Long budgetLogin = null;
+        Long budgetDashboard = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs": runs = Integer.parseInt(args[++i]); break;
+                case "--archive": archive = args[++i]; break;
+                case "--autologin": autoLogin = args[++i]; break;
+                case "--budget-login-screen": budgetLogin = Long.parseLong(args[++i]); break;
+                case "--budget-dashboard": budgetDashboard = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (archive != null && !new File(archive).isFile()) {
+            System.err.println("No CDS archive at " + archive + "; build it with mvn -Pcds package.");
+            System.exit(2);
+        }
+
+        System.out.printf("%d runs per configuration, Java %s%n", runs, System.getProperty("java.version"));
+        System.out.printf("%-14s %-14s %8s %8s %8s%n", "configuration", "milestone", "min ms", "median", "max ms");
+        boolean overBudget = measure("default", null, runs, autoLogin, budgetLogin, budgetDashboard);
+        if (archive != null) {
+            overBudget |= measure("CDS archive", archive, runs, autoLogin, budgetLogin, budgetDashboard);
+        }
+        System.exit(overBudget ? 3 : 0);
+    }
+
+    // Starts the application the given number of times and prints its milestones; true if a median is over budget
+    private static boolean measure(String name, String archive, int runs, String autoLogin,
+                                   Long budgetLogin, Long budgetDashboard) throws IOException, InterruptedException {
+        List<Long> loginScreen = new ArrayList<>();
+        List<Long> dashboard = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            if (archive != null) {
+                command.add("-XX:SharedArchiveFile=" + archive);
+            }
+            command.add("-Dsms.startup.exitAfter=" + (autoLogin != null ? StartupTimer.DASHBOARD : StartupTimer.LOGIN_SCREEN));
+            if (autoLogin != null) {
+                command.add("-Dsms.startup.autologin=" + autoLogin);
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("com.school.SchoolManagementApp");
+
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    Matcher m = MILESTONE.matcher(line);
+                    if (!m.find()) continue;
+                    long millis = Long.parseLong(m.group(2));
+                    (StartupTimer.LOGIN_SCREEN.equals(m.group(1)) ? loginScreen : dashboard).add(millis);
+                }
+            }
+            if (process.waitFor() != 0) {
+                System.err.println(name + " run " + (run + 1) + " exited with status " + process.exitValue());
+            }
+        }
+        boolean overBudget = report(name, StartupTimer.LOGIN_SCREEN, loginScreen, budgetLogin);
+        if (autoLogin != null) {
+            overBudget |= report(name, StartupTimer.DASHBOARD, dashboard, budgetDashboard);
+        }
+        return overBudget;
+    }
+
+    private static boolean report(String name, String milestone, List<Long> times, Long budget) {
+        if (times.isEmpty()) {
+            System.out.printf("%-14s %-14s %s%n", name, milestone, "not reached");
+            return budget != null;
+        }
+        Collections.sort(times);
+        long median = times.get(times.size() / 2);
+        String verdict = budget == null ? "" : median <= budget ? "  within budget (" + budget + ")" : "  OVER BUDGET (" + budget + ")";
+        System.out.printf("%-14s %-14s %8d %8d %8d%s%n", name, milestone, times.get(0), median, times.get(times.size() - 1), verdict);
+        return budget != null && median > budget;
+    }
+}
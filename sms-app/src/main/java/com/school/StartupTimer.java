@@ -0,0 +1,83 @@
+package com.school;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures how long the application takes to show the login screen and, after a login, the
+ * dashboard of the user's role. A milestone is reached when the main window first paints it.
+ * <p>
+ * Off unless one of these system properties is set, so normal starts do not even load the
+ * management classes it uses:
+ * <ul>
+ *   <li>{@code sms.startup.report=true} prints each milestone to standard error.</li>
+ *   <li>{@code sms.startup.exitAfter=login-screen|dashboard} also exits once that milestone is reached
+ *       (used by startup benchmarks and by the CDS archive training run).</li>
+ *   <li>{@code sms.startup.budget.login-screen=<ms>} / {@code sms.startup.budget.dashboard=<ms>} report a
+ *       milestone reached later than its budget, and make the exit status 3.</li>
+ *   <li>{@code sms.startup.autologin=<username>:<password>:<role>} logs in as soon as the login screen is
+ *       shown, so the dashboard can be timed without anyone typing (development accounts only).</li>
+ * </ul>
+ * The login screen is timed from JVM start; the dashboard from the moment the login was accepted,
+ * so neither typing the credentials nor checking them is counted.
+ */
+public final class StartupTimer {
+
+    public static final String LOGIN_SCREEN = "login-screen";
+    public static final String DASHBOARD = "dashboard";
+
+    private static final String EXIT_AFTER = System.getProperty("sms.startup.exitAfter");
+    private static final boolean ENABLED = Boolean.getBoolean("sms.startup.report") || EXIT_AFTER != null;
+
+    private static String pendingMilestone; // The milestone the next paint of the main window completes
+    private static long pendingSince; // When it started, in milliseconds since the epoch
+    private static boolean overBudget;
+
+    private StartupTimer() {
+    }
+
+    /** @return true if startup timing was requested. */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /** @return The credentials to log in with automatically (username:password:role), or null. */
+    public static String autoLogin() {
+        return ENABLED ? System.getProperty("sms.startup.autologin") : null;
+    }
+
+    /**
+     * Starts timing a milestone. Must be called on the EDT.
+     *
+     * @param milestone  {@link #LOGIN_SCREEN} or {@link #DASHBOARD}.
+     * @param fromJvmStart true to time it from JVM start, false from now.
+     */
+    public static void expect(String milestone, boolean fromJvmStart) {
+        if (!ENABLED) return;
+        pendingMilestone = milestone;
+        pendingSince = fromJvmStart ? ManagementFactory.getRuntimeMXBean().getStartTime() : System.currentTimeMillis();
+    }
+
+    /**
+     * Called after the main window has painted; completes the expected milestone, if any.
+     * Must be called on the EDT.
+     */
+    public static void painted() {
+        if (!ENABLED || pendingMilestone == null) return;
+        String milestone = pendingMilestone;
+        pendingMilestone = null;
+        long elapsed = System.currentTimeMillis() - pendingSince;
+
+        String budget = System.getProperty("sms.startup.budget." + milestone);
+        String verdict = "";
+        if (budget != null) {
+            boolean within = elapsed <= Long.parseLong(budget.trim());
+            overBudget |= !within;
+            verdict = within ? " (budget " + budget.trim() + " ms)" : " OVER BUDGET (" + budget.trim() + " ms)";
+        }
+        System.err.println("[startup] " + milestone + ": " + elapsed + " ms" + verdict);
+
+        if (milestone.equals(EXIT_AFTER)) {
+            System.exit(overBudget ? 3 : 0);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.school;
+
+import com.school.metrics.Tracing;
+
+import javax.swing.AbstractButton;
+import javax.swing.JTabbedPane;
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+
+/**
+ * Gives each mouse click and key press a new correlation id while it is dispatched, so the background
+ * tasks it queues and the statements they run share it in a flight recording (see {@link Tracing}),
+ * and records the dispatch itself as a UI action event. Also tells {@link EdtWatchdog} when each event's
+ * dispatch starts and ends.
+ */
+public class TracingEventQueue extends EventQueue {
+
+    /** Replaces the system event queue; call once at startup. */
+    public static void install() {
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new TracingEventQueue());
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        EdtWatchdog.dispatchStarted(event);
+        try {
+            if (!isUserAction(event)) {
+                super.dispatchEvent(event);
+                return;
+            }
+            Tracing.Scope scope = Tracing.enter(Tracing.newCorrelationId());
+            try (Tracing.Span span = Tracing.uiAction(describe(event))) {
+                super.dispatchEvent(event);
+                span.succeeded();
+            } finally {
+                scope.close();
+            }
+        } finally {
+            EdtWatchdog.dispatchEnded();
+        }
+    }
+
+    private static boolean isUserAction(AWTEvent event) {
+        switch (event.getID()) {
+            case MouseEvent.MOUSE_PRESSED: // Tab switches and combo boxes act on press
+            case MouseEvent.MOUSE_RELEASED: // Buttons act on release
+            case KeyEvent.KEY_PRESSED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // E.g. "MOUSE_RELEASED on AdminPanel: JButton 'Refresh'"
+    private static String describe(AWTEvent event) {
+        String type = event.getID() == KeyEvent.KEY_PRESSED ? "KEY_PRESSED" : event.getID() == MouseEvent.MOUSE_PRESSED ? "MOUSE_PRESSED" : "MOUSE_RELEASED";
+        if (!(event.getSource() instanceof Component)) {
+            return type;
+        }
+        Component component = (Component) event.getSource();
+        StringBuilder text = new StringBuilder(type).append(" on ");
+        for (Component parent = component.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent.getClass().getName().startsWith("com.school.panels.")) {
+                text.append(parent.getClass().getSimpleName()).append(": ");
+                break;
+            }
+        }
+        text.append(component.getClass().getSimpleName());
+        if (component instanceof AbstractButton && ((AbstractButton) component).getText() != null) {
+            text.append(" '").append(((AbstractButton) component).getText()).append('\'');
+        } else if (component instanceof JTabbedPane && event instanceof MouseEvent) {
+            JTabbedPane tabs = (JTabbedPane) component;
+            int tab = tabs.indexAtLocation(((MouseEvent) event).getX(), ((MouseEvent) event).getY());
+            if (tab >= 0) text.append(" '").append(tabs.getTitleAt(tab)).append('\'');
+        }
+        return text.toString();
+    }
+}
@@ -1,8 +1,20 @@
 package com.school.panels;
 
 import com.school.DatabaseUtility; // Ensure this import is present
+import com.school.DbTasks;
+import com.school.metrics.CacheCounter;
+import com.school.metrics.Metrics;
+import com.school.ChangeFeed;
+import com.school.DataVersions;
+import com.school.GradeDistribution;
+import com.school.PerformanceReport;
+import com.school.SearchIndex;
+import com.school.utils.PdfReportGenerator;
+import com.school.jobs.StudentPromotion;
 import com.school.panels.TeacherPanel; // Keep import if TeacherPanel is referenced
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
@@ -17,6 +29,8 @@ import java.util.List; // Import List
 import java.util.ArrayList; // Import ArrayList
 import java.util.Set; // Import Set
 import java.util.HashSet; // Import HashSet
+import java.util.LinkedHashSet;
+import java.util.Arrays;
 import java.util.stream.Collectors; // Import for stream operations
 
 // Import the main application class to access the logout method
@@ -36,6 +50,52 @@ public class AdminPanel extends JPanel {
     private int loggedInUserId; // Store the logged-in Admin's user ID
     private SchoolManagementApp parentFrame; // Reference to the main application frame
 
+    // --- Queries (public so the load test and the query plan check run exactly what this panel runs) ---
+    // Spelled out rather than read from the balance column, so the arrears stay answerable from idx_fees_arrears alone
+    private static final String ARREARS_BALANCE = "f.amount_due - COALESCE(f.amount_paid, 0)";
+    /**
+     * Outstanding balances per class and term, aged by days since the last payment; fees without a payment are
+     * totalled on their own, as there is no invoice date to age them from. Aggregates first, then joins the (few)
+     * result rows to classes for the name. A NULL amount paid counts as nothing paid, as in the balance column.
+     */
+    public static final String ARREARS_SQL =
+            "SELECT c.class_name, a.term, a.accounts, a.outstanding, a.never_paid, a.age_0_30, a.age_31_60, a.age_61_90, a.age_90_plus " +
+            "FROM (" +
+            "  SELECT f.class_id, f.term, COUNT(*) AS accounts, " +
+            "         SUM(" + ARREARS_BALANCE + ") AS outstanding, " +
+            "         SUM(CASE WHEN f.date_last_paid IS NULL THEN " + ARREARS_BALANCE + " ELSE 0 END) AS never_paid, " +
+            "         SUM(CASE WHEN DATEDIFF(CURDATE(), f.date_last_paid) <= 30 THEN " + ARREARS_BALANCE + " ELSE 0 END) AS age_0_30, " +
+            "         SUM(CASE WHEN DATEDIFF(CURDATE(), f.date_last_paid) BETWEEN 31 AND 60 THEN " + ARREARS_BALANCE + " ELSE 0 END) AS age_31_60, " +
+            "         SUM(CASE WHEN DATEDIFF(CURDATE(), f.date_last_paid) BETWEEN 61 AND 90 THEN " + ARREARS_BALANCE + " ELSE 0 END) AS age_61_90, " +
+            "         SUM(CASE WHEN DATEDIFF(CURDATE(), f.date_last_paid) > 90 THEN " + ARREARS_BALANCE + " ELSE 0 END) AS age_90_plus " +
+            "  FROM fees f " +
+            "  WHERE COALESCE(f.amount_paid, 0) < f.amount_due " +
+            "  GROUP BY f.class_id, f.term" +
+            ") a JOIN classes c ON a.class_id = c.class_id " +
+            "ORDER BY c.class_name, a.term";
+    /**
+     * Fee form update: student ID, class ID, term, amount due, amount paid, date last paid, fee ID, row version.
+     * Compare-and-set: only succeeds if nobody saved the record since it was read.
+     */
+    public static final String FEE_UPDATE_SQL =
+            "UPDATE fees SET student_id=?, class_id=?, term=?, amount_due=?, amount_paid=?, date_last_paid=?, row_version=row_version+1 WHERE fee_id=? AND row_version=?";
+    /** Every term with grades, for the report and fee forms. */
+    public static final String TERMS_SQL = "SELECT DISTINCT term FROM grades ORDER BY term";
+    /** The assignments table. */
+    public static final String ASSIGNMENTS_SQL =
+            "SELECT ca.assignment_id, c.class_name, t.name AS teacher_name, s.subject_name " +
+            "FROM class_assignments ca " +
+            "JOIN classes c ON ca.class_id = c.class_id " +
+            "JOIN teachers t ON ca.teacher_id = t.teacher_id " +
+            "JOIN subjects s ON ca.subject_id = s.subject_id " +
+            "ORDER BY ca.assignment_id";
+    /** Subjects taught in a class, for the report form: class ID. */
+    public static final String CLASS_SUBJECTS_SQL =
+            "SELECT DISTINCT s.subject_id, s.subject_name FROM subjects s JOIN class_assignments ca ON s.subject_id = ca.subject_id WHERE ca.class_id = ? ORDER BY s.subject_name";
+    /** Terms with grades for a class and subject, for the report form: class ID, subject ID. */
+    public static final String CLASS_SUBJECT_TERMS_SQL =
+            "SELECT DISTINCT g.term FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id WHERE e.class_id = ? AND g.subject_id = ? ORDER BY g.term";
+
     private JTabbedPane adminTabbedPane;
 
     // Panels for different management sections
@@ -53,11 +113,11 @@ public class AdminPanel extends JPanel {
     // --- Student Management Components ---
     private JTextField studentNameField, studentGradeField, studentIdField;
     private JTable studentTable;
-    private DefaultTableModel studentTableModel;
-    private JButton prevStudentPageButton, nextStudentPageButton; // Pagination buttons
-    private JLabel studentPageInfoLabel; // Label to show current page info
-    private int studentCurrentPage = 1;
-    private int studentRowsPerPage = 20; // Number of rows per page
+    private LazyTableModel studentTableModel;
+    private int studentEditVersion; // row_version of the selected student, checked when it is saved
+    private String[] studentEditOriginal; // Field values of the selected student, for resolving edit conflicts
+    private JLabel studentRowCountLabel; // Number of rows matching the filters
+    private TableQueryState studentQuery; // Server-side sort and filter state of the table
     private JComboBox<String> studentClassComboBox; // To assign initial class to new student
     private Map<String, Integer> classNameToIdMap = new HashMap<>(); // Map class name to ID (reused)
 
@@ -65,31 +125,27 @@ public class AdminPanel extends JPanel {
     // --- Teacher Management Components ---
     private JTextField teacherNameField, teacherSubjectField, teacherIdField;
     private JTable teacherTable;
-    private DefaultTableModel teacherTableModel;
-    private JButton prevTeacherPageButton, nextTeacherPageButton; // Pagination buttons
-    private JLabel teacherPageInfoLabel; // Label to show current page info
-    private int teacherCurrentPage = 1;
-    private int teacherRowsPerPage = 20;
+    private LazyTableModel teacherTableModel;
+    private JLabel teacherRowCountLabel; // Number of rows matching the filters
+    private TableQueryState teacherQuery; // Server-side sort and filter state of the table
 
 
     // --- Class Management Components ---
     private JTextField classNameField, classGradeField, classIdField, classFeeField; // Added classFeeField
     private JTable classTable;
-    private DefaultTableModel classTableModel;
-    private JButton prevClassPageButton, nextClassPageButton; // Pagination buttons
-    private JLabel classPageInfoLabel; // Label to show current page info
-    private int classCurrentPage = 1;
-    private int classRowsPerPage = 20;
+    private LazyTableModel classTableModel;
+    private int classEditVersion; // row_version of the selected class, checked when it is saved
+    private String[] classEditOriginal; // Field values of the selected class, for resolving edit conflicts
+    private JLabel classRowCountLabel; // Number of rows matching the filters
+    private TableQueryState classQuery; // Server-side sort and filter state of the table
 
 
     // --- Subject Management Components ---
     private JTextField subjectNameField, subjectIdField; // Added Subject fields
     private JTable subjectTable; // Added Subject table
-    private DefaultTableModel subjectTableModel; // Added Subject table model
-    private JButton prevSubjectPageButton, nextSubjectPageButton; // Subject pagination
-    private JLabel subjectPageInfoLabel; // Subject pagination label
-    private int subjectCurrentPage = 1;
-    private int subjectRowsPerPage = 20;
+    private LazyTableModel subjectTableModel; // Added Subject table model
+    private JLabel subjectRowCountLabel; // Number of rows matching the filters
+    private TableQueryState subjectQuery; // Server-side sort and filter state of the table
 
 
     // --- Assignment Management Components ---
@@ -102,17 +158,23 @@ public class AdminPanel extends JPanel {
 
 
     // --- Enrollment Management Components ---
-    private JComboBox<String> enrollStudentComboBox, enrollClassComboBox; // Enrollment combo boxes
+    private TypeaheadComboBox enrollStudentComboBox; // Student lookup by name prefix (too many students to list)
+    private JComboBox<String> enrollClassComboBox; // Enrollment combo boxes
     private JTable enrollmentTable; // Enrollment table
-    private DefaultTableModel enrollmentTableModel; // Enrollment table model
+    private LazyTableModel enrollmentTableModel; // Enrollment table model
     private JButton addEnrollmentButton, deleteEnrollmentButton; // Enrollment buttons
-    private Map<String, Integer> studentNameToIdMap = new HashMap<>(); // Map student name to ID
+    private JLabel enrollmentRowCountLabel; // Number of rows matching the filters
+    private TableQueryState enrollmentQuery; // Server-side sort and filter state of the table
 
 
     // --- Performance Reports Components ---
     private JComboBox<String> reportClassComboBox, reportSubjectComboBox, reportTermComboBox; // Report combo boxes
     private JTextArea reportDisplayArea; // Area to display reports
-    private JButton generateReportButton, printReportButton; // Report buttons
+    private JButton generateReportButton, printReportButton, exportReportPdfButton; // Report buttons
+    private JComboBox<String> reportBandComboBox; // Histogram band width selection
+    private HistogramChart reportHistogramChart; // Score distribution chart
+    private List<GradeDistribution.Bucket> lastReportDistribution; // Distribution of the report currently shown (for PDF export)
+    private String lastReportTitle; // Title of the report currently shown (for PDF export)
 
 
     // --- Student Promotion Components ---
@@ -121,12 +183,21 @@ public class AdminPanel extends JPanel {
 
 
     // --- Fee Management Components ---
-    private JComboBox<String> feeStudentComboBox, feeClassComboBox, feeTermComboBox; // Fee combo boxes
+    private TypeaheadComboBox feeStudentComboBox; // Student lookup by name prefix (too many students to list)
+    private JComboBox<String> feeClassComboBox, feeTermComboBox; // Fee combo boxes
     private JTextField feeAmountDueField, feeAmountPaidField; // Fee amount fields
     private JTable feeTable; // Fee table
-    private DefaultTableModel feeTableModel; // Fee table model
+    private LazyTableModel feeTableModel; // Fee table model
+    private int feeEditVersion; // row_version of the selected fee record, checked when it is saved
+    private String[] feeEditOriginal; // Field values of the selected fee record, for resolving edit conflicts
     private JButton addFeeButton, updateFeeButton, deleteFeeButton, clearFeeFields; // Fee buttons
     private JTextField feeIdField; // Fee ID field
+    private JLabel feeRowCountLabel; // Number of rows matching the filters
+    private TableQueryState feeQuery; // Server-side sort and filter state of the table
+    private JTabbedPane feeTabbedPane; // Switches between fee records and the arrears view
+    private JTable arrearsTable; // Outstanding balances per class and term
+    private DefaultTableModel arrearsTableModel; // Arrears table model
+    private JLabel arrearsTotalLabel; // School-wide outstanding total and aging breakdown
 
 
     // --- Loading Indicator ---
@@ -135,6 +206,24 @@ public class AdminPanel extends JPanel {
     private JPanel loadingPanel; // Panel to hold loading indicator
 
 
+    // --- Tab Revalidation ---
+    private static final long VERSION_PROBE_INTERVAL_MILLIS = 5000; // Reuse a data_versions read for tab switches within this time
+    private final Map<Integer, Map<String, Long>> tabVersions = new HashMap<>(); // Versions of each tab's tables when it was last loaded
+    private static final CacheCounter TAB_CACHE = Metrics.cache("admin.tabs"); // Tab switches that kept the tab's data
+    private Map<String, Long> lastVersionProbe; // Latest data_versions read, null when it must be re-read
+    private long lastVersionProbeMillis; // When lastVersionProbe was read
+    private boolean versionTrackingUnavailable; // data_versions could not be read (migration not run)
+    private final ChangeFeed changeFeed = new ChangeFeed(this::applyChanges, true); // Other users' changes; the admin client also purges the log
+    private final Map<String, Set<Integer>> rowsDeletedHere = new HashMap<>(); // By table: rows removed from the tables here, until the change feed reports them
+
+
+    // --- Global Search Components ---
+    private static final int SEARCH_RESULT_LIMIT = 10; // Maximum number of results shown in the popup
+    private final SearchIndex searchIndex = new SearchIndex(); // Names of students, teachers, classes and subjects
+    private JTextField globalSearchField; // Search-as-you-type box in the top bar
+    private JPopupMenu searchResultsPopup; // Shows the matches under the search box
+
+
     // Constructor - Added loggedInUserId parameter
     public AdminPanel(SchoolManagementApp parentFrame, int loggedInUserId) {
         this.parentFrame = parentFrame; // Store reference to the parent frame
@@ -150,78 +239,31 @@ public class AdminPanel extends JPanel {
 
         setupLoadingIndicator(); // Setup the loading bar and label panel
 
-        // Initialize panels
-        studentManagementPanel = createStudentManagementPanel();
-        teacherManagementPanel = createTeacherManagementPanel();
-        classManagementPanel = createClassManagementPanel();
-        subjectManagementPanel = createSubjectManagementPanel(); // Create Subject Panel
-        assignmentManagementPanel = createAssignmentManagementPanel(); // Create Assignment Panel
-        enrollmentManagementPanel = createEnrollmentManagementPanel(); // Create Enrollment Panel
-        performanceReportsPanel = createPerformanceReportsPanel(); // Create Reports Panel
-        studentPromotionPanel = createStudentPromotionPanel(); // Create Promotion Panel
-        feeManagementPanel = createFeeManagementPanel(); // Create Fee Panel
-
-
-        // Add panels to the tabbed pane
-        adminTabbedPane.addTab("Students", studentManagementPanel);
-        adminTabbedPane.addTab("Teachers", teacherManagementPanel);
-        adminTabbedPane.addTab("Classes", classManagementPanel);
-        adminTabbedPane.addTab("Subjects", subjectManagementPanel); // Add Subject Tab
-        adminTabbedPane.addTab("Assignments", assignmentManagementPanel); // Add Assignment Tab
-        adminTabbedPane.addTab("Enrollments", enrollmentManagementPanel); // Add Enrollment Tab
-        adminTabbedPane.addTab("Reports", performanceReportsPanel); // Add Reports Tab
-        adminTabbedPane.addTab("Promotion", studentPromotionPanel); // Add Promotion Tab
-        adminTabbedPane.addTab("Fees", feeManagementPanel); // Add Fee Tab
+        // Add an empty holder per tab; each tab's panel is built when the tab is first selected (see buildTab),
+        // so logging in only pays for the Students tab
+        for (String title : new String[]{"Students", "Teachers", "Classes", "Subjects", "Assignments", "Enrollments", "Reports", "Promotion", "Fees"}) {
+            JPanel holder = new JPanel(new BorderLayout());
+            holder.setOpaque(false);
+            adminTabbedPane.addTab(title, holder);
+        }
 
 
         add(adminTabbedPane, BorderLayout.CENTER);
 
-        // Add a ChangeListener to the tabbed pane to load data when a tab is selected
-        adminTabbedPane.addChangeListener(e -> {
-            int selectedIndex = adminTabbedPane.getSelectedIndex();
-            // Load data for the selected tab
-            switch (selectedIndex) {
-                case 0: // Students
-                    loadStudentData();
-                    loadClassesForStudent(); // Load classes into the combo box
-                    break;
-                case 1: // Teachers
-                    loadTeacherData();
-                    break;
-                case 2: // Classes
-                    loadClassData();
-                    break;
-                case 3: // Subjects
-                    loadSubjectData();
-                    break;
-                case 4: // Assignments
-                    loadAssignmentData();
-                    loadAssignmentComboBoxes(); // Load data for combo boxes
-                    break;
-                case 5: // Enrollments
-                    loadEnrollmentData();
-                    loadEnrollmentComboBoxes(); // Load data for combo boxes
-                    break;
-                case 6: // Reports
-                    loadReportComboBoxes(); // Load data for combo boxes
-                    break;
-                case 7: // Promotion
-                    loadPromotionComboBoxes(); // Load data for combo boxes
-                    break;
-                case 8: // Fees
-                    loadFeeData();
-                    loadFeeComboBoxes(); // Load data for combo boxes
-                    break;
-            }
-        });
+        // Show each tab's data as it was left and only reload it when the tables behind it have changed
+        adminTabbedPane.addChangeListener(e -> refreshTab(adminTabbedPane.getSelectedIndex()));
 
         // Load data for the initially selected tab (Students, index 0)
-        loadStudentData();
-        loadClassesForStudent();
+        refreshTab(0);
+
+        // Build the global search index in the background so searching is ready shortly after login
+        buildSearchIndex();
 
         // Add Logout button to a panel at the top
         JPanel topControlPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT)); // Align to the right
         topControlPanel.setBackground(new Color(245, 245, 245)); // Match background
+        topControlPanel.add(new JLabel("Search:"));
+        topControlPanel.add(createGlobalSearchField());
         JButton logoutButton = new JButton("Logout");
         logoutButton.setFont(new Font("Segoe UI", Font.BOLD, 12)); // Smaller font for logout
         logoutButton.setBackground(new Color(220, 53, 69)); // Red background
@@ -243,8 +285,544 @@ public class AdminPanel extends JPanel {
     }
 
 
+    // --- Global Search ---
+
+    /**
+     * Creates the search box shown in the top bar. Results are looked up in the in-memory
+     * search index on every keystroke and shown in a popup below the box.
+     */
+    private JTextField createGlobalSearchField() {
+        globalSearchField = new JTextField(20);
+        globalSearchField.putClientProperty(FlatClientProperties.PLACEHOLDER_TEXT, "Students, teachers, classes, subjects");
+        globalSearchField.setToolTipText("Search students, teachers, classes and subjects by name");
+
+        searchResultsPopup = new JPopupMenu();
+        searchResultsPopup.setFocusable(false); // Keep the caret in the search box while typing
+
+        globalSearchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { showSearchResults(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { showSearchResults(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { showSearchResults(); }
+        });
+        // Enter opens the best match
+        globalSearchField.addActionListener(e -> {
+            List<SearchIndex.Entry> results = searchIndex.search(globalSearchField.getText(), 1);
+            if (!results.isEmpty()) {
+                openSearchResult(results.get(0));
+            }
+        });
+        // Escape closes the popup
+        globalSearchField.registerKeyboardAction(e -> searchResultsPopup.setVisible(false),
+                KeyStroke.getKeyStroke("ESCAPE"), JComponent.WHEN_FOCUSED);
+
+        return globalSearchField;
+    }
+
+    /**
+     * Builds a tab's panel the first time the tab is shown. Until then its form, table and combo box
+     * fields are null; code outside the tab only touches them for the selected tab, which is built.
+     *
+     * @param tabIndex The tab.
+     */
+    private void buildTab(int tabIndex) {
+        JPanel holder = (JPanel) adminTabbedPane.getComponentAt(tabIndex);
+        if (holder.getComponentCount() > 0) return; // Built already
+        JPanel panel;
+        switch (tabIndex) {
+            case 0: panel = studentManagementPanel = createStudentManagementPanel(); break;
+            case 1: panel = teacherManagementPanel = createTeacherManagementPanel(); break;
+            case 2: panel = classManagementPanel = createClassManagementPanel(); break;
+            case 3: panel = subjectManagementPanel = createSubjectManagementPanel(); break;
+            case 4: panel = assignmentManagementPanel = createAssignmentManagementPanel(); break;
+            case 5: panel = enrollmentManagementPanel = createEnrollmentManagementPanel(); break;
+            case 6: panel = performanceReportsPanel = createPerformanceReportsPanel(); break;
+            case 7: panel = studentPromotionPanel = createStudentPromotionPanel(); break;
+            default: panel = feeManagementPanel = createFeeManagementPanel(); break;
+        }
+        holder.add(panel, BorderLayout.CENTER);
+        holder.revalidate();
+    }
+
+    /**
+     * Brings the given tab up to date when it is selected.
+     * The tab keeps showing the data it was left with; the data_versions counters are read (at most once
+     * every few seconds) and the tab's data is only reloaded when one of the tables it shows has changed
+     * since it was loaded. Falls back to reloading every time if the counters cannot be read.
+     *
+     * @param tabIndex The index of the selected tab.
+     */
+    private void refreshTab(final int tabIndex) {
+        if (tabIndex < 0) return;
+        buildTab(tabIndex);
+        if (versionTrackingUnavailable) {
+            loadTab(tabIndex, null);
+            return;
+        }
+        if (lastVersionProbe != null && System.currentTimeMillis() - lastVersionProbeMillis < VERSION_PROBE_INTERVAL_MILLIS) {
+            revalidateTab(tabIndex, lastVersionProbe); // Counters read moments ago, e.g. when flicking through tabs
+            return;
+        }
+
+        SwingWorker<Map<String, Long>, Void> worker = new SwingWorker<Map<String, Long>, Void>() {
+            @Override
+            protected Map<String, Long> doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return DataVersions.fetch(conn);
+                } catch (SQLException e) {
+                    throw new Exception("Database error reading data versions: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            protected void done() {
+                Map<String, Long> versions;
+                try {
+                    versions = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                    if (DatabaseUtility.isMissingTable(e)) {
+                        // The data_versions migration has not been run; reload tabs on every visit as before
+                        System.err.println("Data versions unavailable, tabs will reload on every visit: " + message);
+                        versionTrackingUnavailable = true;
+                    } else {
+                        // E.g. a network error or a pool timeout: reload this once, the next visit reads the versions again
+                        System.err.println(message);
+                    }
+                    if (adminTabbedPane.getSelectedIndex() == tabIndex) {
+                        loadTab(tabIndex, null);
+                    }
+                    return;
+                }
+                lastVersionProbe = versions;
+                lastVersionProbeMillis = System.currentTimeMillis();
+                if (adminTabbedPane.getSelectedIndex() == tabIndex) { // Otherwise the user has moved on and that tab handles itself
+                    revalidateTab(tabIndex, versions);
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Reloads the tab if any of the tables it shows has a different version from when it was loaded.
+     */
+    private void revalidateTab(int tabIndex, Map<String, Long> versions) {
+        Map<String, Long> current = new HashMap<>();
+        for (String table : tablesShownByTab(tabIndex)) {
+            current.put(table, versions.get(table));
+        }
+        boolean unchanged = current.equals(tabVersions.get(tabIndex));
+        TAB_CACHE.record(unchanged);
+        if (!unchanged) {
+            loadTab(tabIndex, current);
+        }
+    }
+
+    /**
+     * @return The tables whose rows the tab shows, in its tables or its combo boxes; the table
+     *         listed first is the one the tab manages.
+     */
+    private String[] tablesShownByTab(int tabIndex) {
+        switch (tabIndex) {
+            case 0: return new String[] {"students", "classes"};
+            case 1: return new String[] {"teachers"};
+            case 2: return new String[] {"classes"};
+            case 3: return new String[] {"subjects"};
+            case 4: return new String[] {"class_assignments", "classes", "teachers", "subjects"};
+            case 5: return new String[] {"enrollments", "students", "classes"};
+            case 6: return new String[] {"classes", "subjects"}; // Reports themselves are generated on demand
+            case 7: return new String[] {"classes", "students"};
+            case 8: return new String[] {"fees", "students", "classes"};
+            default: return new String[0];
+        }
+    }
+
+    /**
+     * Loads the data of the given tab.
+     *
+     * @param tabIndex The index of the tab.
+     * @param versions The versions of the tab's tables as read before loading, or null if unknown
+     *                 (the tab is then reloaded on its next visit).
+     */
+    private void loadTab(int tabIndex, Map<String, Long> versions) {
+        if (versions != null) {
+            tabVersions.put(tabIndex, versions);
+        } else {
+            tabVersions.remove(tabIndex);
+        }
+        switch (tabIndex) {
+            case 0: // Students
+                loadStudentData();
+                loadClassesForStudent(); // Load classes into the combo box
+                break;
+            case 1: // Teachers
+                loadTeacherData();
+                break;
+            case 2: // Classes
+                loadClassData();
+                break;
+            case 3: // Subjects
+                loadSubjectData();
+                break;
+            case 4: // Assignments
+                loadAssignmentData();
+                loadAssignmentComboBoxes(); // Load data for combo boxes
+                break;
+            case 5: // Enrollments
+                loadEnrollmentData();
+                loadEnrollmentComboBoxes(); // Load data for combo boxes
+                break;
+            case 6: // Reports
+                loadReportComboBoxes(); // Load data for combo boxes
+                break;
+            case 7: // Promotion
+                loadPromotionComboBoxes(); // Load data for combo boxes
+                break;
+            case 8: // Fees
+                loadFeeData();
+                loadFeeComboBoxes(); // Load data for combo boxes
+                if (feeTabbedPane.getSelectedIndex() == 1) { // Arrears view is showing
+                    loadArrearsData();
+                }
+                break;
+        }
+    }
+
+    /**
+     * Makes the next tab switch re-read the data versions.
+     * Called after this panel changes data, so other tabs showing the changed tables are reloaded on
+     * their next visit rather than after the probe interval has passed.
+     */
+    private void expireVersionProbe() {
+        lastVersionProbe = null;
+    }
+
+    // --- Automatic Refresh ---
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        changeFeed.start(); // Poll for other users' changes while the panel is shown
+    }
+
+    @Override
+    public void removeNotify() {
+        changeFeed.stop(); // Logged out
+        super.removeNotify();
+    }
+
+    /**
+     * Brings the selected tab up to date with changes reported by the change feed (including this
+     * panel's own). Rows of the tab's table are patched: updated rows that have been fetched are read
+     * again and fetched deleted rows are removed. Rows inserted elsewhere, unfetched rows deleted
+     * elsewhere, changes to the other tables the tab shows, or an incomplete batch reload the tab
+     * instead. Other tabs are brought up to date when they are selected.
+     */
+    private void applyChanges(List<ChangeFeed.Change> changes, boolean complete) {
+        expireVersionProbe(); // The next tab switch reads the new versions
+        int tabIndex = adminTabbedPane.getSelectedIndex();
+        if (!complete) {
+            tabVersions.clear(); // Anything may have changed
+            refreshTab(tabIndex);
+            return;
+        }
+
+        String[] tables = tablesShownByTab(tabIndex);
+        Set<String> shownTables = new HashSet<>(Arrays.asList(tables));
+        String mainTable = tables.length > 0 ? tables[0] : null;
+        LazyTableModel model = lazyTableModelOfTab(tabIndex);
+        Set<Integer> updatedIds = new LinkedHashSet<>();
+        boolean reload = false;
+        for (ChangeFeed.Change change : changes) {
+            if (!shownTables.contains(change.getTableName())) continue;
+            if (model == null || !change.getTableName().equals(mainTable)) {
+                reload = true;
+                continue;
+            }
+            int id = change.getRowId();
+            switch (change.getOperation()) {
+                case INSERT:
+                    if (!model.containsRowId(id)) reload = true; // Rows added on this panel are already shown
+                    break;
+                case UPDATE:
+                    if (model.containsRowId(id)) updatedIds.add(id); // Others are read fresh when scrolled into view
+                    break;
+                case DELETE:
+                    if (!model.removeRowById(id) && !forgetDeletedHere(mainTable, id)) {
+                        reload = true; // Not fetched: its position is unknown, and the rows after it would be fetched one off
+                    }
+                    updatedIds.remove(id);
+                    break;
+            }
+        }
+
+        if (reload) {
+            refreshTab(tabIndex); // The versions now differ, so the tab is reloaded
+            return;
+        }
+        if (!updatedIds.isEmpty()) {
+            refetchRows(model, updatedIds);
+        }
+        if (tabIndex == 8 && feeTabbedPane.getSelectedIndex() == 1) {
+            for (ChangeFeed.Change change : changes) {
+                if ("fees".equals(change.getTableName())) {
+                    loadArrearsData(); // Arrears are aggregates, so any fee change affects them
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a row deleted on this panel from its table, and remembers it so that the change feed's
+     * report of the delete does not reload the table.
+     *
+     * @return False if the row has not been fetched; the table should then be reloaded.
+     */
+    private boolean removeDeletedRow(LazyTableModel model, String table, int id) {
+        if (!model.removeRowById(id)) return false;
+        rowsDeletedHere.computeIfAbsent(table, t -> new HashSet<>()).add(id);
+        return true;
+    }
+
+    // Whether this panel deleted the row and already removed it; it is then forgotten
+    private boolean forgetDeletedHere(String table, int id) {
+        Set<Integer> ids = rowsDeletedHere.get(table);
+        return ids != null && ids.remove(id);
+    }
+
+    /**
+     * @return The lazily fetched table of the tab, whose rows can be patched, or null if it has none.
+     */
+    private LazyTableModel lazyTableModelOfTab(int tabIndex) {
+        switch (tabIndex) {
+            case 0: return studentTableModel;
+            case 1: return teacherTableModel;
+            case 2: return classTableModel;
+            case 3: return subjectTableModel;
+            case 5: return enrollmentTableModel;
+            case 8: return feeTableModel;
+            default: return null;
+        }
+    }
+
+    /**
+     * Reads rows changed by someone else and patches them into the table.
+     * Runs quietly in the background; a failure only means the rows stay as they were.
+     */
+    private void refetchRows(final LazyTableModel model, final Set<Integer> ids) {
+        SwingWorker<List<LazyTableModel.FetchedRow>, Void> worker = new SwingWorker<List<LazyTableModel.FetchedRow>, Void>() {
+            @Override
+            protected List<LazyTableModel.FetchedRow> doInBackground() throws Exception {
+                List<LazyTableModel.FetchedRow> rows = new ArrayList<>();
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    for (int id : ids) {
+                        LazyTableModel.FetchedRow row = model.fetchRow(conn, id);
+                        if (row != null) {
+                            rows.add(row);
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new Exception("Database error reading changed rows: " + e.getMessage(), e);
+                }
+                return rows;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    for (LazyTableModel.FetchedRow row : get()) {
+                        model.updateRow(row);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    // Automatic refresh is a convenience; report it on the console rather than interrupting the admin
+                    System.err.println("Error refreshing changed rows: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Loads all searchable names into the search index.
+     * Uses a SwingWorker so the admin screen is usable while the index is being built;
+     * no loading indicator is shown because nothing waits for it.
+     */
+    private void buildSearchIndex() {
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    searchIndex.build(conn);
+                } catch (SQLException e) {
+                    throw new Exception("Database error building search index: " + e.getMessage(), e);
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    if (globalSearchField.isFocusOwner() && !globalSearchField.getText().trim().isEmpty()) {
+                        showSearchResults(); // The user typed before the index was ready
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    // Search is a convenience; report it on the console rather than interrupting the admin
+                    System.err.println("Error building search index: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Looks up the text in the search box and shows the matches in the results popup.
+     * The lookup runs against the in-memory index, so it is done directly on the EDT.
+     */
+    private void showSearchResults() {
+        String query = globalSearchField.getText();
+        searchResultsPopup.setVisible(false);
+        searchResultsPopup.removeAll();
+        if (query.trim().isEmpty()) {
+            return;
+        }
+
+        List<SearchIndex.Entry> results = searchIndex.search(query, SEARCH_RESULT_LIMIT);
+        if (results.isEmpty()) {
+            JMenuItem noResults = new JMenuItem("No matches");
+            noResults.setEnabled(false);
+            searchResultsPopup.add(noResults);
+        }
+        for (SearchIndex.Entry entry : results) {
+            JMenuItem item = new JMenuItem(entry.toString());
+            item.addActionListener(e -> openSearchResult(entry));
+            searchResultsPopup.add(item);
+        }
+        searchResultsPopup.pack();
+        searchResultsPopup.show(globalSearchField, 0, globalSearchField.getHeight());
+    }
+
+    /**
+     * Switches to the tab of the selected search result and loads that record into the form fields,
+     * the same way selecting it in the table would.
+     */
+    private void openSearchResult(SearchIndex.Entry entry) {
+        searchResultsPopup.setVisible(false);
+        switch (entry.getType()) {
+            case STUDENT: adminTabbedPane.setSelectedIndex(0); break;
+            case TEACHER: adminTabbedPane.setSelectedIndex(1); break;
+            case CLASS: adminTabbedPane.setSelectedIndex(2); break;
+            case SUBJECT: adminTabbedPane.setSelectedIndex(3); break;
+        }
+
+        setLoading(true);
+        SwingWorker<String[], Void> worker = new SwingWorker<String[], Void>() {
+            @Override
+            protected String[] doInBackground() throws Exception {
+                String sql;
+                switch (entry.getType()) {
+                    case STUDENT:
+                        sql = "SELECT s.student_id, s.name, s.grade_level, c.class_name, s.row_version FROM students s LEFT JOIN classes c ON s.class_id = c.class_id WHERE s.student_id = ?";
+                        break;
+                    case TEACHER:
+                        sql = "SELECT teacher_id, name, subject FROM teachers WHERE teacher_id = ?";
+                        break;
+                    case CLASS:
+                        sql = "SELECT class_id, class_name, grade_level, fee, row_version FROM classes WHERE class_id = ?";
+                        break;
+                    default:
+                        sql = "SELECT subject_id, subject_name FROM subjects WHERE subject_id = ?";
+                        break;
+                }
+                try (Connection conn = DatabaseUtility.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, entry.getId());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return null;
+                        }
+                        String[] values = new String[rs.getMetaData().getColumnCount()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = rs.getString(i + 1);
+                        }
+                        return values;
+                    }
+                } catch (SQLException e) {
+                    throw new Exception("Database error loading search result: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            protected void done() {
+                setLoading(false);
+                try {
+                    String[] values = get();
+                    if (values == null) {
+                        // Deleted elsewhere since the index was built
+                        searchIndex.remove(entry.getType(), entry.getId());
+                        showError(entry.getType().getDisplayName() + " \"" + entry.getName() + "\" no longer exists.");
+                        return;
+                    }
+                    switch (entry.getType()) {
+                        case STUDENT:
+                            studentIdField.setText(values[0]);
+                            studentNameField.setText(values[1]);
+                            studentGradeField.setText(values[2]);
+                            studentClassComboBox.setSelectedItem(values[3]);
+                            // As selecting the row in the table would, so saving checks against this version
+                            studentEditVersion = Integer.parseInt(values[4]);
+                            studentEditOriginal = new String[]{studentNameField.getText().trim(), studentGradeField.getText().trim(), values[3]};
+                            break;
+                        case TEACHER:
+                            teacherIdField.setText(values[0]);
+                            teacherNameField.setText(values[1]);
+                            teacherSubjectField.setText(values[2]);
+                            break;
+                        case CLASS:
+                            classIdField.setText(values[0]);
+                            classNameField.setText(values[1]);
+                            classGradeField.setText(values[2]);
+                            classFeeField.setText(values[3] != null ? values[3] : "");
+                            classEditVersion = Integer.parseInt(values[4]);
+                            classEditOriginal = new String[]{classNameField.getText().trim(), classGradeField.getText().trim(), classFeeField.getText().trim()};
+                            break;
+                        case SUBJECT:
+                            subjectIdField.setText(values[0]);
+                            subjectNameField.setText(values[1]);
+                            break;
+                    }
+                    globalSearchField.setText("");
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    String errorMessage = "Error opening search result: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    showError(errorMessage);
+                    e.printStackTrace();
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+
     // --- Helper Methods ---
 
+    /**
+     * Puts a table's filter bar above its scroll pane.
+     */
+    private JPanel createFilterableTablePanel(JScrollPane tableScrollPane, TableQueryState query) {
+        JPanel tablePanel = new JPanel(new BorderLayout());
+        tablePanel.setBackground(new Color(250, 250, 250));
+        tablePanel.add(query.createFilterBar(), BorderLayout.NORTH);
+        tablePanel.add(tableScrollPane, BorderLayout.CENTER);
+        return tablePanel;
+    }
+
     /**
      * Sets up the loading indicator components (progress bar and label).
      */
@@ -312,6 +890,11 @@ public class AdminPanel extends JPanel {
                 JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE));
     }
 
+    // A table value as shown in a form field (empty for NULL)
+    private static String text(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
     /**
      * Helper method to apply consistent styling to JButtons.
      *
@@ -406,35 +989,33 @@ public class AdminPanel extends JPanel {
         formPanel.add(buttonPanel, gbc);
 
         // Table Panel to display students
-        studentTableModel = new DefaultTableModel(new Object[]{"ID", "Name", "Grade Level", "Class", "Status"}, 0) { // Added "Status"
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table cells non-editable
-            }
-        };
+        studentTableModel = createStudentTableModel();
         studentTable = new JTable(studentTableModel);
         studentTable.setFillsViewportHeight(true);
         studentTable.setRowHeight(25);
         studentTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        studentTable.removeColumn(studentTable.getColumnModel().getColumn(5)); // Row version stays in the model only
         JScrollPane studentScrollPane = new JScrollPane(studentTable);
         studentScrollPane.setBorder(BorderFactory.createTitledBorder("Students List"));
 
-        // Pagination Panel
-        JPanel paginationPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        paginationPanel.setBackground(new Color(250, 250, 250));
-        prevStudentPageButton = new JButton("Previous");
-        styleButton(prevStudentPageButton, new Color(108, 117, 125)); // Grey
-        studentPageInfoLabel = new JLabel("Page 1");
-        nextStudentPageButton = new JButton("Next");
-        styleButton(nextStudentPageButton, new Color(108, 117, 125)); // Grey
-        paginationPanel.add(prevStudentPageButton);
-        paginationPanel.add(studentPageInfoLabel);
-        paginationPanel.add(nextStudentPageButton);
+        // Sorting (header clicks) and filtering are done by the database over all rows
+        studentQuery = createStudentQueryState(() -> {
+            studentTable.scrollRectToVisible(new Rectangle()); // A new sort or filter starts at the top
+            loadStudentData();
+        });
+        studentQuery.install(studentTable);
+
+        // Row count below the table; the rows themselves are fetched as they are scrolled into view
+        JPanel rowCountPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        rowCountPanel.setBackground(new Color(250, 250, 250));
+        studentRowCountLabel = new JLabel(" ");
+        studentTableModel.addTableModelListener(e -> studentRowCountLabel.setText(studentTableModel.getRowCount() + " students"));
+        rowCountPanel.add(studentRowCountLabel);
 
         // Add components to the main panel
         panel.add(formPanel, BorderLayout.NORTH);
-        panel.add(studentScrollPane, BorderLayout.CENTER);
-        panel.add(paginationPanel, BorderLayout.SOUTH);
+        panel.add(createFilterableTablePanel(studentScrollPane, studentQuery), BorderLayout.CENTER);
+        panel.add(rowCountPanel, BorderLayout.SOUTH);
 
         // --- Action Listeners ---
         addStudentButton.addActionListener(e -> addStudent());
@@ -442,25 +1023,9 @@ public class AdminPanel extends JPanel {
         deleteStudentButton.addActionListener(e -> deleteStudent());
         clearStudentButton.addActionListener(e -> clearStudentFields()); // Listener for Clear button
 
-        prevStudentPageButton.addActionListener(e -> {
-            if (studentCurrentPage > 1) {
-                studentCurrentPage--;
-                loadStudentData();
-            }
-        });
-        nextStudentPageButton.addActionListener(e -> {
-            // Determine the total number of pages
-            int totalStudents = getStudentCount(); // Implement this method
-            int totalPages = (int) Math.ceil((double) totalStudents / studentRowsPerPage);
-            if (studentCurrentPage < totalPages) {
-                studentCurrentPage++;
-                loadStudentData();
-            }
-        });
-
         // Add ListSelectionListener to the table to populate fields when a row is selected
         studentTable.getSelectionModel().addListSelectionListener(event -> {
-            if (!event.getValueIsAdjusting() && studentTable.getSelectedRow() != -1) {
+            if (!event.getValueIsAdjusting() && studentTable.getSelectedRow() != -1 && studentTableModel.isRowLoaded(studentTable.getSelectedRow())) {
                 int selectedRow = studentTable.getSelectedRow();
                 // Populate the text fields from the selected row
                 studentIdField.setText(studentTable.getValueAt(selectedRow, 0).toString());
@@ -469,6 +1034,9 @@ public class AdminPanel extends JPanel {
                 // Select the correct class in the combo box
                 String className = studentTable.getValueAt(selectedRow, 3).toString();
                 studentClassComboBox.setSelectedItem(className);
+                // Remember what was read, so saving can tell whether someone else changed the student since
+                studentEditVersion = (int) studentTableModel.getValueAt(selectedRow, 5);
+                studentEditOriginal = new String[]{studentNameField.getText().trim(), studentGradeField.getText().trim(), className};
             }
         });
 
@@ -476,6 +1044,17 @@ public class AdminPanel extends JPanel {
         return panel;
     }
 
+    /**
+     * @return A model for the student table. Public so the benchmarks and the query plan check load pages with the same query.
+     */
+    public static LazyTableModel createStudentTableModel() {
+        return new LazyTableModel(new String[]{"ID", "Name", "Grade Level", "Class", "Status", "Version"},
+                new LazyTableModel.ColumnKind[]{LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.INT},
+                "s.student_id, s.name, s.grade_level, c.class_name, s.status, s.row_version",
+                " FROM students s JOIN classes c ON s.class_id = c.class_id",
+                "s.student_id");
+    }
+
     /**
      * Adds a new student record to the database.
      * Uses a SwingWorker to perform the database operation in the background.
@@ -497,9 +1076,10 @@ public class AdminPanel extends JPanel {
         }
 
         setLoading(true); // Show loading indicator
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 // Use try-with-resources for automatic resource management
                 try (Connection conn = DatabaseUtility.getConnection();
                      // Use PreparedStatement to prevent SQL injection
@@ -522,6 +1102,9 @@ public class AdminPanel extends JPanel {
                     if (newStudentId == -1) {
                         // This might indicate an issue with the database or driver not returning keys
                         System.err.println("Warning: Failed to retrieve generated student ID after insert.");
+                    } else {
+                        searchIndex.put(SearchIndex.EntityType.STUDENT, newStudentId, name); // Keep global search current
+                        row = studentTableModel.fetchRow(conn, newStudentId); // Read back on the same connection, for the table
                     }
 
                     // Note: Enrollment into the class is handled by setting the class_id in the students table directly,
@@ -536,17 +1119,23 @@ public class AdminPanel extends JPanel {
                      // Catch other potential exceptions during the process
                      throw new Exception("An unexpected error occurred while adding student: " + e.getMessage(), e);
                 }
-                return null; // Indicate successful completion
+                return row; // Indicate successful completion
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    get(); // This will re-throw any exception that occurred in doInBackground()
+                    LazyTableModel.FetchedRow row = get(); // This will re-throw any exception that occurred in doInBackground()
                     JOptionPane.showMessageDialog(AdminPanel.this, "Student added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearStudentFields(); // Clear input fields
-                    loadStudentData(); // Refresh the student table to show the new student
+                    if (row != null) {
+                        studentTableModel.insertRow(row); // Shown at the top until the table is next reloaded
+                    } else {
+                        loadStudentData(); // The new key was not returned, so the row could not be read back
+                    }
+                    invalidateStudentLookups(); // Student names changed
                 } catch (InterruptedException | ExecutionException e) {
                     // Handle exceptions from the SwingWorker
                     Throwable cause = e.getCause(); // Get the actual exception (SQLException or other)
@@ -556,7 +1145,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace(); // Print the full stack trace for detailed debugging
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -588,46 +1178,92 @@ public class AdminPanel extends JPanel {
             return;
         }
 
+        final int expectedVersion = studentEditVersion; // The version the form's values were based on
         setLoading(true); // Show loading indicator
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
-                            "UPDATE students SET name=?, grade_level=?, class_id=? WHERE student_id=?")) { // Updated column names and WHERE clause
+                            // Compare-and-set: only succeeds if nobody saved the student since it was read
+                            "UPDATE students SET name=?, grade_level=?, class_id=?, row_version=row_version+1 WHERE student_id=? AND row_version=?")) {
                     pstmt.setString(1, name);
                     pstmt.setString(2, grade);
                     pstmt.setInt(3, classId); // Set the class_id
                     pstmt.setInt(4, studentId);
+                    pstmt.setInt(5, expectedVersion);
                     int rowsUpdated = pstmt.executeUpdate();
                     if (rowsUpdated == 0) {
-                        // No rows were updated, likely because the student ID wasn't found
-                        throw new Exception("Student with ID " + studentId + " not found or no changes were made.");
+                        // Deleted, or saved by someone else since it was read
+                        LazyTableModel.FetchedRow current = studentTableModel.fetchRow(conn, studentId);
+                        if (current == null) {
+                            throw new Exception("Student with ID " + studentId + " no longer exists; it was deleted by someone else.");
+                        }
+                        throw new EditConflictDialog.ConflictException("Student with ID " + studentId + " was changed by someone else.", current);
                     }
+                    searchIndex.put(SearchIndex.EntityType.STUDENT, studentId, name); // Keep global search current
+                    row = studentTableModel.fetchRow(conn, studentId); // Read back on the same connection, for the table
                 } catch (SQLException e) {
                     throw new Exception("Database error updating student: " + e.getMessage(), e);
+                } catch (EditConflictDialog.ConflictException e) {
+                    throw e; // Resolved by the user in done()
                 } catch (Exception e) {
                      throw new Exception("An unexpected error occurred while updating student: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    get(); // Check for exceptions
+                    LazyTableModel.FetchedRow row = get(); // Check for exceptions
                     JOptionPane.showMessageDialog(AdminPanel.this, "Student updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearStudentFields(); // Clear input fields
-                    loadStudentData(); // Refresh the student table
+                    if (row != null) {
+                        studentTableModel.updateRow(row); // Patch the changed row instead of reloading the table
+                    }
+                    invalidateStudentLookups(); // Student names changed
                 } catch (InterruptedException | ExecutionException e) {
                      Throwable cause = e.getCause();
+                    if (cause instanceof EditConflictDialog.ConflictException) {
+                        resolveStudentConflict(studentId, ((EditConflictDialog.ConflictException) cause).getCurrentRow());
+                        return;
+                    }
                     String errorMessage = "Error updating student: " + (cause != null ? cause.getMessage() : e.getMessage());
                     showError(errorMessage);
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Lets the user resolve an update of a student that someone else saved in the meantime, then
+     * saves again against the version just read, unless the user discarded their changes.
+     *
+     * @param studentId The student being updated.
+     * @param current   The student as saved now.
+     */
+    private void resolveStudentConflict(int studentId, LazyTableModel.FetchedRow current) {
+        studentTableModel.updateRow(current); // The table shows what is saved now
+        String[] theirs = {text(studentTableModel.getValueAt(current, 1)), text(studentTableModel.getValueAt(current, 2)), text(studentTableModel.getValueAt(current, 3))};
+        String[] mine = {studentNameField.getText().trim(), studentGradeField.getText().trim(), (String) studentClassComboBox.getSelectedItem()};
+        EditConflictDialog.Resolution resolution = EditConflictDialog.resolve(this, "Student " + studentId,
+                new String[]{"Name", "Grade Level", "Class"}, studentEditOriginal, mine, theirs);
+        if (resolution == null) return; // Left as it is; saving again raises the conflict again
+
+        studentEditVersion = (int) studentTableModel.getValueAt(current, 5);
+        studentEditOriginal = theirs;
+        if (!resolution.keepsMine(0)) studentNameField.setText(theirs[0]);
+        if (!resolution.keepsMine(1)) studentGradeField.setText(theirs[1]);
+        if (!resolution.keepsMine(2)) studentClassComboBox.setSelectedItem(theirs[2]);
+        if (resolution.isSave()) {
+            updateStudent();
+        }
     }
 
     /**
@@ -669,6 +1305,7 @@ public class AdminPanel extends JPanel {
                         // No rows were deleted, likely because the student ID wasn't found
                         throw new Exception("Student with ID " + studentId + " not found.");
                     }
+                    searchIndex.remove(SearchIndex.EntityType.STUDENT, studentId); // Keep global search current
                 } catch (SQLException e) {
                    throw new Exception("Database error deleting student: " + e.getMessage(), e);
                 } catch (Exception e) {
@@ -683,8 +1320,12 @@ public class AdminPanel extends JPanel {
                 try {
                     get(); // Check for exceptions
                     JOptionPane.showMessageDialog(AdminPanel.this, "Student deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearStudentFields(); // Clear input fields
-                    loadStudentData(); // Refresh the student table
+                    if (!removeDeletedRow(studentTableModel, "students", studentId)) {
+                        loadStudentData(); // Not among the fetched rows, so its position in the table is unknown
+                    }
+                    invalidateStudentLookups(); // Student names changed
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error deleting student: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -696,63 +1337,56 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Drops the cached name lookups of the student combo boxes after students were added, changed or deleted.
+     */
+    private void invalidateStudentLookups() {
+        if (enrollStudentComboBox != null) enrollStudentComboBox.invalidateCache(); // Null until the tab is first shown
+        if (feeStudentComboBox != null) feeStudentComboBox.invalidateCache();
+    }
+
+    /**
+     * @param onChange Called when the sort or filters change.
+     * @return The sort and filter state of the student table. Public so the query plan check builds the same
+     *         sorted and filtered queries.
+     */
+    public static TableQueryState createStudentQueryState(Runnable onChange) {
+        return new TableQueryState("s.student_id",
+                new String[]{"s.student_id", "s.name", "s.grade_level", "c.class_name", "s.status"},
+                new TableQueryState.ColumnType[]{TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.TEXT},
+                onChange);
     }
 
     /**
-     * Loads student data from the database and populates the student table.
-     * Implements basic pagination. Uses a SwingWorker for background database operation.
+     * Counts the students matching the filters chosen in the filter bar and points the student table at them,
+     * sorted as chosen in the table header. The rows themselves are fetched by the table model, a block
+     * at a time, as they are scrolled into view. Uses a SwingWorker for background database operation.
      */
     private void loadStudentData() {
         setLoading(true); // Show loading indicator
-        SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
+        // Take the sort and filters on the EDT so the count and the table model use one consistent state
+        final String where = studentQuery.whereClause();
+        final String orderBy = studentQuery.orderByClause();
+        final List<Object> parameters = studentQuery.filterParameters();
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
             @Override
-            protected List<Object[]> doInBackground() throws Exception {
-                List<Object[]> data = new ArrayList<>();
-                int offset = (studentCurrentPage - 1) * studentRowsPerPage;
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT s.student_id, s.name, s.grade_level, c.class_name, s.status " + // Added s.status
-                             "FROM students s " +
-                             "JOIN classes c ON s.class_id = c.class_id " + // Join to get class name (using class_id)
-                             "ORDER BY s.student_id LIMIT ? OFFSET ?")) { // Updated column name
-                    pstmt.setInt(1, studentRowsPerPage);
-                    pstmt.setInt(2, offset);
-                    ResultSet rs = pstmt.executeQuery();
-                    while (rs.next()) {
-                        Object[] row = {
-                                rs.getInt("student_id"), // Updated column name
-                                rs.getString("name"),
-                                rs.getString("grade_level"), // Updated column name
-                                rs.getString("class_name"), // Get class name
-                                rs.getString("status") // Get status
-                        };
-                        data.add(row);
-                    }
-                    rs.close(); // Close the ResultSet
+            protected Integer doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return studentTableModel.countRows(conn, where, parameters);
                 } catch (SQLException e) {
-                   throw new Exception("Database error loading student data: " + e.getMessage(), e);
-                } catch (Exception e) {
-                    throw new Exception("An unexpected error occurred while loading student data: " + e.getMessage(), e);
+                    throw new Exception("Database error loading student data: " + e.getMessage(), e);
                 }
-                return data; // Return the list of data rows
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    List<Object[]> data = get(); // Get the result from doInBackground()
-                    studentTableModel.setRowCount(0); // Clear the table
-                    for (Object[] row : data) {
-                        studentTableModel.addRow(row); // Add rows to the table model
-                    }
-                    // Update pagination label and button states
-                    int totalStudents = getStudentCount(); // Get total count for pagination
-                    int totalPages = (int) Math.ceil((double) totalStudents / studentRowsPerPage);
-                    studentPageInfoLabel.setText("Page " + studentCurrentPage + " of " + totalPages);
-                    prevStudentPageButton.setEnabled(studentCurrentPage > 1);
-                    nextStudentPageButton.setEnabled(studentCurrentPage < totalPages);
+                    studentTableModel.reset(where, orderBy, parameters, get()); // The row count label follows the model
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error loading student data: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -760,31 +1394,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
-    }
-
-    /**
-     * Gets the total count of students in the database for pagination purposes.
-     * Uses a direct database query (not in SwingWorker as it's a quick count).
-     *
-     * @return The total number of students.
-     */
-    private int getStudentCount() {
-        int count = 0;
-        try (Connection conn = DatabaseUtility.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM students")) {
-            if (rs.next()) {
-                count = rs.getInt(1);
-            }
-            rs.close();
-        } catch (SQLException e) {
-            // Log the error but don't necessarily show a dialog as it might happen frequently during pagination updates
-            System.err.println("Error getting student count: " + e.getMessage());
-            e.printStackTrace();
-            // Return 0 to avoid breaking pagination logic, although the count is inaccurate
-        }
-        return count;
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -852,7 +1463,8 @@ public class AdminPanel extends JPanel {
                      });
                 }
             }
-         }.execute(); // Execute the SwingWorker
+         };
+         DbTasks.execute(worker);
     }
 
 
@@ -923,12 +1535,7 @@ public class AdminPanel extends JPanel {
         formPanel.add(buttonPanel, gbc);
 
         // Table Panel to display teachers
-        teacherTableModel = new DefaultTableModel(new Object[]{"ID", "Name", "Subject"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        teacherTableModel = createTeacherTableModel();
         teacherTable = new JTable(teacherTableModel);
         teacherTable.setFillsViewportHeight(true);
         teacherTable.setRowHeight(25);
@@ -936,22 +1543,24 @@ public class AdminPanel extends JPanel {
         JScrollPane teacherScrollPane = new JScrollPane(teacherTable);
         teacherScrollPane.setBorder(BorderFactory.createTitledBorder("Teachers List"));
 
-        // Pagination Panel
-        JPanel paginationPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        paginationPanel.setBackground(new Color(250, 250, 250));
-        prevTeacherPageButton = new JButton("Previous");
-        styleButton(prevTeacherPageButton, new Color(108, 117, 125)); // Grey
-        teacherPageInfoLabel = new JLabel("Page 1");
-        nextTeacherPageButton = new JButton("Next");
-        styleButton(nextTeacherPageButton, new Color(108, 117, 125)); // Grey
-        paginationPanel.add(prevTeacherPageButton);
-        paginationPanel.add(teacherPageInfoLabel);
-        paginationPanel.add(nextTeacherPageButton);
+        // Sorting (header clicks) and filtering are done by the database over all rows
+        teacherQuery = createTeacherQueryState(() -> {
+            teacherTable.scrollRectToVisible(new Rectangle()); // A new sort or filter starts at the top
+            loadTeacherData();
+        });
+        teacherQuery.install(teacherTable);
+
+        // Row count below the table; the rows themselves are fetched as they are scrolled into view
+        JPanel rowCountPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        rowCountPanel.setBackground(new Color(250, 250, 250));
+        teacherRowCountLabel = new JLabel(" ");
+        teacherTableModel.addTableModelListener(e -> teacherRowCountLabel.setText(teacherTableModel.getRowCount() + " teachers"));
+        rowCountPanel.add(teacherRowCountLabel);
 
         // Add components to the main panel
         panel.add(formPanel, BorderLayout.NORTH);
-        panel.add(teacherScrollPane, BorderLayout.CENTER);
-        panel.add(paginationPanel, BorderLayout.SOUTH);
+        panel.add(createFilterableTablePanel(teacherScrollPane, teacherQuery), BorderLayout.CENTER);
+        panel.add(rowCountPanel, BorderLayout.SOUTH);
 
         // --- Action Listeners ---
         addTeacherButton.addActionListener(e -> addTeacher());
@@ -959,24 +1568,9 @@ public class AdminPanel extends JPanel {
         deleteTeacherButton.addActionListener(e -> deleteTeacher());
         clearTeacherButton.addActionListener(e -> clearTeacherFields()); // Listener for Clear button
 
-        prevTeacherPageButton.addActionListener(e -> {
-            if (teacherCurrentPage > 1) {
-                teacherCurrentPage--;
-                loadTeacherData();
-            }
-        });
-        nextTeacherPageButton.addActionListener(e -> {
-            int totalTeachers = getTeacherCount();
-            int totalPages = (int) Math.ceil((double) totalTeachers / teacherRowsPerPage);
-            if (teacherCurrentPage < totalPages) {
-                teacherCurrentPage++;
-                loadTeacherData();
-            }
-        });
-
         // Add ListSelectionListener to the table to populate fields when a row is selected
         teacherTable.getSelectionModel().addListSelectionListener(event -> {
-            if (!event.getValueIsAdjusting() && teacherTable.getSelectedRow() != -1) {
+            if (!event.getValueIsAdjusting() && teacherTable.getSelectedRow() != -1 && teacherTableModel.isRowLoaded(teacherTable.getSelectedRow())) {
                 int selectedRow = teacherTable.getSelectedRow();
                 // Populate the text fields from the selected row
                 teacherIdField.setText(teacherTable.getValueAt(selectedRow, 0).toString());
@@ -1001,9 +1595,10 @@ public class AdminPanel extends JPanel {
         }
 
         setLoading(true); // Show loading indicator
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
                              "INSERT INTO teachers (name, subject) VALUES (?, ?)",
@@ -1015,6 +1610,8 @@ public class AdminPanel extends JPanel {
                     ResultSet generatedKeys = pstmt.getGeneratedKeys();
                     if (generatedKeys.next()) {
                         int newTeacherId = generatedKeys.getInt(1);
+                        searchIndex.put(SearchIndex.EntityType.TEACHER, newTeacherId, name); // Keep global search current
+                        row = teacherTableModel.fetchRow(conn, newTeacherId); // Read back on the same connection, for the table
                         // Optionally, do something with the newTeacherId, like creating a user account for them.
                         // For now, we just add the teacher record.
                     }
@@ -1024,17 +1621,22 @@ public class AdminPanel extends JPanel {
                 } catch (Exception e) {
                      throw new Exception("An unexpected error occurred while adding teacher: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    get(); // Check for exceptions
+                    LazyTableModel.FetchedRow row = get(); // Check for exceptions
                     JOptionPane.showMessageDialog(AdminPanel.this, "Teacher added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearTeacherFields(); // Clear input fields
-                    loadTeacherData(); // Refresh the teacher table
+                    if (row != null) {
+                        teacherTableModel.insertRow(row); // Shown at the top until the table is next reloaded
+                    } else {
+                        loadTeacherData(); // The new key was not returned, so the row could not be read back
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error adding teacher: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1042,7 +1644,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1066,9 +1669,10 @@ public class AdminPanel extends JPanel {
         }
 
         setLoading(true); // Show loading indicator
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
                             "UPDATE teachers SET name=?, subject=? WHERE teacher_id=?")) { // Updated column name
@@ -1079,22 +1683,27 @@ public class AdminPanel extends JPanel {
                     if (rowsUpdated == 0) {
                         throw new Exception("Teacher with ID " + teacherId + " not found or no changes were made.");
                     }
+                    searchIndex.put(SearchIndex.EntityType.TEACHER, teacherId, name); // Keep global search current
+                    row = teacherTableModel.fetchRow(conn, teacherId); // Read back on the same connection, for the table
                 } catch (SQLException e) {
                     throw new Exception("Database error updating teacher: " + e.getMessage(), e);
                 } catch (Exception e) {
                      throw new Exception("An unexpected error occurred while updating teacher: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    get(); // Check for exceptions
+                    LazyTableModel.FetchedRow row = get(); // Check for exceptions
                     JOptionPane.showMessageDialog(AdminPanel.this, "Teacher updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearTeacherFields(); // Clear input fields
-                    loadTeacherData(); // Refresh the teacher table
+                    if (row != null) {
+                        teacherTableModel.updateRow(row); // Patch the changed row instead of reloading the table
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error updating teacher: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1102,7 +1711,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1142,6 +1752,7 @@ public class AdminPanel extends JPanel {
                     if (rowsDeleted == 0) {
                         throw new Exception("Teacher with ID " + teacherId + " not found.");
                     }
+                    searchIndex.remove(SearchIndex.EntityType.TEACHER, teacherId); // Keep global search current
                 } catch (SQLException e) {
                    throw new Exception("Database error deleting teacher: " + e.getMessage(), e);
                 } catch (Exception e) {
@@ -1156,8 +1767,11 @@ public class AdminPanel extends JPanel {
                 try {
                     get(); // Check for exceptions
                     JOptionPane.showMessageDialog(AdminPanel.this, "Teacher deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearTeacherFields(); // Clear input fields
-                    loadTeacherData(); // Refresh the teacher table
+                    if (!removeDeletedRow(teacherTableModel, "teachers", teacherId)) {
+                        loadTeacherData(); // Not among the fetched rows, so its position in the table is unknown
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error deleting teacher: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1169,58 +1783,59 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * @return A model for the teacher table. Public so the query plan check loads pages with the same query.
+     */
+    public static LazyTableModel createTeacherTableModel() {
+        return new LazyTableModel(new String[]{"ID", "Name", "Subject"},
+                new LazyTableModel.ColumnKind[]{LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT},
+                "teacher_id, name, subject",
+                " FROM teachers",
+                "teacher_id");
     }
 
     /**
-     * Loads teacher data from the database and populates the teacher table.
-     * Implements basic pagination. Uses a SwingWorker for background database operation.
+     * @param onChange Called when the sort or filters change.
+     * @return The sort and filter state of the teacher table. Public so the query plan check builds the same
+     *         sorted and filtered queries.
+     */
+    public static TableQueryState createTeacherQueryState(Runnable onChange) {
+        return new TableQueryState("teacher_id",
+                new String[]{"teacher_id", "name", "subject"},
+                new TableQueryState.ColumnType[]{TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.TEXT},
+                onChange);
+    }
+
+    /**
+     * Counts the teachers matching the filters chosen in the filter bar and points the teacher table at them,
+     * sorted as chosen in the table header. The rows themselves are fetched by the table model, a block
+     * at a time, as they are scrolled into view. Uses a SwingWorker for background database operation.
      */
     private void loadTeacherData() {
         setLoading(true); // Show loading indicator
-        SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
+        // Take the sort and filters on the EDT so the count and the table model use one consistent state
+        final String where = teacherQuery.whereClause();
+        final String orderBy = teacherQuery.orderByClause();
+        final List<Object> parameters = teacherQuery.filterParameters();
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
             @Override
-            protected List<Object[]> doInBackground() throws Exception {
-                List<Object[]> data = new ArrayList<>();
-                int offset = (teacherCurrentPage - 1) * teacherRowsPerPage;
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT teacher_id, name, subject FROM teachers ORDER BY teacher_id LIMIT ? OFFSET ?")) { // Updated column name
-                    pstmt.setInt(1, teacherRowsPerPage);
-                    pstmt.setInt(2, offset);
-                    ResultSet rs = pstmt.executeQuery();
-                    while (rs.next()) {
-                        Object[] row = {
-                                rs.getInt("teacher_id"), // Updated column name
-                                rs.getString("name"),
-                                rs.getString("subject")
-                        };
-                        data.add(row);
-                    }
-                    rs.close(); // Close the ResultSet
+            protected Integer doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return teacherTableModel.countRows(conn, where, parameters);
                 } catch (SQLException e) {
                     throw new Exception("Database error loading teacher data: " + e.getMessage(), e);
-                } catch (Exception e) {
-                    throw new Exception("An unexpected error occurred while loading teacher data: " + e.getMessage(), e);
                 }
-                return data; // Return the list of data rows
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    List<Object[]> data = get(); // Get the result from doInBackground()
-                    teacherTableModel.setRowCount(0); // Clear the table
-                    for (Object[] row : data) {
-                        teacherTableModel.addRow(row); // Add rows to the table model
-                    }
-                    // Update pagination label and button states
-                    int totalTeachers = getTeacherCount(); // Get total count for pagination
-                    int totalPages = (int) Math.ceil((double) totalTeachers / teacherRowsPerPage);
-                    teacherPageInfoLabel.setText("Page " + teacherCurrentPage + " of " + totalPages);
-                    prevTeacherPageButton.setEnabled(teacherCurrentPage > 1);
-                    nextTeacherPageButton.setEnabled(teacherCurrentPage < totalPages);
+                    teacherTableModel.reset(where, orderBy, parameters, get()); // The row count label follows the model
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error loading teacher data: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1228,31 +1843,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
-    }
-
-    /**
-     * Gets the total count of teachers in the database for pagination purposes.
-     * Uses a direct database query (not in SwingWorker as it's a quick count).
-     *
-     * @return The total number of teachers.
-     */
-    private int getTeacherCount() {
-        int count = 0;
-        try (Connection conn = DatabaseUtility.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM teachers")) {
-            if (rs.next()) {
-                count = rs.getInt(1);
-            }
-            rs.close();
-        } catch (SQLException e) {
-            // Log the error but don't necessarily show a dialog
-            System.err.println("Error getting teacher count: " + e.getMessage());
-            e.printStackTrace();
-            // Return 0 to avoid breaking pagination logic
-        }
-        return count;
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1343,35 +1935,33 @@ public class AdminPanel extends JPanel {
         formPanel.add(buttonPanel, gbc);
 
         // Table Panel to display classes
-        classTableModel = new DefaultTableModel(new Object[]{"ID", "Name", "Grade Level", "Fee"}, 0) { // Added "Fee" column
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        classTableModel = createClassTableModel();
         classTable = new JTable(classTableModel);
         classTable.setFillsViewportHeight(true);
         classTable.setRowHeight(25);
         classTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        classTable.removeColumn(classTable.getColumnModel().getColumn(4)); // Row version stays in the model only
         JScrollPane classScrollPane = new JScrollPane(classTable);
         classScrollPane.setBorder(BorderFactory.createTitledBorder("Classes List"));
 
-        // Pagination Panel
-        JPanel paginationPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        paginationPanel.setBackground(new Color(250, 250, 250));
-        prevClassPageButton = new JButton("Previous");
-        styleButton(prevClassPageButton, new Color(108, 117, 125)); // Grey
-        classPageInfoLabel = new JLabel("Page 1");
-        nextClassPageButton = new JButton("Next");
-        styleButton(nextClassPageButton, new Color(108, 117, 125)); // Grey
-        paginationPanel.add(prevClassPageButton);
-        paginationPanel.add(classPageInfoLabel);
-        paginationPanel.add(nextClassPageButton);
+        // Sorting (header clicks) and filtering are done by the database over all rows
+        classQuery = createClassQueryState(() -> {
+            classTable.scrollRectToVisible(new Rectangle()); // A new sort or filter starts at the top
+            loadClassData();
+        });
+        classQuery.install(classTable);
+
+        // Row count below the table; the rows themselves are fetched as they are scrolled into view
+        JPanel rowCountPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        rowCountPanel.setBackground(new Color(250, 250, 250));
+        classRowCountLabel = new JLabel(" ");
+        classTableModel.addTableModelListener(e -> classRowCountLabel.setText(classTableModel.getRowCount() + " classes"));
+        rowCountPanel.add(classRowCountLabel);
 
         // Add components to the main panel
         panel.add(formPanel, BorderLayout.NORTH);
-        panel.add(classScrollPane, BorderLayout.CENTER);
-        panel.add(paginationPanel, BorderLayout.SOUTH);
+        panel.add(createFilterableTablePanel(classScrollPane, classQuery), BorderLayout.CENTER);
+        panel.add(rowCountPanel, BorderLayout.SOUTH);
 
         // --- Action Listeners ---
         addClassButton.addActionListener(e -> addClass());
@@ -1379,24 +1969,9 @@ public class AdminPanel extends JPanel {
         deleteClassButton.addActionListener(e -> deleteClass());
         clearClassButton.addActionListener(e -> clearClassFields()); // Listener for Clear button
 
-        prevClassPageButton.addActionListener(e -> {
-            if (classCurrentPage > 1) {
-                classCurrentPage--;
-                loadClassData();
-            }
-        });
-        nextClassPageButton.addActionListener(e -> {
-            int totalClasses = getClassCount();
-            int totalPages = (int) Math.ceil((double) totalClasses / classRowsPerPage);
-            if (classCurrentPage < totalPages) {
-                classCurrentPage++;
-                loadClassData();
-            }
-        });
-
         // Add ListSelectionListener to the table to populate fields when a row is selected
         classTable.getSelectionModel().addListSelectionListener(event -> {
-            if (!event.getValueIsAdjusting() && classTable.getSelectedRow() != -1) {
+            if (!event.getValueIsAdjusting() && classTable.getSelectedRow() != -1 && classTableModel.isRowLoaded(classTable.getSelectedRow())) {
                 int selectedRow = classTable.getSelectedRow();
                 // Populate the text fields from the selected row
                 classIdField.setText(classTable.getValueAt(selectedRow, 0).toString());
@@ -1405,6 +1980,9 @@ public class AdminPanel extends JPanel {
                  // Handle potential null or non-numeric fee values gracefully
                 Object feeValue = classTable.getValueAt(selectedRow, 3);
                 classFeeField.setText(feeValue != null ? feeValue.toString() : "");
+                // Remember what was read, so saving can tell whether someone else changed the class since
+                classEditVersion = (int) classTableModel.getValueAt(selectedRow, 4);
+                classEditOriginal = new String[]{classNameField.getText().trim(), classGradeField.getText().trim(), classFeeField.getText().trim()};
             }
         });
 
@@ -1439,9 +2017,10 @@ public class AdminPanel extends JPanel {
 
 
         setLoading(true); // Show loading indicator
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
                              "INSERT INTO classes (class_name, grade_level, fee) VALUES (?, ?, ?)",  // Updated column names
@@ -1454,7 +2033,8 @@ public class AdminPanel extends JPanel {
                     ResultSet generatedKeys = pstmt.getGeneratedKeys();
                     if (generatedKeys.next()) {
                         int newClassId = generatedKeys.getInt(1);
-                        // Optionally, do something with the newClassId
+                        searchIndex.put(SearchIndex.EntityType.CLASS, newClassId, name); // Keep global search current
+                        row = classTableModel.fetchRow(conn, newClassId); // Read back on the same connection, for the table
                     }
                     generatedKeys.close();
                 } catch (SQLException e) {
@@ -1462,17 +2042,22 @@ public class AdminPanel extends JPanel {
                 } catch (Exception e) {
                      throw new Exception("An unexpected error occurred while adding class: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    get(); // Check for exceptions
+                    LazyTableModel.FetchedRow row = get(); // Check for exceptions
                     JOptionPane.showMessageDialog(AdminPanel.this, "Class added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearClassFields(); // Clear input fields
-                    loadClassData(); // Refresh the class table
+                    if (row != null) {
+                        classTableModel.insertRow(row); // Shown at the top until the table is next reloaded
+                    } else {
+                        loadClassData(); // The new key was not returned, so the row could not be read back
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error adding class: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1483,7 +2068,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1522,39 +2108,59 @@ public class AdminPanel extends JPanel {
         }
 
 
+        final int expectedVersion = classEditVersion; // The version the form's values were based on
         setLoading(true); // Show loading indicator
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
-                            "UPDATE classes SET class_name=?, grade_level=?, fee=? WHERE class_id=?")) { // Updated column names and WHERE clause
+                            // Compare-and-set: only succeeds if nobody saved the class since it was read
+                            "UPDATE classes SET class_name=?, grade_level=?, fee=?, row_version=row_version+1 WHERE class_id=? AND row_version=?")) {
                     pstmt.setString(1, name);
                     pstmt.setString(2, grade);
                     pstmt.setInt(3, fee); // Set the fee
                     pstmt.setInt(4, classId);
+                    pstmt.setInt(5, expectedVersion);
                     int rowsUpdated = pstmt.executeUpdate();
                     if (rowsUpdated == 0) {
-                        throw new Exception("Class with ID " + classId + " not found or no changes were made.");
+                        // Deleted, or saved by someone else since it was read
+                        LazyTableModel.FetchedRow current = classTableModel.fetchRow(conn, classId);
+                        if (current == null) {
+                            throw new Exception("Class with ID " + classId + " no longer exists; it was deleted by someone else.");
+                        }
+                        throw new EditConflictDialog.ConflictException("Class with ID " + classId + " was changed by someone else.", current);
                     }
+                    searchIndex.put(SearchIndex.EntityType.CLASS, classId, name); // Keep global search current
+                    row = classTableModel.fetchRow(conn, classId); // Read back on the same connection, for the table
                 } catch (SQLException e) {
                     throw new Exception("Database error updating class: " + e.getMessage(), e);
+                } catch (EditConflictDialog.ConflictException e) {
+                    throw e; // Resolved by the user in done()
                 } catch (Exception e) {
                      throw new Exception("An unexpected error occurred while updating class: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    get(); // Check for exceptions
+                    LazyTableModel.FetchedRow row = get(); // Check for exceptions
                     JOptionPane.showMessageDialog(AdminPanel.this, "Class updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearClassFields(); // Clear input fields
-                    loadClassData(); // Refresh the class table
+                    if (row != null) {
+                        classTableModel.updateRow(row); // Patch the changed row instead of reloading the table
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
+                    if (cause instanceof EditConflictDialog.ConflictException) {
+                        resolveClassConflict(classId, ((EditConflictDialog.ConflictException) cause).getCurrentRow());
+                        return;
+                    }
                     String errorMessage = "Error updating class: " + (cause != null ? cause.getMessage() : e.getMessage());
                      if (cause instanceof SQLException && cause.getMessage().toLowerCase().contains("duplicate entry")) {
                          errorMessage = "Error: A class with this name already exists.";
@@ -1563,7 +2169,33 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Lets the user resolve an update of a class that someone else saved in the meantime, then
+     * saves again against the version just read, unless the user discarded their changes.
+     *
+     * @param classId The class being updated.
+     * @param current The class as saved now.
+     */
+    private void resolveClassConflict(int classId, LazyTableModel.FetchedRow current) {
+        classTableModel.updateRow(current); // The table shows what is saved now
+        String[] theirs = {text(classTableModel.getValueAt(current, 1)), text(classTableModel.getValueAt(current, 2)), text(classTableModel.getValueAt(current, 3))};
+        String[] mine = {classNameField.getText().trim(), classGradeField.getText().trim(), classFeeField.getText().trim()};
+        EditConflictDialog.Resolution resolution = EditConflictDialog.resolve(this, "Class " + classId,
+                new String[]{"Class Name", "Grade Level", "Fee"}, classEditOriginal, mine, theirs);
+        if (resolution == null) return; // Left as it is; saving again raises the conflict again
+
+        classEditVersion = (int) classTableModel.getValueAt(current, 4);
+        classEditOriginal = theirs;
+        if (!resolution.keepsMine(0)) classNameField.setText(theirs[0]);
+        if (!resolution.keepsMine(1)) classGradeField.setText(theirs[1]);
+        if (!resolution.keepsMine(2)) classFeeField.setText(theirs[2]);
+        if (resolution.isSave()) {
+            updateClass();
+        }
     }
 
     /**
@@ -1603,6 +2235,7 @@ public class AdminPanel extends JPanel {
                     if (rowsDeleted == 0) {
                         throw new Exception("Class with ID " + classId + " not found.");
                     }
+                    searchIndex.remove(SearchIndex.EntityType.CLASS, classId); // Keep global search current
                 } catch (SQLException e) {
                     throw new Exception("Database error deleting class: " + e.getMessage(), e);
                 } catch (Exception e) {
@@ -1617,8 +2250,11 @@ public class AdminPanel extends JPanel {
                 try {
                     get(); // Check for exceptions
                     JOptionPane.showMessageDialog(AdminPanel.this, "Class deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearClassFields(); // Clear input fields
-                    loadClassData(); // Refresh the class table
+                    if (!removeDeletedRow(classTableModel, "classes", classId)) {
+                        loadClassData(); // Not among the fetched rows, so its position in the table is unknown
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error deleting class: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1630,59 +2266,59 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
     }
 
     /**
-     * Loads class data from the database and populates the class table.
-     * Implements basic pagination. Uses a SwingWorker for background database operation.
+     * @return A model for the class table. Public so the query plan check loads pages with the same query.
+     */
+    public static LazyTableModel createClassTableModel() {
+        return new LazyTableModel(new String[]{"ID", "Name", "Grade Level", "Fee", "Version"},
+                new LazyTableModel.ColumnKind[]{LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.INT},
+                "class_id, class_name, grade_level, fee, row_version",
+                " FROM classes",
+                "class_id");
+    }
+
+    /**
+     * @param onChange Called when the sort or filters change.
+     * @return The sort and filter state of the class table. Public so the query plan check builds the same
+     *         sorted and filtered queries.
+     */
+    public static TableQueryState createClassQueryState(Runnable onChange) {
+        return new TableQueryState("class_id",
+                new String[]{"class_id", "class_name", "grade_level", "fee"},
+                new TableQueryState.ColumnType[]{TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.NUMBER},
+                onChange);
+    }
+
+    /**
+     * Counts the classes matching the filters chosen in the filter bar and points the class table at them,
+     * sorted as chosen in the table header. The rows themselves are fetched by the table model, a block
+     * at a time, as they are scrolled into view. Uses a SwingWorker for background database operation.
      */
     private void loadClassData() {
         setLoading(true); // Show loading indicator
-        SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
+        // Take the sort and filters on the EDT so the count and the table model use one consistent state
+        final String where = classQuery.whereClause();
+        final String orderBy = classQuery.orderByClause();
+        final List<Object> parameters = classQuery.filterParameters();
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
             @Override
-            protected List<Object[]> doInBackground() throws Exception {
-                List<Object[]> data = new ArrayList<>();
-                int offset = (classCurrentPage - 1) * classRowsPerPage;
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT class_id, class_name, grade_level, fee FROM classes ORDER BY class_id LIMIT ? OFFSET ?")) { // Updated column names
-                    pstmt.setInt(1, classRowsPerPage);
-                    pstmt.setInt(2, offset);
-                    ResultSet rs = pstmt.executeQuery();
-                    while (rs.next()) {
-                        Object[] row = {
-                                rs.getInt("class_id"), // Updated column name
-                                rs.getString("class_name"), // Updated column name
-                                rs.getString("grade_level"), // Updated column name
-                                rs.getInt("fee") // Get fee
-                        };
-                        data.add(row);
-                    }
-                    rs.close(); // Close the ResultSet
+            protected Integer doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return classTableModel.countRows(conn, where, parameters);
                 } catch (SQLException e) {
                     throw new Exception("Database error loading class data: " + e.getMessage(), e);
-                } catch (Exception e) {
-                    throw new Exception("An unexpected error occurred while loading class data: " + e.getMessage(), e);
                 }
-                return data; // Return the list of data rows
             }
 
             @Override
             protected void done() {
                 setLoading(false); // Hide loading indicator
                 try {
-                    List<Object[]> data = get(); // Get the result from doInBackground()
-                    classTableModel.setRowCount(0); // Clear the table
-                    for (Object[] row : data) {
-                        classTableModel.addRow(row); // Add rows to the table model
-                    }
-                    // Update pagination label and button states
-                    int totalClasses = getClassCount(); // Get total count for pagination
-                    int totalPages = (int) Math.ceil((double) totalClasses / classRowsPerPage);
-                    classPageInfoLabel.setText("Page " + classCurrentPage + " of " + totalPages);
-                    prevClassPageButton.setEnabled(classCurrentPage > 1);
-                    nextClassPageButton.setEnabled(classCurrentPage < totalPages);
+                    classTableModel.reset(where, orderBy, parameters, get()); // The row count label follows the model
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error loading class data: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1690,31 +2326,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute(); // Execute the SwingWorker
-    }
-
-    /**
-     * Gets the total count of classes in the database for pagination purposes.
-     * Uses a direct database query (not in SwingWorker as it's a quick count).
-     *
-     * @return The total number of classes.
-     */
-    private int getClassCount() {
-        int count = 0;
-        try (Connection conn = DatabaseUtility.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM classes")) {
-            if (rs.next()) {
-                count = rs.getInt(1);
-            }
-            rs.close();
-        } catch (SQLException e) {
-            // Log the error but don't necessarily show a dialog
-            System.err.println("Error getting class count: " + e.getMessage());
-            e.printStackTrace();
-            // Return 0 to avoid breaking pagination logic
-        }
-        return count;
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -1788,12 +2401,7 @@ public class AdminPanel extends JPanel {
         formPanel.add(buttonPanel, gbc);
 
         // Table Panel to display subjects
-        subjectTableModel = new DefaultTableModel(new Object[]{"ID", "Name"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        subjectTableModel = createSubjectTableModel();
         subjectTable = new JTable(subjectTableModel);
         subjectTable.setFillsViewportHeight(true);
         subjectTable.setRowHeight(25);
@@ -1801,23 +2409,25 @@ public class AdminPanel extends JPanel {
         JScrollPane subjectScrollPane = new JScrollPane(subjectTable);
         subjectScrollPane.setBorder(BorderFactory.createTitledBorder("Subjects List"));
 
-        // Pagination Panel
-        JPanel paginationPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        paginationPanel.setBackground(new Color(250, 250, 250));
-        prevSubjectPageButton = new JButton("Previous");
-        styleButton(prevSubjectPageButton, new Color(108, 117, 125)); // Grey
-        subjectPageInfoLabel = new JLabel("Page 1");
-        nextSubjectPageButton = new JButton("Next");
-        styleButton(nextSubjectPageButton, new Color(108, 117, 125)); // Grey
-        paginationPanel.add(prevSubjectPageButton);
-        paginationPanel.add(subjectPageInfoLabel);
-        paginationPanel.add(nextSubjectPageButton);
+        // Sorting (header clicks) and filtering are done by the database over all rows
+        subjectQuery = createSubjectQueryState(() -> {
+            subjectTable.scrollRectToVisible(new Rectangle()); // A new sort or filter starts at the top
+            loadSubjectData();
+        });
+        subjectQuery.install(subjectTable);
+
+        // Row count below the table; the rows themselves are fetched as they are scrolled into view
+        JPanel rowCountPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        rowCountPanel.setBackground(new Color(250, 250, 250));
+        subjectRowCountLabel = new JLabel(" ");
+        subjectTableModel.addTableModelListener(e -> subjectRowCountLabel.setText(subjectTableModel.getRowCount() + " subjects"));
+        rowCountPanel.add(subjectRowCountLabel);
 
 
         // Add components to the main panel
         panel.add(formPanel, BorderLayout.NORTH);
-        panel.add(subjectScrollPane, BorderLayout.CENTER);
-        panel.add(paginationPanel, BorderLayout.SOUTH);
+        panel.add(createFilterableTablePanel(subjectScrollPane, subjectQuery), BorderLayout.CENTER);
+        panel.add(rowCountPanel, BorderLayout.SOUTH);
 
         // --- Action Listeners ---
         addSubjectButton.addActionListener(e -> addSubject());
@@ -1825,23 +2435,8 @@ public class AdminPanel extends JPanel {
         deleteSubjectButton.addActionListener(e -> deleteSubject());
         clearSubjectFieldsButton.addActionListener(e -> clearSubjectFields());
 
-        prevSubjectPageButton.addActionListener(e -> {
-            if (subjectCurrentPage > 1) {
-                subjectCurrentPage--;
-                loadSubjectData();
-            }
-        });
-        nextSubjectPageButton.addActionListener(e -> {
-            int totalSubjects = getSubjectCount();
-            int totalPages = (int) Math.ceil((double) totalSubjects / subjectRowsPerPage);
-            if (subjectCurrentPage < totalPages) {
-                subjectCurrentPage++;
-                loadSubjectData();
-            }
-        });
-
         subjectTable.getSelectionModel().addListSelectionListener(event -> {
-            if (!event.getValueIsAdjusting() && subjectTable.getSelectedRow() != -1) {
+            if (!event.getValueIsAdjusting() && subjectTable.getSelectedRow() != -1 && subjectTableModel.isRowLoaded(subjectTable.getSelectedRow())) {
                 int selectedRow = subjectTable.getSelectedRow();
                 subjectIdField.setText(subjectTable.getValueAt(selectedRow, 0).toString());
                 subjectNameField.setText(subjectTable.getValueAt(selectedRow, 1).toString());
@@ -1863,9 +2458,10 @@ public class AdminPanel extends JPanel {
         }
 
         setLoading(true);
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
                              "INSERT INTO subjects (subject_name) VALUES (?)",
@@ -1874,23 +2470,30 @@ public class AdminPanel extends JPanel {
                     pstmt.executeUpdate();
                     ResultSet generatedKeys = pstmt.getGeneratedKeys();
                     if (generatedKeys.next()) {
-                        // int newSubjectId = generatedKeys.getInt(1); // Not used currently
+                        int newSubjectId = generatedKeys.getInt(1);
+                        searchIndex.put(SearchIndex.EntityType.SUBJECT, newSubjectId, name); // Keep global search current
+                        row = subjectTableModel.fetchRow(conn, newSubjectId); // Read back on the same connection, for the table
                     }
                     generatedKeys.close();
                 } catch (SQLException e) {
                     throw new Exception("Database error adding subject: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    get();
+                    LazyTableModel.FetchedRow row = get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Subject added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearSubjectFields();
-                    loadSubjectData();
+                    if (row != null) {
+                        subjectTableModel.insertRow(row); // Shown at the top until the table is next reloaded
+                    } else {
+                        loadSubjectData(); // The new key was not returned, so the row could not be read back
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error adding subject: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1901,7 +2504,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1924,9 +2528,10 @@ public class AdminPanel extends JPanel {
         }
 
         setLoading(true);
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement("UPDATE subjects SET subject_name=? WHERE subject_id=?")) {
                     pstmt.setString(1, name);
@@ -1935,20 +2540,25 @@ public class AdminPanel extends JPanel {
                     if (rowsUpdated == 0) {
                         throw new Exception("Subject with ID " + subjectId + " not found or no changes were made.");
                     }
+                    searchIndex.put(SearchIndex.EntityType.SUBJECT, subjectId, name); // Keep global search current
+                    row = subjectTableModel.fetchRow(conn, subjectId); // Read back on the same connection, for the table
                 } catch (SQLException e) {
                     throw new Exception("Database error updating subject: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    get();
+                    LazyTableModel.FetchedRow row = get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Subject updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearSubjectFields();
-                    loadSubjectData();
+                    if (row != null) {
+                        subjectTableModel.updateRow(row); // Patch the changed row instead of reloading the table
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error updating subject: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -1959,7 +2569,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1998,6 +2609,7 @@ public class AdminPanel extends JPanel {
                     if (rowsDeleted == 0) {
                         throw new Exception("Subject with ID " + subjectId + " not found.");
                     }
+                    searchIndex.remove(SearchIndex.EntityType.SUBJECT, subjectId); // Keep global search current
                 } catch (SQLException e) {
                    throw new Exception("Database error deleting subject: " + e.getMessage(), e);
                 }
@@ -2010,8 +2622,11 @@ public class AdminPanel extends JPanel {
                 try {
                     get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Subject deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearSubjectFields();
-                    loadSubjectData();
+                    if (!removeDeletedRow(subjectTableModel, "subjects", subjectId)) {
+                        loadSubjectData(); // Not among the fetched rows, so its position in the table is unknown
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error deleting subject: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -2022,54 +2637,59 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * @return A model for the subject table. Public so the query plan check loads pages with the same query.
+     */
+    public static LazyTableModel createSubjectTableModel() {
+        return new LazyTableModel(new String[]{"ID", "Name"},
+                new LazyTableModel.ColumnKind[]{LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.TEXT},
+                "subject_id, subject_name",
+                " FROM subjects",
+                "subject_id");
+    }
+
+    /**
+     * @param onChange Called when the sort or filters change.
+     * @return The sort and filter state of the subject table. Public so the query plan check builds the same
+     *         sorted and filtered queries.
+     */
+    public static TableQueryState createSubjectQueryState(Runnable onChange) {
+        return new TableQueryState("subject_id",
+                new String[]{"subject_id", "subject_name"},
+                new TableQueryState.ColumnType[]{TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.TEXT},
+                onChange);
     }
 
     /**
-     * Loads subject data from the database and populates the subject table.
-     * Implements basic pagination. Uses SwingWorker for background database operation.
+     * Counts the subjects matching the filters chosen in the filter bar and points the subject table at them,
+     * sorted as chosen in the table header. The rows themselves are fetched by the table model, a block
+     * at a time, as they are scrolled into view. Uses a SwingWorker for background database operation.
      */
     private void loadSubjectData() {
-        setLoading(true);
-        SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
+        setLoading(true); // Show loading indicator
+        // Take the sort and filters on the EDT so the count and the table model use one consistent state
+        final String where = subjectQuery.whereClause();
+        final String orderBy = subjectQuery.orderByClause();
+        final List<Object> parameters = subjectQuery.filterParameters();
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
             @Override
-            protected List<Object[]> doInBackground() throws Exception {
-                List<Object[]> data = new ArrayList<>();
-                int offset = (subjectCurrentPage - 1) * subjectRowsPerPage;
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT subject_id, subject_name FROM subjects ORDER BY subject_id LIMIT ? OFFSET ?")) {
-                    pstmt.setInt(1, subjectRowsPerPage);
-                    pstmt.setInt(2, offset);
-                    ResultSet rs = pstmt.executeQuery();
-                    while (rs.next()) {
-                        Object[] row = {
-                                rs.getInt("subject_id"),
-                                rs.getString("subject_name")
-                        };
-                        data.add(row);
-                    }
-                    rs.close();
+            protected Integer doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return subjectTableModel.countRows(conn, where, parameters);
                 } catch (SQLException e) {
                     throw new Exception("Database error loading subject data: " + e.getMessage(), e);
                 }
-                return data;
             }
 
             @Override
             protected void done() {
-                setLoading(false);
+                setLoading(false); // Hide loading indicator
                 try {
-                    List<Object[]> data = get();
-                    subjectTableModel.setRowCount(0);
-                    for (Object[] row : data) {
-                        subjectTableModel.addRow(row);
-                    }
-                    int totalSubjects = getSubjectCount();
-                    int totalPages = (int) Math.ceil((double) totalSubjects / subjectRowsPerPage);
-                    subjectPageInfoLabel.setText("Page " + subjectCurrentPage + " of " + totalPages);
-                    prevSubjectPageButton.setEnabled(subjectCurrentPage > 1);
-                    nextSubjectPageButton.setEnabled(subjectCurrentPage < totalPages);
+                    subjectTableModel.reset(where, orderBy, parameters, get()); // The row count label follows the model
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error loading subject data: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -2077,26 +2697,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
-    }
-
-    /**
-     * Gets the total count of subjects for pagination.
-     */
-    private int getSubjectCount() {
-        int count = 0;
-        try (Connection conn = DatabaseUtility.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM subjects")) {
-            if (rs.next()) {
-                count = rs.getInt(1);
-            }
-            rs.close();
-        } catch (SQLException e) {
-            System.err.println("Error getting subject count: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return count;
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -2291,7 +2893,8 @@ public class AdminPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -2319,16 +2922,23 @@ public class AdminPanel extends JPanel {
         }
 
         setLoading(true);
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<Object[], Void> worker = new SwingWorker<Object[], Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected Object[] doInBackground() throws Exception {
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
-                             "INSERT INTO class_assignments (class_id, teacher_id, subject_id) VALUES (?, ?, ?)")) {
+                             "INSERT INTO class_assignments (class_id, teacher_id, subject_id) VALUES (?, ?, ?)",
+                             Statement.RETURN_GENERATED_KEYS)) {
                     pstmt.setInt(1, classId);
                     pstmt.setInt(2, teacherId);
                     pstmt.setInt(3, subjectId);
                     pstmt.executeUpdate();
+                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            // The names are known from the combo boxes, so the new table row needs no further query
+                            return new Object[]{generatedKeys.getInt(1), className, teacherName, subjectName};
+                        }
+                    }
                 } catch (SQLException e) {
                     throw new Exception("Database error adding assignment: " + e.getMessage(), e);
                 }
@@ -2339,9 +2949,14 @@ public class AdminPanel extends JPanel {
             protected void done() {
                 setLoading(false);
                 try {
-                    get();
+                    Object[] row = get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Assignment added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadAssignmentData(); // Refresh the assignment table
+                    expireVersionProbe();
+                    if (row != null) {
+                        assignmentTableModel.addRow(row); // The table is ordered by ID, so the new assignment goes last
+                    } else {
+                        loadAssignmentData(); // The new key was not returned
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error adding assignment: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -2352,7 +2967,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -2399,7 +3015,14 @@ public class AdminPanel extends JPanel {
                 try {
                     get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Assignment deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadAssignmentData(); // Refresh the assignment table
+                    expireVersionProbe();
+                    // Remove the row in place; look it up by ID, as the selection may have moved meanwhile
+                    for (int row = 0; row < assignmentTableModel.getRowCount(); row++) {
+                        if ((int) assignmentTableModel.getValueAt(row, 0) == assignmentId) {
+                            assignmentTableModel.removeRow(row);
+                            break;
+                        }
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error deleting assignment: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -2407,7 +3030,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -2422,13 +3046,7 @@ public class AdminPanel extends JPanel {
                 List<Object[]> data = new ArrayList<>();
                 try (Connection conn = DatabaseUtility.getConnection();
                      Statement stmt = conn.createStatement();
-                     ResultSet rs = stmt.executeQuery(
-                             "SELECT ca.assignment_id, c.class_name, t.name AS teacher_name, s.subject_name " +
-                             "FROM class_assignments ca " +
-                             "JOIN classes c ON ca.class_id = c.class_id " +
-                             "JOIN teachers t ON ca.teacher_id = t.teacher_id " +
-                             "JOIN subjects s ON ca.subject_id = s.subject_id " +
-                             "ORDER BY ca.assignment_id")) {
+                     ResultSet rs = stmt.executeQuery(ASSIGNMENTS_SQL)) {
                     while (rs.next()) {
                         Object[] row = {
                                 rs.getInt("assignment_id"),
@@ -2461,7 +3079,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -2484,7 +3103,8 @@ public class AdminPanel extends JPanel {
         gbc.gridx = 0;
         gbc.gridy = 0;
         formPanel.add(studentLabel, gbc);
-        enrollStudentComboBox = new JComboBox<>();
+        enrollStudentComboBox = new TypeaheadComboBox("students", "student_id", "name");
+        enrollStudentComboBox.setToolTipText("Type the start of the student's name");
         enrollStudentComboBox.setPreferredSize(new Dimension(200, enrollStudentComboBox.getPreferredSize().height));
         gbc.gridx = 1;
         gbc.gridy = 0;
@@ -2517,23 +3137,33 @@ public class AdminPanel extends JPanel {
 
 
         // Table Panel
-        enrollmentTableModel = new DefaultTableModel(new Object[]{"ID", "Student", "Class"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        enrollmentTableModel = createEnrollmentTableModel();
         enrollmentTable = new JTable(enrollmentTableModel);
         enrollmentTable.setFillsViewportHeight(true);
         enrollmentTable.setRowHeight(25);
         enrollmentTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        enrollmentTable.removeColumn(enrollmentTable.getColumnModel().getColumn(3)); // Student ID stays in the model only
         JScrollPane enrollmentScrollPane = new JScrollPane(enrollmentTable);
         enrollmentScrollPane.setBorder(BorderFactory.createTitledBorder("Enrollments List"));
+        // Sorting (header clicks) and filtering are done by the database over all rows
+        enrollmentQuery = createEnrollmentQueryState(() -> {
+            enrollmentTable.scrollRectToVisible(new Rectangle()); // A new sort or filter starts at the top
+            loadEnrollmentData();
+        });
+        enrollmentQuery.install(enrollmentTable);
+
+        // Row count below the table; the rows themselves are fetched as they are scrolled into view
+        JPanel enrollmentRowCountPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        enrollmentRowCountPanel.setBackground(new Color(250, 250, 250));
+        enrollmentRowCountLabel = new JLabel(" ");
+        enrollmentTableModel.addTableModelListener(e -> enrollmentRowCountLabel.setText(enrollmentTableModel.getRowCount() + " enrollments"));
+        enrollmentRowCountPanel.add(enrollmentRowCountLabel);
 
 
         // Add components to the main panel
         panel.add(formPanel, BorderLayout.NORTH);
-        panel.add(enrollmentScrollPane, BorderLayout.CENTER);
+        panel.add(createFilterableTablePanel(enrollmentScrollPane, enrollmentQuery), BorderLayout.CENTER);
+        panel.add(enrollmentRowCountPanel, BorderLayout.SOUTH);
 
         // --- Action Listeners ---
         addEnrollmentButton.addActionListener(e -> addEnrollment());
@@ -2541,10 +3171,11 @@ public class AdminPanel extends JPanel {
 
         // Add ListSelectionListener to the table to populate fields when a row is selected
         enrollmentTable.getSelectionModel().addListSelectionListener(event -> {
-            if (!event.getValueIsAdjusting() && enrollmentTable.getSelectedRow() != -1) {
+            if (!event.getValueIsAdjusting() && enrollmentTable.getSelectedRow() != -1 && enrollmentTableModel.isRowLoaded(enrollmentTable.getSelectedRow())) {
                 int selectedRow = enrollmentTable.getSelectedRow();
                 // Populate the combo boxes from the selected row
-                enrollStudentComboBox.setSelectedItem(enrollmentTable.getValueAt(selectedRow, 1).toString());
+                int modelRow = enrollmentTable.convertRowIndexToModel(selectedRow);
+                enrollStudentComboBox.setSelectedRecord((int) enrollmentTableModel.getValueAt(modelRow, 3), enrollmentTableModel.getValueAt(modelRow, 1).toString());
                 enrollClassComboBox.setSelectedItem(enrollmentTable.getValueAt(selectedRow, 2).toString());
             }
         });
@@ -2553,7 +3184,7 @@ public class AdminPanel extends JPanel {
     }
 
     /**
-     * Loads data for enrollment combo boxes (students, classes).
+     * Loads data for enrollment combo boxes (classes; students are looked up on demand).
      * Uses SwingWorker for background database operation.
      */
     private void loadEnrollmentComboBoxes() {
@@ -2562,25 +3193,14 @@ public class AdminPanel extends JPanel {
             @Override
             protected Map<String, Vector<String>> doInBackground() throws Exception {
                 Map<String, Vector<String>> data = new HashMap<>();
-                Vector<String> studentNames = new Vector<>();
                 Vector<String> classNames = new Vector<>();
 
-                studentNameToIdMap.clear(); // Clear maps before re-populating
-                classNameToIdMap.clear(); // Use the same map as for student panel
+                classNameToIdMap.clear(); // Clear map before re-populating (same map as for student panel)
 
                 try (Connection conn = DatabaseUtility.getConnection();
                      Statement stmt = conn.createStatement()) {
 
-                    // Load Students
-                    ResultSet rsStudents = stmt.executeQuery("SELECT student_id, name FROM students ORDER BY name");
-                    while (rsStudents.next()) {
-                        int id = rsStudents.getInt("student_id");
-                        String name = rsStudents.getString("name");
-                        studentNames.add(name);
-                        studentNameToIdMap.put(name, id);
-                    }
-                    rsStudents.close();
-                    data.put("students", studentNames);
+                    // Students are not listed up front; the student combo box looks them up as the user types
 
                     // Load Classes
                     ResultSet rsClasses = stmt.executeQuery("SELECT class_id, class_name FROM classes ORDER BY class_name");
@@ -2606,7 +3226,6 @@ public class AdminPanel extends JPanel {
                     Map<String, Vector<String>> data = get();
                     // Update combo box models on the EDT
                     SwingUtilities.invokeLater(() -> {
-                        enrollStudentComboBox.setModel(new DefaultComboBoxModel<>(data.get("students")));
                         enrollClassComboBox.setModel(new DefaultComboBoxModel<>(data.get("classes")));
                     });
                 } catch (InterruptedException | ExecutionException e) {
@@ -2616,12 +3235,12 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                      // Clear combo boxes if loading fails
                      SwingUtilities.invokeLater(() -> {
-                         enrollStudentComboBox.setModel(new DefaultComboBoxModel<>());
                          enrollClassComboBox.setModel(new DefaultComboBoxModel<>());
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -2629,7 +3248,7 @@ public class AdminPanel extends JPanel {
      * Uses SwingWorker for background database operation.
      */
     private void addEnrollment() {
-        String studentName = (String) enrollStudentComboBox.getSelectedItem();
+        String studentName = enrollStudentComboBox.getSelectedName();
         String className = (String) enrollClassComboBox.getSelectedItem();
 
         if (studentName == null || studentName.isEmpty() || className == null || className.isEmpty()) {
@@ -2637,37 +3256,49 @@ public class AdminPanel extends JPanel {
             return;
         }
 
-        Integer studentId = studentNameToIdMap.get(studentName);
+        Integer studentId = enrollStudentComboBox.getSelectedId(); // Needs a student picked from the list (or an unambiguous exact name)
         Integer classId = classNameToIdMap.get(className);
 
         if (studentId == null || classId == null) {
-            showError("Invalid selections. Please select a valid Student and Class.");
+            showError("Invalid selections. Please pick a Student from the list and select a valid Class.");
             return;
         }
 
         setLoading(true);
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
-                             "INSERT INTO enrollments (student_id, class_id) VALUES (?, ?)")) {
+                             "INSERT INTO enrollments (student_id, class_id) VALUES (?, ?)",
+                             Statement.RETURN_GENERATED_KEYS)) {
                     pstmt.setInt(1, studentId);
                     pstmt.setInt(2, classId);
                     pstmt.executeUpdate();
+                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            row = enrollmentTableModel.fetchRow(conn, generatedKeys.getInt(1)); // Read back on the same connection, for the table
+                        }
+                    }
                 } catch (SQLException e) {
                     throw new Exception("Database error adding enrollment: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    get();
+                    LazyTableModel.FetchedRow row = get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Student enrolled successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadEnrollmentData(); // Refresh the enrollment table
+                    expireVersionProbe();
+                    if (row != null) {
+                        enrollmentTableModel.insertRow(row); // Shown at the top until the table is next reloaded
+                    } else {
+                        loadEnrollmentData(); // The new key was not returned, so the row could not be read back
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error adding enrollment: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -2678,7 +3309,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -2725,7 +3357,10 @@ public class AdminPanel extends JPanel {
                 try {
                     get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Enrollment deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadEnrollmentData(); // Refresh the enrollment table
+                    expireVersionProbe();
+                    if (!removeDeletedRow(enrollmentTableModel, "enrollments", enrollmentId)) {
+                        loadEnrollmentData(); // Not among the fetched rows, so its position in the table is unknown
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error deleting enrollment: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -2733,51 +3368,59 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
-     * Loads enrollment data from the database and populates the enrollment table.
-     * Uses SwingWorker for background database operation.
+     * @return A model for the enrollment table. Public so the query plan check loads pages with the same query.
+     */
+    public static LazyTableModel createEnrollmentTableModel() {
+        return new LazyTableModel(new String[]{"ID", "Student", "Class", "Student ID"},
+                new LazyTableModel.ColumnKind[]{LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.INT},
+                "e.enrollment_id, s.name, c.class_name, e.student_id",
+                " FROM enrollments e JOIN students s ON e.student_id = s.student_id JOIN classes c ON e.class_id = c.class_id",
+                "e.enrollment_id");
+    }
+
+    /**
+     * @param onChange Called when the sort or filters change.
+     * @return The sort and filter state of the enrollment table. Public so the query plan check builds the same
+     *         sorted and filtered queries.
+     */
+    public static TableQueryState createEnrollmentQueryState(Runnable onChange) {
+        return new TableQueryState("e.enrollment_id",
+                new String[]{"e.enrollment_id", "s.name", "c.class_name", "e.student_id"},
+                new TableQueryState.ColumnType[]{TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.NONE},
+                onChange);
+    }
+
+    /**
+     * Counts the enrollments matching the filters chosen in the filter bar and points the enrollment table at them,
+     * sorted as chosen in the table header. The rows themselves are fetched by the table model, a block
+     * at a time, as they are scrolled into view. Uses a SwingWorker for background database operation.
      */
     private void loadEnrollmentData() {
-        setLoading(true);
-        SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
+        setLoading(true); // Show loading indicator
+        // Take the sort and filters on the EDT so the count and the table model use one consistent state
+        final String where = enrollmentQuery.whereClause();
+        final String orderBy = enrollmentQuery.orderByClause();
+        final List<Object> parameters = enrollmentQuery.filterParameters();
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
             @Override
-            protected List<Object[]> doInBackground() throws Exception {
-                List<Object[]> data = new ArrayList<>();
-                try (Connection conn = DatabaseUtility.getConnection();
-                     Statement stmt = conn.createStatement();
-                     ResultSet rs = stmt.executeQuery(
-                             "SELECT e.enrollment_id, s.name AS student_name, c.class_name " +
-                             "FROM enrollments e " +
-                             "JOIN students s ON e.student_id = s.student_id " +
-                             "JOIN classes c ON e.class_id = c.class_id " +
-                             "ORDER BY e.enrollment_id")) {
-                    while (rs.next()) {
-                        Object[] row = {
-                                rs.getInt("enrollment_id"),
-                                rs.getString("student_name"),
-                                rs.getString("class_name")
-                        };
-                        data.add(row);
-                    }
-                    rs.close();
+            protected Integer doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return enrollmentTableModel.countRows(conn, where, parameters);
                 } catch (SQLException e) {
                     throw new Exception("Database error loading enrollment data: " + e.getMessage(), e);
                 }
-                return data;
             }
 
             @Override
             protected void done() {
-                setLoading(false);
+                setLoading(false); // Hide loading indicator
                 try {
-                    List<Object[]> data = get();
-                    enrollmentTableModel.setRowCount(0);
-                    for (Object[] row : data) {
-                        enrollmentTableModel.addRow(row);
-                    }
+                    enrollmentTableModel.reset(where, orderBy, parameters, get()); // The row count label follows the model
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error loading enrollment data: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -2785,7 +3428,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -2814,6 +3458,10 @@ public class AdminPanel extends JPanel {
         reportTermComboBox.setPreferredSize(new Dimension(100, reportTermComboBox.getPreferredSize().height));
         controlPanel.add(reportTermComboBox);
 
+        controlPanel.add(new JLabel("Bands:"));
+        reportBandComboBox = new JComboBox<>(HistogramChart.BAND_OPTIONS);
+        controlPanel.add(reportBandComboBox);
+
         generateReportButton = new JButton("Generate Report");
         styleButton(generateReportButton, new Color(0, 123, 255)); // Blue
         controlPanel.add(generateReportButton);
@@ -2822,6 +3470,10 @@ public class AdminPanel extends JPanel {
         styleButton(printReportButton, new Color(108, 117, 125)); // Grey
         controlPanel.add(printReportButton);
 
+        exportReportPdfButton = new JButton("Export PDF");
+        styleButton(exportReportPdfButton, new Color(108, 117, 125)); // Grey
+        controlPanel.add(exportReportPdfButton);
+
 
         // Report Display Area
         reportDisplayArea = new JTextArea();
@@ -2832,14 +3484,26 @@ public class AdminPanel extends JPanel {
         JScrollPane reportScrollPane = new JScrollPane(reportDisplayArea);
         reportScrollPane.setBorder(BorderFactory.createTitledBorder("Performance Report"));
 
+        // Score distribution chart shown beside the report text
+        reportHistogramChart = new HistogramChart();
+        JPanel chartPanel = new JPanel(new BorderLayout());
+        chartPanel.setBackground(new Color(250, 250, 250));
+        chartPanel.setBorder(BorderFactory.createTitledBorder("Score Distribution"));
+        chartPanel.add(reportHistogramChart, BorderLayout.CENTER);
+
+        JSplitPane reportSplitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, reportScrollPane, chartPanel);
+        reportSplitPane.setResizeWeight(0.6); // Give most of the extra space to the report text
+        reportSplitPane.setBorder(null);
+
 
         // Add components to the main panel
         panel.add(controlPanel, BorderLayout.NORTH);
-        panel.add(reportScrollPane, BorderLayout.CENTER);
+        panel.add(reportSplitPane, BorderLayout.CENTER);
 
         // --- Action Listeners ---
         generateReportButton.addActionListener(e -> generatePerformanceReport());
         printReportButton.addActionListener(e -> printPerformanceReport());
+        exportReportPdfButton.addActionListener(e -> exportPerformanceReportPdf());
 
         // Add listeners to combo boxes to update dependent combo boxes
         reportClassComboBox.addActionListener(e -> populateReportSubjectComboBox());
@@ -2892,7 +3556,7 @@ public class AdminPanel extends JPanel {
                     data.put("subjects", subjectNames);
 
                     // Load Terms from Grades table
-                    ResultSet rsTerms = stmt.executeQuery("SELECT DISTINCT term FROM grades ORDER BY term");
+                    ResultSet rsTerms = stmt.executeQuery(TERMS_SQL);
                     while (rsTerms.next()) {
                         terms.add(rsTerms.getString("term"));
                     }
@@ -2928,7 +3592,8 @@ public class AdminPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -2959,8 +3624,7 @@ public class AdminPanel extends JPanel {
                 subjectNameToIdMap.clear(); // Clear map
 
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                         "SELECT DISTINCT s.subject_id, s.subject_name FROM subjects s JOIN class_assignments ca ON s.subject_id = ca.subject_id WHERE ca.class_id = ? ORDER BY s.subject_name")) {
+                     PreparedStatement pstmt = conn.prepareStatement(CLASS_SUBJECTS_SQL)) {
                     pstmt.setInt(1, classId);
                     ResultSet rs = pstmt.executeQuery();
                     while (rs.next()) {
@@ -2997,7 +3661,8 @@ public class AdminPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -3028,8 +3693,7 @@ public class AdminPanel extends JPanel {
             protected Vector<String> doInBackground() throws Exception {
                 Vector<String> terms = new Vector<>();
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                         "SELECT DISTINCT g.term FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id WHERE e.class_id = ? AND g.subject_id = ? ORDER BY g.term")) {
+                     PreparedStatement pstmt = conn.prepareStatement(CLASS_SUBJECT_TERMS_SQL)) {
                     pstmt.setInt(1, classId);
                     pstmt.setInt(2, subjectId);
                     ResultSet rs = pstmt.executeQuery();
@@ -3061,7 +3725,8 @@ public class AdminPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -3088,66 +3753,94 @@ public class AdminPanel extends JPanel {
             return;
         }
 
+        int bucketWidth = HistogramChart.bucketWidthFor((String) reportBandComboBox.getSelectedItem());
+
         setLoading(true);
-        SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
+        SwingWorker<PerformanceReport, Void> worker = new SwingWorker<PerformanceReport, Void>() {
             @Override
-            protected String doInBackground() throws Exception {
-                StringBuilder reportContent = new StringBuilder();
-                reportContent.append(String.format("--- Performance Report for %s - %s (%s) ---\n\n", selectedClass, selectedSubject, selectedTerm));
-                reportContent.append(String.format("%-5s %-20s %-10s %s\n", "ID", "Student Name", "Score", "Comments"));
-                reportContent.append("--------------------------------------------------------\n");
+            protected PerformanceReport doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return PerformanceReport.generate(conn, selectedClass, selectedSubject, classId, subjectId, selectedTerm, bucketWidth, null);
+                } catch (SQLException e) {
+                    throw new Exception("Database error generating report: " + e.getMessage(), e);
+                }
+            }
 
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                         "SELECT s.student_id, s.name AS student_name, g.score, g.comments " +
-                         "FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id JOIN students s ON e.student_id = s.student_id " +
-                         "WHERE e.class_id = ? AND g.subject_id = ? AND g.term = ? ORDER BY s.name")) {
-                    pstmt.setInt(1, classId);
-                    pstmt.setInt(2, subjectId);
-                    pstmt.setString(3, selectedTerm);
-                    ResultSet rs = pstmt.executeQuery();
+            @Override
+            protected void done() {
+                setLoading(false);
+                try {
+                    PerformanceReport report = get();
+                    SwingUtilities.invokeLater(() -> {
+                        reportDisplayArea.setText(report.getText());
+                        reportHistogramChart.setBuckets(report.getDistribution());
+                        lastReportDistribution = report.getDistribution();
+                        lastReportTitle = "Performance Report - " + selectedClass + " - " + selectedSubject + " (" + selectedTerm + ")";
+                    });
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    String errorMessage = "Error generating report: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    showError(errorMessage);
+                    e.printStackTrace();
+                    SwingUtilities.invokeLater(() -> {
+                        reportDisplayArea.setText("Error generating report: " + errorMessage);
+                        reportHistogramChart.setBuckets(null);
+                        lastReportDistribution = null;
+                    });
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
 
-                    List<Double> scores = new ArrayList<>();
-                    while (rs.next()) {
-                        int studentId = rs.getInt("student_id");
-                        String studentName = rs.getString("student_name");
-                        Double score = rs.getDouble("score");
-                        String comments = rs.getString("comments");
-                        reportContent.append(String.format("%-5d %-20s %-10.2f %s\n", studentId, studentName, score, comments != null ? comments : ""));
-                        scores.add(score);
-                    }
-                    rs.close();
+    /**
+     * Exports the report currently shown, including its score distribution chart, to a PDF file.
+     * Uses SwingWorker to write the file in the background.
+     */
+    private void exportPerformanceReportPdf() {
+        String reportContent = reportDisplayArea.getText();
 
-                    // Calculate average score
-                    if (!scores.isEmpty()) {
-                        double averageScore = scores.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                        reportContent.append("--------------------------------------------------------\n");
-                        reportContent.append(String.format("Average Score: %.2f\n", averageScore));
-                    } else {
-                        reportContent.append("No grades recorded for this criteria.\n");
-                    }
+        if (reportContent == null || reportContent.trim().isEmpty() || reportContent.contains("Error generating report")) {
+            JOptionPane.showMessageDialog(this, "No valid report to export.", "Info", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
 
-                } catch (SQLException e) {
-                    throw new Exception("Database error generating report: " + e.getMessage(), e);
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new java.io.File("performance-report.pdf"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return; // User cancelled
+        }
+        String filePath = fileChooser.getSelectedFile().getAbsolutePath();
+        String title = lastReportTitle != null ? lastReportTitle : "Performance Report";
+        List<GradeDistribution.Bucket> distribution = lastReportDistribution;
+
+        setLoading(true);
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                try {
+                    PdfReportGenerator.generateDistributionReport(filePath, title, reportContent, distribution);
+                } catch (Exception e) {
+                    throw new Exception("Error writing PDF: " + e.getMessage(), e);
                 }
-                return reportContent.toString();
+                return null;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    String report = get();
-                    SwingUtilities.invokeLater(() -> reportDisplayArea.setText(report));
+                    get();
+                    JOptionPane.showMessageDialog(AdminPanel.this, "Report exported to " + filePath, "Success", JOptionPane.INFORMATION_MESSAGE);
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
-                    String errorMessage = "Error generating report: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    String errorMessage = "Error exporting report: " + (cause != null ? cause.getMessage() : e.getMessage());
                     showError(errorMessage);
                     e.printStackTrace();
-                    SwingUtilities.invokeLater(() -> reportDisplayArea.setText("Error generating report: " + errorMessage));
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -3283,7 +3976,8 @@ public class AdminPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -3326,12 +4020,8 @@ public class AdminPanel extends JPanel {
             @Override
             protected Integer doInBackground() throws Exception {
                 int promotedCount = 0;
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "UPDATE students SET class_id = ? WHERE class_id = ?")) {
-                    pstmt.setInt(1, toClassId);
-                    pstmt.setInt(2, fromClassId);
-                    promotedCount = pstmt.executeUpdate();
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    promotedCount = StudentPromotion.run(conn, fromClassId, toClassId);
                 } catch (SQLException e) {
                     throw new Exception("Database error during student promotion: " + e.getMessage(), e);
                 }
@@ -3346,6 +4036,7 @@ public class AdminPanel extends JPanel {
                     JOptionPane.showMessageDialog(AdminPanel.this,
                             promotedCount + " student(s) promoted successfully from " + fromClassName + " to " + toClassName + ".",
                             "Promotion Complete", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     // Optionally refresh student data if the student tab is active
                     if (adminTabbedPane.getSelectedIndex() == 0) { // Check if Student tab is active
                          loadStudentData();
@@ -3357,7 +4048,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -3391,7 +4083,8 @@ public class AdminPanel extends JPanel {
         gbc.gridx = 0;
         gbc.gridy = 1;
         formPanel.add(studentLabel, gbc);
-        feeStudentComboBox = new JComboBox<>();
+        feeStudentComboBox = new TypeaheadComboBox("students", "student_id", "name");
+        feeStudentComboBox.setToolTipText("Type the start of the student's name");
         feeStudentComboBox.setPreferredSize(new Dimension(200, feeStudentComboBox.getPreferredSize().height));
         gbc.gridx = 1;
         gbc.gridy = 1;
@@ -3460,23 +4153,47 @@ public class AdminPanel extends JPanel {
 
 
         // Table Panel to display fee records
-        feeTableModel = new DefaultTableModel(new Object[]{"ID", "Student", "Class", "Term", "Amount Due", "Amount Paid", "Date Last Paid"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        feeTableModel = createFeeTableModel();
         feeTable = new JTable(feeTableModel);
         feeTable.setFillsViewportHeight(true);
         feeTable.setRowHeight(25);
         feeTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        feeTable.removeColumn(feeTable.getColumnModel().getColumn(9)); // Row version and
+        feeTable.removeColumn(feeTable.getColumnModel().getColumn(8)); // student ID stay in the model only
         JScrollPane feeScrollPane = new JScrollPane(feeTable);
         feeScrollPane.setBorder(BorderFactory.createTitledBorder("Fee Records List"));
+        // Sorting (header clicks) and filtering are done by the database over all rows
+        feeQuery = createFeeQueryState(() -> {
+            feeTable.scrollRectToVisible(new Rectangle()); // A new sort or filter starts at the top
+            loadFeeData();
+        });
+        feeQuery.install(feeTable);
+
+        // Row count below the table; the rows themselves are fetched as they are scrolled into view
+        JPanel feeRowCountPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        feeRowCountPanel.setBackground(new Color(250, 250, 250));
+        feeRowCountLabel = new JLabel(" ");
+        feeTableModel.addTableModelListener(e -> feeRowCountLabel.setText(feeTableModel.getRowCount() + " fee records"));
+        feeRowCountPanel.add(feeRowCountLabel);
+
+        JPanel feeRecordsPanel = new JPanel(new BorderLayout());
+        feeRecordsPanel.add(createFilterableTablePanel(feeScrollPane, feeQuery), BorderLayout.CENTER);
+        feeRecordsPanel.add(feeRowCountPanel, BorderLayout.SOUTH);
+
+        // Fee records and the arrears view share the area below the form
+        feeTabbedPane = new JTabbedPane();
+        feeTabbedPane.addTab("Fee Records", feeRecordsPanel);
+        feeTabbedPane.addTab("Arrears", createArrearsPanel());
+        feeTabbedPane.addChangeListener(e -> {
+            if (feeTabbedPane.getSelectedIndex() == 1) { // Arrears
+                loadArrearsData();
+            }
+        });
 
 
         // Add components to the main panel
         panel.add(formPanel, BorderLayout.NORTH);
-        panel.add(feeScrollPane, BorderLayout.CENTER);
+        panel.add(feeTabbedPane, BorderLayout.CENTER);
 
         // --- Action Listeners ---
         addFeeButton.addActionListener(e -> addFee());
@@ -3486,16 +4203,21 @@ public class AdminPanel extends JPanel {
 
         // Add ListSelectionListener to the table to populate fields when a row is selected
         feeTable.getSelectionModel().addListSelectionListener(event -> {
-            if (!event.getValueIsAdjusting() && feeTable.getSelectedRow() != -1) {
+            if (!event.getValueIsAdjusting() && feeTable.getSelectedRow() != -1 && feeTableModel.isRowLoaded(feeTable.getSelectedRow())) {
                 int selectedRow = feeTable.getSelectedRow();
                 // Populate the fields from the selected row
                 feeIdField.setText(feeTable.getValueAt(selectedRow, 0).toString());
-                feeStudentComboBox.setSelectedItem(feeTable.getValueAt(selectedRow, 1).toString());
+                int modelRow = feeTable.convertRowIndexToModel(selectedRow);
+                feeStudentComboBox.setSelectedRecord((int) feeTableModel.getValueAt(modelRow, 8), feeTableModel.getValueAt(modelRow, 1).toString());
                 feeClassComboBox.setSelectedItem(feeTable.getValueAt(selectedRow, 2).toString());
                 feeTermComboBox.setSelectedItem(feeTable.getValueAt(selectedRow, 3).toString());
                 feeAmountDueField.setText(feeTable.getValueAt(selectedRow, 4).toString());
                 feeAmountPaidField.setText(feeTable.getValueAt(selectedRow, 5).toString());
                 // Date Last Paid is for display only, or could be handled with a DatePicker if needed for input
+                // Remember what was read, so saving can tell whether someone else changed the record since
+                feeEditVersion = (int) feeTableModel.getValueAt(modelRow, 9);
+                feeEditOriginal = new String[]{feeTableModel.getValueAt(modelRow, 1).toString(), feeTable.getValueAt(selectedRow, 2).toString(),
+                        feeTable.getValueAt(selectedRow, 3).toString(), feeAmountDueField.getText().trim(), feeAmountPaidField.getText().trim()};
             }
         });
 
@@ -3503,7 +4225,7 @@ public class AdminPanel extends JPanel {
     }
 
     /**
-     * Loads data for fee combo boxes (students, classes, terms).
+     * Loads data for fee combo boxes (classes, terms; students are looked up on demand).
      * Uses SwingWorker for background database operation.
      */
     private void loadFeeComboBoxes() {
@@ -3512,26 +4234,15 @@ public class AdminPanel extends JPanel {
             @Override
             protected Map<String, Vector<String>> doInBackground() throws Exception {
                 Map<String, Vector<String>> data = new HashMap<>();
-                Vector<String> studentNames = new Vector<>();
                 Vector<String> classNames = new Vector<>();
                 Vector<String> terms = new Vector<>();
 
-                studentNameToIdMap.clear(); // Clear maps before re-populating
-                classNameToIdMap.clear();
+                classNameToIdMap.clear(); // Clear map before re-populating
 
                 try (Connection conn = DatabaseUtility.getConnection();
                      Statement stmt = conn.createStatement()) {
 
-                    // Load Students
-                    ResultSet rsStudents = stmt.executeQuery("SELECT student_id, name FROM students ORDER BY name");
-                    while (rsStudents.next()) {
-                        int id = rsStudents.getInt("student_id");
-                        String name = rsStudents.getString("name");
-                        studentNames.add(name);
-                        studentNameToIdMap.put(name, id);
-                    }
-                    rsStudents.close();
-                    data.put("students", studentNames);
+                    // Students are not listed up front; the student combo box looks them up as the user types
 
                     // Load Classes
                     ResultSet rsClasses = stmt.executeQuery("SELECT class_id, class_name FROM classes ORDER BY class_name");
@@ -3545,7 +4256,7 @@ public class AdminPanel extends JPanel {
                     data.put("classes", classNames);
 
                     // Load Terms from Grades table (or define a standard set of terms)
-                    ResultSet rsTerms = stmt.executeQuery("SELECT DISTINCT term FROM grades ORDER BY term"); // Using terms from grades for consistency
+                    ResultSet rsTerms = stmt.executeQuery(TERMS_SQL); // Using terms from grades for consistency
                     while (rsTerms.next()) {
                         terms.add(rsTerms.getString("term"));
                     }
@@ -3564,7 +4275,6 @@ public class AdminPanel extends JPanel {
                 try {
                     Map<String, Vector<String>> data = get();
                     SwingUtilities.invokeLater(() -> {
-                        feeStudentComboBox.setModel(new DefaultComboBoxModel<>(data.get("students")));
                         feeClassComboBox.setModel(new DefaultComboBoxModel<>(data.get("classes")));
                         feeTermComboBox.setModel(new DefaultComboBoxModel<>(data.get("terms")));
                     });
@@ -3575,13 +4285,13 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                      // Clear combo boxes if loading fails
                      SwingUtilities.invokeLater(() -> {
-                         feeStudentComboBox.setModel(new DefaultComboBoxModel<>());
                          feeClassComboBox.setModel(new DefaultComboBoxModel<>());
                          feeTermComboBox.setModel(new DefaultComboBoxModel<>());
                      });
                 }
             }
-         }.execute();
+         };
+         DbTasks.execute(worker);
     }
 
 
@@ -3590,7 +4300,7 @@ public class AdminPanel extends JPanel {
      * Uses SwingWorker for background database operation.
      */
     private void addFee() {
-        String studentName = (String) feeStudentComboBox.getSelectedItem();
+        String studentName = feeStudentComboBox.getSelectedName();
         String className = (String) feeClassComboBox.getSelectedItem();
         String term = (String) feeTermComboBox.getSelectedItem();
         String amountDueStr = feeAmountDueField.getText().trim();
@@ -3601,11 +4311,11 @@ public class AdminPanel extends JPanel {
             return;
         }
 
-        Integer studentId = studentNameToIdMap.get(studentName);
+        Integer studentId = feeStudentComboBox.getSelectedId(); // Needs a student picked from the list (or an unambiguous exact name)
         Integer classId = classNameToIdMap.get(className);
 
         if (studentId == null || classId == null) {
-            showError("Invalid selections. Please select a valid Student and Class.");
+            showError("Invalid selections. Please pick a Student from the list and select a valid Class.");
             return;
         }
 
@@ -3627,12 +4337,14 @@ public class AdminPanel extends JPanel {
         }
 
         setLoading(true);
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
-                             "INSERT INTO fees (student_id, class_id, term, amount_due, amount_paid, date_last_paid) VALUES (?, ?, ?, ?, ?, ?)")) {
+                             "INSERT INTO fees (student_id, class_id, term, amount_due, amount_paid, date_last_paid) VALUES (?, ?, ?, ?, ?, ?)",
+                             Statement.RETURN_GENERATED_KEYS)) {
                     pstmt.setInt(1, studentId);
                     pstmt.setInt(2, classId);
                     pstmt.setString(3, term);
@@ -3646,20 +4358,30 @@ public class AdminPanel extends JPanel {
                     }
 
                     pstmt.executeUpdate();
+                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            row = feeTableModel.fetchRow(conn, generatedKeys.getInt(1)); // Read back on the same connection, for the table
+                        }
+                    }
                 } catch (SQLException e) {
                     throw new Exception("Database error adding fee record: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    get();
+                    LazyTableModel.FetchedRow row = get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Fee record added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearFeeFields();
-                    loadFeeData(); // Refresh the fee table
+                    if (row != null) {
+                        feeTableModel.insertRow(row); // Shown at the top until the table is next reloaded
+                    } else {
+                        loadFeeData(); // The new key was not returned, so the row could not be read back
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error adding fee record: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -3670,7 +4392,8 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -3679,7 +4402,7 @@ public class AdminPanel extends JPanel {
      */
     private void updateFee() {
         String idStr = feeIdField.getText().trim();
-        String studentName = (String) feeStudentComboBox.getSelectedItem();
+        String studentName = feeStudentComboBox.getSelectedName();
         String className = (String) feeClassComboBox.getSelectedItem();
         String term = (String) feeTermComboBox.getSelectedItem();
         String amountDueStr = feeAmountDueField.getText().trim();
@@ -3698,11 +4421,11 @@ public class AdminPanel extends JPanel {
             return;
         }
 
-        Integer studentId = studentNameToIdMap.get(studentName);
+        Integer studentId = feeStudentComboBox.getSelectedId(); // Needs a student picked from the list (or an unambiguous exact name)
         Integer classId = classNameToIdMap.get(className);
 
         if (studentId == null || classId == null) {
-            showError("Invalid selections. Please select a valid Student and Class.");
+            showError("Invalid selections. Please pick a Student from the list and select a valid Class.");
             return;
         }
 
@@ -3723,13 +4446,14 @@ public class AdminPanel extends JPanel {
             return;
         }
 
+        final int expectedVersion = feeEditVersion; // The version the form's values were based on
         setLoading(true);
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "UPDATE fees SET student_id=?, class_id=?, term=?, amount_due=?, amount_paid=?, date_last_paid=? WHERE fee_id=?")) {
+                     PreparedStatement pstmt = conn.prepareStatement(FEE_UPDATE_SQL)) {
                     pstmt.setInt(1, studentId);
                     pstmt.setInt(2, classId);
                     pstmt.setString(3, term);
@@ -3742,27 +4466,41 @@ public class AdminPanel extends JPanel {
                          pstmt.setNull(6, java.sql.Types.DATE);
                     }
                     pstmt.setInt(7, feeId);
+                    pstmt.setInt(8, expectedVersion);
 
                     int rowsUpdated = pstmt.executeUpdate();
                     if (rowsUpdated == 0) {
-                        throw new Exception("Fee record with ID " + feeId + " not found or no changes were made.");
+                        // Deleted, or saved by someone else since it was read
+                        LazyTableModel.FetchedRow current = feeTableModel.fetchRow(conn, feeId);
+                        if (current == null) {
+                            throw new Exception("Fee record with ID " + feeId + " no longer exists; it was deleted by someone else.");
+                        }
+                        throw new EditConflictDialog.ConflictException("Fee record with ID " + feeId + " was changed by someone else.", current);
                     }
+                    row = feeTableModel.fetchRow(conn, feeId); // Read back on the same connection, for the table
                 } catch (SQLException e) {
                     throw new Exception("Database error updating fee record: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    get();
+                    LazyTableModel.FetchedRow row = get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Fee record updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearFeeFields();
-                    loadFeeData(); // Refresh the fee table
+                    if (row != null) {
+                        feeTableModel.updateRow(row); // Patch the changed row instead of reloading the table
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
+                    if (cause instanceof EditConflictDialog.ConflictException) {
+                        resolveFeeConflict(feeId, ((EditConflictDialog.ConflictException) cause).getCurrentRow());
+                        return;
+                    }
                     String errorMessage = "Error updating fee record: " + (cause != null ? cause.getMessage() : e.getMessage());
                      if (cause instanceof SQLException && cause.getMessage().toLowerCase().contains("duplicate entry")) {
                          errorMessage = "Error: A fee record for this student, class, and term already exists.";
@@ -3771,7 +4509,37 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Lets the user resolve an update of a fee record that someone else saved in the meantime, then
+     * saves again against the version just read, unless the user discarded their changes.
+     *
+     * @param feeId   The fee record being updated.
+     * @param current The fee record as saved now.
+     */
+    private void resolveFeeConflict(int feeId, LazyTableModel.FetchedRow current) {
+        feeTableModel.updateRow(current); // The table shows what is saved now
+        String[] theirs = {text(feeTableModel.getValueAt(current, 1)), text(feeTableModel.getValueAt(current, 2)), text(feeTableModel.getValueAt(current, 3)),
+                text(feeTableModel.getValueAt(current, 4)), text(feeTableModel.getValueAt(current, 5))};
+        String[] mine = {feeStudentComboBox.getSelectedName(), (String) feeClassComboBox.getSelectedItem(), (String) feeTermComboBox.getSelectedItem(),
+                feeAmountDueField.getText().trim(), feeAmountPaidField.getText().trim()};
+        EditConflictDialog.Resolution resolution = EditConflictDialog.resolve(this, "Fee record " + feeId,
+                new String[]{"Student", "Class", "Term", "Amount Due", "Amount Paid"}, feeEditOriginal, mine, theirs);
+        if (resolution == null) return; // Left as it is; saving again raises the conflict again
+
+        feeEditVersion = (int) feeTableModel.getValueAt(current, 9);
+        feeEditOriginal = theirs;
+        if (!resolution.keepsMine(0)) feeStudentComboBox.setSelectedRecord((int) feeTableModel.getValueAt(current, 8), theirs[0]);
+        if (!resolution.keepsMine(1)) feeClassComboBox.setSelectedItem(theirs[1]);
+        if (!resolution.keepsMine(2)) feeTermComboBox.setSelectedItem(theirs[2]);
+        if (!resolution.keepsMine(3)) feeAmountDueField.setText(theirs[3]);
+        if (!resolution.keepsMine(4)) feeAmountPaidField.setText(theirs[4]);
+        if (resolution.isSave()) {
+            updateFee();
+        }
     }
 
     /**
@@ -3822,8 +4590,11 @@ public class AdminPanel extends JPanel {
                 try {
                     get();
                     JOptionPane.showMessageDialog(AdminPanel.this, "Fee record deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    expireVersionProbe();
                     clearFeeFields();
-                    loadFeeData(); // Refresh the fee table
+                    if (!removeDeletedRow(feeTableModel, "fees", feeId)) {
+                        loadFeeData(); // Not among the fetched rows, so its position in the table is unknown
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error deleting fee record: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -3831,14 +4602,122 @@ public class AdminPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
-     * Loads fee data from the database and populates the fee table.
-     * Uses SwingWorker for background database operation.
+     * @return A model for the fee table. Public so the load test and the query plan check load pages with the same query.
+     */
+    public static LazyTableModel createFeeTableModel() {
+        return new LazyTableModel(new String[]{"ID", "Student", "Class", "Term", "Amount Due", "Amount Paid", "Balance", "Date Last Paid", "Student ID", "Version"},
+                new LazyTableModel.ColumnKind[]{LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.MONEY, LazyTableModel.ColumnKind.MONEY, LazyTableModel.ColumnKind.MONEY, LazyTableModel.ColumnKind.DATE, LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.INT},
+                "f.fee_id, s.name, c.class_name, f.term, f.amount_due, f.amount_paid, f.balance, f.date_last_paid, f.student_id, f.row_version",
+                " FROM fees f JOIN students s ON f.student_id = s.student_id JOIN classes c ON f.class_id = c.class_id",
+                "f.fee_id");
+    }
+
+    /**
+     * @param onChange Called when the sort or filters change.
+     * @return The sort and filter state of the fee table. Public so the query plan check builds the same
+     *         sorted and filtered queries.
+     */
+    public static TableQueryState createFeeQueryState(Runnable onChange) {
+        return new TableQueryState("f.fee_id",
+                new String[]{"f.fee_id", "s.name", "c.class_name", "f.term", "f.amount_due", "f.amount_paid", "f.balance", "f.date_last_paid", "f.student_id"},
+                new TableQueryState.ColumnType[]{TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.NUMBER, TableQueryState.ColumnType.TEXT, TableQueryState.ColumnType.NONE},
+                onChange);
+    }
+
+    /**
+     * Counts the fee records matching the filters chosen in the filter bar and points the fee table at them,
+     * sorted as chosen in the table header. The rows themselves are fetched by the table model, a block
+     * at a time, as they are scrolled into view. Uses a SwingWorker for background database operation.
      */
     private void loadFeeData() {
+        setLoading(true); // Show loading indicator
+        // Take the sort and filters on the EDT so the count and the table model use one consistent state
+        final String where = feeQuery.whereClause();
+        final String orderBy = feeQuery.orderByClause();
+        final List<Object> parameters = feeQuery.filterParameters();
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return feeTableModel.countRows(conn, where, parameters);
+                } catch (SQLException e) {
+                    throw new Exception("Database error loading fee data: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            protected void done() {
+                setLoading(false); // Hide loading indicator
+                try {
+                    feeTableModel.reset(where, orderBy, parameters, get()); // The row count label follows the model
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    String errorMessage = "Error loading fee data: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    showError(errorMessage);
+                    e.printStackTrace();
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Creates the arrears view: outstanding balance per class and term, split into the never paid total and
+     * aging buckets by days since the last payment.
+     */
+    private JPanel createArrearsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBackground(new Color(250, 250, 250));
+
+        arrearsTableModel = new DefaultTableModel(new Object[]{"Class", "Term", "Accounts", "Outstanding", "Never Paid", "0-30 Days", "31-60 Days", "61-90 Days", "90+ Days"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                if (columnIndex == 2) return Integer.class; // Accounts column
+                if (columnIndex >= 3) return BigDecimal.class; // Amount columns
+                return super.getColumnClass(columnIndex);
+            }
+        };
+        arrearsTable = new JTable(arrearsTableModel);
+        arrearsTable.setFillsViewportHeight(true);
+        arrearsTable.setRowHeight(25);
+        arrearsTable.setAutoCreateRowSorter(true); // Sorting the aggregated rows locally is cheap
+        arrearsTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        JScrollPane arrearsScrollPane = new JScrollPane(arrearsTable);
+        arrearsScrollPane.setBorder(BorderFactory.createTitledBorder("Outstanding Balances by Class and Term"));
+
+        JPanel summaryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        summaryPanel.setBackground(new Color(250, 250, 250));
+        arrearsTotalLabel = new JLabel("Total outstanding: -");
+        arrearsTotalLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        JButton refreshArrearsButton = new JButton("Refresh");
+        styleButton(refreshArrearsButton, new Color(0, 123, 255)); // Blue
+        summaryPanel.add(refreshArrearsButton);
+        summaryPanel.add(arrearsTotalLabel);
+
+        panel.add(arrearsScrollPane, BorderLayout.CENTER);
+        panel.add(summaryPanel, BorderLayout.SOUTH);
+
+        refreshArrearsButton.addActionListener(e -> loadArrearsData());
+
+        return panel;
+    }
+
+    /**
+     * Loads the arrears view with a single aggregate query over the fees ledger.
+     * Only unpaid balances are aggregated, grouped by class and term, and aged by days
+     * since date_last_paid. Records that were never paid are totalled in their own column.
+     * Uses SwingWorker for background database operation.
+     */
+    private void loadArrearsData() {
         setLoading(true);
         SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
             @Override
@@ -3846,29 +4725,23 @@ public class AdminPanel extends JPanel {
                 List<Object[]> data = new ArrayList<>();
                 try (Connection conn = DatabaseUtility.getConnection();
                      Statement stmt = conn.createStatement();
-                     ResultSet rs = stmt.executeQuery(
-                             "SELECT f.fee_id, s.name AS student_name, c.class_name, f.term, f.amount_due, f.amount_paid, f.date_last_paid " +
-                             "FROM fees f " +
-                             "JOIN students s ON f.student_id = s.student_id " +
-                             "JOIN classes c ON f.class_id = c.class_id " +
-                             "ORDER BY f.fee_id")) {
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd"); // For formatting date
+                     ResultSet rs = stmt.executeQuery(ARREARS_SQL)) {
                     while (rs.next()) {
-                        Date dateLastPaid = rs.getDate("date_last_paid");
                         Object[] row = {
-                                rs.getInt("fee_id"),
-                                rs.getString("student_name"),
                                 rs.getString("class_name"),
                                 rs.getString("term"),
-                                rs.getBigDecimal("amount_due"), // Use getBigDecimal
-                                rs.getBigDecimal("amount_paid"), // Use getBigDecimal
-                                dateLastPaid != null ? dateFormat.format(dateLastPaid) : "N/A" // Format date or show N/A
+                                rs.getInt("accounts"),
+                                rs.getBigDecimal("outstanding"),
+                                rs.getBigDecimal("never_paid"),
+                                rs.getBigDecimal("age_0_30"),
+                                rs.getBigDecimal("age_31_60"),
+                                rs.getBigDecimal("age_61_90"),
+                                rs.getBigDecimal("age_90_plus")
                         };
                         data.add(row);
                     }
-                    rs.close();
                 } catch (SQLException e) {
-                    throw new Exception("Database error loading fee data: " + e.getMessage(), e);
+                    throw new Exception("Database error loading arrears: " + e.getMessage(), e);
                 }
                 return data;
             }
@@ -3878,18 +4751,27 @@ public class AdminPanel extends JPanel {
                 setLoading(false);
                 try {
                     List<Object[]> data = get();
-                    feeTableModel.setRowCount(0);
+                    arrearsTableModel.setRowCount(0);
+                    // School-wide totals are summed from the aggregated rows, no second query needed
+                    BigDecimal[] totals = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
                     for (Object[] row : data) {
-                        feeTableModel.addRow(row);
+                        arrearsTableModel.addRow(row);
+                        for (int i = 0; i < totals.length; i++) {
+                            totals[i] = totals[i].add((BigDecimal) row[3 + i]);
+                        }
                     }
+                    arrearsTotalLabel.setText(String.format(
+                            "Total outstanding: %s  (never paid: %s | 0-30: %s | 31-60: %s | 61-90: %s | 90+: %s)",
+                            totals[0], totals[1], totals[2], totals[3], totals[4], totals[5]));
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
-                    String errorMessage = "Error loading fee data: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    String errorMessage = "Error loading arrears: " + (cause != null ? cause.getMessage() : e.getMessage());
                     showError(errorMessage);
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -3898,7 +4780,7 @@ public class AdminPanel extends JPanel {
     private void clearFeeFields() {
         feeIdField.setText("");
         // Reset combo boxes to the first item or a default if available
-        if (feeStudentComboBox.getItemCount() > 0) feeStudentComboBox.setSelectedIndex(0);
+        feeStudentComboBox.clearSelection();
         if (feeClassComboBox.getItemCount() > 0) feeClassComboBox.setSelectedIndex(0);
         if (feeTermComboBox.getItemCount() > 0) feeTermComboBox.setSelectedIndex(0);
         feeAmountDueField.setText("");
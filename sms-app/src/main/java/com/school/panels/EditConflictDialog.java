@@ -0,0 +1,184 @@
+package com.school.panels;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Asks the user how to resolve an edit that conflicts with a change someone else saved in the
+ * meantime. Updates are compare-and-set on the row's row_version column, so no locks are held
+ * while a record is open in a form; when the version no longer matches, the row is read again
+ * and this dialog shows the user's values next to the saved ones. The user can overwrite the
+ * saved values with their own, discard their changes, or merge field by field.
+ * For the merge, each field defaults to the value of whoever changed it; fields both changed are
+ * highlighted and default to the user's value.
+ */
+public class EditConflictDialog extends JDialog {
+
+    private static final Color CONFLICT_COLOR = new Color(220, 53, 69);
+
+    /**
+     * Thrown by an update whose row_version no longer matches, i.e. someone else saved the row
+     * after it was read. Carries the row as it is now.
+     */
+    public static class ConflictException extends Exception {
+        private final LazyTableModel.FetchedRow currentRow;
+
+        public ConflictException(String message, LazyTableModel.FetchedRow currentRow) {
+            super(message);
+            this.currentRow = currentRow;
+        }
+
+        /**
+         * @return The row as saved by the other editor, read right after the failed update.
+         */
+        public LazyTableModel.FetchedRow getCurrentRow() {
+            return currentRow;
+        }
+    }
+
+    /** The user's decision. */
+    public static final class Resolution {
+        private final boolean save;
+        private final boolean[] keepMine;
+
+        private Resolution(boolean save, boolean[] keepMine) {
+            this.save = save;
+            this.keepMine = keepMine;
+        }
+
+        /**
+         * @return true to save again with the chosen values, false if the user discarded their changes.
+         */
+        public boolean isSave() {
+            return save;
+        }
+
+        /**
+         * @return true if the field keeps the user's value, false if it takes the saved one.
+         */
+        public boolean keepsMine(int field) {
+            return keepMine[field];
+        }
+    }
+
+    private Resolution resolution; // Null if the dialog was closed without a decision
+
+    private EditConflictDialog(Component parent, String recordDescription, String[] fieldNames,
+                               String[] original, String[] mine, String[] theirs) {
+        super(SwingUtilities.getWindowAncestor(parent), "Edit Conflict", ModalityType.APPLICATION_MODAL);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JPanel content = new JPanel(new BorderLayout(10, 10));
+        content.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        content.add(new JLabel("<html>" + recordDescription + " was changed by someone else after you opened it.<br>"
+                + "Choose the value to keep for each field, or overwrite or discard all of your changes.</html>"), BorderLayout.NORTH);
+
+        JPanel fieldsPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(3, 5, 3, 5);
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.gridy = 0;
+        gbc.gridx = 0;
+        fieldsPanel.add(boldLabel("Field"), gbc);
+        gbc.gridx = 1;
+        fieldsPanel.add(boldLabel("Your value"), gbc);
+        gbc.gridx = 2;
+        fieldsPanel.add(boldLabel("Saved value"), gbc);
+
+        final JRadioButton[] mineButtons = new JRadioButton[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            boolean changedByMe = !Objects.equals(mine[i], original[i]);
+            boolean changedByThem = !Objects.equals(theirs[i], original[i]);
+            boolean differs = !Objects.equals(mine[i], theirs[i]);
+
+            JLabel nameLabel = new JLabel(fieldNames[i]);
+            if (differs && changedByMe && changedByThem) {
+                nameLabel.setForeground(CONFLICT_COLOR);
+                nameLabel.setToolTipText("Changed both by you and by the other editor");
+            }
+            mineButtons[i] = new JRadioButton(display(mine[i]), !differs || changedByMe);
+            JRadioButton theirsButton = new JRadioButton(display(theirs[i]), !mineButtons[i].isSelected());
+            ButtonGroup group = new ButtonGroup();
+            group.add(mineButtons[i]);
+            group.add(theirsButton);
+            mineButtons[i].setEnabled(differs); // Nothing to choose when both have the same value
+            theirsButton.setEnabled(differs);
+
+            gbc.gridy = i + 1;
+            gbc.gridx = 0;
+            fieldsPanel.add(nameLabel, gbc);
+            gbc.gridx = 1;
+            fieldsPanel.add(mineButtons[i], gbc);
+            gbc.gridx = 2;
+            fieldsPanel.add(theirsButton, gbc);
+        }
+        content.add(fieldsPanel, BorderLayout.CENTER);
+
+        JButton mergeButton = new JButton("Merge Selected");
+        JButton overwriteButton = new JButton("Overwrite with Mine");
+        JButton discardButton = new JButton("Discard Mine");
+        JButton cancelButton = new JButton("Cancel");
+        mergeButton.addActionListener(e -> {
+            boolean[] keepMine = new boolean[mineButtons.length];
+            for (int i = 0; i < keepMine.length; i++) {
+                keepMine[i] = mineButtons[i].isSelected();
+            }
+            close(new Resolution(true, keepMine));
+        });
+        overwriteButton.addActionListener(e -> {
+            boolean[] keepMine = new boolean[mineButtons.length];
+            Arrays.fill(keepMine, true);
+            close(new Resolution(true, keepMine));
+        });
+        discardButton.addActionListener(e -> close(new Resolution(false, new boolean[mineButtons.length])));
+        cancelButton.addActionListener(e -> close(null));
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(mergeButton);
+        buttonPanel.add(overwriteButton);
+        buttonPanel.add(discardButton);
+        buttonPanel.add(cancelButton);
+        content.add(buttonPanel, BorderLayout.SOUTH);
+
+        setContentPane(content);
+        getRootPane().setDefaultButton(mergeButton);
+        pack();
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Shows the dialog and waits for the user's decision. Must be called on the EDT.
+     *
+     * @param parent            The component to centre the dialog on.
+     * @param recordDescription What was edited, for the message (e.g. "Student 42").
+     * @param fieldNames        The editable fields.
+     * @param original          The field values when the user opened the record.
+     * @param mine              The user's values.
+     * @param theirs            The values saved by the other editor.
+     * @return The decision, or null if the dialog was cancelled; the record is then neither saved
+     *         nor reset, and saving it later raises the conflict again.
+     */
+    public static Resolution resolve(Component parent, String recordDescription, String[] fieldNames,
+                                     String[] original, String[] mine, String[] theirs) {
+        EditConflictDialog dialog = new EditConflictDialog(parent, recordDescription, fieldNames, original, mine, theirs);
+        dialog.setVisible(true); // Blocks until closed
+        return dialog.resolution;
+    }
+
+    private void close(Resolution resolution) {
+        this.resolution = resolution;
+        dispose();
+    }
+
+    private static JLabel boldLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(label.getFont().deriveFont(Font.BOLD));
+        return label;
+    }
+
+    private static String display(String value) {
+        return value == null || value.isEmpty() ? "(empty)" : value;
+    }
+}
@@ -0,0 +1,113 @@
+package com.school.panels;
+
+import com.school.GradeDistribution;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A lightweight bar chart used to show the score distribution next to the performance reports.
+ * It paints directly with Graphics2D, so no charting library is needed.
+ */
+public class HistogramChart extends JComponent {
+    private static final Color BAR_COLOR = new Color(0, 123, 255); // Same blue as the primary buttons
+    private static final Color AXIS_COLOR = new Color(108, 117, 125); // Grey
+
+    /** Band choices offered next to the report criteria, in the order shown in the combo boxes. */
+    public static final String[] BAND_OPTIONS = {"10-point bands", "5-point bands", "20-point bands", "Letter grades (A-F)"};
+
+    private List<GradeDistribution.Bucket> buckets = Collections.emptyList();
+
+    public HistogramChart() {
+        setPreferredSize(new Dimension(360, 240));
+        setBackground(new Color(250, 250, 250));
+        setOpaque(true);
+    }
+
+    /**
+     * Replaces the data shown by the chart and repaints it.
+     * Must be called on the Event Dispatch Thread (EDT).
+     *
+     * @param buckets The bands to draw, or null to clear the chart.
+     */
+    public void setBuckets(List<GradeDistribution.Bucket> buckets) {
+        this.buckets = buckets != null ? buckets : Collections.<GradeDistribution.Bucket>emptyList();
+        repaint();
+    }
+
+    /**
+     * Maps one of the {@link #BAND_OPTIONS} to the bucket width understood by GradeDistribution.
+     *
+     * @param option The selected band option (may be null).
+     * @return The bucket width in points, or GradeDistribution.LETTER_GRADES. Defaults to 10.
+     */
+    public static int bucketWidthFor(String option) {
+        if (option == null) return 10;
+        switch (option) {
+            case "5-point bands": return 5;
+            case "20-point bands": return 20;
+            case "Letter grades (A-F)": return GradeDistribution.LETTER_GRADES;
+            default: return 10;
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, getWidth(), getHeight());
+
+            if (buckets.isEmpty()) {
+                g2.setColor(AXIS_COLOR);
+                g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+                String message = "No distribution to show";
+                FontMetrics fm = g2.getFontMetrics();
+                g2.drawString(message, (getWidth() - fm.stringWidth(message)) / 2, getHeight() / 2);
+                return;
+            }
+
+            int max = 0;
+            for (GradeDistribution.Bucket b : buckets) {
+                max = Math.max(max, b.getCount());
+            }
+
+            Insets insets = getInsets();
+            g2.setFont(new Font("Segoe UI", Font.PLAIN, 10));
+            FontMetrics fm = g2.getFontMetrics();
+            int left = insets.left + 10;
+            int right = getWidth() - insets.right - 10;
+            int top = insets.top + fm.getHeight() + 5; // Room for the count labels above the bars
+            int bottom = getHeight() - insets.bottom - fm.getHeight() - 8; // Room for the band labels
+            int plotHeight = Math.max(bottom - top, 1);
+            int slot = Math.max((right - left) / buckets.size(), 1);
+            int barWidth = Math.max(slot - 6, 2);
+
+            // X axis
+            g2.setColor(AXIS_COLOR);
+            g2.drawLine(left, bottom, right, bottom);
+
+            for (int i = 0; i < buckets.size(); i++) {
+                GradeDistribution.Bucket b = buckets.get(i);
+                int barHeight = max == 0 ? 0 : (int) Math.round((double) plotHeight * b.getCount() / max);
+                int x = left + i * slot + (slot - barWidth) / 2;
+
+                g2.setColor(BAR_COLOR);
+                g2.fillRect(x, bottom - barHeight, barWidth, barHeight);
+
+                g2.setColor(Color.DARK_GRAY);
+                String count = String.valueOf(b.getCount());
+                g2.drawString(count, x + (barWidth - fm.stringWidth(count)) / 2, bottom - barHeight - 3);
+
+                // Letter bands carry their threshold in brackets; only the letter fits under the bar
+                String label = b.getLabel().split(" ")[0];
+                g2.drawString(label, x + (barWidth - fm.stringWidth(label)) / 2, bottom + fm.getAscent() + 4);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package com.school.panels;
+
+import com.school.DatabaseUtility;
+import com.school.DbTasks;
+import com.school.metrics.CacheCounter;
+import com.school.metrics.Metrics;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A read-only table model over a query result that is too large to load at once (e.g. every grade of
+ * the school). Only the row count is known up front; rows are fetched in fixed-size blocks with
+ * {@code LIMIT/OFFSET} as the table asks for them while painting, i.e. for the rows around the
+ * visible viewport. Recently used blocks are kept in an LRU cache, so memory stays bounded however
+ * far the user scrolls. Within a block every column is stored as one array, using primitive arrays
+ * for IDs, numbers and dates instead of an Object per cell.
+ * Rows that are still being fetched show as empty cells and are filled in when their block arrives.
+ * After an insert, update or delete the affected row can be patched into the model
+ * ({@link #insertRow}, {@link #updateRow}, {@link #removeRowById}) instead of reloading the table:
+ * new rows are shown at the top until the next reload, and the rows already fetched are kept.
+ * All methods must be called on the Event Dispatch Thread (EDT), except {@link #countRows}.
+ */
+public class LazyTableModel extends AbstractTableModel {
+
+    /** How a column is read from the result set and stored. */
+    public enum ColumnKind {
+        /** Integer values such as IDs, stored as int. */
+        INT,
+        /** DECIMAL(10,2) amounts, stored as whole cents in a long and shown as BigDecimal. */
+        MONEY,
+        /** Floating point values such as scores, stored as double. */
+        DOUBLE,
+        /** Dates, stored as days since 1970 and shown as yyyy-MM-dd, or N/A when empty. */
+        DATE,
+        /** Any other value, stored as String. */
+        TEXT
+    }
+
+    public static final int BLOCK_SIZE = 200; // Rows fetched per query
+    private static final int MAX_CACHED_BLOCKS = 50; // Bounds memory to 10,000 rows per table
+    private static final int MAX_QUEUED_BLOCKS = 6; // Older requests are dropped when the user scrolls quickly
+    private static final int MAX_CONCURRENT_LOADS = 2;
+    private static final int PREFETCH_ROWS = BLOCK_SIZE / 4; // Near a block edge, the neighbouring block is fetched too
+    private static final CacheCounter BLOCK_CACHE = Metrics.cache("table.blocks"); // Counted per row read, at its first column
+
+    private final String[] columnNames;
+    private final ColumnKind[] kinds;
+    private final String selectList; // Column expressions, in model column order
+    private final String from; // FROM clause with its joins (leading space)
+    private final String keyExpression; // Unique key, shown in column 0
+
+    // The current query; replaced as a whole by reset()
+    private String where = "";
+    private String orderBy = "";
+    private List<Object> parameters = Collections.emptyList();
+    private int rowCount = 0; // Rows of the query, not counting pinnedRows
+    private final List<Block> pinnedRows = new ArrayList<>(); // Inserted since the last reset, shown first and left out of block queries
+    private int generation = 0; // Bumped when the query or the row positions change, so blocks fetched for the old state are thrown away
+
+    // Loaded blocks by block number, least recently used first
+    private final Map<Integer, Block> blocks = new LinkedHashMap<Integer, Block>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Block> eldest) {
+            return size() > MAX_CACHED_BLOCKS;
+        }
+    };
+    private final Deque<Integer> queuedBlocks = new ArrayDeque<>(); // Most recently requested last
+    private final Set<Integer> loadingBlocks = new HashSet<>();
+
+    /** One block of rows, stored column by column. */
+    private static class Block {
+        int rows;
+        final Object[] columns; // int[], long[], double[] or String[] per column
+        final BitSet[] nulls; // Null cells of the primitive columns
+        boolean tailMissing = false; // A deleted row moved the next block's first row up, but that block was not fetched
+
+        Block(int rows, Object[] columns, BitSet[] nulls) {
+            this.rows = rows;
+            this.columns = columns;
+            this.nulls = nulls;
+        }
+    }
+
+    /**
+     * A single row read by {@link #fetchRow}, to be patched into the model on the EDT.
+     */
+    public static class FetchedRow {
+        private final Block block; // Holds just this row
+
+        private FetchedRow(Block block) {
+            this.block = block;
+        }
+    }
+
+    /**
+     * Creates an empty model; call {@link #reset} to show rows.
+     * The SQL parts are fixed by the caller's code, never by user input.
+     *
+     * @param columnNames   The column headers.
+     * @param kinds         How each column is stored.
+     * @param selectList    The column expressions, in column order (e.g. "s.student_id, s.name").
+     * @param from          The FROM clause with its joins, with a leading space.
+     * @param keyExpression The table's unique integer key (e.g. "s.student_id"), which must be the first column.
+     */
+    public LazyTableModel(String[] columnNames, ColumnKind[] kinds, String selectList, String from, String keyExpression) {
+        if (columnNames.length != kinds.length) {
+            throw new IllegalArgumentException("Each column needs both a name and a kind.");
+        }
+        if (kinds[0] != ColumnKind.INT) {
+            throw new IllegalArgumentException("The first column must be the integer key.");
+        }
+        this.columnNames = columnNames.clone();
+        this.kinds = kinds.clone();
+        this.selectList = selectList;
+        this.from = from;
+        this.keyExpression = keyExpression;
+    }
+
+    /**
+     * Counts the rows a query will show. Safe to call from a background thread.
+     *
+     * @param conn       An open database connection (not closed by this method).
+     * @param where      The WHERE clause (with a leading space), or an empty string.
+     * @param parameters The values for the WHERE clause's placeholders.
+     * @return The number of matching rows.
+     * @throws SQLException If a database access error occurs.
+     */
+    public int countRows(Connection conn, String where, List<Object> parameters) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(countQuery(where))) {
+            TableQueryState.bindParameters(pstmt, parameters, 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Switches the model to a new query (or refreshes the current one). Cached blocks are dropped
+     * and rows are fetched again as the table paints them.
+     *
+     * @param where      The WHERE clause (with a leading space), or an empty string.
+     * @param orderBy    The ORDER BY clause (with a leading space); should end with a unique key so
+     *                   that consecutive blocks neither overlap nor miss rows.
+     * @param parameters The values for the WHERE clause's placeholders.
+     * @param rowCount   The number of matching rows, from {@link #countRows}.
+     */
+    public void reset(String where, String orderBy, List<Object> parameters, int rowCount) {
+        this.where = where;
+        this.orderBy = orderBy;
+        this.parameters = parameters;
+        this.rowCount = rowCount;
+        blocks.clear();
+        pinnedRows.clear();
+        discardPendingLoads();
+        fireTableDataChanged();
+    }
+
+    // Loads still running were started for an older query or older row positions; they are ignored when they finish
+    private void discardPendingLoads() {
+        generation++;
+        queuedBlocks.clear();
+        loadingBlocks.clear();
+    }
+
+    /**
+     * Reads a single row by its key, e.g. right after inserting or updating it on the same connection.
+     * Safe to call from a background thread.
+     *
+     * @param conn An open database connection (not closed by this method).
+     * @param id   The row's key.
+     * @return The row, or null if there is no row with that key.
+     * @throws SQLException If a database access error occurs.
+     */
+    public FetchedRow fetchRow(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT " + selectList + from + " WHERE " + keyExpression + " = ?")) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Block block = readBlock(rs, 1);
+                return block.rows == 0 ? null : new FetchedRow(block);
+            }
+        }
+    }
+
+    /**
+     * @return A value of a row read with {@link #fetchRow}, as {@link #getValueAt(int, int)} would return it.
+     */
+    public Object getValueAt(FetchedRow row, int column) {
+        return valueAt(row.block, 0, column);
+    }
+
+    /**
+     * Shows a newly inserted row at the top of the table. It stays there, whatever the sort order,
+     * until the next {@link #reset}.
+     */
+    public void insertRow(FetchedRow row) {
+        pinnedRows.add(0, row.block);
+        discardPendingLoads(); // Their queries do not leave out the new row yet
+        fireTableRowsInserted(0, 0);
+    }
+
+    /**
+     * Replaces the values of a row that has already been fetched. The row keeps its position,
+     * even if the change affects the sort order, until the next {@link #reset}.
+     * Does nothing if the row has not been fetched; it is read fresh when it is scrolled into view.
+     */
+    public void updateRow(FetchedRow row) {
+        int id = key(row.block, 0);
+        for (int i = 0; i < pinnedRows.size(); i++) {
+            if (key(pinnedRows.get(i), 0) == id) {
+                pinnedRows.set(i, row.block);
+                fireTableRowsUpdated(i, i);
+                return;
+            }
+        }
+        for (Map.Entry<Integer, Block> entry : blocks.entrySet()) {
+            Block block = entry.getValue();
+            for (int offset = 0; offset < block.rows; offset++) {
+                if (key(block, offset) == id) {
+                    for (int column = 0; column < kinds.length; column++) {
+                        copyCell(row.block, 0, block, offset, column);
+                    }
+                    int viewRow = pinnedRows.size() + entry.getKey() * BLOCK_SIZE + offset;
+                    fireTableRowsUpdated(viewRow, viewRow);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if the row with this key has been fetched (or inserted at the top) and is in memory.
+     */
+    public boolean containsRowId(int id) {
+        for (Block pinned : pinnedRows) {
+            if (key(pinned, 0) == id) {
+                return true;
+            }
+        }
+        for (Block block : blocks.values()) {
+            for (int offset = 0; offset < block.rows; offset++) {
+                if (key(block, offset) == id) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a deleted row. The rows below it move up; those already fetched are kept.
+     *
+     * @param id The row's key.
+     * @return False if the row has not been fetched, in which case its position is unknown and the
+     *         caller should reload the table instead.
+     */
+    public boolean removeRowById(int id) {
+        for (int i = 0; i < pinnedRows.size(); i++) {
+            if (key(pinnedRows.get(i), 0) == id) {
+                pinnedRows.remove(i);
+                fireTableRowsDeleted(i, i);
+                return true;
+            }
+        }
+        for (Map.Entry<Integer, Block> entry : blocks.entrySet()) {
+            Block block = entry.getValue();
+            for (int offset = 0; offset < block.rows; offset++) {
+                if (key(block, offset) == id) {
+                    int blockNumber = entry.getKey();
+                    removeFetchedRow(blockNumber, offset);
+                    int viewRow = pinnedRows.size() + blockNumber * BLOCK_SIZE + offset;
+                    fireTableRowsDeleted(viewRow, viewRow);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Every later row moves up one position, so each following fetched block hands its first row to the one before
+    private void removeFetchedRow(int blockNumber, int offset) {
+        Block block = blocks.get(blockNumber);
+        boolean wasFull = block.rows == BLOCK_SIZE && !block.tailMissing;
+        removeCell(block, offset);
+        rowCount--;
+        int last = blockNumber;
+        Block next;
+        while (wasFull && (next = blocks.get(last + 1)) != null && next.rows > 0) {
+            for (int column = 0; column < kinds.length; column++) {
+                copyCell(next, 0, block, block.rows, column);
+            }
+            block.rows++;
+            wasFull = next.rows == BLOCK_SIZE && !next.tailMissing;
+            removeCell(next, 0);
+            block = next;
+            last++;
+        }
+        if (wasFull) {
+            // The last block of the run lacks its last row if more rows follow; it is fetched again when that row is shown
+            block.tailMissing = (last + 1) * BLOCK_SIZE <= rowCount;
+        }
+        // Blocks after a gap were fetched for positions that have now moved
+        final int lastShifted = last;
+        blocks.keySet().removeIf(number -> number > lastShifted);
+        discardPendingLoads();
+    }
+
+    /**
+     * @return True if the row's values have been fetched, false while they are still loading.
+     */
+    public boolean isRowLoaded(int row) {
+        if (row < pinnedRows.size()) {
+            return true;
+        }
+        row -= pinnedRows.size();
+        Block block = blocks.get(row / BLOCK_SIZE);
+        return block != null && row % BLOCK_SIZE < block.rows;
+    }
+
+    @Override
+    public int getRowCount() {
+        return pinnedRows.size() + rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row < pinnedRows.size()) {
+            return valueAt(pinnedRows.get(row), 0, column);
+        }
+        row -= pinnedRows.size();
+        int blockNumber = row / BLOCK_SIZE;
+        int offset = row % BLOCK_SIZE;
+        Block block = blocks.get(blockNumber);
+        boolean missing = block == null || (block.tailMissing && offset >= block.rows);
+        if (column == 0) {
+            BLOCK_CACHE.record(!missing);
+        }
+        if (missing) {
+            // Queue the neighbour first so the block actually on screen is loaded first
+            if (offset < PREFETCH_ROWS && blockNumber > 0) {
+                request(blockNumber - 1);
+            } else if (offset >= BLOCK_SIZE - PREFETCH_ROWS) {
+                request(blockNumber + 1);
+            }
+            request(blockNumber);
+            return null;
+        }
+        if (offset >= block.rows) {
+            return null; // Rows were deleted since the count was taken
+        }
+        return valueAt(block, offset, column);
+    }
+
+    private Object valueAt(Block block, int offset, int column) {
+        if (block.nulls[column] != null && block.nulls[column].get(offset)) {
+            return kinds[column] == ColumnKind.DATE ? "N/A" : null;
+        }
+        switch (kinds[column]) {
+            case INT:
+                return ((int[]) block.columns[column])[offset];
+            case MONEY:
+                return BigDecimal.valueOf(((long[]) block.columns[column])[offset], 2);
+            case DOUBLE:
+                return ((double[]) block.columns[column])[offset];
+            case DATE:
+                return LocalDate.ofEpochDay(((int[]) block.columns[column])[offset]).toString();
+            default:
+                return ((String[]) block.columns[column])[offset];
+        }
+    }
+
+    // Queues a block for loading; recent requests are served first, as they are what the user is looking at
+    private void request(int blockNumber) {
+        Block cached = blocks.get(blockNumber);
+        if (blockNumber * BLOCK_SIZE >= rowCount || (cached != null && !cached.tailMissing) || loadingBlocks.contains(blockNumber)) {
+            return;
+        }
+        queuedBlocks.remove(blockNumber);
+        queuedBlocks.addLast(blockNumber);
+        while (queuedBlocks.size() > MAX_QUEUED_BLOCKS) {
+            queuedBlocks.removeFirst(); // Scrolled past; requested again if it comes back into view
+        }
+        startLoads();
+    }
+
+    private void startLoads() {
+        while (loadingBlocks.size() < MAX_CONCURRENT_LOADS && !queuedBlocks.isEmpty()) {
+            load(queuedBlocks.removeLast());
+        }
+    }
+
+    private void load(int blockNumber) {
+        loadingBlocks.add(blockNumber);
+        // Take the query on the EDT so the worker uses one consistent state
+        final List<Object> queryParameters = new ArrayList<>(parameters);
+        final String sql = blockQuery(queryParameters);
+        final int queryGeneration = generation;
+        SwingWorker<Block, Void> worker = new SwingWorker<Block, Void>() {
+            @Override
+            protected Block doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return queryBlock(conn, sql, queryParameters, blockNumber);
+                } catch (SQLException e) {
+                    throw new Exception("Database error loading table rows: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (queryGeneration != generation) {
+                    return; // The query changed meanwhile
+                }
+                loadingBlocks.remove(blockNumber);
+                try {
+                    Block block = get();
+                    blocks.put(blockNumber, block);
+                    int firstRow = pinnedRows.size() + blockNumber * BLOCK_SIZE;
+                    int lastRow = Math.min(firstRow + BLOCK_SIZE, getRowCount()) - 1;
+                    if (lastRow >= firstRow) {
+                        fireTableRowsUpdated(firstRow, lastRow);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    // The rows stay empty and are requested again when the table next paints them
+                    System.err.println("Error loading table rows: " + e.getMessage());
+                    e.printStackTrace();
+                }
+                startLoads();
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Reads one block of rows of the current query on the calling thread, without caching it: the same
+     * query and row decoding as scrolling the table. For benchmarks and batch use.
+     *
+     * @param conn        An open database connection (not closed by this method).
+     * @param blockNumber The block, counting from 0 at the top of the table.
+     * @return The number of rows read.
+     * @throws SQLException If a database access error occurs.
+     */
+    public int fetchBlock(Connection conn, int blockNumber) throws SQLException {
+        List<Object> queryParameters = new ArrayList<>(parameters);
+        return queryBlock(conn, blockQuery(queryParameters), queryParameters, blockNumber).rows;
+    }
+
+    /**
+     * @param where   The WHERE clause (with a leading space), or an empty string.
+     * @param orderBy The ORDER BY clause (with a leading space).
+     * @return The query a block of rows is fetched with, without pinned rows; its last two parameters
+     *         are the block size and the offset. For checking its plan.
+     */
+    public String blockQuery(String where, String orderBy) {
+        return "SELECT " + selectList + from + where + orderBy + " LIMIT ? OFFSET ?";
+    }
+
+    /**
+     * @param where The WHERE clause (with a leading space), or an empty string.
+     * @return The query {@link #countRows} runs.
+     */
+    public String countQuery(String where) {
+        return "SELECT COUNT(*)" + from + where;
+    }
+
+    // The query for a block of rows; adds the keys of the pinned rows to the parameters
+    private String blockQuery(List<Object> queryParameters) {
+        StringBuilder query = new StringBuilder("SELECT ").append(selectList).append(from).append(where);
+        if (!pinnedRows.isEmpty()) {
+            // Pinned rows are already shown at the top, and leaving them out keeps the positions of the others
+            query.append(where.isEmpty() ? " WHERE " : " AND ").append(keyExpression).append(" NOT IN (");
+            for (int i = 0; i < pinnedRows.size(); i++) {
+                query.append(i == 0 ? "?" : ", ?");
+                queryParameters.add(key(pinnedRows.get(i), 0));
+            }
+            query.append(')');
+        }
+        return query.append(orderBy).append(" LIMIT ? OFFSET ?").toString();
+    }
+
+    private Block queryBlock(Connection conn, String sql, List<Object> queryParameters, int blockNumber) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = TableQueryState.bindParameters(pstmt, queryParameters, 1);
+            pstmt.setInt(index++, BLOCK_SIZE);
+            pstmt.setInt(index, blockNumber * BLOCK_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return readBlock(rs, BLOCK_SIZE);
+            }
+        }
+    }
+
+    private Block readBlock(ResultSet rs, int capacity) throws SQLException {
+        int columnCount = kinds.length;
+        Object[] columns = new Object[columnCount];
+        BitSet[] nulls = new BitSet[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            switch (kinds[column]) {
+                case INT:
+                case DATE:
+                    columns[column] = new int[capacity];
+                    break;
+                case MONEY:
+                    columns[column] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    columns[column] = new double[capacity];
+                    break;
+                default:
+                    columns[column] = new String[capacity];
+            }
+            if (kinds[column] != ColumnKind.TEXT) {
+                nulls[column] = new BitSet();
+            }
+        }
+
+        int row = 0;
+        while (row < capacity && rs.next()) {
+            for (int column = 0; column < columnCount; column++) {
+                int index = column + 1;
+                switch (kinds[column]) {
+                    case INT:
+                        ((int[]) columns[column])[row] = rs.getInt(index);
+                        break;
+                    case MONEY:
+                        BigDecimal amount = rs.getBigDecimal(index);
+                        if (amount != null) {
+                            ((long[]) columns[column])[row] = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+                        }
+                        break;
+                    case DOUBLE:
+                        ((double[]) columns[column])[row] = rs.getDouble(index);
+                        break;
+                    case DATE:
+                        Date date = rs.getDate(index);
+                        if (date != null) {
+                            ((int[]) columns[column])[row] = (int) date.toLocalDate().toEpochDay();
+                        }
+                        break;
+                    default:
+                        ((String[]) columns[column])[row] = rs.getString(index);
+                }
+                if (nulls[column] != null && rs.wasNull()) {
+                    nulls[column].set(row);
+                }
+            }
+            row++;
+        }
+        return new Block(row, columns, nulls);
+    }
+
+    private static int key(Block block, int offset) {
+        return ((int[]) block.columns[0])[offset];
+    }
+
+    private void copyCell(Block from, int fromOffset, Block to, int toOffset, int column) {
+        System.arraycopy(from.columns[column], fromOffset, to.columns[column], toOffset, 1);
+        if (from.nulls[column] != null) {
+            to.nulls[column].set(toOffset, from.nulls[column].get(fromOffset));
+        }
+    }
+
+    // Removes one row of a block, moving the rows after it up
+    private void removeCell(Block block, int offset) {
+        int moved = block.rows - offset - 1;
+        for (int column = 0; column < kinds.length; column++) {
+            System.arraycopy(block.columns[column], offset + 1, block.columns[column], offset, moved);
+            if (block.nulls[column] != null) {
+                for (int i = offset; i < block.rows - 1; i++) {
+                    block.nulls[column].set(i, block.nulls[column].get(i + 1));
+                }
+                block.nulls[column].clear(block.rows - 1);
+            } else {
+                ((String[]) block.columns[column])[block.rows - 1] = null;
+            }
+        }
+        block.rows--;
+    }
+}
@@ -1,6 +1,10 @@
 package com.school.panels;
 
 import com.school.DatabaseUtility; // Ensure this import is present
+import com.school.DbTasks;
+import com.school.metrics.CacheCounter;
+import com.school.metrics.Metrics;
+import com.school.PasswordHasher;
 import com.school.SchoolManagementApp.LoginListener; // Import the LoginListener interface
 
 import javax.swing.*;
@@ -8,7 +12,10 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.sql.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException; // Import for SwingWorker
+import java.util.concurrent.TimeUnit;
 
 /**
  * LoginPanel provides the user interface for logging into the school management system.
@@ -22,11 +29,30 @@ public class LoginPanel extends JPanel {
     private JLabel messageLabel; // Label to display messages (errors, loading)
     private LoginListener loginListener; // Listener for login success
 
+    /** The account being logged in to: username. Public so the query plan check checks the same query. */
+    public static final String USER_SQL = "SELECT user_id, username, password, role, teacher_id FROM users WHERE username = ?";
+
     // --- Loading Indicator ---
     private JProgressBar progressBar;
     private JLabel loadingLabel;
     private JPanel loadingPanel; // Panel to hold loading indicator
 
+    // --- Session Cache ---
+    private static long sessionTimeToLiveMillis = TimeUnit.MINUTES.toMillis(10); // How long after logout a re-login skips the password hash
+    private final Map<String, CachedSession> sessionCache = new ConcurrentHashMap<>(); // By username
+    private static final CacheCounter SESSION_CACHE = Metrics.cache("login.sessions");
+    private volatile String lastUsername; // The user logged in now, whose session starts counting down at logout
+
+
+    /**
+     * Sets how long a user can log in again after logging out without the password being hashed
+     * again. This method should be called once during application startup; 0 disables the cache.
+     *
+     * @param minutes The time to live in minutes.
+     */
+    public static void setSessionTimeToLive(int minutes) {
+        sessionTimeToLiveMillis = TimeUnit.MINUTES.toMillis(Math.max(0, minutes));
+    }
 
     /**
      * Constructor for the LoginPanel.
@@ -186,20 +212,36 @@ public class LoginPanel extends JPanel {
     }
 
 
+    /**
+     * Fills in the login form and submits it, as if the user had typed the credentials.
+     *
+     * @param username The username.
+     * @param password The password (cleared by this method).
+     * @param role     The role, as in the role selector.
+     */
+    public void login(String username, char[] password, String role) {
+        usernameField.setText(username);
+        passwordField.setText(new String(password));
+        java.util.Arrays.fill(password, ' ');
+        roleComboBox.setSelectedItem(role);
+        attemptLogin();
+    }
+
     /**
      * Attempts to authenticate the user against the database.
      * Uses a SwingWorker to perform the database query in the background.
+     * <p>
+     * The user is read with one lookup on the unique username and the password is checked against its
+     * salted PBKDF2 hash (see {@link PasswordHasher}). A legacy plaintext password, or a hash made with
+     * an old cost factor, is replaced with a new hash once it has been verified. A user who logged out
+     * a few minutes ago is checked against the session cache instead, which skips the expensive hash.
      */
     private void attemptLogin() {
         String username = usernameField.getText().trim();
-        char[] passwordChars = passwordField.getPassword();
-        String password = new String(passwordChars); // Get password as String
+        final char[] password = passwordField.getPassword();
         String selectedRole = (String) roleComboBox.getSelectedItem();
 
-        // Clear password array immediately after use
-        java.util.Arrays.fill(passwordChars, ' ');
-
-        if (username.isEmpty() || password.isEmpty() || selectedRole == null) {
+        if (username.isEmpty() || password.length == 0 || selectedRole == null) {
             showMessage("Please enter username, password, and select a role.", Color.RED);
             return;
         }
@@ -214,29 +256,41 @@ public class LoginPanel extends JPanel {
                 // Use try-with-resources for automatic resource management
                 try (Connection conn = DatabaseUtility.getConnection(); // Get connection from DatabaseUtility
                      // Use PreparedStatement to prevent SQL injection
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT user_id, username, role, teacher_id FROM users WHERE username = ? AND password = ? AND role = ?")) {
+                     PreparedStatement pstmt = conn.prepareStatement(USER_SQL)) {
 
                     pstmt.setString(1, username);
-                    pstmt.setString(2, password); // In a real application, hash and salt passwords!
-                    pstmt.setString(3, selectedRole);
-
-                    ResultSet rs = pstmt.executeQuery();
-
-                    if (rs.next()) {
-                        // User found and credentials match
-                        int userId = rs.getInt("user_id");
-                        String dbUsername = rs.getString("username");
-                        String dbRole = rs.getString("role");
-                        // Get teacher_id, handle NULL case
-                        int teacherId = rs.getInt("teacher_id");
-                        if (rs.wasNull()) {
-                            teacherId = -1; // Use -1 to indicate no teacher ID
+
+                    String stored = null;
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            stored = rs.getString("password");
+                            // Get teacher_id, handle NULL case
+                            int teacherId = rs.getInt("teacher_id");
+                            if (rs.wasNull()) {
+                                teacherId = -1; // Use -1 to indicate no teacher ID
+                            }
+                            user = new User(rs.getInt("user_id"), rs.getString("username"), rs.getString("role"), teacherId);
                         }
+                    }
+
+                    CachedSession session = sessionCache.get(username);
+                    boolean reused = user != null && session != null && session.isValid(username, password, stored);
+                    SESSION_CACHE.record(reused);
+                    if (reused) {
+                        return selectedRole.equals(user.getRole()) ? user : null; // Re-login; no need to hash again
+                    }
+                    sessionCache.remove(username);
 
-                        user = new User(userId, dbUsername, dbRole, teacherId);
+                    // Hashes even if the user or role is wrong, so a failed login always takes as long
+                    boolean verified = PasswordHasher.verify(password, stored);
+                    if (user == null || !verified || !selectedRole.equals(user.getRole())) {
+                        return null;
                     }
-                    rs.close(); // Close the ResultSet
+
+                    if (PasswordHasher.needsRehash(stored)) {
+                        stored = upgradePassword(conn, user.getUserId(), stored, password);
+                    }
+                    sessionCache.put(username, new CachedSession(PasswordHasher.signSession(username, password, stored), stored));
 
                 } catch (SQLException e) {
                     // Wrap the SQLException in a generic Exception for SwingWorker's done() method
@@ -244,6 +298,8 @@ public class LoginPanel extends JPanel {
                 } catch (Exception e) {
                      // Catch other potential exceptions during the process
                      throw new Exception("An unexpected error occurred during login: " + e.getMessage(), e);
+                } finally {
+                    java.util.Arrays.fill(password, ' '); // Clear the password as soon as it is no longer needed
                 }
                 return user; // Return the User object (null if login failed)
             }
@@ -257,6 +313,7 @@ public class LoginPanel extends JPanel {
                     if (user != null) {
                         // Login successful
                         showMessage("Login successful!", Color.GREEN);
+                        lastUsername = user.getUsername();
                         // Notify the listener (SchoolManagementApp)
                         if (loginListener != null) {
                              // Pass user ID and teacher ID to the listener
@@ -275,7 +332,24 @@ public class LoginPanel extends JPanel {
                     e.printStackTrace(); // Print the full stack trace for detailed debugging
                 }
             }
-        }.execute(); // Execute the SwingWorker
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Replaces a legacy plaintext password, or a hash made with an old cost factor, with a new hash.
+     * Only replaces the value that was verified, so a password changed meanwhile is kept.
+     *
+     * @return The value now stored (the old one if it was changed meanwhile).
+     */
+    private static String upgradePassword(Connection conn, int userId, String stored, char[] password) throws Exception {
+        String hash = PasswordHasher.hash(password);
+        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE users SET password = ? WHERE user_id = ? AND password = ?")) {
+            pstmt.setString(1, hash);
+            pstmt.setInt(2, userId);
+            pstmt.setString(3, stored);
+            return pstmt.executeUpdate() == 1 ? hash : stored;
+        }
     }
 
     /**
@@ -297,6 +371,13 @@ public class LoginPanel extends JPanel {
      * Useful after logout.
      */
     public void clearFields() {
+        // Logged out: quick re-logins skip the password hash for a while
+        String username = lastUsername;
+        CachedSession session = username != null ? sessionCache.get(username) : null;
+        if (session != null) {
+            session.expiresAt = System.currentTimeMillis() + sessionTimeToLiveMillis;
+        }
+        lastUsername = null;
         SwingUtilities.invokeLater(() -> {
             usernameField.setText("");
             passwordField.setText("");
@@ -306,6 +387,27 @@ public class LoginPanel extends JPanel {
         });
     }
 
+    /**
+     * A verified login, signed so the same credentials can be accepted again without hashing.
+     * It expires a while after the user logs out; until then it does not expire.
+     */
+    private static class CachedSession {
+        private final byte[] signature;
+        private final String stored; // The stored password hash it was verified against
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        CachedSession(byte[] signature, String stored) {
+            this.signature = signature;
+            this.stored = stored;
+        }
+
+        // Valid if not expired, the stored hash is unchanged and the password is the one verified
+        boolean isValid(String username, char[] password, String currentStored) {
+            return System.currentTimeMillis() < expiresAt && stored.equals(currentStored)
+                    && PasswordHasher.verifySession(signature, username, password, stored);
+        }
+    }
+
     /**
      * Simple private static class to hold login details retrieved from the database.
      * This is used to pass data from the SwingWorker's doInBackground() to done().
@@ -0,0 +1,20 @@
+package com.school.panels;
+
+/**
+ * Builds LIKE patterns from what the user typed, for the typeahead lookups and the table filters.
+ */
+final class SqlLike {
+
+    private SqlLike() {
+    }
+
+    /** Escapes LIKE wildcards so that typed '%' and '_' match literally (MySQL's default escape is '\'). */
+    static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** @return A pattern matching every value that starts with the text. */
+    static String prefix(String text) {
+        return escape(text) + "%";
+    }
+}
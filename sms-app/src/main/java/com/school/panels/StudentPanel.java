@@ -16,6 +16,9 @@ import java.text.SimpleDateFormat; // For formatting date
 // Import the main application class to access the logout method
 import com.school.SchoolManagementApp; // This import should be here
 import com.school.DatabaseUtility; // Ensure this import is present
+import com.school.DbTasks;
+import com.school.metrics.CacheCounter;
+import com.school.metrics.Metrics;
 import java.util.ArrayList; // Import ArrayList
 import java.util.List; // Import List
 import java.util.Collections; // Import Collections for sorting
@@ -34,6 +37,34 @@ public class StudentPanel extends JPanel {
 
     private JTabbedPane studentTabbedPane;
 
+    // --- Queries (public so the load test and the query plan check run exactly what this panel runs; each takes the student ID) ---
+    public static final String MY_INFO_SQL =
+            "SELECT s.name, s.grade_level, c.class_name, s.status " +
+            "FROM students s JOIN classes c ON s.class_id = c.class_id " +
+            "WHERE s.student_id = ?";
+    public static final String MY_CLASSES_SQL =
+            "SELECT DISTINCT c.class_name, c.grade_level, t.name AS teacher_name, s.subject_name " +
+            "FROM enrollments e " +
+            "JOIN classes c ON e.class_id = c.class_id " +
+            "LEFT JOIN class_assignments ca ON c.class_id = ca.class_id " + // Use LEFT JOIN in case a class has no assignment yet
+            "LEFT JOIN teachers t ON ca.teacher_id = t.teacher_id " + // Use LEFT JOIN
+            "LEFT JOIN subjects s ON ca.subject_id = s.subject_id " + // Use LEFT JOIN
+            "WHERE e.student_id = ? ORDER BY c.class_name, s.subject_name";
+    public static final String MY_GRADES_VERSION_SQL =
+            "SELECT COUNT(*) AS cnt, COALESCE(BIT_XOR(CRC32(CONCAT_WS('|', g.grade_id, g.subject_id, g.term, g.score, g.comments, g.date_recorded))), 0) AS checksum " +
+            "FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
+            "WHERE e.student_id = ?";
+    public static final String MY_GRADES_SQL =
+            "SELECT sub.subject_name, g.term, g.score, g.comments, g.date_recorded " +
+            "FROM grades g " +
+            "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
+            "JOIN subjects sub ON g.subject_id = sub.subject_id " +
+            "WHERE e.student_id = ? ORDER BY sub.subject_name, g.term";
+    public static final String MY_FEES_SQL =
+            "SELECT c.class_name, f.term, f.amount_due, f.amount_paid, f.date_last_paid " +
+            "FROM fees f JOIN classes c ON f.class_id = c.class_id " +
+            "WHERE f.student_id = ? ORDER BY c.class_name, f.term";
+
     // Panels for different sections
     private JPanel myInfoPanel;
     private JPanel myClassesPanel;
@@ -54,7 +85,12 @@ public class StudentPanel extends JPanel {
     private JTable gradesTable;
     private DefaultTableModel gradesTableModel;
     private JComboBox<String> gradesSubjectFilterComboBox, gradesTermFilterComboBox; // Filters for grades
-    private Map<String, Integer> subjectNameToIdMap = new HashMap<>(); // Map subject name to ID (reused)
+    private static final String ALL_SUBJECTS = "All Subjects";
+    private static final String ALL_TERMS = "All Terms";
+    private List<Object[]> cachedGrades; // Complete grade history of the student, filtered in memory
+    private String cachedGradesVersion; // Fingerprint of the grade rows the cache was built from
+    private static final CacheCounter GRADE_CACHE = Metrics.cache("student.grades");
+    private boolean updatingGradeFilters = false; // Suppresses filtering while the filter combo boxes are rebuilt
 
 
     // --- My Fees Components ---
@@ -115,8 +151,7 @@ public class StudentPanel extends JPanel {
                     loadMyClasses();
                     break;
                 case 2: // My Grades
-                    loadMyGrades();
-                    loadGradesFilterComboBoxes(); // Load data for filter combo boxes
+                    loadMyGrades(); // Re-fetches only if the grade data changed; filter combo boxes are built from the cache
                     break;
                 case 3: // My Fees
                     loadMyFees();
@@ -311,10 +346,7 @@ public class StudentPanel extends JPanel {
             protected Map<String, String> doInBackground() throws Exception {
                 Map<String, String> studentInfo = new HashMap<>();
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT s.name, s.grade_level, c.class_name, s.status " +
-                             "FROM students s JOIN classes c ON s.class_id = c.class_id " +
-                             "WHERE s.student_id = ?")) {
+                     PreparedStatement pstmt = conn.prepareStatement(MY_INFO_SQL)) {
                     pstmt.setInt(1, loggedInStudentId);
                     ResultSet rs = pstmt.executeQuery();
                     if (rs.next()) {
@@ -362,7 +394,8 @@ public class StudentPanel extends JPanel {
                     });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -401,14 +434,7 @@ public class StudentPanel extends JPanel {
             protected List<Object[]> doInBackground() throws Exception {
                 List<Object[]> data = new ArrayList<>();
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT DISTINCT c.class_name, c.grade_level, t.name AS teacher_name, s.subject_name " +
-                             "FROM enrollments e " +
-                             "JOIN classes c ON e.class_id = c.class_id " +
-                             "LEFT JOIN class_assignments ca ON c.class_id = ca.class_id " + // Use LEFT JOIN in case a class has no assignment yet
-                             "LEFT JOIN teachers t ON ca.teacher_id = t.teacher_id " + // Use LEFT JOIN
-                             "LEFT JOIN subjects s ON ca.subject_id = s.subject_id " + // Use LEFT JOIN
-                             "WHERE e.student_id = ? ORDER BY c.class_name, s.subject_name")) {
+                     PreparedStatement pstmt = conn.prepareStatement(MY_CLASSES_SQL)) {
                     pstmt.setInt(1, loggedInStudentId);
                     ResultSet rs = pstmt.executeQuery();
                     while (rs.next()) {
@@ -446,7 +472,8 @@ public class StudentPanel extends JPanel {
                     SwingUtilities.invokeLater(() -> classesTableModel.setRowCount(0)); // Clear table on error
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -461,19 +488,15 @@ public class StudentPanel extends JPanel {
         filterPanel.setBackground(new Color(250, 250, 250));
 
         filterPanel.add(new JLabel("Filter by Subject:"));
-        gradesSubjectFilterComboBox = new JComboBox<>();
+        gradesSubjectFilterComboBox = new JComboBox<>(new String[]{ALL_SUBJECTS});
         gradesSubjectFilterComboBox.setPreferredSize(new Dimension(150, gradesSubjectFilterComboBox.getPreferredSize().height));
         filterPanel.add(gradesSubjectFilterComboBox);
 
         filterPanel.add(new JLabel("Filter by Term:"));
-        gradesTermFilterComboBox = new JComboBox<>();
+        gradesTermFilterComboBox = new JComboBox<>(new String[]{ALL_TERMS});
         gradesTermFilterComboBox.setPreferredSize(new Dimension(100, gradesTermFilterComboBox.getPreferredSize().height));
         filterPanel.add(gradesTermFilterComboBox);
 
-        JButton applyFilterButton = new JButton("Apply Filter");
-        styleButton(applyFilterButton, new Color(0, 123, 255)); // Blue
-        filterPanel.add(applyFilterButton);
-
         JButton clearFilterButton = new JButton("Clear Filter");
         styleButton(clearFilterButton, new Color(108, 117, 125)); // Grey
         filterPanel.add(clearFilterButton);
@@ -501,14 +524,15 @@ public class StudentPanel extends JPanel {
         panel.add(gradesScrollPane, BorderLayout.CENTER);
 
         // --- Action Listeners ---
-        applyFilterButton.addActionListener(e -> loadMyGrades(
-            (String) gradesSubjectFilterComboBox.getSelectedItem(),
-            (String) gradesTermFilterComboBox.getSelectedItem()
-        ));
+        // Filters are applied in memory against the cached grade history, so they take effect immediately
+        gradesSubjectFilterComboBox.addActionListener(e -> applyGradeFilters());
+        gradesTermFilterComboBox.addActionListener(e -> applyGradeFilters());
         clearFilterButton.addActionListener(e -> {
-            gradesSubjectFilterComboBox.setSelectedIndex(0); // Reset to first item (usually "All Subjects")
-            gradesTermFilterComboBox.setSelectedIndex(0); // Reset to first item (usually "All Terms")
-            loadMyGrades(); // Reload without filters
+            updatingGradeFilters = true;
+            gradesSubjectFilterComboBox.setSelectedIndex(0); // Reset to "All Subjects"
+            gradesTermFilterComboBox.setSelectedIndex(0); // Reset to "All Terms"
+            updatingGradeFilters = false;
+            applyGradeFilters();
         });
 
 
@@ -516,178 +540,154 @@ public class StudentPanel extends JPanel {
     }
 
     /**
-     * Loads data for the grades filter combo boxes (subjects and terms)
-     * relevant to the logged-in student's grades.
+     * Makes sure the cached grade history is current, then shows it with the selected filters.
+     * The complete history of the logged-in student is fetched once. On later calls only a
+     * one-row fingerprint of the student's grades is queried, and the history is re-fetched
+     * only when that fingerprint (the grade data version) has changed.
      * Uses SwingWorker for background database operation.
      */
-    private void loadGradesFilterComboBoxes() {
+    private void loadMyGrades() {
+        final String knownVersion = cachedGrades != null ? cachedGradesVersion : null;
         setLoading(true);
-        SwingWorker<Map<String, Vector<String>>, Void> worker = new SwingWorker<Map<String, Vector<String>>, Void>() {
+        SwingWorker<GradeHistory, Void> worker = new SwingWorker<GradeHistory, Void>() {
             @Override
-            protected Map<String, Vector<String>> doInBackground() throws Exception {
-                Map<String, Vector<String>> data = new HashMap<>();
-                Vector<String> subjectNames = new Vector<>();
-                Vector<String> terms = new Vector<>();
-
-                // Add "All" option to filters
-                subjectNames.add("All Subjects");
-                terms.add("All Terms");
-
-                subjectNameToIdMap.clear(); // Clear map
-
-                try (Connection conn = DatabaseUtility.getConnection();
-                     Statement stmt = conn.createStatement()) {
-
-                    // Load Subjects the student has grades for
-                    ResultSet rsSubjects = stmt.executeQuery(
-                        "SELECT DISTINCT sub.subject_id, sub.subject_name FROM subjects sub " +
-                        "JOIN grades g ON sub.subject_id = g.subject_id " +
-                        "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
-                        "WHERE e.student_id = " + loggedInStudentId + " ORDER BY sub.subject_name");
-                    while (rsSubjects.next()) {
-                        int id = rsSubjects.getInt("subject_id");
-                        String name = rsSubjects.getString("subject_name");
-                        subjectNames.add(name);
-                        subjectNameToIdMap.put(name, id);
+            protected GradeHistory doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    // Cheap version check: count plus an order-independent checksum of the rows
+                    String version;
+                    try (PreparedStatement pstmt = conn.prepareStatement(MY_GRADES_VERSION_SQL)) {
+                        pstmt.setInt(1, loggedInStudentId);
+                        ResultSet rs = pstmt.executeQuery();
+                        rs.next();
+                        version = rs.getLong("cnt") + ":" + rs.getLong("checksum");
+                        rs.close();
                     }
-                    rsSubjects.close();
-                    data.put("subjects", subjectNames);
-
-                    // Load Terms the student has grades for
-                    ResultSet rsTerms = stmt.executeQuery(
-                        "SELECT DISTINCT g.term FROM grades g " +
-                        "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
-                        "WHERE e.student_id = " + loggedInStudentId + " ORDER BY g.term");
-                    while (rsTerms.next()) {
-                        terms.add(rsTerms.getString("term"));
+
+                    GRADE_CACHE.record(version.equals(knownVersion));
+                    if (version.equals(knownVersion)) {
+                        return null; // Nothing changed, keep the cached history
                     }
-                    rsTerms.close();
-                    data.put("terms", terms);
 
+                    List<Object[]> data = new ArrayList<>();
+                    try (PreparedStatement pstmt = conn.prepareStatement(MY_GRADES_SQL)) {
+                        pstmt.setInt(1, loggedInStudentId);
+                        ResultSet rs = pstmt.executeQuery();
+                        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd"); // For formatting date
+
+                        while (rs.next()) {
+                            Date dateRecorded = rs.getDate("date_recorded");
+                            Object[] row = {
+                                    rs.getString("subject_name"),
+                                    rs.getString("term"),
+                                    rs.getDouble("score"),
+                                    rs.getString("comments"),
+                                    dateRecorded != null ? dateFormat.format(dateRecorded) : "N/A"
+                            };
+                            data.add(row);
+                        }
+                        rs.close();
+                    }
+                    return new GradeHistory(version, data);
                 } catch (SQLException e) {
-                    throw new Exception("Database error loading grades filter combo box data: " + e.getMessage(), e);
+                    throw new Exception("Database error loading grades: " + e.getMessage(), e);
                 }
-                return data;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    Map<String, Vector<String>> data = get();
-                    SwingUtilities.invokeLater(() -> {
-                        gradesSubjectFilterComboBox.setModel(new DefaultComboBoxModel<>(data.get("subjects")));
-                        gradesTermFilterComboBox.setModel(new DefaultComboBoxModel<>(data.get("terms")));
-                    });
+                    GradeHistory history = get();
+                    if (history != null) {
+                        cachedGrades = history.getRows();
+                        cachedGradesVersion = history.getVersion();
+                        rebuildGradeFilterComboBoxes();
+                    }
+                    applyGradeFilters();
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
-                    String errorMessage = "Error loading grades filter data: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    String errorMessage = "Error loading grades: " + (cause != null ? cause.getMessage() : e.getMessage());
                     showError(errorMessage);
                     e.printStackTrace();
-                     // Clear combo boxes if loading fails
-                     SwingUtilities.invokeLater(() -> {
-                         gradesSubjectFilterComboBox.setModel(new DefaultComboBoxModel<>(new String[]{"Error loading subjects"}));
-                         gradesTermFilterComboBox.setModel(new DefaultComboBoxModel<>(new String[]{"Error loading terms"}));
-                     });
+                    if (cachedGrades == null) {
+                        gradesTableModel.setRowCount(0); // Clear table on error if there is nothing cached to show
+                    }
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
-     * Loads the logged-in student's grades from the database, with optional filtering.
-     * Uses SwingWorker for background database operation.
-     *
-     * @param subjectFilter Optional subject name to filter by. Null or "All Subjects" for no subject filter.
-     * @param termFilter    Optional term to filter by. Null or "All Terms" for no term filter.
+     * Rebuilds the subject and term filter combo boxes from the cached grade history,
+     * keeping the current selections where they still exist.
+     * Must be called on the Event Dispatch Thread (EDT).
      */
-    private void loadMyGrades(String subjectFilter, String termFilter) {
-        setLoading(true);
-        SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
-            @Override
-            protected List<Object[]> doInBackground() throws Exception {
-                List<Object[]> data = new ArrayList<>();
-                StringBuilder sql = new StringBuilder(
-                    "SELECT sub.subject_name, g.term, g.score, g.comments, g.date_recorded " +
-                    "FROM grades g " +
-                    "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
-                    "JOIN subjects sub ON g.subject_id = sub.subject_id " +
-                    "WHERE e.student_id = ?"
-                );
-                List<Object> params = new ArrayList<>();
-                params.add(loggedInStudentId);
-
-                if (subjectFilter != null && !subjectFilter.isEmpty() && !subjectFilter.equals("All Subjects")) {
-                    sql.append(" AND sub.subject_name = ?");
-                    params.add(subjectFilter);
-                }
-                if (termFilter != null && !termFilter.isEmpty() && !termFilter.equals("All Terms")) {
-                    sql.append(" AND g.term = ?");
-                    params.add(termFilter);
-                }
-
-                sql.append(" ORDER BY sub.subject_name, g.term");
-
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
-
-                    for (int i = 0; i < params.size(); i++) {
-                        pstmt.setObject(i + 1, params.get(i));
-                    }
-
-                    ResultSet rs = pstmt.executeQuery();
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd"); // For formatting date
-
-                    while (rs.next()) {
-                        Date dateRecorded = rs.getDate("date_recorded");
-                        Object[] row = {
-                                rs.getString("subject_name"),
-                                rs.getString("term"),
-                                rs.getDouble("score"),
-                                rs.getString("comments"),
-                                dateRecorded != null ? dateFormat.format(dateRecorded) : "N/A"
-                        };
-                        data.add(row);
-                    }
-                    rs.close();
-                } catch (SQLException e) {
-                    throw new Exception("Database error loading grades: " + e.getMessage(), e);
-                }
-                return data;
-            }
+    private void rebuildGradeFilterComboBoxes() {
+        Object selectedSubject = gradesSubjectFilterComboBox.getSelectedItem();
+        Object selectedTerm = gradesTermFilterComboBox.getSelectedItem();
+
+        // TreeSet gives the distinct values in sorted order, like the ORDER BY the old queries used
+        java.util.TreeSet<String> subjects = new java.util.TreeSet<>();
+        java.util.TreeSet<String> terms = new java.util.TreeSet<>();
+        for (Object[] row : cachedGrades) {
+            if (row[0] != null) subjects.add((String) row[0]);
+            if (row[1] != null) terms.add((String) row[1]);
+        }
+        Vector<String> subjectNames = new Vector<>(subjects);
+        subjectNames.add(0, ALL_SUBJECTS);
+        Vector<String> termNames = new Vector<>(terms);
+        termNames.add(0, ALL_TERMS);
+
+        updatingGradeFilters = true; // Avoid re-filtering once per model change
+        try {
+            gradesSubjectFilterComboBox.setModel(new DefaultComboBoxModel<>(subjectNames));
+            gradesTermFilterComboBox.setModel(new DefaultComboBoxModel<>(termNames));
+            if (selectedSubject != null && subjects.contains(selectedSubject)) gradesSubjectFilterComboBox.setSelectedItem(selectedSubject);
+            if (selectedTerm != null && terms.contains(selectedTerm)) gradesTermFilterComboBox.setSelectedItem(selectedTerm);
+        } finally {
+            updatingGradeFilters = false;
+        }
+    }
 
-            @Override
-            protected void done() {
-                setLoading(false);
-                try {
-                    List<Object[]> data = get();
-                    SwingUtilities.invokeLater(() -> {
-                        gradesTableModel.setRowCount(0); // Clear table
-                        if (data.isEmpty()) {
-                             // Optionally display a message in the table area or a label
-                             // For simplicity, we'll just show an empty table.
-                        } else {
-                             for (Object[] row : data) {
-                                 gradesTableModel.addRow(row); // Add rows
-                             }
-                        }
-                    });
-                } catch (InterruptedException | ExecutionException e) {
-                    Throwable cause = e.getCause();
-                    String errorMessage = "Error loading grades: " + (cause != null ? cause.getMessage() : e.getMessage());
-                    showError(errorMessage);
-                    e.printStackTrace();
-                    SwingUtilities.invokeLater(() -> gradesTableModel.setRowCount(0)); // Clear table on error
-                }
+    /**
+     * Fills the grades table from the cached grade history, applying the selected
+     * subject and term filters in memory. No database access.
+     * Must be called on the Event Dispatch Thread (EDT).
+     */
+    private void applyGradeFilters() {
+        if (updatingGradeFilters || cachedGrades == null) {
+            return;
+        }
+        String subjectFilter = (String) gradesSubjectFilterComboBox.getSelectedItem();
+        String termFilter = (String) gradesTermFilterComboBox.getSelectedItem();
+        boolean allSubjects = subjectFilter == null || subjectFilter.equals(ALL_SUBJECTS);
+        boolean allTerms = termFilter == null || termFilter.equals(ALL_TERMS);
+
+        gradesTableModel.setRowCount(0); // Clear table
+        for (Object[] row : cachedGrades) {
+            if ((allSubjects || subjectFilter.equals(row[0])) && (allTerms || termFilter.equals(row[1]))) {
+                gradesTableModel.addRow(row);
             }
-        }.execute();
+        }
     }
 
+
     /**
-     * Loads the logged-in student's grades without any filters.
+     * Simple private static class to carry the fetched grade history and its version
+     * from the SwingWorker's doInBackground() to done().
      */
-    private void loadMyGrades() {
-        loadMyGrades(null, null); // Call the filtered method with null filters
+    private static class GradeHistory {
+        private final String version;
+        private final List<Object[]> rows;
+
+        GradeHistory(String version, List<Object[]> rows) {
+            this.version = version;
+            this.rows = rows;
+        }
+
+        public String getVersion() { return version; }
+        public List<Object[]> getRows() { return rows; }
     }
 
 
@@ -732,10 +732,7 @@ public class StudentPanel extends JPanel {
             protected List<Object[]> doInBackground() throws Exception {
                 List<Object[]> data = new ArrayList<>();
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT c.class_name, f.term, f.amount_due, f.amount_paid, f.date_last_paid " +
-                             "FROM fees f JOIN classes c ON f.class_id = c.class_id " +
-                             "WHERE f.student_id = ? ORDER BY c.class_name, f.term")) {
+                     PreparedStatement pstmt = conn.prepareStatement(MY_FEES_SQL)) {
                     pstmt.setInt(1, loggedInStudentId);
                     ResultSet rs = pstmt.executeQuery();
                     SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd"); // For formatting date
@@ -786,6 +783,7 @@ public class StudentPanel extends JPanel {
                     SwingUtilities.invokeLater(() -> feesTableModel.setRowCount(0)); // Clear table on error
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 } // End of StudentPanel class
@@ -0,0 +1,309 @@
+package com.school.panels;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sort and filter state of one admin table, turned into the WHERE and ORDER BY parts of its query,
+ * so sorting and filtering apply to all rows in the database and not just the rows fetched so far.
+ * Clicking a column header sorts by it (clicking again reverses the order); shift-click adds the column
+ * as a further sort key. The filter bar has one field per filterable column: text columns match by
+ * prefix, number columns accept a value or a comparison such as ">100" or "<=50".
+ * Only the column expressions given by the calling code ever reach the SQL; what the user types is
+ * always bound as a parameter.
+ */
+public class TableQueryState {
+
+    /** How a column can be sorted and filtered. */
+    public enum ColumnType {
+        TEXT, NUMBER,
+        /** Shown but neither sortable nor filterable. */
+        NONE
+    }
+
+    private static final int FILTER_DELAY_MILLIS = 400; // Apply filters after a pause in typing
+    private static final Pattern NUMBER_FILTER = Pattern.compile("^(>=|<=|<>|!=|>|<|=)?\\s*(-?\\d+(?:\\.\\d+)?)$");
+
+    private final String keyExpression; // Unique key, appended to every ORDER BY so blocks fetched with LIMIT/OFFSET line up
+    private final String[] expressions; // SQL expression per model column
+    private final ColumnType[] types;
+    private final List<SortKey> sortKeys = new ArrayList<>(); // In priority order
+    private final String[] filters; // Filter text per model column, null when unused
+    private final Runnable onChange;
+    private JTable table;
+    private String[] columnNames;
+
+    private static class SortKey {
+        final int column;
+        boolean ascending = true;
+
+        SortKey(int column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * @param keyExpression The table's unique key expression (e.g. "s.student_id").
+     * @param expressions   The SQL expression behind each model column, in model column order.
+     * @param types         The type of each model column.
+     * @param onChange      Called on the EDT when the sort or filters change; should scroll back to
+     *                      the top and reload the table.
+     */
+    public TableQueryState(String keyExpression, String[] expressions, ColumnType[] types, Runnable onChange) {
+        if (expressions.length != types.length) {
+            throw new IllegalArgumentException("Each column needs both an expression and a type.");
+        }
+        this.keyExpression = keyExpression;
+        this.expressions = expressions.clone();
+        this.types = types.clone();
+        this.filters = new String[expressions.length];
+        this.onChange = onChange;
+    }
+
+    /**
+     * Makes the table's column headers clickable for sorting.
+     * Must be called on the EDT once the table's columns are set up.
+     */
+    public void install(JTable table) {
+        this.table = table;
+        columnNames = new String[expressions.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = table.getModel().getColumnName(i);
+        }
+
+        JTableHeader header = table.getTableHeader();
+        header.setToolTipText("Click to sort, click again to reverse, shift-click to add a further sort column");
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) return;
+                int column = table.convertColumnIndexToModel(viewColumn);
+                if (types[column] == ColumnType.NONE) return;
+                toggleSort(column, e.isShiftDown());
+            }
+        });
+    }
+
+    private void toggleSort(int column, boolean addToExisting) {
+        SortKey existing = null;
+        for (SortKey key : sortKeys) {
+            if (key.column == column) existing = key;
+        }
+        if (addToExisting) {
+            if (existing != null) {
+                existing.ascending = !existing.ascending;
+            } else {
+                sortKeys.add(new SortKey(column));
+            }
+        } else {
+            boolean ascending = existing == null || sortKeys.size() > 1 || !existing.ascending;
+            sortKeys.clear();
+            SortKey key = new SortKey(column);
+            key.ascending = ascending;
+            sortKeys.add(key);
+        }
+        updateHeaders();
+        onChange.run();
+    }
+
+    /**
+     * Sorts by a single column, as a header click does, but without calling onChange; e.g. for the
+     * query plan check, which builds the queries of a table sorted and filtered without showing it.
+     *
+     * @param column    The model column.
+     * @param ascending The direction.
+     */
+    public void sortBy(int column, boolean ascending) {
+        if (types[column] == ColumnType.NONE) {
+            throw new IllegalArgumentException("Column " + column + " cannot be sorted.");
+        }
+        sortKeys.clear();
+        SortKey key = new SortKey(column);
+        key.ascending = ascending;
+        sortKeys.add(key);
+        if (table != null) {
+            updateHeaders();
+        }
+    }
+
+    /**
+     * Sets a column's filter as if it were typed into the filter bar, but without calling onChange.
+     *
+     * @param column The model column.
+     * @param text   The filter text (a prefix, or for number columns a value or comparison); null to clear it.
+     */
+    public void setFilter(int column, String text) {
+        if (text != null && (types[column] == ColumnType.NONE
+                || (types[column] == ColumnType.NUMBER && !NUMBER_FILTER.matcher(text.trim()).matches()))) {
+            throw new IllegalArgumentException("Not a filter for column " + column + ": " + text);
+        }
+        filters[column] = text == null || text.trim().isEmpty() ? null : text.trim();
+    }
+
+    // Shows the sort direction (and priority, when sorting by several columns) in the header labels
+    private void updateHeaders() {
+        for (int viewColumn = 0; viewColumn < table.getColumnCount(); viewColumn++) {
+            TableColumn tableColumn = table.getColumnModel().getColumn(viewColumn);
+            int column = tableColumn.getModelIndex();
+            String label = columnNames[column];
+            for (int i = 0; i < sortKeys.size(); i++) {
+                SortKey key = sortKeys.get(i);
+                if (key.column == column) {
+                    label += (key.ascending ? " \u25B2" : " \u25BC") + (sortKeys.size() > 1 ? String.valueOf(i + 1) : "");
+                }
+            }
+            tableColumn.setHeaderValue(label);
+        }
+        table.getTableHeader().repaint();
+    }
+
+    /**
+     * Creates the filter bar: a field per filterable column and a button to clear them.
+     * Call after {@link #install(JTable)}.
+     */
+    public JPanel createFilterBar() {
+        JPanel filterBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        filterBar.setBackground(new Color(250, 250, 250));
+        filterBar.add(new JLabel("Filter:"));
+
+        List<JTextField> fields = new ArrayList<>();
+        Timer applyTimer = new Timer(FILTER_DELAY_MILLIS, e -> onChange.run());
+        applyTimer.setRepeats(false);
+
+        for (int column = 0; column < expressions.length; column++) {
+            if (types[column] == ColumnType.NONE) continue;
+            final int filterColumn = column;
+            JTextField field = new JTextField(types[column] == ColumnType.NUMBER ? 5 : 8);
+            field.setToolTipText(types[column] == ColumnType.NUMBER
+                    ? columnNames[column] + ": a value, or a comparison such as >100 or <=50"
+                    : columnNames[column] + " starts with...");
+            field.getDocument().addDocumentListener(new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent e) { changed(); }
+                @Override
+                public void removeUpdate(DocumentEvent e) { changed(); }
+                @Override
+                public void changedUpdate(DocumentEvent e) { changed(); }
+
+                private void changed() {
+                    String text = field.getText().trim();
+                    boolean valid = text.isEmpty() || types[filterColumn] != ColumnType.NUMBER || NUMBER_FILTER.matcher(text).matches();
+                    // An unfinished comparison such as ">" is ignored until it becomes valid
+                    field.setForeground(valid ? UIManager.getColor("TextField.foreground") : new Color(220, 53, 69));
+                    String newFilter = text.isEmpty() || !valid ? null : text;
+                    if (newFilter == null ? filters[filterColumn] != null : !newFilter.equals(filters[filterColumn])) {
+                        filters[filterColumn] = newFilter;
+                        applyTimer.restart();
+                    }
+                }
+            });
+            field.addActionListener(e -> {
+                if (applyTimer.isRunning()) {
+                    applyTimer.stop();
+                    onChange.run(); // Enter applies right away
+                }
+            });
+            fields.add(field);
+            filterBar.add(new JLabel(columnNames[column]));
+            filterBar.add(field);
+        }
+
+        JButton clearButton = new JButton("Clear Filters");
+        clearButton.addActionListener(e -> {
+            for (JTextField field : fields) {
+                field.setText(""); // Resets the filters through the document listeners
+            }
+            if (applyTimer.isRunning()) {
+                applyTimer.stop();
+                onChange.run();
+            }
+        });
+        filterBar.add(clearButton);
+        return filterBar;
+    }
+
+    /**
+     * @return The WHERE clause for the active filters (with a leading space), or an empty string.
+     */
+    public String whereClause() {
+        StringBuilder sb = new StringBuilder();
+        for (int column = 0; column < filters.length; column++) {
+            if (filters[column] == null) continue;
+            sb.append(sb.length() == 0 ? " WHERE " : " AND ");
+            if (types[column] == ColumnType.NUMBER) {
+                Matcher m = NUMBER_FILTER.matcher(filters[column]);
+                m.matches();
+                String operator = m.group(1) == null ? "=" : ("!=".equals(m.group(1)) ? "<>" : m.group(1));
+                sb.append(expressions[column]).append(' ').append(operator).append(" ?");
+            } else {
+                sb.append(expressions[column]).append(" LIKE ?"); // Prefix match, so an index on the column can be used
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The filter values, in the order {@link #whereClause()} expects them. Take this on the
+     *         EDT together with the clauses and pass it to the background worker, so the query is
+     *         built from one consistent state even if the user keeps typing.
+     */
+    public List<Object> filterParameters() {
+        List<Object> parameters = new ArrayList<>();
+        for (int column = 0; column < filters.length; column++) {
+            if (filters[column] == null) continue;
+            if (types[column] == ColumnType.NUMBER) {
+                Matcher m = NUMBER_FILTER.matcher(filters[column]);
+                m.matches();
+                parameters.add(new BigDecimal(m.group(2)));
+            } else {
+                parameters.add(SqlLike.prefix(filters[column]));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Binds filter values taken with {@link #filterParameters()}.
+     *
+     * @param pstmt      The statement to bind.
+     * @param parameters The filter values.
+     * @param firstIndex The parameter index of the first filter.
+     * @return The parameter index following the last filter.
+     */
+    public static int bindParameters(PreparedStatement pstmt, List<Object> parameters, int firstIndex) throws SQLException {
+        int index = firstIndex;
+        for (Object parameter : parameters) {
+            pstmt.setObject(index++, parameter);
+        }
+        return index;
+    }
+
+    /**
+     * @return The ORDER BY clause (with a leading space); the unique key is always the last sort column.
+     */
+    public String orderByClause() {
+        StringBuilder sb = new StringBuilder(" ORDER BY ");
+        boolean lastAscending = true;
+        for (SortKey key : sortKeys) {
+            sb.append(expressions[key.column]).append(key.ascending ? " ASC, " : " DESC, ");
+            lastAscending = key.ascending;
+        }
+        // The key goes in the direction of the last sort column, so an index on (column, key) can be scanned in one direction
+        sb.append(keyExpression).append(lastAscending ? " ASC" : " DESC");
+        return sb.toString();
+    }
+}
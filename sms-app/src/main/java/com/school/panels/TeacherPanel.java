@@ -15,9 +15,23 @@ import java.text.SimpleDateFormat; // For formatting date - uncomment if used
 
 // Import the main application class to access the logout method
 import com.school.SchoolManagementApp; // This import should be here
+import com.school.ChangeFeed;
 import com.school.DatabaseUtility; // Ensure this import is present
+import com.school.DbTasks;
+import com.school.metrics.CacheCounter;
+import com.school.metrics.Metrics;
+import com.school.GradeJournal;
+import com.school.GradeJournalReplayer;
+import com.school.GradeDistribution;
+import com.school.PerformanceReport;
+import com.school.utils.PdfReportGenerator;
 import java.util.ArrayList; // Import ArrayList
 import java.util.List; // Import List
+import java.util.Set;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.Collections; // Import Collections for sorting
 import com.formdev.flatlaf.FlatClientProperties; // Import for FlatLaf specific properties
 import java.math.BigDecimal; // Use BigDecimal for score
@@ -33,6 +47,68 @@ public class TeacherPanel extends JPanel {
     // private final String dbUser = "your_username"; // Removed: Use DatabaseUtility
     // private final String dbPass = "your_password"; // Removed: Use DatabaseUtility
     private final int loggedInTeacherId; // Store the logged-in teacher's ID
+
+    // --- Queries (public so the load test and the query plan check run exactly what this panel runs) ---
+    /** Students the teacher can grade in a subject: teacher ID, subject ID. */
+    public static final String GRADE_FORM_STUDENTS_SQL =
+            "SELECT DISTINCT s.student_id, s.name, e.enrollment_id, c.class_name FROM students s " +
+            "JOIN enrollments e ON s.student_id = e.student_id " +
+            "JOIN class_assignments ca ON e.class_id = ca.class_id " +
+            "JOIN classes c ON e.class_id = c.class_id " + // Join to get class name
+            "WHERE ca.teacher_id = ? AND ca.subject_id = ? ORDER BY s.name";
+    /** Grade form insert: enrollment ID, subject ID, score, comments, term, date recorded. */
+    public static final String GRADE_INSERT_SQL =
+            "INSERT INTO grades (enrollment_id, subject_id, score, comments, term, date_recorded) VALUES (?, ?, ?, ?, ?, ?)";
+    /** Grade form update; compare-and-set, so it only succeeds if nobody saved the grade since it was read. */
+    public static final String GRADE_UPDATE_SQL =
+            "UPDATE grades SET enrollment_id=?, subject_id=?, score=?, comments=?, term=?, date_recorded=?, row_version=row_version+1 WHERE grade_id=? AND row_version=?";
+    /** Grade table filter: the teacher ID. */
+    public static final String GRADE_TABLE_WHERE = " WHERE ca.teacher_id = ?";
+    public static final String GRADE_TABLE_ORDER_BY = " ORDER BY c.class_name, sub.subject_name, s.name, g.term, g.grade_id"; // grade_id keeps the order stable between blocks
+    /** Subjects the teacher is assigned to: teacher ID. */
+    public static final String TEACHER_SUBJECTS_SQL =
+            "SELECT DISTINCT s.subject_id, s.subject_name FROM subjects s " +
+            "JOIN class_assignments ca ON s.subject_id = ca.subject_id " +
+            "WHERE ca.teacher_id = ? ORDER BY s.subject_name";
+    /** Students in any class the teacher is assigned to, for any subject: teacher ID. */
+    public static final String TEACHER_STUDENTS_SQL =
+            "SELECT DISTINCT s.student_id, s.name FROM students s " +
+            "JOIN enrollments e ON s.student_id = e.student_id " +
+            "JOIN class_assignments ca ON e.class_id = ca.class_id " +
+            "WHERE ca.teacher_id = ? ORDER BY s.name";
+    /** Every term with grades. */
+    public static final String TERMS_SQL = "SELECT DISTINCT term FROM grades ORDER BY term";
+    /** Classes the teacher is assigned to: teacher ID. */
+    public static final String TEACHER_CLASSES_SQL =
+            "SELECT DISTINCT c.class_id, c.class_name FROM classes c " +
+            "JOIN class_assignments ca ON c.class_id = ca.class_id " +
+            "WHERE ca.teacher_id = ? ORDER BY c.class_name";
+    /** Terms with grades in the teacher's classes and subjects: teacher ID. */
+    public static final String TEACHER_TERMS_SQL =
+            "SELECT DISTINCT g.term FROM grades g " +
+            "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
+            "JOIN class_assignments ca ON e.class_id = ca.class_id AND g.subject_id = ca.subject_id " +
+            "WHERE ca.teacher_id = ? ORDER BY g.term";
+    /** Subjects the teacher teaches in a class: teacher ID, class ID. */
+    public static final String TEACHER_CLASS_SUBJECTS_SQL =
+            "SELECT DISTINCT s.subject_id, s.subject_name FROM subjects s " +
+            "JOIN class_assignments ca ON s.subject_id = ca.subject_id " +
+            "WHERE ca.teacher_id = ? AND ca.class_id = ? ORDER BY s.subject_name";
+    /** Terms with grades for one of the teacher's classes and subjects: teacher ID, class ID, subject ID. */
+    public static final String REPORT_TERMS_SQL =
+            "SELECT DISTINCT g.term FROM grades g " +
+            "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
+            "JOIN class_assignments ca ON e.class_id = ca.class_id AND g.subject_id = ca.subject_id " +
+            "WHERE ca.teacher_id = ? AND e.class_id = ? AND g.subject_id = ? ORDER BY g.term";
+    /** Terms in which a student has grades in a subject: student ID, subject ID. */
+    public static final String STUDENT_SUBJECT_TERMS_SQL =
+            "SELECT DISTINCT g.term FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id WHERE e.student_id = ? AND g.subject_id = ? ORDER BY g.term";
+    /** The enrollment a grade is saved under: student ID, subject ID, teacher ID. */
+    public static final String ENROLLMENT_ID_SQL =
+            "SELECT e.enrollment_id FROM enrollments e " +
+            "JOIN class_assignments ca ON e.class_id = ca.class_id " +
+            "WHERE e.student_id = ? AND ca.subject_id = ? AND ca.teacher_id = ?";
+
     private SchoolManagementApp parentFrame; // Reference to the main application frame
 
     private JTabbedPane teacherTabbedPane;
@@ -44,21 +120,40 @@ public class TeacherPanel extends JPanel {
 
     // --- Grade Management Components ---
     private JTable gradeTable;
-    private DefaultTableModel gradeTableModel;
+    private LazyTableModel gradeTableModel; // Fetches rows on demand; a teacher can have a very large grade history
+    private int gradeEditVersion; // row_version of the selected grade, checked when it is saved
+    private String[] gradeEditOriginal; // Field values of the selected grade, for resolving edit conflicts
     private JComboBox<String> gradeSubjectComboBox, gradeStudentComboBox, gradeTermComboBox; // Combo boxes for filtering/adding grades
     private JTextField gradeIdField, scoreField, commentField; // Fields for grade details
     private JButton addGradeButton, updateGradeButton, deleteGradeButton, clearGradeFieldsButton; // Buttons for CRUD operations
     private Map<String, Integer> subjectNameToIdMap = new HashMap<>(); // Map subject name to ID
     private Map<String, Integer> studentNameToIdMap = new HashMap<>(); // Map student name to ID
     private Map<String, Integer> enrollmentIdMap = new HashMap<>(); // Map studentName + className + subjectName + term to enrollment_id
+    private final Map<String, Integer> enrollmentIdCache = new HashMap<>(); // studentId + "_" + subjectId to enrollment_id, so saving needs no query
+    private static final CacheCounter ENROLLMENT_CACHE = Metrics.cache("teacher.enrollments");
 
     // --- Teacher Reports Components ---
     private JComboBox<String> reportSubjectComboBox, reportTermComboBox, reportClassComboBox; // Combo boxes for reports
     private JTextArea teacherReportDisplayArea; // Area to display reports
-    private JButton generateTeacherReportButton, printTeacherReportButton; // Buttons for reports
+    private JButton generateTeacherReportButton, printTeacherReportButton, exportTeacherReportPdfButton; // Buttons for reports
+    private JComboBox<String> reportBandComboBox; // Histogram band width selection
+    private HistogramChart teacherReportHistogramChart; // Score distribution chart
+    private List<GradeDistribution.Bucket> lastReportDistribution; // Distribution of the report currently shown (for PDF export)
+    private String lastReportTitle; // Title of the report currently shown (for PDF export)
     private Map<String, Integer> classNameToIdMap = new HashMap<>(); // Map class name to ID (reused)
 
 
+    // --- Automatic Refresh ---
+    private final ChangeFeed changeFeed = new ChangeFeed(this::applyChanges, false); // Other users' changes to grades
+    private final Set<Integer> gradesDeletedHere = new HashSet<>(); // Removed from the table here, until the change feed reports them
+
+
+    // --- Grade Journal ---
+    private GradeJournal gradeJournal; // Grade writes are saved here first; null if it could not be opened
+    private GradeJournalReplayer journalReplayer; // Writes the journal to the database in the background
+    private JLabel journalStatusLabel; // Grade changes not yet written to the database
+
+
     // --- Loading Indicator ---
     private JProgressBar progressBar;
     private JLabel loadingLabel;
@@ -109,6 +204,16 @@ public class TeacherPanel extends JPanel {
             }
         });
 
+        // Grade writes go to a local journal first, so grade entry does not wait for (or depend on) the database
+        try {
+            gradeJournal = new GradeJournal(teacherId);
+            journalReplayer = new GradeJournalReplayer(gradeJournal, this::applyReplayOutcomes);
+        } catch (IOException e) {
+            showError("The local grade journal could not be opened, grades will be saved directly to the database: " + e.getMessage());
+            e.printStackTrace();
+        }
+        updateJournalStatus();
+
         // Load data for the initially selected tab (Manage Grades, index 0)
         loadGradeData();
         loadGradeComboBoxes();
@@ -133,6 +238,212 @@ public class TeacherPanel extends JPanel {
         });
     }
 
+    // --- Automatic Refresh ---
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        changeFeed.start(); // Poll for other users' changes while the panel is shown
+        if (journalReplayer != null) {
+            journalReplayer.start(); // Also writes grades left in the journal by the last session
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        changeFeed.stop(); // Logged out
+        if (journalReplayer != null) {
+            journalReplayer.stop();
+            gradeJournal.close(); // Anything outstanding is written after the teacher next logs in
+        }
+        super.removeNotify();
+    }
+
+    /**
+     * Brings the grade table up to date with changes reported by the change feed (including this
+     * panel's own). Updated grades that have been fetched are read again and deleted ones removed;
+     * grades inserted elsewhere, unfetched grades deleted elsewhere, changed class assignments or an
+     * incomplete batch reload the table.
+     */
+    private void applyChanges(List<ChangeFeed.Change> changes, boolean complete) {
+        if (teacherTabbedPane.getSelectedIndex() != 0) return; // The grade table is reloaded when its tab is selected
+        boolean reload = !complete;
+        Set<Integer> updatedIds = new LinkedHashSet<>();
+        for (ChangeFeed.Change change : changes) {
+            if ("class_assignments".equals(change.getTableName())) {
+                reload = true; // The teacher's classes or subjects changed
+            } else if ("grades".equals(change.getTableName())) {
+                int id = change.getRowId();
+                switch (change.getOperation()) {
+                    case INSERT:
+                        if (!gradeTableModel.containsRowId(id)) reload = true; // Grades added on this panel are already shown
+                        break;
+                    case UPDATE:
+                        if (gradeTableModel.containsRowId(id)) updatedIds.add(id); // Others are read fresh when scrolled into view
+                        break;
+                    case DELETE:
+                        if (!gradeTableModel.removeRowById(id) && !gradesDeletedHere.remove(id)) {
+                            reload = true; // Not fetched: its position is unknown, and the grades after it would be fetched one off
+                        }
+                        updatedIds.remove(id);
+                        break;
+                }
+            }
+        }
+
+        if (reload) {
+            loadGradeData();
+        } else if (!updatedIds.isEmpty()) {
+            refetchGrades(updatedIds, false);
+        }
+    }
+
+    /**
+     * Reads grades changed by someone else (or written from the journal) and patches them into the table.
+     * Runs quietly in the background; a failure only means the rows stay as they were.
+     *
+     * @param ids    The grades to read.
+     * @param insert true to show grades that are not in the table yet at the top (new grades).
+     */
+    private void refetchGrades(final Set<Integer> ids, final boolean insert) {
+        SwingWorker<List<LazyTableModel.FetchedRow>, Void> worker = new SwingWorker<List<LazyTableModel.FetchedRow>, Void>() {
+            @Override
+            protected List<LazyTableModel.FetchedRow> doInBackground() throws Exception {
+                List<LazyTableModel.FetchedRow> rows = new ArrayList<>();
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    for (int id : ids) {
+                        LazyTableModel.FetchedRow row = gradeTableModel.fetchRow(conn, id);
+                        if (row != null) {
+                            rows.add(row);
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new Exception("Database error reading changed grades: " + e.getMessage(), e);
+                }
+                return rows;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    for (LazyTableModel.FetchedRow row : get()) {
+                        if (insert && !gradeTableModel.containsRowId((int) gradeTableModel.getValueAt(row, 0))) {
+                            gradeTableModel.insertRow(row);
+                        } else {
+                            gradeTableModel.updateRow(row);
+                        }
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    // Automatic refresh is a convenience; report it on the console rather than interrupting the teacher
+                    System.err.println("Error refreshing changed grades: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    // --- Grade Journal ---
+
+    /**
+     * Saves a grade write to the local journal and acknowledges it right away; the replayer writes
+     * it to the database in the background (immediately if the database is reachable).
+     */
+    private void journalGrade(GradeJournal.Kind kind, int gradeId, int expectedVersion, int enrollmentId, int subjectId, double score,
+                              String comments, String term, String studentName, String subjectName, String[] originalValues) {
+        try {
+            gradeJournal.append(kind, gradeId, expectedVersion, enrollmentId, subjectId, score, comments.isEmpty() ? null : comments,
+                    term, LocalDate.now().toString(), studentName, subjectName, originalValues);
+        } catch (IOException e) {
+            showError("Error saving grade: it could not be written to the local journal: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+        clearGradeFields(); // Ready for the next grade; no confirmation dialog to slow entry down
+        updateJournalStatus();
+        journalReplayer.replayNow();
+    }
+
+    /**
+     * Shows the outcome of journaled grade writes: written grades are shown in the table, refused ones
+     * are reported, and updates that conflict with someone else's change are resolved with the user.
+     */
+    private void applyReplayOutcomes(List<GradeJournalReplayer.Outcome> outcomes) {
+        updateJournalStatus();
+        Set<Integer> added = new LinkedHashSet<>();
+        Set<Integer> updated = new LinkedHashSet<>();
+        List<GradeJournalReplayer.Outcome> conflicts = new ArrayList<>();
+        StringBuilder refused = new StringBuilder();
+        for (GradeJournalReplayer.Outcome outcome : outcomes) {
+            if (outcome.getStatus() == GradeJournal.Status.APPLIED) {
+                (outcome.getEntry().getKind() == GradeJournal.Kind.ADD ? added : updated).add(outcome.getGradeId());
+            } else if (outcome.getStatus() == GradeJournal.Status.CONFLICT && outcome.getEntry().getKind() == GradeJournal.Kind.UPDATE) {
+                conflicts.add(outcome);
+            } else {
+                refused.append("\n").append(outcome.getMessage());
+            }
+        }
+        if (!added.isEmpty()) refetchGrades(added, true);
+        if (!updated.isEmpty()) refetchGrades(updated, false);
+        if (refused.length() > 0) {
+            showError("Some saved grades could not be written to the database:" + refused);
+        }
+        if (!conflicts.isEmpty()) {
+            resolveJournalConflicts(conflicts);
+        }
+    }
+
+    /**
+     * Reads the grades that journaled updates conflicted with, then lets the user resolve each one
+     * as for a direct update; what the user decides is journaled again.
+     */
+    private void resolveJournalConflicts(final List<GradeJournalReplayer.Outcome> conflicts) {
+        SwingWorker<List<LazyTableModel.FetchedRow>, Void> worker = new SwingWorker<List<LazyTableModel.FetchedRow>, Void>() {
+            @Override
+            protected List<LazyTableModel.FetchedRow> doInBackground() throws Exception {
+                List<LazyTableModel.FetchedRow> rows = new ArrayList<>();
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    for (GradeJournalReplayer.Outcome conflict : conflicts) {
+                        rows.add(gradeTableModel.fetchRow(conn, conflict.getGradeId())); // Null if deleted since
+                    }
+                } catch (SQLException e) {
+                    throw new Exception("Database error reading conflicting grades: " + e.getMessage(), e);
+                }
+                return rows;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<LazyTableModel.FetchedRow> rows = get();
+                    for (int i = 0; i < conflicts.size(); i++) {
+                        GradeJournal.Entry entry = conflicts.get(i).getEntry();
+                        if (rows.get(i) == null || entry.getOriginalValues() == null) {
+                            showError(conflicts.get(i).getMessage());
+                            continue;
+                        }
+                        gradeEditOriginal = entry.getOriginalValues();
+                        resolveGradeConflict(entry.getGradeId(), rows.get(i), new String[]{entry.getStudentName(), entry.getSubjectName(),
+                                entry.getTerm(), Double.toString(entry.getScore()), entry.getComments() != null ? entry.getComments() : ""});
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    String errorMessage = "Error resolving conflicting grade changes: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    showError(errorMessage);
+                    e.printStackTrace();
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
+
+    // Shows how many journaled grade writes have not reached the database yet
+    private void updateJournalStatus() {
+        if (journalStatusLabel == null) return;
+        int pending = gradeJournal != null ? gradeJournal.pendingCount() : 0;
+        journalStatusLabel.setText(pending == 0 ? " " : pending + " saved grade change(s) waiting to be written to the database");
+    }
+
     // --- Helper Methods ---
 
     /**
@@ -316,23 +627,19 @@ public class TeacherPanel extends JPanel {
         gbc.anchor = GridBagConstraints.CENTER;
         formPanel.add(buttonPanel, gbc);
 
+        journalStatusLabel = new JLabel(" ");
+        journalStatusLabel.setForeground(new Color(108, 117, 125)); // Muted grey
+        gbc.gridy = 7;
+        formPanel.add(journalStatusLabel, gbc);
+
 
         // Table Panel to display grades
-        gradeTableModel = new DefaultTableModel(new Object[]{"ID", "Student", "Class", "Subject", "Term", "Score", "Comments", "Date Recorded"}, 0) { // Added Class and Date Recorded
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-             @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 5) return Double.class; // Score column
-                return super.getColumnClass(columnIndex);
-            }
-        };
+        gradeTableModel = createGradeTableModel();
         gradeTable = new JTable(gradeTableModel);
         gradeTable.setFillsViewportHeight(true);
         gradeTable.setRowHeight(25);
         gradeTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        gradeTable.removeColumn(gradeTable.getColumnModel().getColumn(8)); // Row version stays in the model only
         JScrollPane gradeScrollPane = new JScrollPane(gradeTable);
         gradeScrollPane.setBorder(BorderFactory.createTitledBorder("Grades List"));
 
@@ -354,7 +661,7 @@ public class TeacherPanel extends JPanel {
 
         // Add ListSelectionListener to the table to populate fields when a row is selected
         gradeTable.getSelectionModel().addListSelectionListener(event -> {
-            if (!event.getValueIsAdjusting() && gradeTable.getSelectedRow() != -1) {
+            if (!event.getValueIsAdjusting() && gradeTable.getSelectedRow() != -1 && gradeTableModel.isRowLoaded(gradeTable.getSelectedRow())) {
                 int selectedRow = gradeTable.getSelectedRow();
                 // Populate the fields and combo boxes from the selected row
                 gradeIdField.setText(gradeTable.getValueAt(selectedRow, 0).toString());
@@ -366,6 +673,11 @@ public class TeacherPanel extends JPanel {
                 // Handle potential null comments gracefully
                 Object commentsValue = gradeTable.getValueAt(selectedRow, 6);
                 commentField.setText(commentsValue != null ? commentsValue.toString() : "");
+                // Remember what was read, so saving can tell whether someone else changed the grade since
+                Integer pendingVersion = gradeJournal != null ? gradeJournal.pendingVersionOf((int) gradeTableModel.getValueAt(selectedRow, 0)) : null;
+                gradeEditVersion = pendingVersion != null ? pendingVersion : (int) gradeTableModel.getValueAt(selectedRow, 8); // Journaled edits come first
+                gradeEditOriginal = new String[]{gradeTable.getValueAt(selectedRow, 1).toString(), gradeTable.getValueAt(selectedRow, 3).toString(),
+                        gradeTable.getValueAt(selectedRow, 4).toString(), scoreField.getText().trim(), commentField.getText().trim()};
             }
         });
 
@@ -392,45 +704,47 @@ public class TeacherPanel extends JPanel {
                 studentNameToIdMap.clear();
                 classNameToIdMap.clear(); // Also need class names for enrollment ID mapping
                 enrollmentIdMap.clear(); // Clear enrollment map
+                synchronized (enrollmentIdCache) {
+                    enrollmentIdCache.clear(); // Assignments or enrollments may have changed
+                }
 
                 try (Connection conn = DatabaseUtility.getConnection();
                      Statement stmt = conn.createStatement()) {
 
                     // Load Subjects assigned to this teacher
-                    ResultSet rsSubjects = stmt.executeQuery(
-                        "SELECT DISTINCT s.subject_id, s.subject_name FROM subjects s " +
-                        "JOIN class_assignments ca ON s.subject_id = ca.subject_id " +
-                        "WHERE ca.teacher_id = " + loggedInTeacherId + " ORDER BY s.subject_name");
-                    while (rsSubjects.next()) {
-                        int id = rsSubjects.getInt("subject_id");
-                        String name = rsSubjects.getString("subject_name");
-                        subjectNames.add(name);
-                        subjectNameToIdMap.put(name, id);
+                    try (PreparedStatement pstmt = conn.prepareStatement(TEACHER_SUBJECTS_SQL)) {
+                        pstmt.setInt(1, loggedInTeacherId);
+                        ResultSet rsSubjects = pstmt.executeQuery();
+                        while (rsSubjects.next()) {
+                            int id = rsSubjects.getInt("subject_id");
+                            String name = rsSubjects.getString("subject_name");
+                            subjectNames.add(name);
+                            subjectNameToIdMap.put(name, id);
+                        }
+                        rsSubjects.close();
                     }
-                    rsSubjects.close();
                     data.put("subjects", subjectNames);
 
                     // Load Students enrolled in classes assigned to this teacher
                     // This is a bit complex as a teacher might teach multiple subjects in multiple classes.
                     // We need students from all classes the teacher is assigned to, for any subject.
-                    ResultSet rsStudents = stmt.executeQuery(
-                         "SELECT DISTINCT s.student_id, s.name FROM students s " +
-                         "JOIN enrollments e ON s.student_id = e.student_id " +
-                         "JOIN class_assignments ca ON e.class_id = ca.class_id " +
-                         "WHERE ca.teacher_id = " + loggedInTeacherId + " ORDER BY s.name");
-                    while (rsStudents.next()) {
-                        int id = rsStudents.getInt("student_id");
-                        String name = rsStudents.getString("name");
-                        studentNames.add(name);
-                        studentNameToIdMap.put(name, id);
+                    try (PreparedStatement pstmt = conn.prepareStatement(TEACHER_STUDENTS_SQL)) {
+                        pstmt.setInt(1, loggedInTeacherId);
+                        ResultSet rsStudents = pstmt.executeQuery();
+                        while (rsStudents.next()) {
+                            int id = rsStudents.getInt("student_id");
+                            String name = rsStudents.getString("name");
+                            studentNames.add(name);
+                            studentNameToIdMap.put(name, id);
+                        }
+                        rsStudents.close();
                     }
-                    rsStudents.close();
                     data.put("students", studentNames);
 
                     // Load Terms from Grades table (or define a standard set of terms)
                     // We can load all terms that exist in the grades table for simplicity,
                     // or filter by terms relevant to the teacher's classes/subjects if needed.
-                    ResultSet rsTerms = stmt.executeQuery("SELECT DISTINCT term FROM grades ORDER BY term");
+                    ResultSet rsTerms = stmt.executeQuery(TERMS_SQL);
                     while (rsTerms.next()) {
                         terms.add(rsTerms.getString("term"));
                     }
@@ -478,7 +792,8 @@ public class TeacherPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -510,12 +825,7 @@ public class TeacherPanel extends JPanel {
                 enrollmentIdMap.clear(); // Clear enrollment map
 
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                         "SELECT DISTINCT s.student_id, s.name, e.enrollment_id, c.class_name FROM students s " +
-                         "JOIN enrollments e ON s.student_id = e.student_id " +
-                         "JOIN class_assignments ca ON e.class_id = ca.class_id " +
-                         "JOIN classes c ON e.class_id = c.class_id " + // Join to get class name
-                         "WHERE ca.teacher_id = ? AND ca.subject_id = ? ORDER BY s.name")) {
+                     PreparedStatement pstmt = conn.prepareStatement(GRADE_FORM_STUDENTS_SQL)) {
                     pstmt.setInt(1, loggedInTeacherId);
                     pstmt.setInt(2, subjectId);
                     ResultSet rs = pstmt.executeQuery();
@@ -530,6 +840,9 @@ public class TeacherPanel extends JPanel {
                         // Store enrollment ID using a composite key (studentName + className + subjectName)
                         // This is a simplified approach; a more robust way might involve a custom object or a different map structure
                         enrollmentIdMap.put(studentName + "_" + className + "_" + selectedSubject, enrollmentId);
+                        synchronized (enrollmentIdCache) {
+                            enrollmentIdCache.putIfAbsent(studentId + "_" + subjectId, enrollmentId);
+                        }
                     }
                     rs.close();
                 } catch (SQLException e) {
@@ -559,7 +872,8 @@ public class TeacherPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -591,7 +905,7 @@ public class TeacherPanel extends JPanel {
                 Vector<String> terms = new Vector<>();
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
-                         "SELECT DISTINCT g.term FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id WHERE e.student_id = ? AND g.subject_id = ? ORDER BY g.term")) {
+                         STUDENT_SUBJECT_TERMS_SQL)) {
                     pstmt.setInt(1, studentId);
                     pstmt.setInt(2, subjectId);
                     ResultSet rs = pstmt.executeQuery();
@@ -623,7 +937,8 @@ public class TeacherPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -674,14 +989,20 @@ public class TeacherPanel extends JPanel {
             return;
         }
 
+        if (gradeJournal != null) {
+            journalGrade(GradeJournal.Kind.ADD, 0, 0, enrollmentId, subjectId, score, comments, selectedTerm, selectedStudent, selectedSubject, null);
+            return;
+        }
 
         setLoading(true);
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
                      PreparedStatement pstmt = conn.prepareStatement(
-                             "INSERT INTO grades (enrollment_id, subject_id, score, comments, term, date_recorded) VALUES (?, ?, ?, ?, ?, ?)")) {
+                             GRADE_INSERT_SQL,
+                             Statement.RETURN_GENERATED_KEYS)) {
                     pstmt.setInt(1, enrollmentId); // Use the found enrollment ID
                     pstmt.setInt(2, subjectId);
                     pstmt.setDouble(3, score);
@@ -690,20 +1011,29 @@ public class TeacherPanel extends JPanel {
                     pstmt.setDate(6, new java.sql.Date(System.currentTimeMillis())); // Record current date
 
                     pstmt.executeUpdate();
+                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            row = gradeTableModel.fetchRow(conn, generatedKeys.getInt(1)); // Read back on the same connection, for the table
+                        }
+                    }
                 } catch (SQLException e) {
                     throw new Exception("Database error adding grade: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    get();
+                    LazyTableModel.FetchedRow row = get();
                     JOptionPane.showMessageDialog(TeacherPanel.this, "Grade added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
                     clearGradeFields();
-                    loadGradeData(); // Refresh the grade table
+                    if (row != null) {
+                        gradeTableModel.insertRow(row); // Shown at the top until the table is next reloaded
+                    } else {
+                        loadGradeData(); // The new key was not returned, so the row could not be read back
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error adding grade: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -714,7 +1044,8 @@ public class TeacherPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
      /**
@@ -729,12 +1060,16 @@ public class TeacherPanel extends JPanel {
       * @return The enrollment_id, or null if not found.
       */
      private Integer getEnrollmentId(int studentId, int subjectId, int teacherId) {
+         synchronized (enrollmentIdCache) {
+             Integer cached = enrollmentIdCache.get(studentId + "_" + subjectId);
+             ENROLLMENT_CACHE.record(cached != null);
+             if (cached != null) {
+                 return cached; // Read with the student list, so no query (and no database needed)
+             }
+         }
          Integer enrollmentId = null;
          try (Connection conn = DatabaseUtility.getConnection();
-              PreparedStatement pstmt = conn.prepareStatement(
-                  "SELECT e.enrollment_id FROM enrollments e " +
-                  "JOIN class_assignments ca ON e.class_id = ca.class_id " +
-                  "WHERE e.student_id = ? AND ca.subject_id = ? AND ca.teacher_id = ?")) {
+              PreparedStatement pstmt = conn.prepareStatement(ENROLLMENT_ID_SQL)) {
              pstmt.setInt(1, studentId);
              pstmt.setInt(2, subjectId);
              pstmt.setInt(3, teacherId);
@@ -805,13 +1140,20 @@ public class TeacherPanel extends JPanel {
         }
 
 
+        final int expectedVersion = gradeEditVersion; // The version the form's values were based on
+        if (gradeJournal != null) {
+            journalGrade(GradeJournal.Kind.UPDATE, gradeId, expectedVersion, enrollmentId, subjectId, score, comments, selectedTerm,
+                    selectedStudent, selectedSubject, gradeEditOriginal);
+            return;
+        }
+
         setLoading(true);
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        SwingWorker<LazyTableModel.FetchedRow, Void> worker = new SwingWorker<LazyTableModel.FetchedRow, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected LazyTableModel.FetchedRow doInBackground() throws Exception {
+                LazyTableModel.FetchedRow row = null;
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "UPDATE grades SET enrollment_id=?, subject_id=?, score=?, comments=?, term=?, date_recorded=? WHERE grade_id=?")) {
+                     PreparedStatement pstmt = conn.prepareStatement(GRADE_UPDATE_SQL)) {
                     pstmt.setInt(1, enrollmentId); // Use the found enrollment ID
                     pstmt.setInt(2, subjectId);
                     pstmt.setDouble(3, score);
@@ -819,27 +1161,41 @@ public class TeacherPanel extends JPanel {
                     pstmt.setString(5, selectedTerm);
                     pstmt.setDate(6, new java.sql.Date(System.currentTimeMillis())); // Update date to current date
                     pstmt.setInt(7, gradeId);
+                    pstmt.setInt(8, expectedVersion);
 
                     int rowsUpdated = pstmt.executeUpdate();
                     if (rowsUpdated == 0) {
-                        throw new Exception("Grade with ID " + gradeId + " not found or no changes were made.");
+                        // Deleted, or saved by someone else since it was read
+                        LazyTableModel.FetchedRow current = gradeTableModel.fetchRow(conn, gradeId);
+                        if (current == null) {
+                            throw new Exception("Grade with ID " + gradeId + " no longer exists; it was deleted by someone else.");
+                        }
+                        throw new EditConflictDialog.ConflictException("Grade with ID " + gradeId + " was changed by someone else.", current);
                     }
+                    row = gradeTableModel.fetchRow(conn, gradeId); // Read back on the same connection, for the table
                 } catch (SQLException e) {
                     throw new Exception("Database error updating grade: " + e.getMessage(), e);
                 }
-                return null;
+                return row;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    get();
+                    LazyTableModel.FetchedRow row = get();
                     JOptionPane.showMessageDialog(TeacherPanel.this, "Grade updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
                     clearGradeFields();
-                    loadGradeData(); // Refresh the grade table
+                    if (row != null) {
+                        gradeTableModel.updateRow(row); // Patch the changed row instead of reloading the table
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
+                    if (cause instanceof EditConflictDialog.ConflictException) {
+                        resolveGradeConflict(gradeId, ((EditConflictDialog.ConflictException) cause).getCurrentRow(), new String[]{
+                                selectedStudent, selectedSubject, selectedTerm, scoreStr, comments});
+                        return;
+                    }
                     String errorMessage = "Error updating grade: " + (cause != null ? cause.getMessage() : e.getMessage());
                      if (cause instanceof SQLException && cause.getMessage().toLowerCase().contains("duplicate entry")) {
                          errorMessage = "Error: A grade for this student, subject, and term already exists.";
@@ -848,7 +1204,39 @@ public class TeacherPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
+    }
+
+    /**
+     * Lets the user resolve an update of a grade that someone else saved in the meantime, then
+     * saves again against the version just read, unless the user discarded their changes.
+     *
+     * @param gradeId The grade being updated.
+     * @param current The grade as saved now.
+     * @param mine    The user's values (student, subject, term, score, comments).
+     */
+    private void resolveGradeConflict(int gradeId, LazyTableModel.FetchedRow current, String[] mine) {
+        gradeTableModel.updateRow(current); // The table shows what is saved now
+        Object savedComments = gradeTableModel.getValueAt(current, 6);
+        String[] theirs = {gradeTableModel.getValueAt(current, 1).toString(), gradeTableModel.getValueAt(current, 3).toString(),
+                gradeTableModel.getValueAt(current, 4).toString(), String.valueOf(gradeTableModel.getValueAt(current, 5)),
+                savedComments != null ? savedComments.toString() : ""};
+        EditConflictDialog.Resolution resolution = EditConflictDialog.resolve(this, "Grade " + gradeId,
+                new String[]{"Student", "Subject", "Term", "Score", "Comments"}, gradeEditOriginal, mine, theirs);
+        if (resolution == null) return; // Left as it is; saving again raises the conflict again
+
+        gradeIdField.setText(String.valueOf(gradeId));
+        gradeEditVersion = (int) gradeTableModel.getValueAt(current, 8);
+        gradeEditOriginal = theirs;
+        gradeSubjectComboBox.setSelectedItem(resolution.keepsMine(1) ? mine[1] : theirs[1]);
+        gradeStudentComboBox.setSelectedItem(resolution.keepsMine(0) ? mine[0] : theirs[0]);
+        gradeTermComboBox.setSelectedItem(resolution.keepsMine(2) ? mine[2] : theirs[2]);
+        scoreField.setText(resolution.keepsMine(3) ? mine[3] : theirs[3]);
+        commentField.setText(resolution.keepsMine(4) ? mine[4] : theirs[4]);
+        if (resolution.isSave()) {
+            updateGrade();
+        }
     }
 
     /**
@@ -900,7 +1288,11 @@ public class TeacherPanel extends JPanel {
                     get();
                     JOptionPane.showMessageDialog(TeacherPanel.this, "Grade deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
                     clearGradeFields();
-                    loadGradeData(); // Refresh the grade table
+                    if (gradeTableModel.removeRowById(gradeId)) {
+                        gradesDeletedHere.add(gradeId); // The change feed's report of it needs no reload
+                    } else {
+                        loadGradeData(); // Not among the fetched rows, so its position in the table is unknown
+                    }
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error deleting grade: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -908,64 +1300,58 @@ public class TeacherPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
-     * Loads grade data from the database and populates the grade table.
-     * Filters grades to show only those for subjects and classes assigned to this teacher.
-     * Uses SwingWorker for background database operation.
+     * @return A model for the grade table; show a teacher's grades with {@link #GRADE_TABLE_WHERE} and the
+     *         teacher ID. Public so the load test and the query plan check page through grades with the same query.
+     */
+    public static LazyTableModel createGradeTableModel() {
+        return new LazyTableModel(new String[]{"ID", "Student", "Class", "Subject", "Term", "Score", "Comments", "Date Recorded", "Version"},
+                new LazyTableModel.ColumnKind[]{LazyTableModel.ColumnKind.INT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.DOUBLE, LazyTableModel.ColumnKind.TEXT, LazyTableModel.ColumnKind.DATE, LazyTableModel.ColumnKind.INT},
+                "g.grade_id, s.name, c.class_name, sub.subject_name, g.term, g.score, g.comments, g.date_recorded, g.row_version",
+                " FROM grades g " +
+                "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
+                "JOIN students s ON e.student_id = s.student_id " +
+                "JOIN classes c ON e.class_id = c.class_id " +
+                "JOIN subjects sub ON g.subject_id = sub.subject_id " +
+                "JOIN class_assignments ca ON e.class_id = ca.class_id AND g.subject_id = ca.subject_id", // Join to filter by teacher's assignments
+                "g.grade_id") {
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                if (columnIndex == 5) return Double.class; // Score column
+                return super.getColumnClass(columnIndex);
+            }
+        };
+    }
+
+    /**
+     * Counts the grades for the logged-in teacher's assigned classes and subjects and points the grade
+     * table at them. The rows themselves are fetched by the table model, a block at a time, as they are
+     * scrolled into view, so even a very long grade history is never loaded all at once.
      */
     private void loadGradeData() {
         setLoading(true);
-        SwingWorker<List<Object[]>, Void> worker = new SwingWorker<List<Object[]>, Void>() {
+        final String where = GRADE_TABLE_WHERE;
+        final String orderBy = GRADE_TABLE_ORDER_BY;
+        final List<Object> parameters = Collections.<Object>singletonList(loggedInTeacherId);
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
             @Override
-            protected List<Object[]> doInBackground() throws Exception {
-                List<Object[]> data = new ArrayList<>();
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                             "SELECT g.grade_id, s.name AS student_name, c.class_name, sub.subject_name, g.term, g.score, g.comments, g.date_recorded " +
-                             "FROM grades g " +
-                             "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
-                             "JOIN students s ON e.student_id = s.student_id " +
-                             "JOIN classes c ON e.class_id = c.class_id " +
-                             "JOIN subjects sub ON g.subject_id = sub.subject_id " +
-                             "JOIN class_assignments ca ON e.class_id = ca.class_id AND g.subject_id = ca.subject_id " + // Join to filter by teacher's assignments
-                             "WHERE ca.teacher_id = ? ORDER BY c.class_name, sub.subject_name, s.name, g.term")) {
-                    pstmt.setInt(1, loggedInTeacherId);
-                    ResultSet rs = pstmt.executeQuery();
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd"); // For formatting date
-
-                    while (rs.next()) {
-                         Date dateRecorded = rs.getDate("date_recorded");
-                        Object[] row = {
-                                rs.getInt("grade_id"),
-                                rs.getString("student_name"),
-                                rs.getString("class_name"),
-                                rs.getString("subject_name"),
-                                rs.getString("term"),
-                                rs.getDouble("score"),
-                                rs.getString("comments"),
-                                dateRecorded != null ? dateFormat.format(dateRecorded) : "N/A"
-                        };
-                        data.add(row);
-                    }
-                    rs.close();
+            protected Integer doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return gradeTableModel.countRows(conn, where, parameters);
                 } catch (SQLException e) {
                     throw new Exception("Database error loading grade data: " + e.getMessage(), e);
                 }
-                return data;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    List<Object[]> data = get();
-                    gradeTableModel.setRowCount(0);
-                    for (Object[] row : data) {
-                        gradeTableModel.addRow(row);
-                    }
+                    gradeTableModel.reset(where, orderBy, parameters, get());
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
                     String errorMessage = "Error loading grade data: " + (cause != null ? cause.getMessage() : e.getMessage());
@@ -973,7 +1359,8 @@ public class TeacherPanel extends JPanel {
                     e.printStackTrace();
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1016,6 +1403,10 @@ public class TeacherPanel extends JPanel {
         reportTermComboBox.setPreferredSize(new Dimension(100, reportTermComboBox.getPreferredSize().height));
         controlPanel.add(reportTermComboBox);
 
+        controlPanel.add(new JLabel("Bands:"));
+        reportBandComboBox = new JComboBox<>(HistogramChart.BAND_OPTIONS);
+        controlPanel.add(reportBandComboBox);
+
         generateTeacherReportButton = new JButton("Generate Report");
         styleButton(generateTeacherReportButton, new Color(0, 123, 255)); // Blue
         controlPanel.add(generateTeacherReportButton);
@@ -1024,6 +1415,10 @@ public class TeacherPanel extends JPanel {
         styleButton(printTeacherReportButton, new Color(108, 117, 125)); // Grey
         controlPanel.add(printTeacherReportButton);
 
+        exportTeacherReportPdfButton = new JButton("Export PDF");
+        styleButton(exportTeacherReportPdfButton, new Color(108, 117, 125)); // Grey
+        controlPanel.add(exportTeacherReportPdfButton);
+
 
         // Report Display Area
         teacherReportDisplayArea = new JTextArea();
@@ -1034,14 +1429,26 @@ public class TeacherPanel extends JPanel {
         JScrollPane reportScrollPane = new JScrollPane(teacherReportDisplayArea);
         reportScrollPane.setBorder(BorderFactory.createTitledBorder("Performance Report"));
 
+        // Score distribution chart shown beside the report text
+        teacherReportHistogramChart = new HistogramChart();
+        JPanel chartPanel = new JPanel(new BorderLayout());
+        chartPanel.setBackground(new Color(250, 250, 250));
+        chartPanel.setBorder(BorderFactory.createTitledBorder("Score Distribution"));
+        chartPanel.add(teacherReportHistogramChart, BorderLayout.CENTER);
+
+        JSplitPane reportSplitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, reportScrollPane, chartPanel);
+        reportSplitPane.setResizeWeight(0.6); // Give most of the extra space to the report text
+        reportSplitPane.setBorder(null);
+
 
         // Add components to the main panel
         panel.add(controlPanel, BorderLayout.NORTH);
-        panel.add(reportScrollPane, BorderLayout.CENTER);
+        panel.add(reportSplitPane, BorderLayout.CENTER);
 
         // --- Action Listeners ---
         generateTeacherReportButton.addActionListener(e -> generateTeacherReport());
         printTeacherReportButton.addActionListener(e -> printTeacherReport());
+        exportTeacherReportPdfButton.addActionListener(e -> exportTeacherReportPdf());
 
         // Add listeners to combo boxes to update dependent combo boxes
         reportClassComboBox.addActionListener(e -> populateReportSubjectComboBox());
@@ -1069,47 +1476,45 @@ public class TeacherPanel extends JPanel {
                 classNameToIdMap.clear(); // Clear maps before re-populating
                 subjectNameToIdMap.clear();
 
-                try (Connection conn = DatabaseUtility.getConnection();
-                     Statement stmt = conn.createStatement()) {
+                try (Connection conn = DatabaseUtility.getConnection()) {
 
                     // Load Classes assigned to this teacher
-                    ResultSet rsClasses = stmt.executeQuery(
-                        "SELECT DISTINCT c.class_id, c.class_name FROM classes c " +
-                        "JOIN class_assignments ca ON c.class_id = ca.class_id " +
-                        "WHERE ca.teacher_id = " + loggedInTeacherId + " ORDER BY c.class_name");
-                    while (rsClasses.next()) {
-                        int id = rsClasses.getInt("class_id");
-                        String name = rsClasses.getString("class_name");
-                        classNames.add(name);
-                        classNameToIdMap.put(name, id);
+                    try (PreparedStatement pstmt = conn.prepareStatement(TEACHER_CLASSES_SQL)) {
+                        pstmt.setInt(1, loggedInTeacherId);
+                        ResultSet rsClasses = pstmt.executeQuery();
+                        while (rsClasses.next()) {
+                            int id = rsClasses.getInt("class_id");
+                            String name = rsClasses.getString("class_name");
+                            classNames.add(name);
+                            classNameToIdMap.put(name, id);
+                        }
+                        rsClasses.close();
                     }
-                    rsClasses.close();
                     data.put("classes", classNames);
 
                     // Load Subjects assigned to this teacher
-                    ResultSet rsSubjects = stmt.executeQuery(
-                        "SELECT DISTINCT s.subject_id, s.subject_name FROM subjects s " +
-                        "JOIN class_assignments ca ON s.subject_id = ca.subject_id " +
-                        "WHERE ca.teacher_id = " + loggedInTeacherId + " ORDER BY s.subject_name");
-                    while (rsSubjects.next()) {
-                        int id = rsSubjects.getInt("subject_id");
-                        String name = rsSubjects.getString("subject_name");
-                        subjectNames.add(name);
-                        subjectNameToIdMap.put(name, id);
+                    try (PreparedStatement pstmt = conn.prepareStatement(TEACHER_SUBJECTS_SQL)) {
+                        pstmt.setInt(1, loggedInTeacherId);
+                        ResultSet rsSubjects = pstmt.executeQuery();
+                        while (rsSubjects.next()) {
+                            int id = rsSubjects.getInt("subject_id");
+                            String name = rsSubjects.getString("subject_name");
+                            subjectNames.add(name);
+                            subjectNameToIdMap.put(name, id);
+                        }
+                        rsSubjects.close();
                     }
-                    rsSubjects.close();
                     data.put("subjects", subjectNames);
 
                     // Load Terms from Grades table relevant to this teacher's assignments
-                    ResultSet rsTerms = stmt.executeQuery(
-                        "SELECT DISTINCT g.term FROM grades g " +
-                        "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
-                        "JOIN class_assignments ca ON e.class_id = ca.class_id AND g.subject_id = ca.subject_id " +
-                        "WHERE ca.teacher_id = " + loggedInTeacherId + " ORDER BY g.term");
-                    while (rsTerms.next()) {
-                        terms.add(rsTerms.getString("term"));
+                    try (PreparedStatement pstmt = conn.prepareStatement(TEACHER_TERMS_SQL)) {
+                        pstmt.setInt(1, loggedInTeacherId);
+                        ResultSet rsTerms = pstmt.executeQuery();
+                        while (rsTerms.next()) {
+                            terms.add(rsTerms.getString("term"));
+                        }
+                        rsTerms.close();
                     }
-                    rsTerms.close();
                     data.put("terms", terms);
 
                 } catch (SQLException e) {
@@ -1143,7 +1548,8 @@ public class TeacherPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1174,10 +1580,7 @@ public class TeacherPanel extends JPanel {
                 subjectNameToIdMap.clear(); // Clear map
 
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                         "SELECT DISTINCT s.subject_id, s.subject_name FROM subjects s " +
-                         "JOIN class_assignments ca ON s.subject_id = ca.subject_id " +
-                         "WHERE ca.teacher_id = ? AND ca.class_id = ? ORDER BY s.subject_name")) {
+                     PreparedStatement pstmt = conn.prepareStatement(TEACHER_CLASS_SUBJECTS_SQL)) {
                     pstmt.setInt(1, loggedInTeacherId);
                     pstmt.setInt(2, classId);
                     ResultSet rs = pstmt.executeQuery();
@@ -1215,7 +1618,8 @@ public class TeacherPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -1246,11 +1650,7 @@ public class TeacherPanel extends JPanel {
             protected Vector<String> doInBackground() throws Exception {
                 Vector<String> terms = new Vector<>();
                 try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                         "SELECT DISTINCT g.term FROM grades g " +
-                         "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
-                         "JOIN class_assignments ca ON e.class_id = ca.class_id AND g.subject_id = ca.subject_id " +
-                         "WHERE ca.teacher_id = ? AND e.class_id = ? AND g.subject_id = ? ORDER BY g.term")) {
+                     PreparedStatement pstmt = conn.prepareStatement(REPORT_TERMS_SQL)) {
                     pstmt.setInt(1, loggedInTeacherId);
                     pstmt.setInt(2, classId);
                     pstmt.setInt(3, subjectId);
@@ -1283,7 +1683,8 @@ public class TeacherPanel extends JPanel {
                      });
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
 
@@ -1311,70 +1712,94 @@ public class TeacherPanel extends JPanel {
             return;
         }
 
+        int bucketWidth = HistogramChart.bucketWidthFor((String) reportBandComboBox.getSelectedItem());
+
         setLoading(true);
-        SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
+        SwingWorker<PerformanceReport, Void> worker = new SwingWorker<PerformanceReport, Void>() {
             @Override
-            protected String doInBackground() throws Exception {
-                StringBuilder reportContent = new StringBuilder();
-                reportContent.append(String.format("--- Performance Report for %s - %s (%s) ---\n\n", selectedClass, selectedSubject, selectedTerm));
-                reportContent.append(String.format("%-5s %-20s %-10s %s\n", "ID", "Student Name", "Score", "Comments"));
-                reportContent.append("--------------------------------------------------------\n");
+            protected PerformanceReport doInBackground() throws Exception {
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    return PerformanceReport.generate(conn, selectedClass, selectedSubject, classId, subjectId, selectedTerm, bucketWidth, loggedInTeacherId);
+                } catch (SQLException e) {
+                    throw new Exception("Database error generating report: " + e.getMessage(), e);
+                }
+            }
 
-                try (Connection conn = DatabaseUtility.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(
-                         "SELECT s.student_id, s.name AS student_name, g.score, g.comments " +
-                         "FROM grades g " +
-                         "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
-                         "JOIN students s ON e.student_id = s.student_id " +
-                         "JOIN class_assignments ca ON e.class_id = ca.class_id AND g.subject_id = ca.subject_id " + // Join to filter by teacher's assignments
-                         "WHERE ca.teacher_id = ? AND e.class_id = ? AND g.subject_id = ? AND g.term = ? ORDER BY s.name")) {
-                    pstmt.setInt(1, loggedInTeacherId);
-                    pstmt.setInt(2, classId);
-                    pstmt.setInt(3, subjectId);
-                    pstmt.setString(4, selectedTerm);
-                    ResultSet rs = pstmt.executeQuery();
+            @Override
+            protected void done() {
+                setLoading(false);
+                try {
+                    PerformanceReport report = get();
+                    SwingUtilities.invokeLater(() -> {
+                        teacherReportDisplayArea.setText(report.getText());
+                        teacherReportHistogramChart.setBuckets(report.getDistribution());
+                        lastReportDistribution = report.getDistribution();
+                        lastReportTitle = "Performance Report - " + selectedClass + " - " + selectedSubject + " (" + selectedTerm + ")";
+                    });
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    String errorMessage = "Error generating report: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    showError(errorMessage);
+                    e.printStackTrace();
+                    SwingUtilities.invokeLater(() -> {
+                        teacherReportDisplayArea.setText("Error generating report: " + errorMessage);
+                        teacherReportHistogramChart.setBuckets(null);
+                        lastReportDistribution = null;
+                    });
+                }
+            }
+        };
+        DbTasks.execute(worker);
+    }
 
-                    List<Double> scores = new ArrayList<>();
-                    while (rs.next()) {
-                        int studentId = rs.getInt("student_id");
-                        String studentName = rs.getString("student_name");
-                        Double score = rs.getDouble("score");
-                        String comments = rs.getString("comments");
-                        reportContent.append(String.format("%-5d %-20s %-10.2f %s\n", studentId, studentName, score, comments != null ? comments : ""));
-                        scores.add(score);
-                    }
-                    rs.close();
+    /**
+     * Exports the report currently shown, including its score distribution chart, to a PDF file.
+     * Uses SwingWorker to write the file in the background.
+     */
+    private void exportTeacherReportPdf() {
+        String reportContent = teacherReportDisplayArea.getText();
 
-                    // Calculate average score
-                    if (!scores.isEmpty()) {
-                        double averageScore = scores.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                        reportContent.append("--------------------------------------------------------\n");
-                        reportContent.append(String.format("Average Score: %.2f\n", averageScore));
-                    } else {
-                        reportContent.append("No grades recorded for this criteria.\n");
-                    }
+        if (reportContent == null || reportContent.trim().isEmpty() || reportContent.contains("Error generating report")) {
+            JOptionPane.showMessageDialog(this, "No valid report to export.", "Info", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
 
-                } catch (SQLException e) {
-                    throw new Exception("Database error generating report: " + e.getMessage(), e);
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new java.io.File("performance-report.pdf"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return; // User cancelled
+        }
+        String filePath = fileChooser.getSelectedFile().getAbsolutePath();
+        String title = lastReportTitle != null ? lastReportTitle : "Performance Report";
+        List<GradeDistribution.Bucket> distribution = lastReportDistribution;
+
+        setLoading(true);
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                try {
+                    PdfReportGenerator.generateDistributionReport(filePath, title, reportContent, distribution);
+                } catch (Exception e) {
+                    throw new Exception("Error writing PDF: " + e.getMessage(), e);
                 }
-                return reportContent.toString();
+                return null;
             }
 
             @Override
             protected void done() {
                 setLoading(false);
                 try {
-                    String report = get();
-                    SwingUtilities.invokeLater(() -> teacherReportDisplayArea.setText(report));
+                    get();
+                    JOptionPane.showMessageDialog(TeacherPanel.this, "Report exported to " + filePath, "Success", JOptionPane.INFORMATION_MESSAGE);
                 } catch (InterruptedException | ExecutionException e) {
                     Throwable cause = e.getCause();
-                    String errorMessage = "Error generating report: " + (cause != null ? cause.getMessage() : e.getMessage());
+                    String errorMessage = "Error exporting report: " + (cause != null ? cause.getMessage() : e.getMessage());
                     showError(errorMessage);
                     e.printStackTrace();
-                    SwingUtilities.invokeLater(() -> teacherReportDisplayArea.setText("Error generating report: " + errorMessage));
                 }
             }
-        }.execute();
+        };
+        DbTasks.execute(worker);
     }
 
     /**
@@ -0,0 +1,309 @@
+package com.school.panels;
+
+import com.school.DatabaseUtility;
+import com.school.DbTasks;
+import com.school.metrics.CacheCounter;
+import com.school.metrics.Metrics;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An editable combo box that looks up matching records as the user types, for lists that are
+ * too large to load up front (e.g. every student of the school).
+ * Typing is debounced; the lookup is an indexed prefix query ({@code name LIKE 'text%'})
+ * limited to a page of results, run in a SwingWorker. Recent results are kept in a small
+ * LRU cache, and a query that narrows an earlier, complete result is answered from that
+ * result without going to the database. The full list is never loaded.
+ */
+public class TypeaheadComboBox extends JComboBox<TypeaheadComboBox.Item> {
+    private static final int DEBOUNCE_MILLIS = 250; // Wait for a pause in typing before querying
+    private static final int RESULT_LIMIT = 50; // Maximum number of matches fetched and shown
+    private static final int CACHE_SIZE = 64; // Number of recent prefixes kept
+    private static final CacheCounter CACHE_COUNTER = Metrics.cache("typeahead");
+
+    private final String sql; // Prefix query; parameters are the LIKE pattern and the limit
+    private final DefaultComboBoxModel<Item> model = new DefaultComboBoxModel<>();
+    private final Timer debounceTimer;
+    private final JTextComponent editorField;
+    private boolean updating = false; // Suppresses lookups while the component changes its own text or items
+    private SwingWorker<List<Item>, Void> pendingLookup;
+
+    // Recent results by lower-cased prefix, least recently used first
+    private final Map<String, List<Item>> cache = new LinkedHashMap<String, List<Item>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Item>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * @return The prefix query of a combo box over the table: the LIKE pattern and the limit. Public so
+     *         the query plan check checks the same query.
+     */
+    public static String prefixQuery(String table, String idColumn, String nameColumn) {
+        return "SELECT " + idColumn + ", " + nameColumn + " FROM " + table +
+                " WHERE " + nameColumn + " LIKE ? ORDER BY " + nameColumn + ", " + idColumn + " LIMIT ?";
+    }
+
+    /**
+     * A record offered by the combo box. Displays as its name; the ID is kept so that
+     * records with the same name can still be told apart.
+     */
+    public static class Item {
+        private final int id;
+        private final String name;
+
+        public Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() { return id; }
+        public String getName() { return name; }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Creates a typeahead combo box over a table.
+     * The column names are fixed by the caller's code, never by user input.
+     *
+     * @param table      The table to search (e.g. "students").
+     * @param idColumn   The primary key column (e.g. "student_id").
+     * @param nameColumn The indexed name column to match by prefix (e.g. "name").
+     */
+    public TypeaheadComboBox(String table, String idColumn, String nameColumn) {
+        this.sql = prefixQuery(table, idColumn, nameColumn);
+        setModel(model);
+        setEditable(true);
+        setMaximumRowCount(12);
+        editorField = (JTextComponent) getEditor().getEditorComponent();
+
+        debounceTimer = new Timer(DEBOUNCE_MILLIS, e -> {
+            if (!isShowingSelection()) {
+                lookup(editorField.getText());
+            }
+        });
+        debounceTimer.setRepeats(false);
+
+        editorField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { textChanged(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { textChanged(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { textChanged(); }
+        });
+    }
+
+    private void textChanged() {
+        if (!updating && !isShowingSelection()) {
+            debounceTimer.restart();
+        }
+    }
+
+    // True when the text is just the name of the item picked from the list (setText fires a remove and an insert)
+    private boolean isShowingSelection() {
+        Object selected = getSelectedItem();
+        return selected instanceof Item && ((Item) selected).getName().equals(editorField.getText());
+    }
+
+    /**
+     * Shows the matches for a prefix, from the cache if possible, otherwise from the database.
+     * Must be called on the Event Dispatch Thread (EDT).
+     */
+    private void lookup(String text) {
+        String prefix = text.trim();
+        if (prefix.isEmpty()) {
+            showItems(new ArrayList<>());
+            return;
+        }
+        String key = prefix.toLowerCase(Locale.ROOT);
+        List<Item> cached = findInCache(key);
+        CACHE_COUNTER.record(cached != null);
+        if (cached != null) {
+            showItems(cached);
+            return;
+        }
+
+        if (pendingLookup != null) {
+            pendingLookup.cancel(false); // Its result would be out of date anyway
+        }
+        pendingLookup = new SwingWorker<List<Item>, Void>() {
+            @Override
+            protected List<Item> doInBackground() throws Exception {
+                List<Item> items = new ArrayList<>();
+                try (Connection conn = DatabaseUtility.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, SqlLike.prefix(prefix));
+                    pstmt.setInt(2, RESULT_LIMIT);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            items.add(new Item(rs.getInt(1), rs.getString(2)));
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new Exception("Database error looking up matches: " + e.getMessage(), e);
+                }
+                return items;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    List<Item> items = get();
+                    cache.put(key, items);
+                    // Only show the result if the user has not typed something else meanwhile
+                    if (editorField.getText().trim().equalsIgnoreCase(prefix)) {
+                        showItems(items);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    // A failed lookup just leaves the list as it was; the user can keep typing to retry
+                    System.err.println("Error looking up matches: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        };
+        DbTasks.execute(pendingLookup);
+    }
+
+    /**
+     * Returns the cached matches for a prefix. If only a shorter prefix is cached but its result
+     * was complete (fewer rows than the limit), the matches are filtered from that result instead.
+     */
+    private List<Item> findInCache(String key) {
+        List<Item> exact = cache.get(key);
+        if (exact != null) {
+            return exact;
+        }
+        for (int length = key.length() - 1; length > 0; length--) {
+            List<Item> broader = cache.get(key.substring(0, length));
+            if (broader != null) {
+                if (broader.size() >= RESULT_LIMIT) {
+                    return null; // Truncated, so rows matching the longer prefix may be missing
+                }
+                List<Item> narrowed = new ArrayList<>();
+                for (Item item : broader) {
+                    if (item.getName().toLowerCase(Locale.ROOT).startsWith(key)) {
+                        narrowed.add(item);
+                    }
+                }
+                cache.put(key, narrowed);
+                return narrowed;
+            }
+        }
+        return null;
+    }
+
+    // Replaces the listed items while keeping what the user has typed and where the caret is
+    private void showItems(List<Item> items) {
+        String text = editorField.getText();
+        int caret = editorField.getCaretPosition();
+        updating = true;
+        try {
+            model.removeAllElements();
+            for (Item item : items) {
+                model.addElement(item);
+            }
+            model.setSelectedItem(null);
+            editorField.setText(text);
+            editorField.setCaretPosition(Math.min(caret, text.length()));
+        } finally {
+            updating = false;
+        }
+        if (items.isEmpty()) {
+            hidePopup();
+        } else if (editorField.isFocusOwner()) {
+            hidePopup(); // Re-show so the popup is resized to the new items
+            showPopup();
+        }
+    }
+
+    /**
+     * @return The ID of the chosen record, or null if nothing has been chosen. Typed text that
+     *         exactly matches the name of a single listed record counts as choosing it.
+     */
+    public Integer getSelectedId() {
+        Object selected = getSelectedItem();
+        if (selected instanceof Item) {
+            return ((Item) selected).getId();
+        }
+        String text = selected != null ? selected.toString().trim() : editorField.getText().trim();
+        Integer match = null;
+        for (int i = 0; i < model.getSize(); i++) {
+            Item item = model.getElementAt(i);
+            if (item.getName().equalsIgnoreCase(text)) {
+                if (match != null) {
+                    return null; // Ambiguous: several records share this name, one must be picked from the list
+                }
+                match = item.getId();
+            }
+        }
+        return match;
+    }
+
+    /**
+     * @return The text currently shown in the combo box (the chosen or typed name).
+     */
+    public String getSelectedName() {
+        return editorField.getText().trim();
+    }
+
+    /**
+     * Shows a known record as the selection without querying the database,
+     * e.g. when a table row referencing it is selected.
+     */
+    public void setSelectedRecord(int id, String name) {
+        debounceTimer.stop();
+        updating = true;
+        try {
+            Item item = new Item(id, name);
+            model.removeAllElements();
+            model.addElement(item);
+            model.setSelectedItem(item);
+            editorField.setText(name);
+        } finally {
+            updating = false;
+        }
+    }
+
+    /**
+     * Clears the selection and the typed text.
+     */
+    public void clearSelection() {
+        debounceTimer.stop();
+        updating = true;
+        try {
+            model.removeAllElements();
+            editorField.setText("");
+        } finally {
+            updating = false;
+        }
+    }
+
+    /**
+     * Forgets cached results, e.g. after records were added, renamed or deleted.
+     */
+    public void invalidateCache() {
+        cache.clear();
+    }
+}
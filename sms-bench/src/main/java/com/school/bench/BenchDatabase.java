@@ -0,0 +1,200 @@
+package com.school.bench;
+
+import com.school.DatabaseUtility;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * An embedded H2 database in MySQL mode with the application's tables (bench-schema.sql) and
+ * synthetic data, which {@link DatabaseUtility} is pointed at. One database per data size; JMH runs
+ * each size in its own fork, so nothing is shared between sizes.
+ * <p>
+ * The data is the same on every run (fixed random seed) and laid out so benchmarks can address rows
+ * without looking them up: student, enrollment and fee ids run from 1 to {@link #students}, each student
+ * is enrolled in class {@code (id - 1) / CLASS_SIZE + 1} and has a grade in every subject for every one
+ * of {@link #TERMS}, see {@link #gradeId}.
+ * <p>
+ * With {@code -p accessPathIndexes=false,true} each size is also measured without the indexes of
+ * migration 050, for before/after numbers.
+ */
+@State(Scope.Benchmark)
+public class BenchDatabase {
+
+    public static final int CLASS_SIZE = 30;
+    public static final int SUBJECTS = 8;
+    public static final String[] TERMS = {"Term 1", "Term 2"};
+    /** The indexes of migration 050_access_path_indexes.sql. */
+    public static final String[] ACCESS_PATH_INDEXES = {"idx_grades_term_subject", "idx_class_assignments_teacher"};
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] FIRST_NAMES = {"Amara", "Ben", "Chloe", "Dawit", "Elena", "Farah", "Gabriel", "Hana",
+            "Ivan", "Jia", "Kofi", "Lena", "Mateo", "Nia", "Omar", "Priya", "Quinn", "Rosa", "Sam", "Tariq"};
+    private static final String[] LAST_NAMES = {"Adeyemi", "Brown", "Chen", "Diaz", "Evans", "Fischer", "Garcia", "Haddad",
+            "Ito", "Jones", "Kim", "Lopez", "Mensah", "Novak", "Okafor", "Patel", "Rossi", "Smith", "Tanaka", "Wong"};
+
+    /** Number of students. */
+    @Param({"1000", "10000", "50000"})
+    public int students;
+
+    /** Whether the {@link #ACCESS_PATH_INDEXES} exist; false drops them before the data is loaded. */
+    @Param({"true"})
+    public boolean accessPathIndexes;
+
+    /** Number of classes (students / CLASS_SIZE, rounded up). */
+    public int classes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        classes = (students + CLASS_SIZE - 1) / CLASS_SIZE;
+        DatabaseUtility.setDatabaseUrl("jdbc:h2:mem:sms" + students + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        DatabaseUtility.setDatabaseCredentials("sa", "");
+        try (Connection conn = DatabaseUtility.getConnection()) {
+            createTables(conn);
+            if (!accessPathIndexes) {
+                try (Statement stmt = conn.createStatement()) {
+                    for (String index : ACCESS_PATH_INDEXES) {
+                        stmt.execute("DROP INDEX " + index);
+                    }
+                }
+            }
+            conn.setAutoCommit(false);
+            seed(conn);
+            conn.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Connection conn = DatabaseUtility.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        }
+        DatabaseUtility.closeIdleConnections();
+    }
+
+    /** @return The id of a student's grade in a subject (1-based) and term (index into {@link #TERMS}). */
+    public static int gradeId(int studentId, int subjectId, int term) {
+        return ((studentId - 1) * TERMS.length + term) * SUBJECTS + subjectId;
+    }
+
+    /** @return The class a student is in. */
+    public static int classOf(int studentId) {
+        return (studentId - 1) / CLASS_SIZE + 1;
+    }
+
+    private static void createTables(Connection conn) throws IOException, SQLException {
+        try (InputStream in = BenchDatabase.class.getResourceAsStream("/bench-schema.sql");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+             Statement stmt = conn.createStatement()) {
+            StringBuilder sql = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().startsWith("--")) continue;
+                sql.append(line).append('\n');
+                if (line.trim().endsWith(";")) {
+                    stmt.execute(sql.substring(0, sql.lastIndexOf(";")));
+                    sql.setLength(0);
+                }
+            }
+        }
+    }
+
+    private void seed(Connection conn) throws SQLException {
+        Random random = new Random(42);
+        try (PreparedStatement teacher = conn.prepareStatement("INSERT INTO teachers (name, subject) VALUES (?, ?)");
+             PreparedStatement subject = conn.prepareStatement("INSERT INTO subjects (subject_name) VALUES (?)");
+             PreparedStatement clazz = conn.prepareStatement("INSERT INTO classes (class_name, grade_level, fee) VALUES (?, ?, ?)");
+             PreparedStatement assignment = conn.prepareStatement("INSERT INTO class_assignments (class_id, teacher_id, subject_id) VALUES (?, ?, ?)")) {
+            for (int s = 1; s <= SUBJECTS; s++) {
+                subject.setString(1, "Subject " + s);
+                subject.addBatch();
+            }
+            subject.executeBatch();
+            for (int c = 1; c <= classes; c++) {
+                teacher.setString(1, name(random));
+                teacher.setString(2, "Subject " + (c % SUBJECTS + 1));
+                teacher.addBatch();
+                clazz.setString(1, "Class " + c);
+                clazz.setString(2, "Grade " + (c % 12 + 1));
+                clazz.setInt(3, 500 + 50 * (c % 10));
+                clazz.addBatch();
+            }
+            teacher.executeBatch();
+            clazz.executeBatch();
+            for (int c = 1; c <= classes; c++) {
+                for (int s = 1; s <= SUBJECTS; s++) {
+                    assignment.setInt(1, c);
+                    assignment.setInt(2, c); // The class's own teacher
+                    assignment.setInt(3, s);
+                    assignment.addBatch();
+                }
+            }
+            assignment.executeBatch();
+        }
+
+        try (PreparedStatement student = conn.prepareStatement("INSERT INTO students (name, grade_level, class_id, status) VALUES (?, ?, ?, ?)");
+             PreparedStatement enrollment = conn.prepareStatement("INSERT INTO enrollments (student_id, class_id) VALUES (?, ?)");
+             PreparedStatement grade = conn.prepareStatement(
+                     "INSERT INTO grades (enrollment_id, subject_id, score, comments, term, date_recorded) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement fee = conn.prepareStatement(
+                     "INSERT INTO fees (student_id, class_id, term, amount_due, amount_paid) VALUES (?, ?, ?, ?, ?)")) {
+            Date recorded = Date.valueOf("2024-03-15");
+            for (int id = 1; id <= students; id++) {
+                int classId = classOf(id);
+                student.setString(1, name(random));
+                student.setString(2, "Grade " + (classId % 12 + 1));
+                student.setInt(3, classId);
+                student.setString(4, random.nextInt(20) == 0 ? "Graduated" : "Active");
+                student.addBatch();
+                enrollment.setInt(1, id);
+                enrollment.setInt(2, classId);
+                enrollment.addBatch();
+                for (int term = 0; term < TERMS.length; term++) {
+                    for (int s = 1; s <= SUBJECTS; s++) {
+                        grade.setInt(1, id); // Enrollment ids follow student ids
+                        grade.setInt(2, s);
+                        grade.setBigDecimal(3, BigDecimal.valueOf(Math.max(0, Math.min(10000, (int) (7200 + random.nextGaussian() * 1400))), 2));
+                        grade.setString(4, random.nextInt(4) == 0 ? "Needs to show working" : null);
+                        grade.setString(5, TERMS[term]);
+                        grade.setDate(6, recorded);
+                        grade.addBatch();
+                    }
+                }
+                fee.setInt(1, id);
+                fee.setInt(2, classId);
+                fee.setString(3, TERMS[0]);
+                fee.setInt(4, 500 + 50 * (classId % 10));
+                fee.setInt(5, random.nextInt(3) == 0 ? 0 : 500);
+                fee.addBatch();
+
+                if (id % BATCH_SIZE == 0 || id == students) {
+                    student.executeBatch();
+                    enrollment.executeBatch();
+                    grade.executeBatch();
+                    fee.executeBatch();
+                }
+            }
+        }
+    }
+
+    private static String name(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+}
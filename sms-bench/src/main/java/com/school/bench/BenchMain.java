@@ -0,0 +1,39 @@
+package com.school.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the benchmarks with JMH's usual command line options, always with the GC profiler, so every
+ * result comes with its allocation rate per operation (gc.alloc.rate.norm) and GC counts.
+ * <pre>
+ *   java -jar sms-bench/target/benchmarks.jar                       everything, every data size
+ *   java -jar sms-bench/target/benchmarks.jar DataAccess -p students=10000
+ *   java -jar sms-bench/target/benchmarks.jar -rf json -rff before.json
+ *   java -jar sms-bench/target/benchmarks.jar DataAccess -p accessPathIndexes=false,true
+ * </pre>
+ */
+public class BenchMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        boolean gcRequested = false;
+        for (ProfilerConfig profiler : commandLine.getProfilers()) {
+            gcRequested |= "gc".equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass());
+        }
+        if (!gcRequested) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,164 @@
+package com.school.bench;
+
+import com.school.DatabaseUtility;
+import com.school.GradeJournal;
+import com.school.GradeJournalReplayer;
+import com.school.PerformanceReport;
+import com.school.panels.AdminPanel;
+import com.school.panels.LazyTableModel;
+import com.school.panels.TeacherPanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The database paths behind the screens, through the application's own code:
+ * <ul>
+ *   <li>Student table page loads (AdminPanel.loadStudentData: a count, then the first block of rows), plus a
+ *       block deep in the table as when scrolling, and a filtered, sorted load.</li>
+ *   <li>Grade upserts as the teacher form and the grade journal make them (insert, or compare-and-set update),
+ *       each rolled back so the data stays the same.</li>
+ *   <li>Performance report aggregation (the report tab's per-student query and score distribution).</li>
+ *   <li>The teacher panel's lookups: the students a teacher can grade in a subject, the terms of the teacher's
+ *       grades, and the list of all terms.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Thread)
+public class DataAccessBenchmark {
+
+    private static final List<Object> NO_PARAMETERS = Collections.emptyList();
+    private static final String BY_ID = " ORDER BY s.student_id ASC";
+    private static final String ACTIVE = " WHERE s.status LIKE ?"; // As TableQueryState writes a filter
+    private static final List<Object> ACTIVE_PARAMETERS = Collections.<Object>singletonList("Active%");
+    private static final String BY_NAME = " ORDER BY s.name ASC, s.student_id ASC";
+
+    private Connection conn;
+    private Random random;
+    private int students;
+    private int classes;
+    private LazyTableModel studentsById;
+    private LazyTableModel activeStudentsByName;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchDatabase db) throws SQLException {
+        conn = DatabaseUtility.getConnection();
+        conn.setAutoCommit(false); // So the grade benchmarks can roll back
+        random = new Random(7);
+        students = db.students;
+        classes = db.classes;
+        studentsById = AdminPanel.createStudentTableModel();
+        studentsById.reset("", BY_ID, NO_PARAMETERS, students);
+        activeStudentsByName = AdminPanel.createStudentTableModel();
+        activeStudentsByName.reset(ACTIVE, BY_NAME, ACTIVE_PARAMETERS, students);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public int studentTableLoad() throws SQLException {
+        return studentsById.countRows(conn, "", NO_PARAMETERS) + studentsById.fetchBlock(conn, 0);
+    }
+
+    @Benchmark
+    public int studentTableScroll() throws SQLException {
+        int blocks = (students + LazyTableModel.BLOCK_SIZE - 1) / LazyTableModel.BLOCK_SIZE;
+        return studentsById.fetchBlock(conn, random.nextInt(blocks));
+    }
+
+    @Benchmark
+    public int studentTableFilteredSortedLoad() throws SQLException {
+        return activeStudentsByName.countRows(conn, ACTIVE, ACTIVE_PARAMETERS) + activeStudentsByName.fetchBlock(conn, 0);
+    }
+
+    @Benchmark
+    public GradeJournalReplayer.Outcome gradeInsert() throws SQLException {
+        int student = 1 + random.nextInt(students);
+        GradeJournal.Entry entry = new GradeJournal.Entry(0, GradeJournal.Kind.ADD, 0, 0, student, 1 + random.nextInt(BenchDatabase.SUBJECTS),
+                55 + random.nextInt(45), null, "Term 3", "2024-06-01", "Student " + student, "Subject", null);
+        try {
+            return GradeJournalReplayer.apply(conn, entry);
+        } finally {
+            conn.rollback();
+        }
+    }
+
+    @Benchmark
+    public GradeJournalReplayer.Outcome gradeUpdate() throws SQLException {
+        int student = 1 + random.nextInt(students);
+        int subject = 1 + random.nextInt(BenchDatabase.SUBJECTS);
+        int term = random.nextInt(BenchDatabase.TERMS.length);
+        GradeJournal.Entry entry = new GradeJournal.Entry(0, GradeJournal.Kind.UPDATE, BenchDatabase.gradeId(student, subject, term), 0,
+                student, subject, 55 + random.nextInt(45), "Revised", BenchDatabase.TERMS[term], "2024-06-01", "Student " + student, "Subject", null);
+        try {
+            return GradeJournalReplayer.apply(conn, entry); // Always at version 0, as every update is rolled back
+        } finally {
+            conn.rollback();
+        }
+    }
+
+    @Benchmark
+    public PerformanceReport performanceReport() throws SQLException {
+        int classId = 1 + random.nextInt(classes);
+        int subjectId = 1 + random.nextInt(BenchDatabase.SUBJECTS);
+        PerformanceReport report = PerformanceReport.generate(conn, "Class " + classId, "Subject " + subjectId, classId, subjectId,
+                BenchDatabase.TERMS[0], 10, null);
+        conn.rollback(); // Ends the read transaction, as closing the connection would
+        return report;
+    }
+
+    @Benchmark
+    public int teacherGradeFormStudents() throws SQLException {
+        int teacherId = 1 + random.nextInt(classes); // Each class's own teacher teaches every subject in it
+        return rows(TeacherPanel.GRADE_FORM_STUDENTS_SQL, teacherId, 1 + random.nextInt(BenchDatabase.SUBJECTS));
+    }
+
+    @Benchmark
+    public int teacherTerms() throws SQLException {
+        return rows(TeacherPanel.TEACHER_TERMS_SQL, 1 + random.nextInt(classes));
+    }
+
+    @Benchmark
+    public int termList() throws SQLException {
+        return rows(TeacherPanel.TERMS_SQL);
+    }
+
+    private int rows(String sql, Object... parameters) throws SQLException {
+        int rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                pstmt.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) rows++;
+            }
+        }
+        conn.rollback();
+        return rows;
+    }
+}
@@ -0,0 +1,85 @@
+package com.school.bench;
+
+import com.itextpdf.text.DocumentException;
+import com.school.GradeDistribution;
+import com.school.utils.PdfReportGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF rendering with PdfReportGenerator: the performance report with its distribution chart, and a report
+ * card, for documents of several lengths. Needs no database; the content is generated in the shape the
+ * application produces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PdfBenchmark {
+
+    /** Students in the performance report, and grades on the report card. */
+    @Param({"30", "300", "3000"})
+    public int rows;
+
+    private File file;
+    private String reportBody;
+    private List<GradeDistribution.Bucket> buckets;
+    private List<String[]> reportCardRows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("sms-bench", ".pdf");
+        Random random = new Random(11);
+        int[] counts = new int[10];
+        StringBuilder body = new StringBuilder(String.format("%-5s %-20s %-10s %s\n", "ID", "Student Name", "Score", "Comments"));
+        reportCardRows = new ArrayList<>();
+        for (int i = 1; i <= rows; i++) {
+            double score = Math.max(0, Math.min(100, 72 + random.nextGaussian() * 14));
+            counts[Math.min((int) (score / 10), 9)]++;
+            body.append(String.format("%-5d %-20s %-10.2f %s\n", i, "Student " + i, score, i % 4 == 0 ? "Needs to show working" : ""));
+            reportCardRows.add(new String[]{"Subject " + i, "Class 1", String.format("%.2f", score), i % 4 == 0 ? "Needs to show working" : null});
+        }
+        reportBody = body.toString();
+        buckets = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            buckets.add(new GradeDistribution.Bucket(i * 10 + "-" + (i == 9 ? 100 : i * 10 + 9), counts[i]));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public long performanceReportPdf() throws DocumentException, IOException {
+        PdfReportGenerator.generateDistributionReport(file.getPath(), "Performance Report - Class 1 - Subject 1 (Term 1)", reportBody, buckets);
+        return file.length();
+    }
+
+    @Benchmark
+    public long reportCardPdf() throws DocumentException, IOException {
+        PdfReportGenerator.generateReportCard(file.getPath(), "Student 1", "Grade 5", "Term 1", reportCardRows);
+        return file.length();
+    }
+}
@@ -0,0 +1,94 @@
+-- The tables of src/databaase/schema.sql that the benchmarks use, for H2 in MySQL mode.
+-- Keep the columns and indexes in step with schema.sql; triggers, views and users are left out.
+-- students.class_id is the column the application writes for a student's current class.
+
+CREATE TABLE teachers (
+    teacher_id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    subject VARCHAR(100)
+);
+CREATE INDEX idx_teachers_name ON teachers (name);
+CREATE INDEX idx_teachers_subject ON teachers (subject);
+
+CREATE TABLE classes (
+    class_id INT AUTO_INCREMENT PRIMARY KEY,
+    class_name VARCHAR(50) UNIQUE NOT NULL,
+    grade_level VARCHAR(20),
+    fee INT DEFAULT 0,
+    row_version INT NOT NULL DEFAULT 0
+);
+CREATE INDEX idx_classes_grade_level ON classes (grade_level);
+CREATE INDEX idx_classes_fee ON classes (fee);
+
+CREATE TABLE students (
+    student_id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    grade_level VARCHAR(20),
+    class_id INT,
+    status VARCHAR(50) DEFAULT 'Active',
+    row_version INT NOT NULL DEFAULT 0,
+    FOREIGN KEY (class_id) REFERENCES classes(class_id)
+);
+CREATE INDEX idx_students_name ON students (name);
+CREATE INDEX idx_students_grade_level ON students (grade_level);
+CREATE INDEX idx_students_status ON students (status);
+
+CREATE TABLE subjects (
+    subject_id INT AUTO_INCREMENT PRIMARY KEY,
+    subject_name VARCHAR(100) UNIQUE NOT NULL
+);
+
+CREATE TABLE class_assignments (
+    assignment_id INT AUTO_INCREMENT PRIMARY KEY,
+    class_id INT NOT NULL,
+    teacher_id INT NOT NULL,
+    subject_id INT NOT NULL,
+    UNIQUE (class_id, teacher_id, subject_id),
+    FOREIGN KEY (class_id) REFERENCES classes(class_id) ON DELETE CASCADE,
+    FOREIGN KEY (teacher_id) REFERENCES teachers(teacher_id) ON DELETE CASCADE,
+    FOREIGN KEY (subject_id) REFERENCES subjects(subject_id) ON DELETE CASCADE
+);
+CREATE INDEX idx_class_assignments_teacher ON class_assignments (teacher_id, class_id, subject_id);
+
+CREATE TABLE enrollments (
+    enrollment_id INT AUTO_INCREMENT PRIMARY KEY,
+    student_id INT NOT NULL,
+    class_id INT NOT NULL,
+    UNIQUE (student_id, class_id),
+    FOREIGN KEY (student_id) REFERENCES students(student_id) ON DELETE CASCADE,
+    FOREIGN KEY (class_id) REFERENCES classes(class_id) ON DELETE CASCADE
+);
+
+CREATE TABLE grades (
+    grade_id INT AUTO_INCREMENT PRIMARY KEY,
+    enrollment_id INT NOT NULL,
+    subject_id INT NOT NULL,
+    score DECIMAL(5,2) CHECK (score >= 0 AND score <= 100),
+    comments TEXT,
+    term VARCHAR(50) NOT NULL,
+    date_recorded DATE,
+    row_version INT NOT NULL DEFAULT 0,
+    UNIQUE (enrollment_id, subject_id, term),
+    FOREIGN KEY (enrollment_id) REFERENCES enrollments(enrollment_id) ON DELETE CASCADE,
+    FOREIGN KEY (subject_id) REFERENCES subjects(subject_id) ON DELETE CASCADE
+);
+CREATE INDEX idx_grades_term_subject ON grades (term, subject_id, enrollment_id, score);
+
+CREATE TABLE fees (
+    fee_id INT AUTO_INCREMENT PRIMARY KEY,
+    student_id INT NOT NULL,
+    class_id INT NOT NULL,
+    term VARCHAR(50) NOT NULL,
+    amount_due DECIMAL(10,2) NOT NULL,
+    amount_paid DECIMAL(10,2) DEFAULT 0.00,
+    date_last_paid DATE,
+    row_version INT NOT NULL DEFAULT 0,
+    balance DECIMAL(10,2) GENERATED ALWAYS AS (amount_due - COALESCE(amount_paid, 0)),
+    UNIQUE (student_id, class_id, term),
+    FOREIGN KEY (student_id) REFERENCES students(student_id) ON DELETE CASCADE,
+    FOREIGN KEY (class_id) REFERENCES classes(class_id) ON DELETE CASCADE
+);
+CREATE INDEX idx_fees_arrears ON fees (class_id, term, amount_due, amount_paid, date_last_paid);
+CREATE INDEX idx_fees_balance ON fees (balance);
+CREATE INDEX idx_fees_term ON fees (term);
+CREATE INDEX idx_fees_date_last_paid ON fees (date_last_paid);
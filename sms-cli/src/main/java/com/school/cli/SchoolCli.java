@@ -0,0 +1,230 @@
+package com.school.cli;
+
+import com.school.AppConfig;
+import com.school.DatabaseUtility;
+import com.school.jobs.ClassDirectory;
+import com.school.jobs.DataGenerator;
+import com.school.jobs.FeeInvoicing;
+import com.school.jobs.ReportCards;
+import com.school.jobs.StudentImport;
+import com.school.jobs.StudentPromotion;
+import com.school.jobs.TableExport;
+import com.school.server.DataServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Runs the school's batch jobs without the GUI, e.g. from cron. Uses the same config.properties as the
+ * application (database, pool size) and the job classes of the core module.
+ * <pre>
+ *   java -jar sms-cli.jar [--config config.properties] &lt;command&gt; [options]
+ *
+ *   import-students &lt;file.csv&gt; [--batch 500]   columns: name, grade_level, class_name[, status]
+ *   export &lt;table&gt; [&lt;file.csv&gt;]                 to standard output without a file
+ *   invoice --term &lt;term&gt; [--class &lt;name&gt;]      fee rows for the term's active students
+ *   promote --from &lt;class&gt; --to &lt;class&gt;
+ *   report-cards --term &lt;term&gt; --out &lt;dir&gt; [--class &lt;name&gt;]
+ *   generate --students &lt;n&gt; [--terms 3] [--seed 42] [--batch 5000] [--files &lt;dir&gt;]
+ *                                                 synthetic school for performance testing; with --files
+ *                                                 loaded from CSV files by LOAD DATA LOCAL INFILE (MySQL)
+ *   server [&lt;port&gt;]                              the HTTP/JSON data server
+ * </pre>
+ * Prints a one-line summary and exits with status 0 on success, 1 if the job failed, 2 for a usage
+ * error, and 3 if an import skipped rows (they are listed on standard error).
+ */
+public class SchoolCli {
+
+    private static final int OK = 0;
+    private static final int FAILED = 1;
+    private static final int USAGE = 2;
+    private static final int PARTIAL = 3;
+    private static final int SERVING = -1; // Not an exit status: the server keeps running on its own threads
+
+    public static void main(String[] args) {
+        int status;
+        try {
+            status = run(args);
+        } catch (UsageException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Run with 'help' for usage.");
+            status = USAGE;
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            status = FAILED;
+        }
+        if (status == SERVING) {
+            return;
+        }
+        DatabaseUtility.closeIdleConnections();
+        System.exit(status);
+    }
+
+    private static int run(String[] args) throws Exception {
+        String configFile = AppConfig.DEFAULT_FILE;
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                if (i + 1 >= args.length) throw new UsageException("Missing value for " + args[i]);
+                options.put(args[i], args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (options.containsKey("--config")) configFile = options.remove("--config");
+        if (positional.isEmpty() || "help".equals(positional.get(0))) {
+            usage();
+            return positional.isEmpty() ? USAGE : OK;
+        }
+        String command = positional.remove(0);
+
+        Properties prop = AppConfig.load(configFile);
+        long start = System.nanoTime();
+        switch (command) {
+            case "import-students": {
+                String file = single(positional, "import-students <file.csv>");
+                int batchSize = options.containsKey("--batch") ? Integer.parseInt(options.remove("--batch")) : StudentImport.DEFAULT_BATCH_SIZE;
+                noMoreOptions(options);
+                StudentImport.Result result;
+                try (Reader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                    result = StudentImport.run(in, batchSize);
+                }
+                for (String reject : result.getRejects()) {
+                    System.err.println("Skipped " + reject);
+                }
+                System.out.println("Imported " + result.getImported() + " students, skipped " + result.getRejected()
+                        + " rows" + took(start));
+                return result.getRejected() > 0 ? PARTIAL : OK;
+            }
+            case "export": {
+                if (positional.isEmpty() || positional.size() > 2) throw new UsageException("Usage: export <table> [<file.csv>]");
+                noMoreOptions(options);
+                String table = positional.get(0);
+                boolean toFile = positional.size() == 2;
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        toFile ? new FileOutputStream(positional.get(1)) : System.out, StandardCharsets.UTF_8));
+                int rows;
+                try {
+                    rows = TableExport.run(table, out);
+                } finally {
+                    if (toFile) out.close();
+                }
+                // Standard output may be the CSV itself
+                System.err.println("Exported " + rows + " " + table + " rows" + took(start));
+                return OK;
+            }
+            case "invoice": {
+                String term = required(options, "--term");
+                String className = options.remove("--class");
+                noMoreOptions(options);
+                Integer classId = className != null ? classId(className) : null;
+                int created = FeeInvoicing.run(term, classId);
+                System.out.println("Created " + created + " fee records for " + term + took(start));
+                return OK;
+            }
+            case "promote": {
+                String from = required(options, "--from");
+                String to = required(options, "--to");
+                noMoreOptions(options);
+                int promoted;
+                try (Connection conn = DatabaseUtility.getConnection()) {
+                    promoted = StudentPromotion.run(conn, ClassDirectory.requireId(conn, from), ClassDirectory.requireId(conn, to));
+                }
+                System.out.println(promoted + " student(s) promoted from " + from + " to " + to + took(start));
+                return OK;
+            }
+            case "report-cards": {
+                String term = required(options, "--term");
+                File outputDir = new File(required(options, "--out"));
+                String className = options.remove("--class");
+                noMoreOptions(options);
+                Integer classId = className != null ? classId(className) : null;
+                int cards = ReportCards.run(term, classId, outputDir);
+                System.out.println("Wrote " + cards + " report cards for " + term + " to " + outputDir + took(start));
+                return OK;
+            }
+            case "generate": {
+                int students = Integer.parseInt(required(options, "--students"));
+                int terms = options.containsKey("--terms") ? Integer.parseInt(options.remove("--terms")) : DataGenerator.DEFAULT_TERMS;
+                long seed = options.containsKey("--seed") ? Long.parseLong(options.remove("--seed")) : DataGenerator.DEFAULT_SEED;
+                int batchSize = options.containsKey("--batch") ? Integer.parseInt(options.remove("--batch")) : DataGenerator.DEFAULT_BATCH_SIZE;
+                String files = options.remove("--files");
+                noMoreOptions(options);
+                if (!positional.isEmpty()) throw new UsageException("Usage: generate --students <n> [options]");
+                DataGenerator.Result result = files != null
+                        ? DataGenerator.loadFromFiles(students, terms, seed, new File(files))
+                        : DataGenerator.load(students, terms, seed, batchSize);
+                StringBuilder tables = new StringBuilder();
+                for (Map.Entry<String, Long> table : result.getRows().entrySet()) {
+                    tables.append(tables.length() > 0 ? ", " : "").append(table.getKey()).append(' ').append(table.getValue());
+                }
+                System.out.println("Generated " + result.getTotalRows() + " rows (" + tables + ")" + took(start));
+                return OK;
+            }
+            case "server":
+                noMoreOptions(options);
+                DataServer.serve(prop, positional.toArray(new String[0]));
+                return SERVING;
+            default:
+                throw new UsageException("Unknown command: " + command);
+        }
+    }
+
+    private static Integer classId(String className) throws Exception {
+        try (Connection conn = DatabaseUtility.getConnection()) {
+            return ClassDirectory.requireId(conn, className);
+        }
+    }
+
+    private static String single(List<String> positional, String usage) throws UsageException {
+        if (positional.size() != 1) throw new UsageException("Usage: " + usage);
+        return positional.get(0);
+    }
+
+    private static String required(Map<String, String> options, String name) throws UsageException {
+        String value = options.remove(name);
+        if (value == null) throw new UsageException("Missing " + name);
+        return value;
+    }
+
+    private static void noMoreOptions(Map<String, String> options) throws UsageException {
+        if (!options.isEmpty()) throw new UsageException("Unknown option: " + options.keySet().iterator().next());
+    }
+
+    private static String took(long start) {
+        return " in " + (System.nanoTime() - start) / 1_000_000 + " ms.";
+    }
+
+    private static void usage() {
+        System.out.println("Usage: SchoolCli [--config config.properties] <command> [options]");
+        System.out.println("  import-students <file.csv> [--batch 500]    columns: name, grade_level, class_name[, status]");
+        System.out.println("  export <table> [<file.csv>]                  tables: " + String.join(", ", TableExport.tables()));
+        System.out.println("  invoice --term <term> [--class <name>]");
+        System.out.println("  promote --from <class> --to <class>");
+        System.out.println("  report-cards --term <term> --out <dir> [--class <name>]");
+        System.out.println("  generate --students <n> [--terms 3] [--seed 42] [--batch 5000] [--files <dir>]");
+        System.out.println("  server [<port>]");
+    }
+
+    private static class UsageException extends Exception {
+        UsageException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.school;
+
+import com.school.metrics.Metrics;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Reads config.properties and applies the settings shared by every entry point (the desktop application,
+ * the data server and the batch command line): database connection, connection pool, database task
+ * threads, password hashing cost and JMX metrics. Settings only one entry point uses are read by it from the
+ * returned properties.
+ */
+public final class AppConfig {
+
+    /** Looked for in the working directory. */
+    public static final String DEFAULT_FILE = "config.properties";
+
+    private AppConfig() {
+    }
+
+    /** Loads {@link #DEFAULT_FILE}. */
+    public static Properties load() throws IOException {
+        return load(DEFAULT_FILE);
+    }
+
+    /**
+     * Loads a configuration file and applies its shared settings.
+     *
+     * @param path The properties file.
+     * @return The loaded properties.
+     * @throws IOException           If the file cannot be read or the database settings are incomplete.
+     * @throws NumberFormatException If a numeric setting is not a number.
+     */
+    public static Properties load(String path) throws IOException {
+        Properties prop = new Properties();
+        try (InputStream input = new FileInputStream(path)) {
+            prop.load(input);
+        }
+        String dbUrl = prop.getProperty("db.url");
+        String dbUser = prop.getProperty("db.user");
+        String dbPassword = prop.getProperty("db.password");
+        if (dbUrl == null || dbUser == null || dbPassword == null) {
+            throw new IOException("Database configuration incomplete in " + path);
+        }
+        DatabaseUtility.setDatabaseUrl(dbUrl);
+        DatabaseUtility.setDatabaseCredentials(dbUser, dbPassword);
+
+        // Connection pool and the threads database tasks run on (optional)
+        String poolSize = prop.getProperty("db.pool.size");
+        if (poolSize != null) DatabaseUtility.setPoolSize(Integer.parseInt(poolSize.trim()));
+        DbTasks.configure(prop.getProperty("db.threads"), DatabaseUtility.getPoolSize());
+
+        // Password hashing cost (optional; the default suits most machines)
+        String iterations = prop.getProperty("auth.kdf.iterations");
+        if (iterations != null) PasswordHasher.setIterations(Integer.parseInt(iterations.trim()));
+        String hashThreads = prop.getProperty("auth.kdf.threads");
+        if (hashThreads != null) PasswordHasher.setMaxConcurrentHashes(Integer.parseInt(hashThreads.trim()));
+
+        // Pool, query, cache and background task metrics for jconsole (optional)
+        if (!"false".equalsIgnoreCase(prop.getProperty("jmx.enabled", "true").trim())) Metrics.register();
+        return prop;
+    }
+}
@@ -0,0 +1,41 @@
+package com.school;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the per-table change counters kept in the data_versions table.
+ * Triggers on each table bump its counter on every insert, update and delete, whoever makes the
+ * change, so comparing the counters with those seen when data was loaded tells whether that data
+ * may be out of date without re-running the queries behind it. A table's counter is the sum of its
+ * shards (one per connection that wrote to it, at most 32), so reading all counters is a single scan
+ * of a small table.
+ */
+public final class DataVersions {
+
+    private DataVersions() {
+        // Static helpers only
+    }
+
+    /**
+     * Reads the current version of every tracked table.
+     *
+     * @param conn An open database connection (not closed by this method).
+     * @return The version of each table, keyed by table name.
+     * @throws SQLException If a database access error occurs, e.g. if data_versions does not exist yet.
+     */
+    public static Map<String, Long> fetch(Connection conn) throws SQLException {
+        Map<String, Long> versions = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT table_name, SUM(version) AS version FROM data_versions GROUP BY table_name")) {
+            while (rs.next()) {
+                versions.put(rs.getString("table_name"), rs.getLong("version"));
+            }
+        }
+        return versions;
+    }
+}
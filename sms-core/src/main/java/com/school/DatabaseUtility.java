@@ -0,0 +1,433 @@
+package com.school; // or com.school.utils; - ensure this matches your package structure
+
+import com.school.metrics.Metrics;
+import com.school.metrics.Tracing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Utility class for managing database connections.
+ * It provides static methods to set connection parameters and get a database connection.
+ * <p>
+ * Connections are pooled: closing a connection returned by {@link #getConnection()} hands it back to
+ * the pool instead of closing it, so the usual try-with-resources blocks reuse connections rather
+ * than opening a new one (a TCP and authentication round trip) for every query. At most
+ * {@link #getPoolSize()} connections are open at a time; {@link DbTasks} runs at most that many
+ * database tasks at once, so tasks do not normally wait for a connection.
+ */
+public class DatabaseUtility {
+
+    private static final int DEFAULT_POOL_SIZE = 10; // As many as Swing's own worker threads
+    private static final long CONNECTION_WAIT_SECONDS = 30;
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30000; // Idle connections may have been dropped by the server
+    private static final int ER_NO_SUCH_TABLE = 1146; // MySQL: the table does not exist
+
+    // Static variables to hold the database URL, username, and password
+    private static String dbUrl;
+    private static String dbUser;
+    private static String dbPassword;
+
+    // --- Connection Pool ---
+    private static int poolSize = DEFAULT_POOL_SIZE;
+    private static Semaphore available = new Semaphore(DEFAULT_POOL_SIZE, true); // One permit per connection that may be handed out
+    private static final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>(); // Most recently returned first
+
+    // --- Connection wait statistics (getConnection calls that found every connection in use) ---
+    private static final LongAdder connectionWaits = new LongAdder();
+    private static final LongAdder connectionWaitNanos = new LongAdder();
+    private static final LongAccumulator longestConnectionWaitNanos = new LongAccumulator(Math::max, 0);
+    private static final LongAdder connectionTimeouts = new LongAdder();
+
+    /**
+     * Sets the database URL. This method should be called once, typically during
+     * application startup in the main application class (e.g., SchoolManagementApp),
+     * after loading the configuration from a file.
+     *
+     * @param url The JDBC database URL (e.g., "jdbc:mysql://localhost:3306/school_db").
+     */
+    public static void setDatabaseUrl(String url) {
+        dbUrl = url;
+    }
+
+    /**
+     * Sets the database credentials. This method should be called once, typically during
+     * application startup, after loading them from a configuration file.
+     *
+     * @param user The database username.
+     * @param password The database password.
+     */
+    public static void setDatabaseCredentials(String user, String password) {
+        dbUser = user;
+        dbPassword = password;
+    }
+
+    /**
+     * Sets the maximum number of open connections. This method should be called once during
+     * application startup, before the first connection is requested.
+     *
+     * @param size The pool size (at least 1).
+     */
+    public static synchronized void setPoolSize(int size) {
+        poolSize = Math.max(1, size);
+        available = new Semaphore(poolSize, true);
+        closeIdleConnections();
+    }
+
+    /** @return The maximum number of open connections. */
+    public static synchronized int getPoolSize() {
+        return poolSize;
+    }
+
+    /** @return How many pooled connections are handed out at the moment. */
+    public static synchronized int getActiveConnections() {
+        return poolSize - available.availablePermits();
+    }
+
+    /** @return How many open connections are waiting in the pool to be handed out. */
+    public static int getIdleConnections() {
+        return idle.size();
+    }
+
+    /** @return How many callers are waiting for a free connection at the moment (an estimate). */
+    public static synchronized int getWaitingThreads() {
+        return available.getQueueLength();
+    }
+
+    /**
+     * Gets a connection from the pool, opening a new one if no idle connection is left.
+     * Closing the returned connection returns it to the pool. Waits if the pool is exhausted.
+     *
+     * @return A valid database Connection object.
+     * @throws SQLException If a database access error occurs, if the database URL or credentials have not
+     *                      been set, or if no connection became free in time.
+     */
+    public static Connection getConnection() throws SQLException {
+        Semaphore permits;
+        synchronized (DatabaseUtility.class) {
+            permits = available;
+        }
+        try {
+            if (!permits.tryAcquire(0, TimeUnit.SECONDS)) { // Unlike tryAcquire(), waits its turn behind earlier callers
+                long waitStart = System.nanoTime();
+                boolean acquired = permits.tryAcquire(CONNECTION_WAIT_SECONDS, TimeUnit.SECONDS);
+                long waited = System.nanoTime() - waitStart;
+                connectionWaits.increment();
+                connectionWaitNanos.add(waited);
+                longestConnectionWaitNanos.accumulate(waited);
+                if (!acquired) {
+                    connectionTimeouts.increment();
+                    throw new SQLException("Timed out waiting for a free database connection (pool size " + getPoolSize() + ").");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (pooled.isUsable()) {
+                    return pooled.lease(permits);
+                }
+                closeQuietly(pooled.physical);
+            }
+            return new PooledConnection(openConnection()).lease(permits);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** @return How many times a caller had to wait for a free connection, since startup or the last reset. */
+    public static long getConnectionWaits() {
+        return connectionWaits.sum();
+    }
+
+    /** @return The total time callers waited for a free connection, in nanoseconds. */
+    public static long getConnectionWaitNanos() {
+        return connectionWaitNanos.sum();
+    }
+
+    /** @return The longest single wait for a free connection, in nanoseconds. */
+    public static long getLongestConnectionWaitNanos() {
+        return longestConnectionWaitNanos.get();
+    }
+
+    /** @return How many waits for a free connection timed out. */
+    public static long getConnectionTimeouts() {
+        return connectionTimeouts.sum();
+    }
+
+    /** Starts the connection wait statistics again from zero, e.g. after a warm-up. */
+    public static void resetConnectionWaitStatistics() {
+        connectionWaits.reset();
+        connectionWaitNanos.reset();
+        longestConnectionWaitNanos.reset();
+        connectionTimeouts.reset();
+    }
+
+    /**
+     * Closes the pooled connections that are not in use, e.g. on exit or after changing the pool size.
+     * Connections in use are closed as usual when they are returned.
+     */
+    public static void closeIdleConnections() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.physical);
+        }
+    }
+
+    // Opens a new physical connection
+    private static Connection openConnection() throws SQLException {
+        // Check if database configuration has been set
+        if (dbUrl == null || dbUser == null || dbPassword == null) {
+            throw new SQLException("Database URL or credentials not set. Please load configuration first.");
+        }
+
+        // Attempt to load the JDBC driver (optional for modern JDBC drivers, but good practice)
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver"); // Use the correct driver class name for MySQL Connector/J 8.0+
+        } catch (ClassNotFoundException e) {
+            // If the driver is not found, it means the JAR is not in the classpath
+            throw new SQLException("MySQL JDBC Driver not found. Ensure 'mysql-connector-java.jar' is in the classpath.", e);
+        }
+
+        // Establish and return the database connection using URL, user, and password
+        return DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A physical connection kept by the pool. Each time it is handed out it is wrapped in a proxy whose
+     * close() returns it to the pool; a closed proxy refuses further use, so a caller that keeps its
+     * reference after closing cannot use the connection while someone else has it.
+     */
+    private static final class PooledConnection {
+        private final Connection physical;
+        private long returnedAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.returnedAt = System.currentTimeMillis();
+        }
+
+        boolean isUsable() {
+            try {
+                if (physical.isClosed()) return false;
+                return System.currentTimeMillis() - returnedAt < VALIDATE_AFTER_IDLE_MILLIS || physical.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        Connection lease(final Semaphore permits) {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean closed = false;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!closed) {
+                                closed = true;
+                                release(permits);
+                            }
+                            return null;
+                        case "isClosed":
+                            return closed || physical.isClosed();
+                        case "unwrap":
+                        case "isWrapperFor":
+                            break; // Reach the driver's connection as usual
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Pooled " + physical;
+                        default:
+                            if (closed) {
+                                throw new SQLException("Connection is closed.");
+                            }
+                    }
+                    try {
+                        Object result = method.invoke(physical, args);
+                        if (result instanceof Statement) {
+                            String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                            return timed((Statement) result, method.getReturnType(), sql);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, handler);
+        }
+
+        /*
+         * Wraps a statement so each execute call is recorded in the query metrics under its SQL (for a
+         * plain Statement, the SQL passed to execute) and traced as a flight recorder event. A query is timed until its result set is returned,
+         * which for a streamed result is before its rows are read.
+         */
+        private static Statement timed(final Statement statement, Class<?> type, final String preparedSql) {
+            InvocationHandler handler = new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if ("equals".equals(method.getName())) {
+                        return proxy == args[0];
+                    }
+                    if (!method.getName().startsWith("execute")) {
+                        try {
+                            return method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                    String sql = preparedSql;
+                    if (sql == null) {
+                        sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "(statement batch)";
+                    }
+                    long start = System.nanoTime();
+                    boolean failed = true;
+                    try (Tracing.Span span = Tracing.statement(sql)) {
+                        Object result = method.invoke(statement, args);
+                        failed = false;
+                        span.succeeded();
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        Metrics.recordQuery(sql, System.nanoTime() - start, failed);
+                    }
+                }
+            };
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {type}, handler);
+        }
+
+        // Resets what a caller may have changed and puts the connection back, or closes it if it is broken
+        private void release(Semaphore permits) {
+            try {
+                if (!physical.isClosed()) {
+                    if (!physical.getAutoCommit()) {
+                        physical.rollback(); // Anything not committed by the caller is abandoned, as on close
+                        physical.setAutoCommit(true);
+                    }
+                    physical.clearWarnings();
+                    returnedAt = System.currentTimeMillis();
+                    boolean current;
+                    synchronized (DatabaseUtility.class) {
+                        current = permits == available; // Not from before a pool size change
+                    }
+                    if (current) {
+                        idle.offerFirst(this);
+                    } else {
+                        closeQuietly(physical);
+                    }
+                }
+            } catch (SQLException e) {
+                closeQuietly(physical); // Broken; the next caller gets a new connection
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    // Optional: Helper methods to close resources (Connection, Statement, ResultSet)
+    // These are generally not needed with try-with-resources, but can be included if preferred.
+
+    /**
+     * Asks for a query's rows to be streamed as they are read instead of all being read into memory first.
+     * MySQL Connector/J only streams with the special fetch size Integer.MIN_VALUE, which other drivers
+     * (such as the benchmarks' embedded database) refuse; they are given an ordinary fetch size.
+     *
+     * @param stmt A forward-only, read-only statement.
+     */
+    public static void streamResults(java.sql.Statement stmt) throws SQLException {
+        boolean mysql = stmt.getConnection().getMetaData().getDriverName().startsWith("MySQL");
+        stmt.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+    }
+
+    /**
+     * Tells a missing table (e.g. a migration that has not been run) from errors that may pass, such as
+     * a network error or a pool timeout.
+     *
+     * @param e An error, possibly wrapping the SQLException.
+     * @return True if it, or one of its causes, says that a table does not exist.
+     */
+    public static boolean isMissingTable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == ER_NO_SUCH_TABLE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes a database connection, handling potential SQLExceptions.
+     *
+     * @param conn The Connection to close.
+     */
+    public static void closeConnection(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing connection: " + e.getMessage());
+                // e.printStackTrace(); // Optionally print stack trace
+            }
+        }
+    }
+
+    /**
+     * Closes a Statement, handling potential SQLExceptions.
+     *
+     * @param stmt The Statement to close.
+     */
+    public static void closeStatement(java.sql.Statement stmt) {
+        if (stmt != null) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing statement: " + e.getMessage());
+                // e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Closes a ResultSet, handling potential SQLExceptions.
+     *
+     * @param rs The ResultSet to close.
+     */
+    public static void closeResultSet(java.sql.ResultSet rs) {
+        if (rs != null) {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing result set: " + e.getMessage());
+                // e.printStackTrace();
+            }
+        }
+    }
+}
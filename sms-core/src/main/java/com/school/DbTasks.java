@@ -0,0 +1,195 @@
+package com.school;
+
+import com.school.metrics.Metrics;
+import com.school.metrics.Tracing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the application's database tasks (the panels' SwingWorkers and other blocking JDBC work) in
+ * the background. A SwingWorker is a Runnable, so instead of {@code worker.execute()}, which queues it
+ * on Swing's shared pool of 10 threads, panels call {@code DbTasks.execute(worker)}; done() still runs
+ * on the EDT.
+ * <p>
+ * Two modes:
+ * <ul>
+ *   <li>platform (the default): a fixed pool of platform threads, one per pooled database connection.</li>
+ *   <li>virtual (Java 21 or later): one virtual thread per task, so fan-out loads (combo-box lookups,
+ *       reports, bulk jobs) can start any number of tasks without running out of threads. A semaphore
+ *       with one permit per pooled connection bounds how many run their JDBC calls at once; the rest
+ *       wait cheaply for a permit instead of for a connection.</li>
+ * </ul>
+ * The mode comes from {@code db.threads} in config.properties, defaulting to the one chosen at build
+ * time (the jdk21 Maven profile selects virtual). If virtual threads are not available in the running
+ * JVM, platform threads are used.
+ */
+public final class DbTasks {
+
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    private static ExecutorService executor;
+    private static Semaphore permits; // Virtual mode only; null with platform threads
+    private static String mode;
+
+    private DbTasks() {
+    }
+
+    /**
+     * Sets up the executor. This method should be called once during application startup, after
+     * the connection pool has been configured; later calls replace the executor (tasks already
+     * queued still run).
+     *
+     * @param requestedMode  {@link #PLATFORM}, {@link #VIRTUAL}, or null for the build's default.
+     * @param maxConcurrent  How many tasks may run their database work at once (the connection pool size).
+     */
+    public static synchronized void configure(String requestedMode, int maxConcurrent) {
+        if (requestedMode == null) {
+            requestedMode = buildDefaultMode();
+        }
+        ExecutorService previous = executor;
+        ExecutorService virtual = VIRTUAL.equalsIgnoreCase(requestedMode.trim()) ? newVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            executor = virtual;
+            permits = new Semaphore(Math.max(1, maxConcurrent), true); // Fair: tasks start in the order they were queued
+            mode = VIRTUAL;
+        } else {
+            if (VIRTUAL.equalsIgnoreCase(requestedMode.trim())) {
+                System.err.println("Virtual threads are not available in this JVM (Java 21 or later is needed); using platform threads.");
+            }
+            executor = newPlatformThreadExecutor(Math.max(1, maxConcurrent));
+            permits = null;
+            mode = PLATFORM;
+        }
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    /** @return {@link #PLATFORM} or {@link #VIRTUAL}. */
+    public static synchronized String getMode() {
+        ensureConfigured();
+        return mode;
+    }
+
+    /**
+     * Runs a task, typically a SwingWorker, in the background.
+     *
+     * @param task The task.
+     */
+    public static void execute(final Runnable task) {
+        track(task, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a task in the background.
+     *
+     * @param task The task.
+     * @return Its result.
+     */
+    public static <T> Future<T> submit(final Callable<T> task) {
+        return track(task, task);
+    }
+
+    // Counts the task in the metrics and runs it under the correlation id of the code that queued it
+    private static <T> Future<T> track(final Object task, final Callable<T> body) {
+        final Metrics.Task tracked = Metrics.taskQueued(task);
+        final Tracing.QueuedTask traced = Tracing.taskQueued(task);
+        return schedule(() -> {
+            tracked.started();
+            boolean failed = true;
+            try (Tracing.Span span = traced.started()) {
+                T result = body.call();
+                failed = task instanceof Future && failed((Future<?>) task);
+                if (!failed) span.succeeded();
+                return result;
+            } finally {
+                tracked.finished(failed);
+            }
+        });
+    }
+
+    // A SwingWorker catches what its doInBackground() throws; it shows up here once it has run
+    private static boolean failed(Future<?> task) {
+        try {
+            task.get();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (CancellationException | InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static <T> Future<T> schedule(final Callable<T> task) {
+        final Semaphore limit;
+        ExecutorService target;
+        synchronized (DbTasks.class) {
+            ensureConfigured();
+            limit = permits;
+            target = executor;
+        }
+        if (limit == null) {
+            return target.submit(task);
+        }
+        return target.submit(() -> {
+            limit.acquire(); // Blocks only the task's own virtual thread
+            try {
+                return task.call();
+            } finally {
+                limit.release();
+            }
+        });
+    }
+
+    private static void ensureConfigured() {
+        if (executor == null) {
+            configure(null, DatabaseUtility.getPoolSize()); // Not configured at startup (e.g. a tool's main method)
+        }
+    }
+
+    // The mode selected by the Maven profile the application was built with; platform if none
+    private static String buildDefaultMode() {
+        Properties build = new Properties();
+        try (InputStream input = DbTasks.class.getResourceAsStream("/build.properties")) {
+            if (input != null) {
+                build.load(input);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading build.properties: " + e.getMessage());
+        }
+        String value = build.getProperty("db.threads.default", PLATFORM);
+        return value.startsWith("${") ? PLATFORM : value; // Not filtered, e.g. run from an IDE
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() when running on Java 21 or later; null otherwise
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null; // Source is kept at Java 8, so the method is looked up rather than called
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "db-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
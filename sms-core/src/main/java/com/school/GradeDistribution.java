@@ -0,0 +1,141 @@
+package com.school;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Computes the score distribution (histogram) for a class, subject and term.
+ * The counting is pushed down into a single GROUP BY query so that only one
+ * row per band travels over the wire, no matter how many grades exist.
+ * Used by the performance reports in AdminPanel and TeacherPanel and by the PDF export.
+ */
+public class GradeDistribution {
+
+    /** Bucket width value that selects letter-grade bands (A-F) instead of numeric bands. */
+    public static final int LETTER_GRADES = 0;
+
+    // Letter grade bands, best first. A score belongs to the first band whose lower bound it reaches.
+    private static final String[] LETTER_LABELS = {"A", "B", "C", "D", "F"};
+    private static final int[] LETTER_LOWER_BOUNDS = {90, 80, 70, 60, 0};
+
+    /**
+     * A single histogram band: its label (e.g. "70-79" or "B") and the number of scores in it.
+     */
+    public static class Bucket {
+        private final String label;
+        private final int count;
+
+        public Bucket(String label, int count) {
+            this.label = label;
+            this.count = count;
+        }
+
+        public String getLabel() { return label; }
+        public int getCount() { return count; }
+    }
+
+    /**
+     * Loads the distribution of scores for the given class, subject and term.
+     * Every band is returned, including empty ones, so charts keep a stable x-axis.
+     *
+     * @param conn        An open database connection (not closed by this method).
+     * @param classId     The class to report on.
+     * @param subjectId   The subject to report on.
+     * @param term        The term to report on.
+     * @param bucketWidth Width of each numeric band in points (e.g. 10), or {@link #LETTER_GRADES}.
+     * @return The bands in ascending score order for numeric bands, or A to F for letter grades.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static List<Bucket> load(Connection conn, int classId, int subjectId, String term, int bucketWidth)
+            throws SQLException {
+        if (bucketWidth < 0 || bucketWidth > 100) {
+            throw new IllegalArgumentException("Bucket width must be between 1 and 100, or LETTER_GRADES.");
+        }
+
+        int bucketCount = bucketCount(bucketWidth);
+        int[] counts = new int[bucketCount];
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query(bucketWidth))) {
+            pstmt.setInt(1, classId);
+            pstmt.setInt(2, subjectId);
+            pstmt.setString(3, term);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int bucket = rs.getInt("bucket");
+                    if (bucket >= 0 && bucket < bucketCount) {
+                        counts[bucket] = rs.getInt("cnt");
+                    }
+                }
+            }
+        }
+
+        List<Bucket> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new Bucket(labelFor(i, bucketWidth), counts[i]));
+        }
+        return Collections.unmodifiableList(buckets);
+    }
+
+    /**
+     * Builds the display label for a bucket index, e.g. "70-79" for index 7 at width 10,
+     * "90-100" for the top numeric band, or the letter for letter-grade bands.
+     */
+    private static String labelFor(int index, int bucketWidth) {
+        if (bucketWidth == LETTER_GRADES) {
+            return LETTER_LABELS[index] + (index < LETTER_LABELS.length - 1 ? " (" + LETTER_LOWER_BOUNDS[index] + "+)" : " (<60)");
+        }
+        int low = index * bucketWidth;
+        int high = Math.min(low + bucketWidth - 1, 100);
+        if (low + bucketWidth >= 100) {
+            high = 100; // The top band is closed so it includes perfect scores
+        }
+        return low + "-" + high;
+    }
+
+    /**
+     * @param bucketWidth As for {@link #load}.
+     * @return The query {@link #load} runs: class ID, subject ID, term.
+     */
+    public static String query(int bucketWidth) {
+        // The bucket index is computed in SQL; a perfect 100 is folded into the top band with LEAST.
+        String bucketExpression = bucketWidth == LETTER_GRADES
+                ? "CASE WHEN g.score >= 90 THEN 0 WHEN g.score >= 80 THEN 1 WHEN g.score >= 70 THEN 2 WHEN g.score >= 60 THEN 3 ELSE 4 END"
+                : "LEAST(FLOOR(g.score / " + bucketWidth + "), " + (bucketCount(bucketWidth) - 1) + ")";
+        return "SELECT " + bucketExpression + " AS bucket, COUNT(*) AS cnt " +
+               "FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
+               "WHERE e.class_id = ? AND g.subject_id = ? AND g.term = ? AND g.score IS NOT NULL " +
+               "GROUP BY bucket";
+    }
+
+    private static int bucketCount(int bucketWidth) {
+        return bucketWidth == LETTER_GRADES ? LETTER_LABELS.length : (100 + bucketWidth - 1) / bucketWidth;
+    }
+
+    /**
+     * Formats the distribution as a plain-text block for the monospaced report areas.
+     *
+     * @param buckets The bands to format.
+     * @return A text histogram, one line per band.
+     */
+    public static String toText(List<Bucket> buckets) {
+        int max = 0;
+        for (Bucket b : buckets) {
+            max = Math.max(max, b.getCount());
+        }
+        StringBuilder sb = new StringBuilder("Score Distribution:\n");
+        for (Bucket b : buckets) {
+            int barLength = max == 0 ? 0 : (int) Math.round(30.0 * b.getCount() / max);
+            StringBuilder bar = new StringBuilder();
+            for (int i = 0; i < barLength; i++) {
+                bar.append('#');
+            }
+            sb.append(String.format("%-10s %4d %s\n", b.getLabel(), b.getCount(), bar));
+        }
+        return sb.toString();
+    }
+}
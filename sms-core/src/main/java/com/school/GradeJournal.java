@@ -0,0 +1,367 @@
+package com.school;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * A local, durable, append-only journal of grade writes made in the teacher panel.
+ * A grade is appended and forced to disk before the save is acknowledged, so entering grades takes
+ * a local disk write instead of a database round trip, and no entered grade is lost if the database
+ * link or the application goes down. {@link GradeJournalReplayer} writes the entries to the database
+ * in the background and marks them done here.
+ * <p>
+ * Each line is one record with a CRC32 of its content: either an entry or a "done" marker for an
+ * earlier entry. A line torn by a crash fails its check and is ignored when the journal is read back.
+ * Once every entry is done the file is truncated, so it only ever holds outstanding work.
+ * The file is locked while open, so two windows of the same teacher cannot both replay it.
+ * Methods are synchronized; appends are made on the EDT and done markers from the replayer's worker.
+ */
+public class GradeJournal {
+
+    /** The kind of grade write. */
+    public enum Kind { ADD, UPDATE }
+
+    /** How an entry ended. */
+    public enum Status { APPLIED, CONFLICT, REJECTED }
+
+    /** A journaled grade write. */
+    public static final class Entry {
+        private final long sequence;
+        private final Kind kind;
+        private final int gradeId; // UPDATE only
+        private final int expectedVersion; // UPDATE only: the row_version the edit was based on
+        private final int enrollmentId;
+        private final int subjectId;
+        private final double score;
+        private final String comments; // Null when empty
+        private final String term;
+        private final String dateRecorded; // yyyy-MM-dd, when the grade was entered
+        private final String studentName; // For messages about the entry
+        private final String subjectName;
+        private final String[] originalValues; // UPDATE only: form values the edit started from, for resolving conflicts
+
+        public Entry(long sequence, Kind kind, int gradeId, int expectedVersion, int enrollmentId, int subjectId, double score,
+                     String comments, String term, String dateRecorded, String studentName, String subjectName, String[] originalValues) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.gradeId = gradeId;
+            this.expectedVersion = expectedVersion;
+            this.enrollmentId = enrollmentId;
+            this.subjectId = subjectId;
+            this.score = score;
+            this.comments = comments;
+            this.term = term;
+            this.dateRecorded = dateRecorded;
+            this.studentName = studentName;
+            this.subjectName = subjectName;
+            this.originalValues = originalValues;
+        }
+
+        public long getSequence() { return sequence; }
+        public Kind getKind() { return kind; }
+        public int getGradeId() { return gradeId; }
+        public int getExpectedVersion() { return expectedVersion; }
+        public int getEnrollmentId() { return enrollmentId; }
+        public int getSubjectId() { return subjectId; }
+        public double getScore() { return score; }
+        public String getComments() { return comments; }
+        public String getTerm() { return term; }
+        public String getDateRecorded() { return dateRecorded; }
+        public String getStudentName() { return studentName; }
+        public String getSubjectName() { return subjectName; }
+        public String[] getOriginalValues() { return originalValues; }
+
+        /** @return A short description for messages, e.g. "Jane Doe, Maths, Term 1". */
+        public String describe() {
+            return studentName + ", " + subjectName + ", " + term;
+        }
+    }
+
+    private static final String ENTRY = "E";
+    private static final String DONE = "D";
+    private static final String NULL = "\\0"; // Field value standing for null
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final Map<Long, Entry> pending = new LinkedHashMap<>(); // Outstanding entries, oldest first
+    private final Map<Long, Long> basedOn = new HashMap<>(); // Outstanding update to the outstanding update of the grade it was made after
+    private final Set<Long> unapplied = new HashSet<>(); // Done updates that did not apply and that outstanding updates are based on
+    private long nextSequence = 1;
+
+    /**
+     * Opens (or creates) the journal of a teacher and reads back the entries not yet done.
+     *
+     * @param teacherId The teacher whose grade writes are journaled.
+     * @throws IOException If the file cannot be opened, or is in use by another window.
+     */
+    public GradeJournal(int teacherId) throws IOException {
+        Path directory = Paths.get(System.getProperty("user.home"), ".school-management");
+        Files.createDirectories(directory);
+        Path file = directory.resolve("grade-journal-teacher" + teacherId + ".log");
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lock = channel.tryLock();
+        if (lock == null) {
+            channel.close();
+            throw new IOException("The grade journal is in use by another window of this teacher.");
+        }
+        recover();
+        channel.position(channel.size());
+    }
+
+    /**
+     * Appends an entry and forces it to disk.
+     *
+     * @return The entry as journaled, with its sequence number.
+     * @throws IOException If the entry could not be written; it is then not journaled.
+     */
+    public synchronized Entry append(Kind kind, int gradeId, int expectedVersion, int enrollmentId, int subjectId, double score,
+                                     String comments, String term, String dateRecorded, String studentName, String subjectName,
+                                     String[] originalValues) throws IOException {
+        Entry entry = new Entry(nextSequence, kind, gradeId, expectedVersion, enrollmentId, subjectId, score,
+                comments, term, dateRecorded, studentName, subjectName, originalValues);
+        List<String> fields = new ArrayList<>();
+        fields.add(ENTRY);
+        fields.add(Long.toString(entry.sequence));
+        fields.add(kind.name());
+        fields.add(Integer.toString(gradeId));
+        fields.add(Integer.toString(expectedVersion));
+        fields.add(Integer.toString(enrollmentId));
+        fields.add(Integer.toString(subjectId));
+        fields.add(Double.toString(score));
+        fields.add(comments);
+        fields.add(term);
+        fields.add(dateRecorded);
+        fields.add(studentName);
+        fields.add(subjectName);
+        if (originalValues != null) {
+            Collections.addAll(fields, originalValues);
+        }
+        write(Collections.singletonList(fields));
+        nextSequence++;
+        add(entry);
+        return entry;
+    }
+
+    /**
+     * Records that entries have been dealt with, in one forced write. Truncates the journal once
+     * nothing is outstanding.
+     *
+     * @param outcomes The status of each finished entry, by sequence number.
+     * @throws IOException If the markers could not be written; the entries are then replayed again,
+     *                     which the replayer's idempotent writes allow.
+     */
+    public synchronized void markDone(Map<Long, Status> outcomes) throws IOException {
+        if (outcomes.isEmpty()) return;
+        List<List<String>> records = new ArrayList<>();
+        for (Map.Entry<Long, Status> outcome : outcomes.entrySet()) {
+            List<String> fields = new ArrayList<>();
+            fields.add(DONE);
+            fields.add(Long.toString(outcome.getKey()));
+            fields.add(outcome.getValue().name());
+            records.add(fields);
+        }
+        write(records);
+        for (Map.Entry<Long, Status> outcome : outcomes.entrySet()) {
+            finish(outcome.getKey(), outcome.getValue());
+        }
+        if (pending.isEmpty()) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    /** @return The outstanding entries, oldest first. */
+    public synchronized List<Entry> pendingEntries(int limit) {
+        List<Entry> entries = new ArrayList<>();
+        for (Entry entry : pending.values()) {
+            if (entries.size() == limit) break;
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /** @return The number of outstanding entries. */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return The row_version a grade will have once its outstanding updates are applied, or null if
+     *         it has none. Edits of such a grade must be based on that version, not the one in the table.
+     */
+    public synchronized Integer pendingVersionOf(int gradeId) {
+        Integer version = null;
+        for (Entry entry : pending.values()) {
+            if (entry.kind == Kind.UPDATE && entry.gradeId == gradeId) {
+                version = entry.expectedVersion + 1;
+            }
+        }
+        return version;
+    }
+
+    /**
+     * @return The sequence number of the outstanding update an update was based on, i.e. the one whose
+     *         {@link #pendingVersionOf} it expected, or 0 if it was based on the grade as saved.
+     */
+    public synchronized long baseOf(Entry entry) {
+        Long base = basedOn.get(entry.sequence);
+        return base != null ? base : 0;
+    }
+
+    /**
+     * @return Whether a done update ended as a conflict or was refused. Only known while updates based
+     *         on it are outstanding; those expect a version the grade never had from this teacher.
+     */
+    public synchronized boolean wasUnapplied(long sequence) {
+        return unapplied.contains(sequence);
+    }
+
+    /** Releases the file; outstanding entries are replayed when the teacher next logs in. */
+    public synchronized void close() {
+        try {
+            lock.release();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing grade journal: " + e.getMessage());
+        }
+    }
+
+    private void add(Entry entry) {
+        if (entry.kind == Kind.UPDATE) {
+            Entry base = null;
+            for (Entry earlier : pending.values()) {
+                if (earlier.kind == Kind.UPDATE && earlier.gradeId == entry.gradeId) {
+                    base = earlier;
+                }
+            }
+            if (base != null && base.expectedVersion + 1 == entry.expectedVersion) {
+                basedOn.put(entry.sequence, base.sequence);
+            }
+        }
+        pending.put(entry.sequence, entry);
+    }
+
+    private void finish(long sequence, Status status) {
+        pending.remove(sequence);
+        basedOn.remove(sequence);
+        if (status != Status.APPLIED && basedOn.containsValue(sequence)) {
+            unapplied.add(sequence);
+        }
+        unapplied.retainAll(basedOn.values());
+    }
+
+    private void write(List<List<String>> records) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (List<String> fields : records) {
+            StringBuilder line = new StringBuilder();
+            for (String field : fields) {
+                if (line.length() > 0) line.append('\t');
+                line.append(field == null ? NULL : escape(field));
+            }
+            sb.append(Long.toHexString(crc(line.toString()))).append('\t').append(line).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        long start = channel.size();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true); // Durable before acknowledging; true so the new file length is synced too
+        } catch (IOException e) {
+            try {
+                channel.truncate(start); // Do not leave half a record for the next one to be appended to
+            } catch (IOException ignored) {
+                // The torn line is skipped and ended when the journal is next read back
+            }
+            throw e;
+        }
+    }
+
+    private void recover() throws IOException {
+        channel.position(0);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int tab = line.indexOf('\t');
+            if (tab < 0) continue;
+            String content = line.substring(tab + 1);
+            if (!Long.toHexString(crc(content)).equals(line.substring(0, tab))) {
+                continue; // Torn by a crash while being written
+            }
+            String[] fields = content.split("\t", -1);
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = NULL.equals(fields[i]) ? null : unescape(fields[i]);
+            }
+            long sequence = Long.parseLong(fields[1]);
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            if (DONE.equals(fields[0])) {
+                finish(sequence, Status.valueOf(fields[2]));
+            } else if (ENTRY.equals(fields[0])) {
+                String[] originalValues = null;
+                if (fields.length > 13) {
+                    originalValues = new String[fields.length - 13];
+                    System.arraycopy(fields, 13, originalValues, 0, originalValues.length);
+                }
+                add(new Entry(sequence, Kind.valueOf(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4]),
+                        Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), Double.parseDouble(fields[7]),
+                        fields[8], fields[9], fields[10], fields[11], fields[12], originalValues));
+            }
+        }
+        if (pending.isEmpty() && channel.size() > 0) {
+            channel.truncate(0); // Only done entries (or torn lines) left from last time
+        } else if (channel.size() > 0 && !endsWithNewline()) {
+            // End the torn line, so the next record starts on a line of its own
+            channel.write(ByteBuffer.wrap(new byte[] {'\n'}), channel.size());
+            channel.force(true);
+        }
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, channel.size() - 1);
+        return last.get(0) == '\n';
+    }
+
+    private static long crc(String content) {
+        CRC32 crc = new CRC32();
+        crc.update(content.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,231 @@
+package com.school;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes and verifies user passwords with salted PBKDF2 (HMAC-SHA256).
+ * <p>
+ * A stored hash looks like {@code pbkdf2-sha256$<iterations>$<salt>$<hash>} (salt and hash in Base64),
+ * so the cost factor can be raised later: hashes made with fewer iterations still verify, and
+ * {@link #needsRehash(String)} tells the caller to store a new one. Values without the prefix are
+ * plaintext passwords from before hashing was introduced; they verify by plain comparison so the
+ * login can replace them.
+ * <p>
+ * The key derivation is deliberately expensive, so it runs on a small fixed pool of threads rather
+ * than on whichever thread asks. When many users log in at once (e.g. the morning rush on shared
+ * kiosks) logins queue for the pool instead of all competing for the CPU at the same time.
+ * <p>
+ * Also provides short-lived login sessions: after a successful verification {@link #signSession}
+ * makes a cheap HMAC "signature" of the credentials with a key that only exists in this process, and
+ * {@link #verifySession} checks a later login against it without running the key derivation again.
+ */
+public final class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int DEFAULT_ITERATIONS = 210000; // OWASP recommendation for PBKDF2-HMAC-SHA256
+    private static final int MIN_ITERATIONS = 10000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final byte[] SESSION_KEY = randomBytes(32); // New on every start, so sessions never outlive the process
+
+    private static int iterations = DEFAULT_ITERATIONS;
+    private static ExecutorService hashPool = newHashPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    // Verified against when the username does not exist, so an unknown user takes as long as a wrong password
+    private static volatile String dummyHash;
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * Sets the cost factor for new hashes. This method should be called once during application
+     * startup, after loading the configuration. Existing hashes keep their own iteration count
+     * until the user next logs in.
+     *
+     * @param count The PBKDF2 iteration count (at least 10000).
+     */
+    public static synchronized void setIterations(int count) {
+        iterations = Math.max(MIN_ITERATIONS, count);
+        dummyHash = null;
+    }
+
+    /**
+     * Sets how many key derivations may run at the same time. This method should be called once
+     * during application startup, before the first login.
+     *
+     * @param threads The number of hashing threads (at least 1).
+     */
+    public static synchronized void setMaxConcurrentHashes(int threads) {
+        hashPool.shutdown();
+        hashPool = newHashPool(Math.max(1, threads));
+    }
+
+    /**
+     * Hashes a password with a new random salt and the configured cost factor.
+     * Blocks until a hashing thread is free.
+     *
+     * @param password The password.
+     * @return The value to store in users.password.
+     * @throws GeneralSecurityException If PBKDF2 is not available.
+     * @throws InterruptedException     If interrupted while waiting.
+     */
+    public static String hash(final char[] password) throws GeneralSecurityException, InterruptedException {
+        final byte[] salt = randomBytes(SALT_BYTES);
+        final int count = iterations;
+        byte[] hash = runOnPool(() -> pbkdf2(password, salt, count, HASH_BITS));
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + count + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored value. Blocks until a hashing thread is free.
+     *
+     * @param password The password entered.
+     * @param stored   The value from users.password (a hash, or a legacy plaintext password), or
+     *                 null if the user does not exist; a dummy hash is then checked so the answer
+     *                 takes as long as for a wrong password.
+     * @return true if the password matches.
+     * @throws GeneralSecurityException If PBKDF2 is not available.
+     * @throws InterruptedException     If interrupted while waiting.
+     */
+    public static boolean verify(final char[] password, String stored) throws GeneralSecurityException, InterruptedException {
+        if (stored == null) {
+            verify(password, dummyHash());
+            return false;
+        }
+        if (!isHashed(stored)) {
+            // Legacy plaintext; constant-time so the comparison does not leak how much of it matched
+            return MessageDigest.isEqual(new String(password).getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false; // Corrupt value; nobody can log in with it
+        }
+        final int count = Integer.parseInt(parts[1]);
+        final byte[] salt = Base64.getDecoder().decode(parts[2]);
+        byte[] expected = Base64.getDecoder().decode(parts[3]);
+        byte[] actual = runOnPool(() -> pbkdf2(password, salt, count, expected.length * 8));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * @return true if a stored value should be replaced with a new hash after a successful login:
+     *         it is a legacy plaintext password, or was hashed with a different cost factor.
+     */
+    public static boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || Integer.parseInt(parts[1]) != iterations;
+    }
+
+    /**
+     * Signs a verified login for the session cache. The signature is a cheap HMAC, but it is keyed
+     * with a secret that is never stored, so it cannot be used to guess the password offline.
+     *
+     * @param username The user.
+     * @param password The password that was verified.
+     * @param stored   The stored hash it was verified against; a changed password invalidates the signature.
+     * @return The signature.
+     */
+    public static byte[] signSession(String username, char[] password, String stored) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SESSION_KEY, "HmacSHA256"));
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(new String(password).getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(stored.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e); // Required of every Java platform
+        }
+    }
+
+    /**
+     * @return true if the signature was made by {@link #signSession} for the same username, password
+     *         and stored hash.
+     */
+    public static boolean verifySession(byte[] signature, String username, char[] password, String stored) {
+        return MessageDigest.isEqual(signature, signSession(username, password, stored));
+    }
+
+    private static boolean isHashed(String stored) {
+        return stored.startsWith(PREFIX + "$");
+    }
+
+    private static String dummyHash() throws GeneralSecurityException, InterruptedException {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = hash(new char[] {'x'});
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private static byte[] pbkdf2(char[] password, byte[] salt, int count, int bits) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, count, bits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private interface HashTask {
+        byte[] run() throws GeneralSecurityException;
+    }
+
+    private static byte[] runOnPool(HashTask task) throws GeneralSecurityException, InterruptedException {
+        Future<byte[]> future;
+        synchronized (PasswordHasher.class) {
+            future = hashPool.submit(task::run);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) cause;
+            }
+            throw new GeneralSecurityException("Password hashing failed: " + cause, cause);
+        }
+    }
+
+    private static ExecutorService newHashPool(int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true); // No idle threads between logins
+        return pool;
+    }
+
+    private static byte[] randomBytes(int count) {
+        byte[] bytes = new byte[count];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,112 @@
+package com.school;
+
+import com.school.metrics.Tracing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The class/subject/term performance report shown on the admin and teacher report tabs: every
+ * student's score, the average, and the score distribution (which is also charted and exported to PDF).
+ */
+public class PerformanceReport {
+
+    /** Every graded student of a class, subject and term: class ID, subject ID, term. */
+    public static final String GRADES_SQL =
+            "SELECT s.student_id, s.name AS student_name, g.score, g.comments " +
+            "FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id JOIN students s ON e.student_id = s.student_id " +
+            "WHERE e.class_id = ? AND g.subject_id = ? AND g.term = ? ORDER BY s.name";
+    /** As {@link #GRADES_SQL}, only if the teacher is assigned the class and subject: teacher ID, class ID, subject ID, term. */
+    public static final String TEACHER_GRADES_SQL =
+            "SELECT s.student_id, s.name AS student_name, g.score, g.comments " +
+            "FROM grades g " +
+            "JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
+            "JOIN students s ON e.student_id = s.student_id " +
+            "JOIN class_assignments ca ON e.class_id = ca.class_id AND g.subject_id = ca.subject_id " + // Join to filter by teacher's assignments
+            "WHERE ca.teacher_id = ? AND e.class_id = ? AND g.subject_id = ? AND g.term = ? ORDER BY s.name";
+
+    private final String text;
+    private final List<GradeDistribution.Bucket> distribution;
+
+    private PerformanceReport(String text, List<GradeDistribution.Bucket> distribution) {
+        this.text = text;
+        this.distribution = distribution;
+    }
+
+    /** @return The report as plain text, in columns for a monospaced font. */
+    public String getText() { return text; }
+
+    /** @return The score distribution. */
+    public List<GradeDistribution.Bucket> getDistribution() { return distribution; }
+
+    /**
+     * Generates a report.
+     *
+     * @param conn        An open database connection (not closed by this method).
+     * @param className   The class's name, for the heading.
+     * @param subjectName The subject's name, for the heading.
+     * @param classId     The class to report on.
+     * @param subjectId   The subject to report on.
+     * @param term        The term to report on.
+     * @param bucketWidth The distribution's band width, see {@link GradeDistribution#load}.
+     * @param teacherId   Only report if this teacher is assigned the class and subject, or null for any.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static PerformanceReport generate(Connection conn, String className, String subjectName, int classId, int subjectId,
+                                             String term, int bucketWidth, Integer teacherId) throws SQLException {
+        try (Tracing.Span span = Tracing.report("Performance report", className + " - " + subjectName + " (" + term + ")")) {
+            PerformanceReport report = build(conn, className, subjectName, classId, subjectId, term, bucketWidth, teacherId);
+            span.succeeded();
+            return report;
+        }
+    }
+
+    private static PerformanceReport build(Connection conn, String className, String subjectName, int classId, int subjectId,
+                                           String term, int bucketWidth, Integer teacherId) throws SQLException {
+        StringBuilder reportContent = new StringBuilder();
+        reportContent.append(String.format("--- Performance Report for %s - %s (%s) ---\n\n", className, subjectName, term));
+        reportContent.append(String.format("%-5s %-20s %-10s %s\n", "ID", "Student Name", "Score", "Comments"));
+        reportContent.append("--------------------------------------------------------\n");
+
+        String sql = teacherId == null ? GRADES_SQL : TEACHER_GRADES_SQL;
+        List<Double> scores = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (teacherId != null) pstmt.setInt(index++, teacherId);
+            pstmt.setInt(index++, classId);
+            pstmt.setInt(index++, subjectId);
+            pstmt.setString(index, term);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int studentId = rs.getInt("student_id");
+                    String studentName = rs.getString("student_name");
+                    Double score = rs.getDouble("score");
+                    String comments = rs.getString("comments");
+                    reportContent.append(String.format("%-5d %-20s %-10.2f %s\n", studentId, studentName, score, comments != null ? comments : ""));
+                    scores.add(score);
+                }
+            }
+        }
+
+        // Calculate average score
+        if (!scores.isEmpty()) {
+            double averageScore = scores.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+            reportContent.append("--------------------------------------------------------\n");
+            reportContent.append(String.format("Average Score: %.2f\n", averageScore));
+        } else {
+            reportContent.append("No grades recorded for this criteria.\n");
+        }
+
+        // One GROUP BY query for the histogram, on the same connection.
+        // For a teacher, the class and subject combo boxes only offer their own assignments.
+        List<GradeDistribution.Bucket> distribution = GradeDistribution.load(conn, classId, subjectId, term, bucketWidth);
+        if (!scores.isEmpty()) {
+            reportContent.append("\n").append(GradeDistribution.toText(distribution));
+        }
+        return new PerformanceReport(reportContent.toString(), distribution);
+    }
+}
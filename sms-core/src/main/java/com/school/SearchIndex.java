@@ -0,0 +1,387 @@
+package com.school;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the names of students, teachers, classes and subjects,
+ * used by the global search box in AdminPanel.
+ * Names are matched by prefix (whole name, then any word of it) and, for queries of three or
+ * more characters, anywhere inside the name through a trigram index. Every posting list is kept
+ * sorted by name, so a lookup walks the lists in result order and stops as soon as it has
+ * enough matches instead of collecting and sorting every hit; that keeps broad queries such as
+ * a common surname fast on schools with 100k+ records.
+ * The index is built once in the background and then kept current with put/remove
+ * as records are added, updated and deleted. It is safe to use from several threads.
+ */
+public class SearchIndex {
+
+    /** The kinds of records that can be searched. */
+    public enum EntityType {
+        STUDENT("Student", "SELECT student_id, name FROM students"),
+        TEACHER("Teacher", "SELECT teacher_id, name FROM teachers"),
+        CLASS("Class", "SELECT class_id, class_name FROM classes"),
+        SUBJECT("Subject", "SELECT subject_id, subject_name FROM subjects");
+
+        private final String displayName;
+        private final String loadSql;
+
+        EntityType(String displayName, String loadSql) {
+            this.displayName = displayName;
+            this.loadSql = loadSql;
+        }
+
+        public String getDisplayName() { return displayName; }
+
+        /** @return The query {@link #build} reads every ID and name of this type with. */
+        public String getLoadSql() { return loadSql; }
+    }
+
+    /**
+     * A single searchable record: its type, database ID and name.
+     */
+    public static class Entry implements Comparable<Entry> {
+        private final EntityType type;
+        private final int id;
+        private final String name;
+        private final String normalizedName;
+
+        Entry(EntityType type, int id, String name) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.normalizedName = normalize(name);
+        }
+
+        public EntityType getType() { return type; }
+        public int getId() { return id; }
+        public String getName() { return name; }
+
+        /** Orders entries by name, then type and ID, which is the order results are shown in. */
+        @Override
+        public int compareTo(Entry other) {
+            int cmp = normalizedName.compareTo(other.normalizedName);
+            if (cmp != 0) return cmp;
+            cmp = type.compareTo(other.type);
+            return cmp != 0 ? cmp : Integer.compare(id, other.id);
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + type.getDisplayName() + " #" + id + ")";
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>(); // Keyed by key(type, id)
+    private final TreeSet<Entry> nameIndex = new TreeSet<>(); // All entries, for whole-name prefix scans
+    private final TreeMap<String, TreeSet<Entry>> wordIndex = new TreeMap<>(); // Word -> entries, sorted for word prefix scans
+    private final Map<String, TreeSet<Entry>> trigramIndex = new HashMap<>(); // Trigram -> entries, for substring matches
+    // Changes made while a build reads the database, replayed onto the fresh index before it is swapped in
+    private final List<Change> changesDuringBuild = new ArrayList<>();
+    private int buildsInFlight;
+
+    /** A put (with a name) or remove (without) recorded during a build. */
+    private static final class Change {
+        final EntityType type;
+        final int id;
+        final String name;
+
+        Change(EntityType type, int id, String name) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Loads every student, teacher, class and subject name and replaces the index contents.
+     * Intended to run in a background thread (e.g. a SwingWorker) right after login.
+     * Records put and removed while the names are being read are kept.
+     *
+     * @param conn An open database connection (not closed by this method).
+     * @throws SQLException If a database access error occurs.
+     */
+    public void build(Connection conn) throws SQLException {
+        // Build into a fresh index first so searches keep working on the old data meanwhile
+        SearchIndex fresh = new SearchIndex();
+        int firstChange;
+        lock.writeLock().lock();
+        try {
+            firstChange = changesDuringBuild.size();
+            buildsInFlight++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        boolean loaded = false;
+        try (Statement stmt = conn.createStatement()) {
+            for (EntityType type : EntityType.values()) {
+                fresh.load(stmt, type.getLoadSql(), type);
+            }
+            loaded = true;
+        } finally {
+            if (!loaded) {
+                endBuild();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            // A change may or may not be in what was read; applying it again leaves the same result either way
+            for (Change change : changesDuringBuild.subList(firstChange, changesDuringBuild.size())) {
+                fresh.put(change.type, change.id, change.name);
+            }
+            endBuild();
+            entries.clear();
+            entries.putAll(fresh.entries);
+            nameIndex.clear();
+            nameIndex.addAll(fresh.nameIndex);
+            wordIndex.clear();
+            wordIndex.putAll(fresh.wordIndex);
+            trigramIndex.clear();
+            trigramIndex.putAll(fresh.trigramIndex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void endBuild() {
+        lock.writeLock().lock();
+        try {
+            if (--buildsInFlight == 0) {
+                changesDuringBuild.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load(Statement stmt, String sql, EntityType type) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                put(type, rs.getInt(1), rs.getString(2));
+            }
+        }
+    }
+
+    /**
+     * Adds a record to the index, or replaces it if it is already present (e.g. after a rename).
+     *
+     * @param type The type of the record.
+     * @param id   The database ID of the record.
+     * @param name The record's name; a null or blank name removes the record instead.
+     */
+    public void put(EntityType type, int id, String name) {
+        if (name == null || name.trim().isEmpty()) {
+            remove(type, id);
+            return;
+        }
+        Entry entry = new Entry(type, id, name.trim());
+        lock.writeLock().lock();
+        try {
+            if (buildsInFlight > 0) {
+                changesDuringBuild.add(new Change(type, id, name));
+            }
+            Entry old = entries.put(key(type, id), entry);
+            if (old != null) {
+                unindex(old);
+            }
+            nameIndex.add(entry);
+            for (String word : words(entry.normalizedName)) {
+                wordIndex.computeIfAbsent(word, k -> new TreeSet<>()).add(entry);
+            }
+            for (String trigram : trigrams(entry.normalizedName)) {
+                trigramIndex.computeIfAbsent(trigram, k -> new TreeSet<>()).add(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a record from the index. Does nothing if it is not indexed.
+     *
+     * @param type The type of the record.
+     * @param id   The database ID of the record.
+     */
+    public void remove(EntityType type, int id) {
+        lock.writeLock().lock();
+        try {
+            if (buildsInFlight > 0) {
+                changesDuringBuild.add(new Change(type, id, null));
+            }
+            Entry old = entries.remove(key(type, id));
+            if (old != null) {
+                unindex(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller must hold the write lock
+    private void unindex(Entry entry) {
+        nameIndex.remove(entry);
+        for (String word : words(entry.normalizedName)) {
+            removePosting(wordIndex, word, entry);
+        }
+        for (String trigram : trigrams(entry.normalizedName)) {
+            removePosting(trigramIndex, trigram, entry);
+        }
+    }
+
+    private static void removePosting(Map<String, TreeSet<Entry>> index, String term, Entry entry) {
+        TreeSet<Entry> postings = index.get(term);
+        if (postings != null) {
+            postings.remove(entry);
+            if (postings.isEmpty()) {
+                index.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Finds records whose name matches the query, best matches first:
+     * names starting with the query (an exact match sorts first), then names with a later
+     * word starting with the query, then, for queries of three or more characters, names
+     * containing it anywhere. Within each group results are sorted by name.
+     *
+     * @param query The text typed by the user (case-insensitive).
+     * @param limit The maximum number of results to return.
+     * @return The matching records, never null.
+     */
+    public List<Entry> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Insertion order is the result order; the set also drops entries found by a later step
+        Set<Entry> results = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            // 1. Whole name starts with the query: a range of the sorted name index
+            for (Entry entry : nameIndex.subSet(probe(q), true, probe(q + Character.MAX_VALUE), false)) {
+                if (results.size() >= limit) return new ArrayList<>(results);
+                results.add(entry);
+            }
+
+            // 2. A later word starts with the query: merge the (sorted) postings of every matching word
+            if (q.indexOf(' ') < 0) {
+                PriorityQueue<PostingCursor> cursors = new PriorityQueue<>();
+                for (TreeSet<Entry> postings : wordIndex.subMap(q, true, q + Character.MAX_VALUE, false).values()) {
+                    PostingCursor cursor = new PostingCursor(postings.iterator());
+                    if (cursor.advance()) cursors.add(cursor);
+                }
+                while (!cursors.isEmpty() && results.size() < limit) {
+                    PostingCursor cursor = cursors.poll();
+                    results.add(cursor.head); // Already present if its first word matched in step 1
+                    if (cursor.advance()) cursors.add(cursor);
+                }
+            }
+
+            // 3. Query appears anywhere: walk the rarest trigram's postings in name order and verify
+            if (q.length() >= 3 && results.size() < limit) {
+                TreeSet<Entry> rarest = null;
+                for (String trigram : trigrams(q)) {
+                    TreeSet<Entry> postings = trigramIndex.get(trigram);
+                    if (postings == null) {
+                        rarest = null; // A trigram nobody has means no substring match at all
+                        break;
+                    }
+                    if (rarest == null || postings.size() < rarest.size()) rarest = postings;
+                }
+                if (rarest != null) {
+                    for (Entry entry : rarest) {
+                        if (results.size() >= limit) break;
+                        // Having the rarest trigram does not mean the name contains the whole query
+                        if (entry.normalizedName.contains(q)) results.add(entry);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(results);
+    }
+
+    /** Walks one sorted posting list during the k-way merge in search(); ordered by its current entry. */
+    private static class PostingCursor implements Comparable<PostingCursor> {
+        private final Iterator<Entry> iterator;
+        private Entry head;
+
+        PostingCursor(Iterator<Entry> iterator) {
+            this.iterator = iterator;
+        }
+
+        boolean advance() {
+            head = iterator.hasNext() ? iterator.next() : null;
+            return head != null;
+        }
+
+        @Override
+        public int compareTo(PostingCursor other) {
+            return head.compareTo(other.head);
+        }
+    }
+
+    /**
+     * @return The number of indexed records.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A search key that sorts before every entry whose normalized name is >= the given text
+    private static Entry probe(String normalizedText) {
+        return new Entry(EntityType.STUDENT, Integer.MIN_VALUE, normalizedText);
+    }
+
+    private static long key(EntityType type, int id) {
+        return ((long) type.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(text.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> result = new HashSet<>();
+        for (String word : text.split(" ")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+}
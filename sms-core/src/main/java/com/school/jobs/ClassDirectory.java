@@ -0,0 +1,48 @@
+package com.school.jobs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Looks classes up by name, as the batch jobs are given them (class names are unique).
+ */
+public final class ClassDirectory {
+
+    private ClassDirectory() {
+    }
+
+    /** @return The id of the class with this name, or null if there is none. */
+    public static Integer idOf(Connection conn, String className) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT class_id FROM classes WHERE class_name = ?")) {
+            pstmt.setString(1, className);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    /** @return The id of the class with this name. */
+    public static int requireId(Connection conn, String className) throws SQLException {
+        Integer classId = idOf(conn, className);
+        if (classId == null) {
+            throw new SQLException("No class named '" + className + "'");
+        }
+        return classId;
+    }
+
+    /** @return Every class id by class name. */
+    public static Map<String, Integer> all(Connection conn) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT class_id, class_name FROM classes");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ids.put(rs.getString(2), rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+}
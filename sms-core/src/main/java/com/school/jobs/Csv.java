@@ -0,0 +1,105 @@
+package com.school.jobs;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 style CSV for the import and export jobs: fields separated by commas, quoted with double
+ * quotes when they contain a comma, quote or line break, quotes doubled inside quoted fields.
+ * Reads and writes one record at a time, so files of any size stream through.
+ */
+final class Csv {
+
+    private Csv() {
+    }
+
+    /** Reads records from a stream; the caller closes it. */
+    static final class RecordReader {
+        private final Reader in;
+        private int lineNumber = 1; // Line the next record starts on
+        private int recordLine;
+        private int pushedBack = -2; // -2: nothing pushed back
+
+        RecordReader(Reader in) {
+            this.in = in;
+        }
+
+        /** @return The line the record last returned by {@link #next()} started on (1-based). */
+        int lineNumber() {
+            return recordLine;
+        }
+
+        /** @return The fields of the next record, or null at the end of the input. */
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) return null;
+            recordLine = lineNumber;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) throw new IOException("Unterminated quoted field in the record starting on line " + recordLine);
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') lineNumber++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        int following = read();
+                        if (following != '\n') pushedBack = following;
+                    }
+                    if (c != -1) lineNumber++;
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (pushedBack != -2) {
+                int c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            return in.read();
+        }
+    }
+
+    /** Writes one record, ending it with CRLF. Null fields are written as empty fields. */
+    static void writeRecord(Writer out, List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) out.write(',');
+            String field = fields.get(i);
+            if (field == null) continue;
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(field.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(field);
+            }
+        }
+        out.write("\r\n");
+    }
+}
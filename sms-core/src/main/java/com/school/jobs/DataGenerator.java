@@ -0,0 +1,553 @@
+package com.school.jobs;
+
+import com.school.DatabaseUtility;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fills the database with a synthetic school of a given size, for performance testing: twelve grade
+ * levels of classes of 30, each taught eight subjects by teachers who each take one subject in five
+ * classes, students enrolled in their class with a grade per subject and term, and a fee per term that
+ * is paid in full, in part or not at all. The last term is still running: about a third of its grades
+ * are not recorded yet and more of its fees are unpaid.
+ * <p>
+ * The same size and seed always give the same data. Rows get explicit ids following the highest id
+ * already in each table, so children reference their parents without lookups and the generator can
+ * run on a fresh install (with its dummy rows) or on top of an earlier run; existing subjects with the
+ * same names are reused. Nothing else should write to the database while it runs.
+ * <p>
+ * Two ways of loading, both in parent-before-child order:
+ * <ul>
+ *   <li>{@link #load}: batched inserts through JDBC, committed every batch. Works on any database the
+ *       application runs on; add rewriteBatchedStatements=true to a MySQL URL so each batch is sent as
+ *       multi-row INSERTs.</li>
+ *   <li>{@link #loadFromFiles}: writes CSV files (at most a million rows each) and loads them with
+ *       LOAD DATA LOCAL INFILE, MySQL's bulk path, several times faster at a million students. Needs
+ *       allowLoadLocalInfile=true on the JDBC URL and local_infile enabled on the server. The files are
+ *       kept, so the same data can be loaded again elsewhere.</li>
+ * </ul>
+ * The generator's own connection sets the session variable {@code @sms_bulk_load}, which turns the
+ * tables' triggers off for its rows, so they are neither logged one by one in the change log nor counted
+ * one by one in data_versions. When the load ends, each table's data version is bumped once and a reload
+ * marker is logged per table, so open clients reload instead of patching a million rows.
+ */
+public final class DataGenerator {
+
+    public static final int DEFAULT_TERMS = 3;
+    public static final long DEFAULT_SEED = 42;
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    private static final int CLASS_SIZE = 30;
+    private static final int GRADE_LEVELS = 12;
+    private static final int CLASSES_PER_TEACHER = 5;
+    private static final int ROWS_PER_FILE = 1_000_000;
+    private static final LocalDate SCHOOL_YEAR_START = LocalDate.of(2024, 9, 2);
+    private static final int TERM_WEEKS = 13;
+    private static final String BULK_LOAD_VARIABLE = "@sms_bulk_load"; // Checked by the triggers in schema.sql
+
+    private static final String[] PRIMARY_SUBJECTS = {"Mathematics", "English", "Science", "History", "Geography",
+            "Art", "Music", "Physical Education"};
+    private static final String[] SECONDARY_SUBJECTS = {"Mathematics", "English", "Biology", "Chemistry", "History",
+            "Geography", "Computing", "French"};
+    private static final String[] FIRST_NAMES = {"Aaliyah", "Aarav", "Abigail", "Adam", "Aisha", "Alejandro", "Amara",
+            "Amelia", "Andrei", "Anna", "Ben", "Camila", "Chen", "Chloe", "Daniel", "Dawit", "Diego", "Elena", "Eli",
+            "Emma", "Ethan", "Fatima", "Finn", "Freya", "Gabriel", "Grace", "Hana", "Hugo", "Ibrahim", "Isla", "Ivan",
+            "Jack", "Jia", "Jonas", "Kai", "Kofi", "Layla", "Leo", "Lena", "Liam", "Lucia", "Maya", "Mateo", "Mei",
+            "Mohammed", "Nia", "Noah", "Nora", "Olivia", "Omar", "Oscar", "Priya", "Rafael", "Rosa", "Sam", "Sara",
+            "Sofia", "Tariq", "Yusuf", "Zoe"};
+    private static final String[] LAST_NAMES = {"Adeyemi", "Ahmed", "Andersen", "Brown", "Campbell", "Chen", "Costa",
+            "Diaz", "Dubois", "Evans", "Fischer", "Garcia", "Gonzalez", "Haddad", "Hansen", "Hughes", "Ito", "Ivanova",
+            "Jones", "Kaur", "Kim", "Kowalski", "Lee", "Lopez", "Martin", "Mensah", "Moreno", "Murphy", "Nakamura",
+            "Nguyen", "Novak", "Nowak", "Okafor", "O'Brien", "Park", "Patel", "Petrov", "Popescu", "Rossi", "Sato",
+            "Schmidt", "Silva", "Singh", "Smith", "Suzuki", "Tanaka", "Taylor", "Thomas", "Walker", "Wang", "Weber",
+            "Williams", "Wilson", "Wong", "Yamamoto", "Yilmaz", "Young", "Zhang", "Ziegler", "Zulu"};
+    private static final String[] TITLES = {"Mr.", "Ms.", "Mrs.", "Dr."};
+    private static final String[] COMMENTS = {"Excellent work", "Good progress", "Needs to show working",
+            "Must hand in homework on time", "Participates well in class", "Needs more revision", "Much improved"};
+
+    /** The generated tables in load order, with the columns written for each. */
+    private enum Table {
+        TEACHERS("teachers", "teacher_id", "name", "subject"),
+        CLASSES("classes", "class_id", "class_name", "grade_level", "fee"),
+        CLASS_ASSIGNMENTS("class_assignments", "assignment_id", "class_id", "teacher_id", "subject_id"),
+        STUDENTS("students", "student_id", "name", "grade_level", "class_id", "status"),
+        ENROLLMENTS("enrollments", "enrollment_id", "student_id", "class_id"),
+        GRADES("grades", "grade_id", "enrollment_id", "subject_id", "score", "comments", "term", "date_recorded"),
+        FEES("fees", "fee_id", "student_id", "class_id", "term", "amount_due", "amount_paid", "date_last_paid");
+
+        final String name;
+        final String[] columns; // The first is the primary key
+
+        Table(String name, String... columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+
+        /** Columns that may be null: written as empty CSV fields and loaded as NULL. */
+        boolean nullable(String column) {
+            return column.equals("comments") || column.equals("date_last_paid");
+        }
+    }
+
+    private DataGenerator() {
+    }
+
+    /** What a run generated. */
+    public static final class Result {
+        private final Map<String, Long> rows;
+
+        Result(Map<String, Long> rows) {
+            this.rows = Collections.unmodifiableMap(rows);
+        }
+
+        /** @return Rows added per table, in load order. */
+        public Map<String, Long> getRows() {
+            return rows;
+        }
+
+        public long getTotalRows() {
+            long total = 0;
+            for (long count : rows.values()) total += count;
+            return total;
+        }
+    }
+
+    /**
+     * Generates a school and inserts it with batched inserts.
+     *
+     * @param students  Number of students.
+     * @param terms     Terms of grades and fees ("Term 1" ... "Term n").
+     * @param seed      Random seed; the same seed gives the same data.
+     * @param batchSize Rows per batch and transaction.
+     * @throws SQLException If an insert fails; the batches before it stay loaded.
+     */
+    public static Result load(int students, int terms, long seed, int batchSize) throws SQLException {
+        try (Connection conn = DatabaseUtility.getConnection()) {
+            conn.setAutoCommit(false);
+            beginBulkLoad(conn);
+            boolean loaded = false;
+            try {
+                Generator generator = new Generator(conn, students, terms, seed);
+                try (BatchSink sink = new BatchSink(conn, batchSize)) {
+                    generator.generate(sink);
+                    sink.flush();
+                } catch (SQLException e) {
+                    throw new SQLException("Data generation stopped after " + generator.total() + " rows: " + e.getMessage(), e);
+                }
+                loaded = true;
+                return new Result(generator.counts());
+            } finally {
+                endBulkLoad(conn, loaded);
+            }
+        }
+    }
+
+    /**
+     * Generates a school into CSV files and loads them with LOAD DATA LOCAL INFILE (MySQL only).
+     *
+     * @param students  Number of students.
+     * @param terms     Terms of grades and fees ("Term 1" ... "Term n").
+     * @param seed      Random seed; the same seed gives the same data.
+     * @param directory Where to write the files (created if needed); they are left there.
+     * @throws IOException  If a file cannot be written.
+     * @throws SQLException If the database is not MySQL or a load fails; the tables before it stay loaded.
+     */
+    public static Result loadFromFiles(int students, int terms, long seed, File directory) throws IOException, SQLException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        try (Connection conn = DatabaseUtility.getConnection()) {
+            if (!conn.getMetaData().getDriverName().startsWith("MySQL")) {
+                throw new SQLException("Loading from files uses LOAD DATA LOCAL INFILE, which needs MySQL");
+            }
+            beginBulkLoad(conn);
+            boolean loaded = false;
+            try {
+                Generator generator = new Generator(conn, students, terms, seed);
+                Map<Table, List<File>> files;
+                try (FileSink sink = new FileSink(directory)) {
+                    generator.generate(sink);
+                    files = sink.files;
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                try (Statement stmt = conn.createStatement()) {
+                    for (Table table : Table.values()) {
+                        for (File file : files.get(table)) {
+                            stmt.execute(loadDataStatement(table, file));
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new SQLException("Loading the generated files failed: " + e.getMessage(), e);
+                }
+                loaded = true;
+                return new Result(generator.counts());
+            } finally {
+                endBulkLoad(conn, loaded);
+            }
+        }
+    }
+
+    private static void beginBulkLoad(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET " + BULK_LOAD_VARIABLE + " = 1");
+        }
+    }
+
+    /**
+     * Turns the triggers back on for the connection, which goes back to the pool, and tells clients once per
+     * table what the triggers would have told them row by row. Also runs when the load failed, as the rows
+     * committed before the failure stay; its own errors are then only printed, so the load's error is thrown.
+     */
+    private static void endBulkLoad(Connection conn, boolean loaded) throws SQLException {
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback(); // Whatever a failed batch left uncommitted
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET " + BULK_LOAD_VARIABLE + " = NULL");
+            }
+            List<String> tables = new ArrayList<>();
+            tables.add("subjects");
+            for (Table table : Table.values()) {
+                tables.add(table.name);
+            }
+            try (PreparedStatement version = conn.prepareStatement(
+                         "INSERT INTO data_versions (table_name, shard, version) VALUES (?, CONNECTION_ID() % 32, 1) ON DUPLICATE KEY UPDATE version = version + 1");
+                 PreparedStatement reload = conn.prepareStatement(
+                         "INSERT INTO change_log (table_name, row_id, operation) VALUES (?, 0, 'R')")) {
+                for (String table : tables) {
+                    executeIfTableExists(version, table);
+                    executeIfTableExists(reload, table);
+                }
+            }
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (loaded) throw e;
+            System.err.println("Error ending the bulk load: " + e.getMessage());
+        }
+    }
+
+    // data_versions and change_log come with migrations that may not have been run
+    private static void executeIfTableExists(PreparedStatement pstmt, String table) throws SQLException {
+        pstmt.setString(1, table);
+        try {
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            if (e.getErrorCode() != 1146 && !"42S02".equals(e.getSQLState())) throw e; // 1146: MySQL, no such table
+        }
+    }
+
+    private static String loadDataStatement(Table table, File file) {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder nulls = new StringBuilder();
+        for (String column : table.columns) {
+            if (columns.length() > 0) columns.append(", ");
+            if (table.nullable(column)) {
+                columns.append('@').append(column);
+                nulls.append(nulls.length() == 0 ? " SET " : ", ").append(column).append(" = NULLIF(@").append(column).append(", '')");
+            } else {
+                columns.append(column);
+            }
+        }
+        String path = file.getAbsolutePath().replace("\\", "\\\\").replace("'", "\\'");
+        return "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE " + table.name + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' LINES TERMINATED BY '\\r\\n'"
+                + " (" + columns + ")" + nulls;
+    }
+
+    /** Where generated rows go. Rows arrive parents first, so a sink may write them out at any point. */
+    private interface Sink {
+        void row(Table table, Object... values) throws SQLException;
+    }
+
+    /** Batched inserts, every table's pending rows executed in load order and committed every batchSize rows. */
+    private static final class BatchSink implements Sink, AutoCloseable {
+        private final Connection conn;
+        private final int batchSize;
+        private final Map<Table, PreparedStatement> inserts = new EnumMap<>(Table.class);
+        private int pending;
+
+        BatchSink(Connection conn, int batchSize) throws SQLException {
+            this.conn = conn;
+            this.batchSize = batchSize;
+            for (Table table : Table.values()) {
+                String placeholders = String.join(", ", Collections.nCopies(table.columns.length, "?"));
+                inserts.put(table, conn.prepareStatement("INSERT INTO " + table.name + " ("
+                        + String.join(", ", table.columns) + ") VALUES (" + placeholders + ")"));
+            }
+        }
+
+        @Override
+        public void row(Table table, Object... values) throws SQLException {
+            PreparedStatement pstmt = inserts.get(table);
+            for (int i = 0; i < values.length; i++) {
+                pstmt.setObject(i + 1, values[i]);
+            }
+            pstmt.addBatch();
+            if (++pending == batchSize) flush();
+        }
+
+        void flush() throws SQLException {
+            for (PreparedStatement pstmt : inserts.values()) {
+                pstmt.executeBatch();
+            }
+            conn.commit();
+            pending = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            for (PreparedStatement pstmt : inserts.values()) {
+                pstmt.close();
+            }
+        }
+    }
+
+    /** CSV files per table (teachers-001.csv, ...), starting a new file every ROWS_PER_FILE rows. */
+    private static final class FileSink implements Sink, AutoCloseable {
+        private final File directory;
+        private final Map<Table, List<File>> files = new EnumMap<>(Table.class);
+        private final Map<Table, Writer> writers = new EnumMap<>(Table.class);
+        private final Map<Table, Integer> rowsInFile = new EnumMap<>(Table.class);
+        private final List<String> fields = new ArrayList<>();
+
+        FileSink(File directory) {
+            this.directory = directory;
+            for (Table table : Table.values()) {
+                files.put(table, new ArrayList<File>());
+            }
+        }
+
+        @Override
+        public void row(Table table, Object... values) {
+            try {
+                write(table, values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Reported by loadFromFiles as the IOException it is
+            }
+        }
+
+        private void write(Table table, Object... values) throws IOException {
+            Writer out = writers.get(table);
+            if (out == null || rowsInFile.get(table) == ROWS_PER_FILE) {
+                if (out != null) out.close();
+                File file = new File(directory, String.format("%s-%03d.csv", table.name, files.get(table).size() + 1));
+                files.get(table).add(file);
+                out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16);
+                writers.put(table, out);
+                rowsInFile.put(table, 0);
+            }
+            fields.clear();
+            for (Object value : values) {
+                fields.add(value == null ? null : value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString());
+            }
+            Csv.writeRecord(out, fields);
+            rowsInFile.put(table, rowsInFile.get(table) + 1);
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Writer out : writers.values()) {
+                out.close();
+            }
+        }
+    }
+
+    /** One run: the id ranges, the school's layout and the random draws. */
+    private static final class Generator {
+        private final int students;
+        private final int terms;
+        private final Random random;
+        private final Map<Table, Integer> nextId = new EnumMap<>(Table.class);
+        private final Map<Table, Long> counts = new EnumMap<>(Table.class);
+        private final Map<String, Integer> subjectIds = new HashMap<>();
+
+        Generator(Connection conn, int students, int terms, long seed) throws SQLException {
+            if (students < 1 || terms < 1) {
+                throw new IllegalArgumentException("Need at least one student and one term");
+            }
+            this.students = students;
+            this.terms = terms;
+            this.random = new Random(seed);
+            try (Statement stmt = conn.createStatement()) {
+                for (Table table : Table.values()) {
+                    try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + table.columns[0] + "), 0) FROM " + table.name)) {
+                        rs.next();
+                        nextId.put(table, rs.getInt(1) + 1);
+                    }
+                    counts.put(table, 0L);
+                }
+            }
+            addSubjects(conn);
+        }
+
+        /** Subjects are a short catalogue: existing ones are reused by name, missing ones inserted. */
+        private void addSubjects(Connection conn) throws SQLException {
+            List<String> needed = new ArrayList<>(Arrays.asList(PRIMARY_SUBJECTS));
+            for (String subject : SECONDARY_SUBJECTS) {
+                if (!needed.contains(subject)) needed.add(subject);
+            }
+            try (PreparedStatement select = conn.prepareStatement("SELECT subject_id FROM subjects WHERE subject_name = ?");
+                 PreparedStatement insert = conn.prepareStatement("INSERT INTO subjects (subject_name) VALUES (?)",
+                         Statement.RETURN_GENERATED_KEYS)) {
+                for (String subject : needed) {
+                    select.setString(1, subject);
+                    try (ResultSet rs = select.executeQuery()) {
+                        if (rs.next()) {
+                            subjectIds.put(subject, rs.getInt(1));
+                            continue;
+                        }
+                    }
+                    insert.setString(1, subject);
+                    insert.executeUpdate();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        keys.next();
+                        subjectIds.put(subject, keys.getInt(1));
+                    }
+                }
+            }
+            if (!conn.getAutoCommit()) conn.commit();
+        }
+
+        void generate(Sink sink) throws SQLException {
+            int classes = (students + CLASS_SIZE - 1) / CLASS_SIZE;
+            int[] levels = new int[classes];
+            Map<String, Integer> classesPerSubject = new LinkedHashMap<>();
+            for (int c = 0; c < classes; c++) {
+                levels[c] = (int) ((long) c * GRADE_LEVELS / classes) + 1;
+                for (String subject : curriculum(levels[c])) {
+                    classesPerSubject.merge(subject, 1, Integer::sum);
+                }
+            }
+
+            // Teachers: each takes one subject in up to CLASSES_PER_TEACHER classes
+            Map<String, Integer> firstTeacher = new HashMap<>();
+            for (Map.Entry<String, Integer> subject : classesPerSubject.entrySet()) {
+                int teachers = (subject.getValue() + CLASSES_PER_TEACHER - 1) / CLASSES_PER_TEACHER;
+                for (int t = 0; t < teachers; t++) {
+                    int id = add(sink, Table.TEACHERS, TITLES[random.nextInt(TITLES.length)] + " " + name(), subject.getKey());
+                    if (t == 0) firstTeacher.put(subject.getKey(), id);
+                }
+            }
+
+            int[] classIds = new int[classes];
+            BigDecimal[] classFees = new BigDecimal[classes];
+            for (int c = 0; c < classes; c++) {
+                classIds[c] = nextId.get(Table.CLASSES);
+                classFees[c] = BigDecimal.valueOf(1200 + 100 * levels[c]);
+                add(sink, Table.CLASSES, "Grade " + levels[c] + "-" + classIds[c], gradeLevel(levels[c]), classFees[c].intValue());
+            }
+            Map<String, Integer> taught = new HashMap<>();
+            for (int c = 0; c < classes; c++) {
+                for (String subject : curriculum(levels[c])) {
+                    int n = taught.merge(subject, 1, Integer::sum) - 1;
+                    add(sink, Table.CLASS_ASSIGNMENTS, classIds[c], firstTeacher.get(subject) + n / CLASSES_PER_TEACHER, subjectIds.get(subject));
+                }
+            }
+
+            for (int s = 0; s < students; s++) {
+                int c = s / CLASS_SIZE;
+                int level = levels[c];
+                String status = level == GRADE_LEVELS && random.nextInt(10) == 0 ? "Graduated"
+                        : random.nextInt(40) == 0 ? "Left" : "Active";
+                int studentId = add(sink, Table.STUDENTS, name(), gradeLevel(level), classIds[c], status);
+                int enrollmentId = add(sink, Table.ENROLLMENTS, studentId, classIds[c]);
+                double ability = 70 + random.nextGaussian() * 10;
+                for (int t = 0; t < terms; t++) {
+                    boolean current = terms > 1 && t == terms - 1;
+                    LocalDate termStart = SCHOOL_YEAR_START.plusWeeks((long) TERM_WEEKS * t);
+                    for (String subject : curriculum(level)) {
+                        if (current && random.nextInt(3) == 0) continue; // Not marked yet
+                        double score = ability + random.nextGaussian() * 8;
+                        add(sink, Table.GRADES, enrollmentId, subjectIds.get(subject),
+                                BigDecimal.valueOf(Math.max(0, Math.min(10000, Math.round(score * 100))), 2),
+                                random.nextInt(6) == 0 ? COMMENTS[random.nextInt(COMMENTS.length)] : null,
+                                term(t), Date.valueOf(termStart.plusDays(70 + random.nextInt(14))));
+                    }
+                    int payment = random.nextInt(10);
+                    BigDecimal paid;
+                    if (payment < (current ? 4 : 7)) {
+                        paid = classFees[c];
+                    } else if (payment < (current ? 7 : 9)) {
+                        paid = classFees[c].multiply(BigDecimal.valueOf(1 + random.nextInt(9))).divide(BigDecimal.TEN);
+                    } else {
+                        paid = BigDecimal.ZERO;
+                    }
+                    add(sink, Table.FEES, studentId, classIds[c], term(t), classFees[c], paid.setScale(2),
+                            paid.signum() > 0 ? Date.valueOf(termStart.plusDays(random.nextInt(42))) : null);
+                }
+            }
+        }
+
+        /** Emits a row with the table's next id. @return The id. */
+        private int add(Sink sink, Table table, Object... values) throws SQLException {
+            int id = nextId.get(table);
+            Object[] row = new Object[values.length + 1];
+            row[0] = id;
+            System.arraycopy(values, 0, row, 1, values.length);
+            sink.row(table, row);
+            nextId.put(table, id + 1);
+            counts.put(table, counts.get(table) + 1);
+            return id;
+        }
+
+        private String name() {
+            return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        }
+
+        long total() {
+            long total = 0;
+            for (long count : counts.values()) total += count;
+            return total;
+        }
+
+        Map<String, Long> counts() {
+            Map<String, Long> rows = new LinkedHashMap<>();
+            for (Map.Entry<Table, Long> entry : counts.entrySet()) {
+                rows.put(entry.getKey().name, entry.getValue());
+            }
+            return rows;
+        }
+    }
+
+    private static String[] curriculum(int level) {
+        return level <= 6 ? PRIMARY_SUBJECTS : SECONDARY_SUBJECTS;
+    }
+
+    /** "1st Grade" ... "12th Grade", as the school's own data writes grade levels. */
+    private static String gradeLevel(int level) {
+        String suffix = level == 1 ? "st" : level == 2 ? "nd" : level == 3 ? "rd" : "th";
+        return level + suffix + " Grade";
+    }
+
+    private static String term(int index) {
+        return "Term " + (index + 1);
+    }
+}
@@ -0,0 +1,43 @@
+package com.school.jobs;
+
+import com.school.DatabaseUtility;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Raises the term's fees: a fee row for every active student, for their class's fee, unless the student
+ * already has one for that class and term. Done as one INSERT ... SELECT, so the database does the
+ * whole run in a single statement and transaction however many students there are, and running it
+ * again for the same term adds nothing.
+ */
+public final class FeeInvoicing {
+
+    private FeeInvoicing() {
+    }
+
+    /**
+     * Invoices a term.
+     *
+     * @param term    The term, e.g. "Term 1".
+     * @param classId Only invoice this class, or null for all classes.
+     * @return The number of fee rows created.
+     */
+    public static int run(String term, Integer classId) throws SQLException {
+        String sql = "INSERT INTO fees (student_id, class_id, term, amount_due, amount_paid) "
+                + "SELECT s.student_id, s.class_id, ?, c.fee, 0 FROM students s "
+                + "JOIN classes c ON c.class_id = s.class_id "
+                + "WHERE s.status = 'Active' AND c.fee > 0"
+                + (classId != null ? " AND s.class_id = ?" : "")
+                + " AND NOT EXISTS (SELECT 1 FROM fees f WHERE f.student_id = s.student_id AND f.class_id = s.class_id AND f.term = ?)";
+        try (Connection conn = DatabaseUtility.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            pstmt.setString(i++, term);
+            if (classId != null) pstmt.setInt(i++, classId);
+            pstmt.setString(i, term);
+            return pstmt.executeUpdate();
+        }
+    }
+}
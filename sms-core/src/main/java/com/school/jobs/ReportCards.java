@@ -0,0 +1,88 @@
+package com.school.jobs;
+
+import com.itextpdf.text.DocumentException;
+import com.school.DatabaseUtility;
+import com.school.utils.PdfReportGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a PDF report card for every student with grades in a term, one file per student
+ * ({@code <student_id>_<name>.pdf}). The grades come from one query ordered by student and are streamed
+ * from MySQL, each card being written as soon as its student's rows have been read, so only one
+ * student's grades are held in memory at a time.
+ */
+public final class ReportCards {
+
+    private ReportCards() {
+    }
+
+    /**
+     * Generates the report cards of a term.
+     *
+     * @param term      The term, e.g. "Term 1".
+     * @param classId   Only students enrolled in this class (and only their grades in it), or null for all.
+     * @param outputDir Where to write the PDFs; created if missing. Existing cards are overwritten.
+     * @return The number of report cards written.
+     */
+    public static int run(String term, Integer classId, File outputDir) throws SQLException, IOException, DocumentException {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create the output directory " + outputDir);
+        }
+        String sql = "SELECT s.student_id, s.name, s.grade_level, sub.subject_name, c.class_name, g.score, g.comments "
+                + "FROM grades g "
+                + "JOIN enrollments e ON e.enrollment_id = g.enrollment_id "
+                + "JOIN students s ON s.student_id = e.student_id "
+                + "JOIN classes c ON c.class_id = e.class_id "
+                + "JOIN subjects sub ON sub.subject_id = g.subject_id "
+                + "WHERE g.term = ?" + (classId != null ? " AND e.class_id = ?" : "")
+                + " ORDER BY s.student_id, sub.subject_name, c.class_name";
+
+        int cards = 0;
+        try (Connection conn = DatabaseUtility.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            DatabaseUtility.streamResults(pstmt);
+            pstmt.setString(1, term);
+            if (classId != null) pstmt.setInt(2, classId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int studentId = -1;
+                String name = null;
+                String gradeLevel = null;
+                List<String[]> rows = new ArrayList<>();
+                while (rs.next()) {
+                    int rowStudent = rs.getInt("student_id");
+                    if (rowStudent != studentId) {
+                        if (!rows.isEmpty()) {
+                            write(outputDir, studentId, name, gradeLevel, term, rows);
+                            cards++;
+                            rows = new ArrayList<>();
+                        }
+                        studentId = rowStudent;
+                        name = rs.getString("name");
+                        gradeLevel = rs.getString("grade_level");
+                    }
+                    rows.add(new String[]{rs.getString("subject_name"), rs.getString("class_name"),
+                            rs.getString("score"), rs.getString("comments")});
+                }
+                if (!rows.isEmpty()) {
+                    write(outputDir, studentId, name, gradeLevel, term, rows);
+                    cards++;
+                }
+            }
+        }
+        return cards;
+    }
+
+    private static void write(File outputDir, int studentId, String name, String gradeLevel, String term,
+                              List<String[]> rows) throws IOException, DocumentException {
+        String fileName = studentId + "_" + name.replaceAll("[^A-Za-z0-9]+", "_") + ".pdf";
+        PdfReportGenerator.generateReportCard(new File(outputDir, fileName).getPath(), name, gradeLevel, term, rows);
+    }
+}
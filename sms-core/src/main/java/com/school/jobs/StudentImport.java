@@ -0,0 +1,149 @@
+package com.school.jobs;
+
+import com.school.DatabaseUtility;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports students from CSV with the same insert the admin student form makes, in batches: each batch
+ * of rows is sent to the database in one round trip (one multi-row INSERT when the JDBC URL has
+ * rewriteBatchedStatements=true) and committed on its own, so a large file neither holds one long
+ * transaction nor waits on a round trip per student.
+ * <p>
+ * The first record names the columns: {@code name}, {@code grade_level} and {@code class_name} are
+ * required, {@code status} is optional (default Active); other columns are ignored. Rows with a missing
+ * value or an unknown class are skipped and reported; the rest are imported.
+ */
+public final class StudentImport {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final int MAX_REPORTED_REJECTS = 100;
+
+    private StudentImport() {
+    }
+
+    /** What an import did. */
+    public static final class Result {
+        private final int imported;
+        private final int rejected;
+        private final List<String> rejects;
+
+        Result(int imported, int rejected, List<String> rejects) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.rejects = Collections.unmodifiableList(rejects);
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+
+        /** @return Why rows were skipped ("line 12: ..."), for at most the first 100 of them. */
+        public List<String> getRejects() {
+            return rejects;
+        }
+    }
+
+    /**
+     * Imports the students in a CSV stream.
+     *
+     * @param in        The CSV; the caller closes it.
+     * @param batchSize Rows per batch and transaction.
+     * @throws IOException  If the CSV cannot be read or lacks a required column.
+     * @throws SQLException If a batch fails; the batches before it stay imported.
+     */
+    public static Result run(Reader in, int batchSize) throws IOException, SQLException {
+        Csv.RecordReader csv = new Csv.RecordReader(in);
+        List<String> header = csv.next();
+        if (header == null) {
+            return new Result(0, 0, new ArrayList<String>());
+        }
+        if (!header.isEmpty() && header.get(0).startsWith("\uFEFF")) {
+            header.set(0, header.get(0).substring(1)); // Byte order mark written by spreadsheet programs
+        }
+        int nameColumn = column(header, "name", true);
+        int gradeColumn = column(header, "grade_level", true);
+        int classColumn = column(header, "class_name", true);
+        int statusColumn = column(header, "status", false);
+
+        int imported = 0;
+        int rejected = 0;
+        List<String> rejects = new ArrayList<>();
+        try (Connection conn = DatabaseUtility.getConnection()) {
+            Map<String, Integer> classIds = ClassDirectory.all(conn);
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO students (name, grade_level, class_id, status) VALUES (?, ?, ?, ?)")) {
+                int pending = 0;
+                List<String> record;
+                while ((record = csv.next()) != null) {
+                    if (record.size() == 1 && record.get(0).trim().isEmpty()) continue; // Blank line
+
+                    String name = field(record, nameColumn);
+                    String grade = field(record, gradeColumn);
+                    String className = field(record, classColumn);
+                    String status = field(record, statusColumn);
+                    String problem = null;
+                    if (name.isEmpty() || grade.isEmpty() || className.isEmpty()) {
+                        problem = "name, grade_level and class_name are required";
+                    } else if (!classIds.containsKey(className)) {
+                        problem = "no class named '" + className + "'";
+                    }
+                    if (problem != null) {
+                        rejected++;
+                        if (rejects.size() < MAX_REPORTED_REJECTS) rejects.add("line " + csv.lineNumber() + ": " + problem);
+                        continue;
+                    }
+
+                    pstmt.setString(1, name);
+                    pstmt.setString(2, grade);
+                    pstmt.setInt(3, classIds.get(className));
+                    pstmt.setString(4, status.isEmpty() ? "Active" : status);
+                    pstmt.addBatch();
+                    if (++pending == batchSize) {
+                        pstmt.executeBatch();
+                        conn.commit();
+                        imported += pending;
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    pstmt.executeBatch();
+                    conn.commit();
+                    imported += pending;
+                }
+            } catch (SQLException e) {
+                throw new SQLException("Import stopped after " + imported + " students: " + e.getMessage(), e);
+            }
+        }
+        return new Result(imported, rejected, rejects);
+    }
+
+    private static int column(List<String> header, String name, boolean required) throws IOException {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).trim().toLowerCase(Locale.ROOT).equals(name)) return i;
+        }
+        if (required) {
+            throw new IOException("The CSV header has no '" + name + "' column");
+        }
+        return -1;
+    }
+
+    private static String field(List<String> record, int column) {
+        return column >= 0 && column < record.size() ? record.get(column).trim() : "";
+    }
+}
@@ -0,0 +1,32 @@
+package com.school.jobs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Moves every student of one class to another, e.g. at the end of the school year. Used by the admin
+ * promotion tab and the batch command line.
+ */
+public final class StudentPromotion {
+
+    private StudentPromotion() {
+    }
+
+    /**
+     * Promotes the students of a class, in one statement.
+     *
+     * @return The number of students promoted.
+     */
+    public static int run(Connection conn, int fromClassId, int toClassId) throws SQLException {
+        if (fromClassId == toClassId) {
+            throw new IllegalArgumentException("'From' class and 'To' class cannot be the same.");
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE students SET class_id = ?, row_version = row_version + 1 WHERE class_id = ?")) {
+            pstmt.setInt(1, toClassId);
+            pstmt.setInt(2, fromClassId);
+            return pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.school.jobs;
+
+import com.school.DatabaseUtility;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports a whole table as CSV (header row, then every row in primary key order). The rows are
+ * streamed from MySQL one at a time and written as they arrive, so memory use does not grow with the
+ * table; the connection is held until the export finishes.
+ */
+public final class TableExport {
+
+    /** The tables that can be exported, with their primary keys. */
+    private static final Map<String, String> TABLES;
+
+    static {
+        Map<String, String> tables = new LinkedHashMap<>();
+        tables.put("students", "student_id");
+        tables.put("teachers", "teacher_id");
+        tables.put("classes", "class_id");
+        tables.put("subjects", "subject_id");
+        tables.put("class_assignments", "assignment_id");
+        tables.put("enrollments", "enrollment_id");
+        tables.put("grades", "grade_id");
+        tables.put("fees", "fee_id");
+        TABLES = Collections.unmodifiableMap(tables);
+    }
+
+    private TableExport() {
+    }
+
+    /** @return The names of the tables that can be exported. */
+    public static List<String> tables() {
+        return new ArrayList<>(TABLES.keySet());
+    }
+
+    /**
+     * Writes a table as CSV.
+     *
+     * @param table One of {@link #tables()}.
+     * @param out   Where to write; the caller closes it.
+     * @return The number of rows written.
+     * @throws IllegalArgumentException If the table cannot be exported.
+     */
+    public static int run(String table, Writer out) throws IOException, SQLException {
+        String idColumn = TABLES.get(table);
+        if (idColumn == null) {
+            throw new IllegalArgumentException("Unknown table '" + table + "'; one of " + TABLES.keySet());
+        }
+        int rows = 0;
+        try (Connection conn = DatabaseUtility.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            DatabaseUtility.streamResults(stmt);
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM " + table + " ORDER BY " + idColumn)) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                String[] fields = new String[columnCount];
+                for (int i = 1; i <= columnCount; i++) {
+                    fields[i - 1] = metaData.getColumnLabel(i);
+                }
+                Csv.writeRecord(out, Arrays.asList(fields));
+                while (rs.next()) {
+                    for (int i = 1; i <= columnCount; i++) {
+                        fields[i - 1] = rs.getString(i);
+                    }
+                    Csv.writeRecord(out, Arrays.asList(fields));
+                    rows++;
+                }
+            }
+        }
+        out.flush();
+        return rows;
+    }
+}
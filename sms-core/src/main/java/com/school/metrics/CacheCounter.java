@@ -0,0 +1,36 @@
+package com.school.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Hits and misses of one cache; get one with {@link Metrics#cache}. */
+public final class CacheCounter {
+
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CacheCounter(String name) {
+        this.name = name;
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void record(boolean hit) {
+        if (hit) hit(); else miss();
+    }
+
+    CacheMetricsMXBean.CacheStats snapshot() {
+        return new CacheMetricsMXBean.CacheStats(name, hits.sum(), misses.sum());
+    }
+
+    void reset() {
+        hits.reset();
+        misses.reset();
+    }
+}
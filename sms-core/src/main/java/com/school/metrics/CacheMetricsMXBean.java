@@ -0,0 +1,30 @@
+package com.school.metrics;
+
+import java.util.List;
+
+/** Hits and misses of the application's data caches, as com.school:type=Caches. */
+public interface CacheMetricsMXBean {
+
+    List<CacheStats> getCaches();
+
+    void resetStatistics();
+
+    /** One cache's lookups. */
+    final class CacheStats {
+        private final String name;
+        private final long hits;
+        private final long misses;
+
+        CacheStats(String name, long hits, long misses) {
+            this.name = name;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public String getName() { return name; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        /** @return Hits per lookup, 0 to 1. */
+        public double getHitRatio() { return hits + misses == 0 ? 0 : (double) hits / (hits + misses); }
+    }
+}
@@ -0,0 +1,28 @@
+package com.school.metrics;
+
+/** The database connection pool, as com.school:type=ConnectionPool. */
+public interface ConnectionPoolMXBean {
+
+    int getPoolSize();
+
+    /** @return Connections handed out and not yet returned. */
+    int getActiveConnections();
+
+    /** @return Open connections waiting in the pool to be reused. */
+    int getIdleConnections();
+
+    /** @return Threads waiting right now for a connection to be returned. */
+    int getWaitingThreads();
+
+    /** @return How many times a caller had to wait for a connection. */
+    long getConnectionWaits();
+
+    double getConnectionWaitMillis();
+
+    double getLongestConnectionWaitMillis();
+
+    /** @return Waits that gave up (the caller got an error). */
+    long getConnectionTimeouts();
+
+    void resetStatistics();
+}
@@ -0,0 +1,122 @@
+package com.school.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The flight recorder event types behind {@link Tracing}. Only loaded once Tracing has found JFR in the
+ * running JVM.
+ */
+final class JfrEvents {
+
+    private JfrEvents() {
+    }
+
+    static Tracing.Span uiAction(long correlationId, String action) {
+        UiActionEvent event = new UiActionEvent();
+        if (!event.isEnabled()) return Tracing.NONE;
+        event.action = action;
+        return event.start(correlationId);
+    }
+
+    static boolean backgroundTasksEnabled() {
+        return new BackgroundTaskEvent().isEnabled();
+    }
+
+    static Tracing.Span backgroundTask(long correlationId, String origin, long queueNanos) {
+        BackgroundTaskEvent event = new BackgroundTaskEvent();
+        event.origin = origin;
+        event.queueTime = queueNanos;
+        return event.start(correlationId);
+    }
+
+    static Tracing.Span statement(long correlationId, String sql) {
+        StatementEvent event = new StatementEvent();
+        if (!event.isEnabled()) return Tracing.NONE;
+        event.sql = sql;
+        return event.start(correlationId);
+    }
+
+    static Tracing.Span report(long correlationId, String kind, String target) {
+        ReportEvent event = new ReportEvent();
+        if (!event.isEnabled()) return Tracing.NONE;
+        event.kind = kind;
+        event.target = target;
+        return event.start(correlationId);
+    }
+
+    @Category("School Management")
+    @StackTrace(false)
+    abstract static class SchoolEvent extends Event implements Tracing.Span {
+        @Label("Correlation Id")
+        @Description("Shared by a UI action and the tasks, statements and reports it caused")
+        long correlationId;
+
+        @Label("Failed")
+        boolean failed = true;
+
+        Tracing.Span start(long correlationId) {
+            this.correlationId = correlationId;
+            begin();
+            return this;
+        }
+
+        @Override
+        public void succeeded() {
+            failed = false;
+        }
+
+        @Override
+        public void close() {
+            end();
+            if (shouldCommit()) {
+                commit();
+            }
+        }
+    }
+
+    @Name("com.school.UiAction")
+    @Label("UI Action")
+    @Description("A mouse or key event handled on the event dispatch thread")
+    static final class UiActionEvent extends SchoolEvent {
+        @Label("Action")
+        String action;
+    }
+
+    @Name("com.school.BackgroundTask")
+    @Label("Background Task")
+    @Description("A database task run by DbTasks")
+    static final class BackgroundTaskEvent extends SchoolEvent {
+        @Label("Origin")
+        @Description("The panel and method that queued the task")
+        String origin;
+
+        @Label("Queue Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueTime;
+    }
+
+    @Name("com.school.Statement")
+    @Label("Database Statement")
+    @Description("One execution of a statement on a pooled connection")
+    static final class StatementEvent extends SchoolEvent {
+        @Label("SQL")
+        String sql;
+    }
+
+    @Name("com.school.Report")
+    @Label("Report")
+    @Description("A performance report or PDF being generated")
+    static final class ReportEvent extends SchoolEvent {
+        @Label("Kind")
+        String kind;
+
+        @Label("Target")
+        String target;
+    }
+}
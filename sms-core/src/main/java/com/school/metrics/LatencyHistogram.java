@@ -0,0 +1,89 @@
+package com.school.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in logarithmic buckets (eight per power of two, so a percentile is read back within
+ * about 6%), in constant memory and without locking, so it can sit on every query and task. Durations
+ * are recorded in nanoseconds and bucketed by microsecond.
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR = 16; // Below 16 microseconds every microsecond has its own bucket
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int BUCKETS = LINEAR + (63 - 4) * (1 << SUB_BUCKET_BITS);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        buckets.incrementAndGet(bucket(micros));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * @param fraction E.g. 0.95 for the 95th percentile.
+     * @return The duration below which that fraction of the recorded durations fall (the upper end of
+     *         its bucket), in milliseconds; 0 if nothing was recorded.
+     */
+    public double percentileMillis(double fraction) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperMicros(i) / 1000.0, getMaxMillis());
+        }
+        return getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    private static int bucket(long micros) {
+        if (micros < LINEAR) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros); // At least 4
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        return Math.min(BUCKETS - 1, LINEAR + ((exponent - 4) << SUB_BUCKET_BITS) + sub);
+    }
+
+    private static long upperMicros(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exponent = 4 + ((bucket - LINEAR) >> SUB_BUCKET_BITS);
+        int sub = (bucket - LINEAR) & ((1 << SUB_BUCKET_BITS) - 1);
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((1L << SUB_BUCKET_BITS) + sub) * width + width - 1;
+    }
+}
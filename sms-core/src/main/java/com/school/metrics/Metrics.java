@@ -0,0 +1,263 @@
+package com.school.metrics;
+
+import com.school.DatabaseUtility;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime metrics of the client, published as JMX MBeans under {@code com.school} so jconsole (or any JMX
+ * client on the machine) can show them while the application runs:
+ * <ul>
+ *   <li>type=ConnectionPool: connections in use, idle and waited for.</li>
+ *   <li>type=Queries: calls, errors and latency percentiles per SQL statement, recorded by the pooled
+ *       connections for every statement they execute.</li>
+ *   <li>type=Caches: hit ratios of the data caches.</li>
+ *   <li>type=BackgroundTasks: queued, running and failed database tasks per panel.</li>
+ * </ul>
+ * Recording is always on and cheap (a few counter updates per query or task); {@link #register()} only
+ * makes it visible.
+ */
+public final class Metrics {
+
+    private static final int MAX_STATEMENTS = 500; // Distinct SQL texts tracked; the rest are counted together
+    private static final String OTHER_STATEMENTS = "(other statements)";
+
+    private static final Map<String, QueryEntry> queries = new ConcurrentHashMap<>();
+    private static final Map<String, CacheCounter> caches = new ConcurrentHashMap<>();
+    private static final Map<String, TaskEntry> tasks = new ConcurrentHashMap<>();
+    private static boolean registered;
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers the MBeans with the platform MBean server. Safe to call more than once; a failure is
+     * reported and otherwise ignored, as metrics are never worth stopping the application for.
+     */
+    public static synchronized void register() {
+        if (registered) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new PoolView(), new ObjectName("com.school:type=ConnectionPool"));
+            server.registerMBean(new QueryView(), new ObjectName("com.school:type=Queries"));
+            server.registerMBean(new CacheView(), new ObjectName("com.school:type=Caches"));
+            server.registerMBean(new TaskView(), new ObjectName("com.school:type=BackgroundTasks"));
+            registered = true;
+        } catch (JMException e) {
+            System.err.println("Error registering JMX metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records one statement execution.
+     *
+     * @param sql    The statement's SQL text.
+     * @param nanos  How long it took.
+     * @param failed Whether it threw.
+     */
+    public static void recordQuery(String sql, long nanos, boolean failed) {
+        QueryEntry entry = queries.get(sql);
+        if (entry == null) {
+            String key = queries.size() < MAX_STATEMENTS ? sql : OTHER_STATEMENTS;
+            entry = queries.computeIfAbsent(key, k -> new QueryEntry());
+        }
+        entry.latency.record(nanos);
+        if (failed) entry.errors.increment();
+    }
+
+    /** @return The counter for a named cache, created on first use. */
+    public static CacheCounter cache(String name) {
+        return caches.computeIfAbsent(name, CacheCounter::new);
+    }
+
+    /**
+     * Records that a background task was queued.
+     *
+     * @param task The task; its owner is the top-level class it was written in (e.g. the panel of an
+     *             anonymous SwingWorker).
+     * @return What to report when it starts and ends.
+     */
+    public static Task taskQueued(Object task) {
+        TaskEntry entry = tasks.computeIfAbsent(ownerOf(task), k -> new TaskEntry());
+        entry.queued.incrementAndGet();
+        return new Task(entry);
+    }
+
+    /** One queued background task. */
+    public static final class Task {
+        private final TaskEntry entry;
+        private final long queuedAt = System.nanoTime();
+        private long startedAt;
+
+        Task(TaskEntry entry) {
+            this.entry = entry;
+        }
+
+        public void started() {
+            startedAt = System.nanoTime();
+            entry.queued.decrementAndGet();
+            entry.running.incrementAndGet();
+            entry.queueTime.record(startedAt - queuedAt);
+        }
+
+        public void finished(boolean failed) {
+            entry.running.decrementAndGet();
+            entry.runTime.record(System.nanoTime() - startedAt);
+            if (failed) entry.failed.increment();
+        }
+    }
+
+    static String ownerOf(Object task) {
+        Class<?> type = task.getClass();
+        while (type.getEnclosingClass() != null) {
+            type = type.getEnclosingClass();
+        }
+        String name = type.getSimpleName();
+        int lambda = name.indexOf("$$");
+        return lambda > 0 ? name.substring(0, lambda) : name;
+    }
+
+    private static final class QueryEntry {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private static final class TaskEntry {
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final LongAdder failed = new LongAdder();
+        final LatencyHistogram queueTime = new LatencyHistogram();
+        final LatencyHistogram runTime = new LatencyHistogram();
+    }
+
+    private static final class PoolView implements ConnectionPoolMXBean {
+        @Override public int getPoolSize() { return DatabaseUtility.getPoolSize(); }
+        @Override public int getActiveConnections() { return DatabaseUtility.getActiveConnections(); }
+        @Override public int getIdleConnections() { return DatabaseUtility.getIdleConnections(); }
+        @Override public int getWaitingThreads() { return DatabaseUtility.getWaitingThreads(); }
+        @Override public long getConnectionWaits() { return DatabaseUtility.getConnectionWaits(); }
+        @Override public double getConnectionWaitMillis() { return DatabaseUtility.getConnectionWaitNanos() / 1e6; }
+        @Override public double getLongestConnectionWaitMillis() { return DatabaseUtility.getLongestConnectionWaitNanos() / 1e6; }
+        @Override public long getConnectionTimeouts() { return DatabaseUtility.getConnectionTimeouts(); }
+        @Override public void resetStatistics() { DatabaseUtility.resetConnectionWaitStatistics(); }
+    }
+
+    private static final class QueryView implements QueryMetricsMXBean {
+        @Override
+        public long getCalls() {
+            long calls = 0;
+            for (QueryEntry entry : queries.values()) calls += entry.latency.getCount();
+            return calls;
+        }
+
+        @Override
+        public long getErrors() {
+            long errors = 0;
+            for (QueryEntry entry : queries.values()) errors += entry.errors.sum();
+            return errors;
+        }
+
+        @Override
+        public double getErrorRate() {
+            long calls = getCalls();
+            return calls == 0 ? 0 : (double) getErrors() / calls;
+        }
+
+        @Override
+        public List<QueryStats> getStatements() {
+            List<QueryStats> stats = new ArrayList<>();
+            for (Map.Entry<String, QueryEntry> entry : queries.entrySet()) {
+                stats.add(new QueryStats(entry.getKey(), entry.getValue().errors.sum(), entry.getValue().latency));
+            }
+            stats.sort(Comparator.comparingDouble(QueryStats::getTotalMillis).reversed());
+            return stats;
+        }
+
+        @Override
+        public void resetStatistics() {
+            queries.clear();
+        }
+    }
+
+    private static final class CacheView implements CacheMetricsMXBean {
+        @Override
+        public List<CacheStats> getCaches() {
+            List<CacheStats> stats = new ArrayList<>();
+            for (CacheCounter counter : new TreeMap<>(caches).values()) {
+                stats.add(counter.snapshot());
+            }
+            return stats;
+        }
+
+        @Override
+        public void resetStatistics() {
+            for (CacheCounter counter : caches.values()) counter.reset();
+        }
+    }
+
+    private static final class TaskView implements TaskMetricsMXBean {
+        @Override
+        public int getQueued() {
+            int queued = 0;
+            for (TaskEntry entry : tasks.values()) queued += entry.queued.get();
+            return queued;
+        }
+
+        @Override
+        public int getRunning() {
+            int running = 0;
+            for (TaskEntry entry : tasks.values()) running += entry.running.get();
+            return running;
+        }
+
+        @Override
+        public long getCompleted() {
+            long completed = 0;
+            for (TaskEntry entry : tasks.values()) completed += entry.runTime.getCount();
+            return completed;
+        }
+
+        @Override
+        public long getFailed() {
+            long failed = 0;
+            for (TaskEntry entry : tasks.values()) failed += entry.failed.sum();
+            return failed;
+        }
+
+        @Override
+        public double getFailureRate() {
+            long completed = getCompleted();
+            return completed == 0 ? 0 : (double) getFailed() / completed;
+        }
+
+        @Override
+        public List<TaskStats> getByOwner() {
+            List<TaskStats> stats = new ArrayList<>();
+            for (Map.Entry<String, TaskEntry> entry : new TreeMap<>(tasks).entrySet()) {
+                TaskEntry task = entry.getValue();
+                stats.add(new TaskStats(entry.getKey(), task.queued.get(), task.running.get(), task.failed.sum(), task.queueTime, task.runTime));
+            }
+            return stats;
+        }
+
+        @Override
+        public void resetStatistics() {
+            for (TaskEntry entry : tasks.values()) { // Queued and running are current counts, not statistics
+                entry.failed.reset();
+                entry.queueTime.reset();
+                entry.runTime.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.school.metrics;
+
+import java.util.List;
+
+/** Statement executions through the connection pool, as com.school:type=Queries. */
+public interface QueryMetricsMXBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    /** @return Errors per call, 0 to 1. */
+    double getErrorRate();
+
+    /** @return Per SQL statement, the most total time first. */
+    List<QueryStats> getStatements();
+
+    void resetStatistics();
+
+    /** One SQL statement's executions. */
+    final class QueryStats {
+        private final String sql;
+        private final long calls;
+        private final long errors;
+        private final double totalMillis;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        QueryStats(String sql, long errors, LatencyHistogram latency) {
+            this.sql = sql;
+            this.calls = latency.getCount();
+            this.errors = errors;
+            this.meanMillis = latency.getMeanMillis();
+            this.totalMillis = meanMillis * calls;
+            this.p50Millis = latency.percentileMillis(0.50);
+            this.p95Millis = latency.percentileMillis(0.95);
+            this.p99Millis = latency.percentileMillis(0.99);
+            this.maxMillis = latency.getMaxMillis();
+        }
+
+        public String getSql() { return sql; }
+        public long getCalls() { return calls; }
+        public long getErrors() { return errors; }
+        public double getErrorRate() { return calls == 0 ? 0 : (double) errors / calls; }
+        public double getTotalMillis() { return totalMillis; }
+        public double getMeanMillis() { return meanMillis; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP95Millis() { return p95Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
+    }
+}
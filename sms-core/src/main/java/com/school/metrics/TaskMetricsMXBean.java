@@ -0,0 +1,62 @@
+package com.school.metrics;
+
+import java.util.List;
+
+/** Background database tasks (DbTasks), as com.school:type=BackgroundTasks. */
+public interface TaskMetricsMXBean {
+
+    /** @return Tasks waiting for a thread. */
+    int getQueued();
+
+    int getRunning();
+
+    long getCompleted();
+
+    /** @return Tasks that ended with an exception (shown to the user as an error). */
+    long getFailed();
+
+    /** @return Failures per completed task, 0 to 1. */
+    double getFailureRate();
+
+    /** @return Per owner: the panel or class that started the tasks. */
+    List<TaskStats> getByOwner();
+
+    void resetStatistics();
+
+    /** The tasks of one owner. */
+    final class TaskStats {
+        private final String owner;
+        private final int queued;
+        private final int running;
+        private final long completed;
+        private final long failed;
+        private final double meanQueueMillis;
+        private final double p95QueueMillis;
+        private final double meanRunMillis;
+        private final double p95RunMillis;
+
+        TaskStats(String owner, int queued, int running, long failed, LatencyHistogram queue, LatencyHistogram run) {
+            this.owner = owner;
+            this.queued = queued;
+            this.running = running;
+            this.completed = run.getCount();
+            this.failed = failed;
+            this.meanQueueMillis = queue.getMeanMillis();
+            this.p95QueueMillis = queue.percentileMillis(0.95);
+            this.meanRunMillis = run.getMeanMillis();
+            this.p95RunMillis = run.percentileMillis(0.95);
+        }
+
+        public String getOwner() { return owner; }
+        public int getQueued() { return queued; }
+        public int getRunning() { return running; }
+        public long getCompleted() { return completed; }
+        public long getFailed() { return failed; }
+        public double getFailureRate() { return completed == 0 ? 0 : (double) failed / completed; }
+        /** @return Time from being queued to starting. */
+        public double getMeanQueueMillis() { return meanQueueMillis; }
+        public double getP95QueueMillis() { return p95QueueMillis; }
+        public double getMeanRunMillis() { return meanRunMillis; }
+        public double getP95RunMillis() { return p95RunMillis; }
+    }
+}
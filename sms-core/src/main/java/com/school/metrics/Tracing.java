@@ -0,0 +1,177 @@
+package com.school.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Java Flight Recorder events for what a user action costs: the UI action itself, the background tasks
+ * it queues, the SQL statements they run and the reports they render. Every event carries the
+ * correlation id of the action that caused it, so in a recording (JDK Mission Control, or
+ * {@code jfr print --events com.school.*}) a slow click can be followed down to its queries:
+ * <ul>
+ *   <li>com.school.UiAction: a mouse or key event on the EDT, with the component it went to.</li>
+ *   <li>com.school.BackgroundTask: a {@link com.school.DbTasks} task, with the panel and method that
+ *       queued it (e.g. AdminPanel.loadFeeData) and how long it waited for a thread.</li>
+ *   <li>com.school.Statement: one statement execution on a pooled connection.</li>
+ *   <li>com.school.Report: a performance report or PDF.</li>
+ * </ul>
+ * The correlation id lives in a thread-local: the EDT sets a new one for each input event, and a
+ * background task runs with the id of the thread that queued it (or a new one if there was none, e.g.
+ * a timer). Record with {@code -XX:StartFlightRecording=filename=sms.jfr} or {@code jcmd <pid> JFR.start}.
+ * When no recording is running the events cost a flag check; on a JVM without JFR (Java 8 before
+ * 8u272) they are not created at all.
+ */
+public final class Tracing {
+
+    /** A traced piece of work; close it when the work ends, after {@link #succeeded()} if it did. */
+    public interface Span extends AutoCloseable {
+        void succeeded();
+
+        @Override
+        void close();
+    }
+
+    /** Restores the previous correlation id when closed. */
+    public static final class Scope implements AutoCloseable {
+        private final long[] holder;
+        private final long previous;
+
+        Scope(long[] holder, long previous) {
+            this.holder = holder;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            holder[0] = previous;
+        }
+    }
+
+    /** A background task between being queued and running. */
+    public static final class QueuedTask {
+        private final long correlationId;
+        private final long queuedAt;
+        private final String origin; // Panel.method, or null when no task events are recorded
+
+        QueuedTask(long correlationId, long queuedAt, String origin) {
+            this.correlationId = correlationId;
+            this.queuedAt = queuedAt;
+            this.origin = origin;
+        }
+
+        /** Called on the thread that runs the task: makes its correlation id current until the span closes. */
+        public Span started() {
+            final Scope scope = enter(correlationId);
+            final Span event = origin != null ? JfrEvents.backgroundTask(correlationId, origin, System.nanoTime() - queuedAt) : NONE;
+            return new Span() {
+                @Override
+                public void succeeded() {
+                    event.succeeded();
+                }
+
+                @Override
+                public void close() {
+                    event.close();
+                    scope.close();
+                }
+            };
+        }
+    }
+
+    static final Span NONE = new Span() {
+        @Override
+        public void succeeded() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private static final boolean AVAILABLE = jfrAvailable();
+    private static final AtomicLong ids = new AtomicLong();
+    private static final ThreadLocal<long[]> current = ThreadLocal.withInitial(() -> new long[1]); // An array, so setting it does not box
+
+    private Tracing() {
+    }
+
+    /** @return A correlation id not used before. */
+    public static long newCorrelationId() {
+        return ids.incrementAndGet();
+    }
+
+    /** @return The current thread's correlation id, 0 if none. */
+    public static long currentCorrelationId() {
+        return current.get()[0];
+    }
+
+    /** Makes an id the current thread's correlation id until the returned scope is closed. */
+    public static Scope enter(long correlationId) {
+        long[] holder = current.get();
+        Scope scope = new Scope(holder, holder[0]);
+        holder[0] = correlationId;
+        return scope;
+    }
+
+    /**
+     * Starts a UI action event under the current correlation id.
+     *
+     * @param action What was acted on, e.g. "AdminPanel: JButton 'Refresh'".
+     */
+    public static Span uiAction(String action) {
+        return AVAILABLE ? JfrEvents.uiAction(currentCorrelationId(), action) : NONE;
+    }
+
+    /**
+     * Records the queueing of a background task; call {@link QueuedTask#started()} where it runs.
+     *
+     * @param task The task, for naming the panel and method it was queued by.
+     */
+    public static QueuedTask taskQueued(Object task) {
+        long correlationId = currentCorrelationId();
+        if (correlationId == 0) {
+            correlationId = newCorrelationId();
+        }
+        String origin = AVAILABLE && JfrEvents.backgroundTasksEnabled() ? origin(task) : null;
+        return new QueuedTask(correlationId, System.nanoTime(), origin);
+    }
+
+    /** Starts a statement event under the current correlation id. */
+    public static Span statement(String sql) {
+        return AVAILABLE ? JfrEvents.statement(currentCorrelationId(), sql) : NONE;
+    }
+
+    /**
+     * Starts a report event under the current correlation id.
+     *
+     * @param kind   What is generated, e.g. "Report card PDF".
+     * @param target What it is for or where it goes, e.g. the file.
+     */
+    public static Span report(String kind, String target) {
+        return AVAILABLE ? JfrEvents.report(currentCorrelationId(), kind, target) : NONE;
+    }
+
+    // Panel.method: the method an anonymous SwingWorker was written in, else the caller of DbTasks
+    private static String origin(Object task) {
+        for (Class<?> type = task.getClass(); type != null; type = type.getEnclosingClass()) {
+            if (type.getEnclosingMethod() != null) {
+                return Metrics.ownerOf(task) + "." + type.getEnclosingMethod().getName();
+            }
+        }
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (!className.startsWith("com.school.metrics.") && !className.equals("com.school.DbTasks")) {
+                return className.substring(className.lastIndexOf('.') + 1).replaceFirst("\\$.*", "") + "." + frame.getMethodName();
+            }
+        }
+        return Metrics.ownerOf(task);
+    }
+
+    private static boolean jfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,642 @@
+package com.school.server;
+
+import com.school.AppConfig;
+import com.school.DataVersions;
+import com.school.DatabaseUtility;
+import com.school.metrics.CacheCounter;
+import com.school.metrics.Metrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless data service: exposes the students, teachers, classes, subjects, enrollments, grades and
+ * fees tables over HTTP/JSON (JDK built-in HTTP server), so many clients share this process's small
+ * connection pool instead of each opening its own MySQL connections with the database credentials.
+ * Started with {@code SchoolManagementApp --server [port]} or {@code SchoolCli server [port]}.
+ * <p>
+ * Endpoints, for each table name:
+ * <ul>
+ *   <li>{@code GET /api/<table>?limit=&offset=&<column>=<value>} - rows by id, filtered on the table's filter columns.</li>
+ *   <li>{@code GET /api/<table>/<id>} - one row.</li>
+ *   <li>{@code POST /api/<table>} - insert; body is an object of column values. Returns the new row.</li>
+ *   <li>{@code PUT /api/<table>/<id>} - update; tables with row_version need it in the body, and a
+ *       row changed since then is answered with 409 and the current row.</li>
+ *   <li>{@code DELETE /api/<table>/<id>}</li>
+ *   <li>{@code POST /api/batch} - {@code {"requests":[{"method":"GET","path":"/api/grades?term=Term%201"}, ...]}};
+ *       answers {@code [{"status":200,"body":...}, ...]} in one round trip.</li>
+ *   <li>{@code GET /api/stats} - cache and pool counters.</li>
+ * </ul>
+ * Reads are cached. A cached result is kept until its table's counter in data_versions moves (read once
+ * a second for all tables, so changes made by anyone are noticed), or for a few seconds if data_versions
+ * is not available. Concurrent identical reads that miss the cache share one query.
+ * <p>
+ * Listens on 127.0.0.1 unless server.bind says otherwise; if server.token is set, requests must carry
+ * {@code Authorization: Bearer <token>}.
+ */
+public class DataServer {
+
+    private static final int DEFAULT_PORT = 8085;
+    private static final int DEFAULT_THREADS = 32; // Request threads; database work is further bounded by the pool
+    private static final long VERSION_POLL_MILLIS = 1000;
+    private static final long CACHE_MAX_AGE_MILLIS = 60000; // Even with unchanged versions, re-read now and then
+    private static final long CACHE_MAX_AGE_UNVERSIONED_MILLIS = 2000; // Without data_versions, changes show up this late
+    private static final int MAX_CACHED_RESULTS = 10000;
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_BATCH_REQUESTS = 100;
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    /** An error answered with an HTTP status and a message. */
+    private static final class ApiException extends Exception {
+        private final int status;
+        private final Object current; // 409: the row as it is now
+
+        ApiException(int status, String message) {
+            this(status, message, null);
+        }
+
+        ApiException(int status, String message, Object current) {
+            super(message);
+            this.status = status;
+            this.current = current;
+        }
+    }
+
+    private static final class Response {
+        final int status;
+        final Object body;
+
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class CachedResult {
+        final Object value;
+        final String table;
+        final Long version; // The table's version read before the query; null if unknown
+        final long loadedAt;
+
+        CachedResult(Object value, String table, Long version, long loadedAt) {
+            this.value = value;
+            this.table = table;
+            this.version = version;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isFresh(Map<String, Long> versions, long now) {
+            if (version == null || versions == null) {
+                return now - loadedAt < CACHE_MAX_AGE_UNVERSIONED_MILLIS;
+            }
+            return now - loadedAt < CACHE_MAX_AGE_MILLIS && version.equals(versions.get(table));
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService requestThreads;
+    private final ScheduledExecutorService versionPoller;
+    private final String token;
+
+    private final Map<String, CachedResult> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>(); // Reads being queried, by cache key
+    private volatile Map<String, Long> versions; // Latest data_versions; null if unavailable
+    private boolean versionsWarned; // Version poller thread only
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final CacheCounter cacheCounter = Metrics.cache("server.reads"); // The same hits and misses, for JMX
+    private final AtomicLong sharedQueries = new AtomicLong(); // Reads answered by another request's query
+
+    /**
+     * Creates the server; {@link #start()} starts it. The database settings must have been loaded.
+     *
+     * @param bindAddress The address to listen on.
+     * @param port        The port.
+     * @param threads     Request handling threads.
+     * @param token       The token clients must send, or null to accept any client.
+     * @throws IOException If the port cannot be bound.
+     */
+    public DataServer(String bindAddress, int port, int threads, String token) throws IOException {
+        this.token = token;
+        server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        final AtomicInteger count = new AtomicInteger();
+        requestThreads = Executors.newFixedThreadPool(threads, runnable -> new Thread(runnable, "data-server-" + count.incrementAndGet()));
+        server.setExecutor(requestThreads);
+        server.createContext("/api/", this::handle);
+        versionPoller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "data-server-versions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        pollVersions(); // Before the first request, so its result can be cached by version
+        versionPoller.scheduleWithFixedDelay(this::pollVersions, VERSION_POLL_MILLIS, VERSION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        versionPoller.shutdown();
+        requestThreads.shutdown();
+        DatabaseUtility.closeIdleConnections();
+    }
+
+    /**
+     * Entry point of server mode: loads config.properties and serves until the process is stopped.
+     *
+     * @param args Optional port, overriding server.port.
+     */
+    public static void main(String[] args) {
+        try {
+            serve(AppConfig.load(), args);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error starting data server: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts a server with the server.* settings of an already loaded configuration; it serves until the
+     * process is stopped.
+     *
+     * @param prop The configuration, already applied (see {@link AppConfig#load(String)}).
+     * @param args Optional port, overriding server.port.
+     * @return The running server.
+     */
+    public static DataServer serve(Properties prop, String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.parseInt(prop.getProperty("server.port", String.valueOf(DEFAULT_PORT)).trim());
+        String bind = prop.getProperty("server.bind", "127.0.0.1").trim();
+        int threads = Integer.parseInt(prop.getProperty("server.threads", String.valueOf(DEFAULT_THREADS)).trim());
+        String token = prop.getProperty("server.token");
+        if (token != null && token.trim().isEmpty()) token = null;
+
+        final DataServer dataServer = new DataServer(bind, port, threads, token == null ? null : token.trim());
+        dataServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(dataServer::stop));
+        System.out.println("Data server listening on http://" + bind + ":" + port + "/api/ (database pool size "
+                + DatabaseUtility.getPoolSize() + (token == null ? ", no token required)" : ", token required)"));
+        return dataServer;
+    }
+
+    private void pollVersions() {
+        try (Connection conn = DatabaseUtility.getConnection()) {
+            versions = DataVersions.fetch(conn);
+            versionsWarned = false;
+        } catch (SQLException e) {
+            if (!versionsWarned) {
+                // Most likely the data_versions migration has not been run; cache briefly instead
+                System.err.println("Data versions unavailable, caching reads for " + CACHE_MAX_AGE_UNVERSIONED_MILLIS + " ms: " + e.getMessage());
+                versionsWarned = true;
+            }
+            versions = null;
+        }
+    }
+
+    // --- HTTP ---
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Response response;
+        try {
+            if (token != null && !("Bearer " + token).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                throw new ApiException(401, "Missing or wrong token");
+            }
+            response = dispatch(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(),
+                    exchange.getRequestURI().getRawQuery(), readBody(exchange), true);
+        } catch (ApiException e) {
+            response = error(e);
+        } catch (Exception e) {
+            System.err.println("Data server error: " + e.getMessage());
+            e.printStackTrace();
+            response = new Response(500, Collections.singletonMap("error", e.getMessage()));
+        }
+
+        try {
+            byte[] body = response.body == null ? new byte[0] : Json.write(response.body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException, ApiException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+                if (body.size() > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Request body too large");
+                }
+            }
+        }
+        return body.toString("UTF-8");
+    }
+
+    private static Response error(ApiException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", e.getMessage());
+        if (e.current != null) body.put("current", e.current);
+        return new Response(e.status, body);
+    }
+
+    // --- Routing ---
+
+    private Response dispatch(String method, String path, String rawQuery, String body, boolean allowBatch) throws Exception {
+        if ("/api/batch".equals(path)) {
+            if (!allowBatch || !"POST".equals(method)) throw new ApiException(400, "Batches are POSTed and cannot be nested");
+            return batch(body);
+        }
+        if ("/api/stats".equals(path)) {
+            return new Response(200, stats());
+        }
+
+        String[] parts = path.substring("/api/".length()).split("/");
+        Resource resource = Resource.ALL.get(parts[0]);
+        if (resource == null || parts.length > 2) throw new ApiException(404, "No such resource: " + path);
+        Integer id = null;
+        if (parts.length == 2) {
+            try {
+                id = Integer.valueOf(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new ApiException(404, "Not an id: " + parts[1]);
+            }
+        }
+
+        switch (method) {
+            case "GET":
+                return id == null ? new Response(200, list(resource, parseQuery(rawQuery))) : new Response(200, get(resource, id));
+            case "POST":
+                if (id != null) throw new ApiException(405, "POST to /api/" + resource.name);
+                return new Response(201, insert(resource, parseObject(body)));
+            case "PUT":
+                if (id == null) throw new ApiException(405, "PUT to /api/" + resource.name + "/<id>");
+                return new Response(200, update(resource, id, parseObject(body)));
+            case "DELETE":
+                if (id == null) throw new ApiException(405, "DELETE of /api/" + resource.name + "/<id>");
+                delete(resource, id);
+                return new Response(204, null);
+            default:
+                throw new ApiException(405, "Method not allowed: " + method);
+        }
+    }
+
+    // Runs the requests of a batch one after another; each gets its own status
+    private Response batch(String body) throws ApiException {
+        Object parsed = parse(body);
+        Object requests = parsed instanceof Map ? ((Map<?, ?>) parsed).get("requests") : parsed;
+        if (!(requests instanceof List)) throw new ApiException(400, "Expected {\"requests\": [...]}");
+        List<?> list = (List<?>) requests;
+        if (list.size() > MAX_BATCH_REQUESTS) throw new ApiException(400, "At most " + MAX_BATCH_REQUESTS + " requests per batch");
+
+        List<Object> responses = new ArrayList<>();
+        for (Object item : list) {
+            Response response;
+            try {
+                if (!(item instanceof Map)) throw new ApiException(400, "Each request is an object with method and path");
+                Map<?, ?> request = (Map<?, ?>) item;
+                String method = request.get("method") == null ? "GET" : request.get("method").toString();
+                String target = String.valueOf(request.get("path"));
+                int question = target.indexOf('?');
+                String path = question < 0 ? target : target.substring(0, question);
+                String query = question < 0 ? null : target.substring(question + 1);
+                Object requestBody = request.get("body");
+                response = dispatch(method, path, query, requestBody == null ? "" : Json.write(requestBody), false);
+            } catch (ApiException e) {
+                response = error(e);
+            } catch (Exception e) {
+                response = new Response(500, Collections.singletonMap("error", e.getMessage()));
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("status", response.status);
+            result.put("body", response.body);
+            responses.add(result);
+        }
+        return new Response(200, responses);
+    }
+
+    private Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedResults", cache.size());
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("cacheMisses", cacheMisses.get());
+        stats.put("sharedQueries", sharedQueries.get());
+        stats.put("versionTracking", versions != null);
+        stats.put("poolSize", DatabaseUtility.getPoolSize());
+        return stats;
+    }
+
+    // --- Reads ---
+
+    private Object list(final Resource resource, Map<String, String> query) throws Exception {
+        int limit = intParameter(query, "limit", DEFAULT_LIMIT);
+        int offset = intParameter(query, "offset", 0);
+        if (limit < 1 || limit > MAX_LIMIT || offset < 0) throw new ApiException(400, "limit must be 1-" + MAX_LIMIT + " and offset not negative");
+
+        final StringBuilder sql = new StringBuilder("SELECT " + resource.selectList + " FROM " + resource.table);
+        final List<Object> parameters = new ArrayList<>();
+        Map<String, String> filters = new TreeMap<>(); // Sorted, so equal queries share a cache key
+        for (Map.Entry<String, String> parameter : query.entrySet()) {
+            String name = parameter.getKey();
+            if (name.equals("limit") || name.equals("offset")) continue;
+            if (!resource.filters.contains(name)) throw new ApiException(400, "Cannot filter " + resource.name + " by " + name);
+            filters.put(name, parameter.getValue());
+        }
+        String where = " WHERE ";
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            sql.append(where).append(filter.getKey()).append(" = ?");
+            parameters.add(filter.getValue());
+            where = " AND ";
+        }
+        sql.append(" ORDER BY ").append(resource.idColumn).append(" LIMIT ? OFFSET ?");
+        parameters.add(limit);
+        parameters.add(offset);
+
+        String key = resource.name + "?" + filters + "&limit=" + limit + "&offset=" + offset;
+        return cachedRead(key, resource.table, () -> {
+            try (Connection conn = DatabaseUtility.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                bind(pstmt, parameters);
+                return readRows(pstmt);
+            }
+        });
+    }
+
+    private Object get(final Resource resource, final int id) throws Exception {
+        Object row = cachedRead(resource.name + "/" + id, resource.table, () -> {
+            try (Connection conn = DatabaseUtility.getConnection()) {
+                return fetchRow(conn, resource, id);
+            }
+        });
+        if (row == null) throw new ApiException(404, "No " + resource.name + " row " + id);
+        return row;
+    }
+
+    private interface Loader {
+        Object load() throws SQLException;
+    }
+
+    /**
+     * Answers a read from the cache, or runs it; concurrent identical reads share one run.
+     * The result is stamped with the table's version from before the query, so a change made while it
+     * runs makes it stale at the next version poll.
+     */
+    private Object cachedRead(String key, String table, Loader loader) throws Exception {
+        long now = System.currentTimeMillis();
+        Map<String, Long> knownVersions = versions;
+        CachedResult cached = cache.get(key);
+        if (cached != null && cached.isFresh(knownVersions, now)) {
+            cacheHits.incrementAndGet();
+            cacheCounter.hit();
+            return cached.value;
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            sharedQueries.incrementAndGet();
+            try {
+                return running.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        cacheMisses.incrementAndGet();
+        cacheCounter.miss();
+        try {
+            Long version = knownVersions == null ? null : knownVersions.get(table);
+            Object value = loader.load();
+            if (cache.size() >= MAX_CACHED_RESULTS) {
+                cache.clear(); // Crude, but keeps memory bounded; the hot entries are back within a request each
+            }
+            cache.put(key, new CachedResult(value, table, version, now));
+            mine.complete(value);
+            return value;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Drops the cached reads of a table after this server changed it, without waiting for the version poll
+    private void invalidate(String table) {
+        cache.values().removeIf(cached -> cached.table.equals(table));
+    }
+
+    // --- Writes ---
+
+    private Object insert(Resource resource, Map<String, Object> values) throws Exception {
+        List<String> columns = writableColumns(resource, values, false);
+        if (columns.isEmpty()) throw new ApiException(400, "No columns to insert");
+        StringBuilder sql = new StringBuilder("INSERT INTO " + resource.table + " (" + String.join(", ", columns) + ") VALUES (");
+        List<Object> parameters = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            parameters.add(values.get(columns.get(i)));
+        }
+        sql.append(')');
+
+        try (Connection conn = DatabaseUtility.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+            bind(pstmt, parameters);
+            pstmt.executeUpdate();
+            invalidate(resource.table);
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No id generated");
+                return fetchRow(conn, resource, keys.getInt(1));
+            }
+        } catch (SQLException e) {
+            throw refusal(e);
+        }
+    }
+
+    private Object update(Resource resource, int id, Map<String, Object> values) throws Exception {
+        List<String> columns = writableColumns(resource, values, resource.versioned);
+        if (columns.isEmpty()) throw new ApiException(400, "No columns to update");
+        StringBuilder sql = new StringBuilder("UPDATE " + resource.table + " SET ");
+        List<Object> parameters = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(columns.get(i)).append(" = ?");
+            parameters.add(values.get(columns.get(i)));
+        }
+        if (resource.versioned) sql.append(", row_version = row_version + 1");
+        sql.append(" WHERE ").append(resource.idColumn).append(" = ?");
+        parameters.add(id);
+        if (resource.versioned) {
+            if (!(values.get("row_version") instanceof Number)) {
+                throw new ApiException(400, "row_version (the version the change is based on) is required");
+            }
+            sql.append(" AND row_version = ?");
+            parameters.add(values.get("row_version"));
+        }
+
+        try (Connection conn = DatabaseUtility.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            bind(pstmt, parameters);
+            int updated = pstmt.executeUpdate();
+            invalidate(resource.table);
+            Map<String, Object> current = fetchRow(conn, resource, id);
+            if (current == null) throw new ApiException(404, "No " + resource.name + " row " + id);
+            if (updated == 0 && resource.versioned) {
+                throw new ApiException(409, "The row was changed by someone else", current);
+            }
+            return current;
+        } catch (SQLException e) {
+            throw refusal(e);
+        }
+    }
+
+    private void delete(Resource resource, int id) throws Exception {
+        try (Connection conn = DatabaseUtility.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + resource.table + " WHERE " + resource.idColumn + " = ?")) {
+            pstmt.setInt(1, id);
+            int deleted = pstmt.executeUpdate();
+            invalidate(resource.table);
+            if (deleted == 0) throw new ApiException(404, "No " + resource.name + " row " + id);
+        } catch (SQLException e) {
+            throw refusal(e);
+        }
+    }
+
+    // The body's columns, checked against the resource; row_version is allowed (and used) only if versioned
+    private static List<String> writableColumns(Resource resource, Map<String, Object> values, boolean allowVersion) throws ApiException {
+        List<String> columns = new ArrayList<>();
+        for (String name : values.keySet()) {
+            if (allowVersion && name.equals("row_version")) continue;
+            if (!resource.writable.contains(name)) throw new ApiException(400, "Cannot write " + resource.name + "." + name);
+            columns.add(name);
+        }
+        return columns;
+    }
+
+    // Errors caused by the request's values (constraint, check or data errors) are the client's; others are ours
+    private static Exception refusal(SQLException e) {
+        if (e instanceof SQLIntegrityConstraintViolationException) {
+            return new ApiException(409, e.getMessage());
+        }
+        if (e instanceof SQLDataException || e.getErrorCode() == 3819) { // 3819: MySQL check constraint violated
+            return new ApiException(422, e.getMessage());
+        }
+        return e;
+    }
+
+    // --- JDBC helpers ---
+
+    private static Map<String, Object> fetchRow(Connection conn, Resource resource, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT " + resource.selectList + " FROM " + resource.table + " WHERE " + resource.idColumn + " = ?")) {
+            pstmt.setInt(1, id);
+            List<Map<String, Object>> rows = readRows(pstmt);
+            return rows.isEmpty() ? null : rows.get(0);
+        }
+    }
+
+    private static List<Map<String, Object>> readRows(PreparedStatement pstmt) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            ResultSetMetaData meta = rs.getMetaData();
+            while (rs.next()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    Object value = rs.getObject(i);
+                    row.put(meta.getColumnLabel(i), value instanceof java.util.Date ? value.toString() : value);
+                }
+                rows.add(Collections.unmodifiableMap(row)); // Shared through the cache
+            }
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    private static void bind(PreparedStatement pstmt, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            pstmt.setObject(i + 1, parameters.get(i)); // BigDecimal, String (also dates as yyyy-MM-dd), Boolean, Integer or null
+        }
+    }
+
+    // --- Parsing ---
+
+    private static Object parse(String body) throws ApiException {
+        try {
+            return Json.parse(body);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Invalid JSON: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parseObject(String body) throws ApiException {
+        Object parsed = parse(body);
+        if (!(parsed instanceof Map)) throw new ApiException(400, "Expected a JSON object");
+        return (Map<String, Object>) parsed;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws ApiException {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return parameters;
+        try {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) continue;
+                int equals = pair.indexOf('=');
+                String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), "UTF-8");
+                String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+                parameters.put(name, value);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ApiException(400, "Invalid query string");
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) throws ApiException {
+        String value = query.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a number");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.school.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table the data server exposes as /api/&lt;name&gt;: which columns it returns, which a client may
+ * write, which it may filter lists by, and whether updates are compare-and-set on row_version
+ * (the same check the panels use to detect conflicting edits).
+ */
+final class Resource {
+
+    /** The exposed tables, by name in the URL. */
+    static final Map<String, Resource> ALL;
+
+    static {
+        Map<String, Resource> all = new LinkedHashMap<>();
+        add(all, new Resource("students", "students", "student_id",
+                cols("name", "grade_level", "status"), cols("grade_level", "status"), true));
+        add(all, new Resource("teachers", "teachers", "teacher_id",
+                cols("name", "subject"), cols("subject"), false));
+        add(all, new Resource("classes", "classes", "class_id",
+                cols("class_name", "grade_level", "fee"), cols("grade_level"), true));
+        add(all, new Resource("subjects", "subjects", "subject_id",
+                cols("subject_name"), cols(), false));
+        add(all, new Resource("enrollments", "enrollments", "enrollment_id",
+                cols("student_id", "class_id"), cols("student_id", "class_id"), false));
+        add(all, new Resource("grades", "grades", "grade_id",
+                cols("enrollment_id", "subject_id", "score", "comments", "term", "date_recorded"),
+                cols("enrollment_id", "subject_id", "term"), true));
+        add(all, new Resource("fees", "fees", "fee_id",
+                cols("student_id", "class_id", "term", "amount_due", "amount_paid", "date_last_paid"),
+                cols("student_id", "class_id", "term"), true, "balance"));
+        ALL = Collections.unmodifiableMap(all);
+    }
+
+    final String name;
+    final String table;
+    final String idColumn;
+    final List<String> writable; // Columns a client may set
+    final List<String> filters; // Columns lists may be filtered by (equality)
+    final boolean versioned; // Has row_version; updates must name the version they are based on
+    final String selectList; // Columns returned
+
+    private Resource(String name, String table, String idColumn, List<String> writable, List<String> filters,
+                     boolean versioned, String... computed) {
+        this.name = name;
+        this.table = table;
+        this.idColumn = idColumn;
+        this.writable = writable;
+        this.filters = filters;
+        this.versioned = versioned;
+        StringBuilder select = new StringBuilder(idColumn);
+        for (String column : writable) select.append(", ").append(column);
+        for (String column : computed) select.append(", ").append(column);
+        if (versioned) select.append(", row_version");
+        this.selectList = select.toString();
+    }
+
+    private static void add(Map<String, Resource> all, Resource resource) {
+        all.put(resource.name, resource);
+    }
+
+    private static List<String> cols(String... columns) {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+}
@@ -0,0 +1,284 @@
+package com.school.utils; // Recommended package for utility classes
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.*;
+import com.school.GradeDistribution;
+import com.school.metrics.Tracing;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet; // Import for handling database results
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List; // Explicit import so it wins over com.itextpdf.text.List
+
+/**
+ * Utility class for generating PDF reports using iTextPDF.
+ * This class can be used by other panels (like AdminPanel or TeacherPanel)
+ * to create printable reports from data.
+ */
+public class PdfReportGenerator {
+
+    /**
+     * Generates a simple PDF report from a ResultSet.
+     * This method is a basic example and can be extended to handle
+     * different report formats and data structures.
+     *
+     * @param resultSet The ResultSet containing the data for the report.
+     * @param filePath  The path where the PDF file will be saved.
+     * @param reportTitle The title of the report.
+     * @throws DocumentException If an error occurs while creating the PDF document.
+     * @throws IOException If an I/O error occurs while writing the file.
+     * @throws SQLException If a database error occurs while reading the ResultSet.
+     */
+    public static void generateSimpleReport(ResultSet resultSet, String filePath, String reportTitle)
+            throws DocumentException, IOException, SQLException {
+
+        // Create a new Document object
+        Document document = new Document(PageSize.A4);
+        Tracing.Span span = Tracing.report("Table PDF", filePath);
+
+        try {
+            // Create a PdfWriter instance to write the document to the specified file path
+            PdfWriter.getInstance(document, new FileOutputStream(filePath));
+
+            // Open the document
+            document.open();
+
+            // Add a title to the document
+            Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+            Paragraph title = new Paragraph(reportTitle, titleFont);
+            title.setAlignment(Element.ALIGN_CENTER);
+            title.setSpacingAfter(20); // Add space after the title
+            document.add(title);
+
+            // Get metadata from the ResultSet to determine column names and count
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columnCount = metaData.getColumnCount();
+
+            // Create a PdfPTable with the same number of columns as the ResultSet
+            PdfPTable table = new PdfPTable(columnCount);
+            table.setWidthPercentage(100); // Set table width to 100% of the page width
+            table.setSpacingBefore(10f); // Add space before the table
+            table.setSpacingAfter(10f); // Add space after the table
+
+            // Set column widths (optional, can be adjusted based on content)
+            // float[] columnWidths = new float[columnCount];
+            // for (int i = 0; i < columnCount; i++) {
+            //     columnWidths[i] = 1f; // Default width
+            // }
+            // table.setWidths(columnWidths);
+
+            // Add table headers
+            Font headerFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
+            for (int i = 1; i <= columnCount; i++) {
+                PdfPCell headerCell = new PdfPCell(new Phrase(metaData.getColumnLabel(i), headerFont));
+                headerCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                headerCell.setBackgroundColor(BaseColor.LIGHT_GRAY); // Add background color
+                headerCell.setPadding(5); // Add padding
+                table.addCell(headerCell);
+            }
+
+            // Add table rows from the ResultSet data
+            Font dataFont = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
+            while (resultSet.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    // Get data as String to handle various data types
+                    String cellData = resultSet.getString(i);
+                    PdfPCell dataCell = new PdfPCell(new Phrase(cellData != null ? cellData : "", dataFont));
+                    dataCell.setPadding(5); // Add padding
+                    table.addCell(dataCell);
+                }
+            }
+
+            // Add the table to the document
+            document.add(table);
+            span.succeeded();
+
+        } finally {
+            // Close the document in a finally block to ensure it's always closed
+            if (document.isOpen()) {
+                document.close();
+            }
+            span.close(); // Includes writing out the document
+        }
+    }
+
+    /**
+     * Generates a performance report PDF containing the report text followed by
+     * a bar chart of the score distribution.
+     *
+     * @param filePath    The path where the PDF file will be saved.
+     * @param reportTitle The title of the report.
+     * @param reportBody  The plain-text report (as shown in the report area), rendered in a monospaced font.
+     * @param buckets     The score distribution to chart. May be empty.
+     * @throws DocumentException If an error occurs while creating the PDF document.
+     * @throws IOException If an I/O error occurs while writing the file.
+     */
+    public static void generateDistributionReport(String filePath, String reportTitle, String reportBody,
+                                                  List<GradeDistribution.Bucket> buckets)
+            throws DocumentException, IOException {
+
+        Document document = new Document(PageSize.A4);
+        Tracing.Span span = Tracing.report("Performance report PDF", filePath);
+
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, new FileOutputStream(filePath));
+            document.open();
+
+            Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+            Paragraph title = new Paragraph(reportTitle, titleFont);
+            title.setAlignment(Element.ALIGN_CENTER);
+            title.setSpacingAfter(20);
+            document.add(title);
+
+            // Monospaced font keeps the String.format columns of the on-screen report aligned
+            Font bodyFont = new Font(Font.FontFamily.COURIER, 9, Font.NORMAL);
+            document.add(new Paragraph(reportBody, bodyFont));
+
+            if (buckets != null && !buckets.isEmpty()) {
+                Paragraph chartTitle = new Paragraph("Score Distribution", new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD));
+                chartTitle.setSpacingBefore(15);
+                chartTitle.setSpacingAfter(5);
+                document.add(chartTitle);
+                document.add(createHistogramImage(writer, buckets, document.right() - document.left(), 200f));
+            }
+            span.succeeded();
+
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+            span.close();
+        }
+    }
+
+    /**
+     * Draws the distribution as vector bars into a PdfTemplate and wraps it as an Image element.
+     */
+    private static Image createHistogramImage(PdfWriter writer, List<GradeDistribution.Bucket> buckets,
+                                              float width, float height) throws DocumentException, IOException {
+        PdfTemplate template = writer.getDirectContent().createTemplate(width, height);
+        BaseFont font = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+
+        int max = 0;
+        for (GradeDistribution.Bucket b : buckets) {
+            max = Math.max(max, b.getCount());
+        }
+
+        float bottom = 18f; // Room for the band labels
+        float top = height - 14f; // Room for the count labels
+        float slot = width / buckets.size();
+        float barWidth = Math.max(slot - 6f, 2f);
+
+        // X axis
+        template.setColorStroke(BaseColor.GRAY);
+        template.moveTo(0, bottom);
+        template.lineTo(width, bottom);
+        template.stroke();
+
+        for (int i = 0; i < buckets.size(); i++) {
+            GradeDistribution.Bucket b = buckets.get(i);
+            float barHeight = max == 0 ? 0f : (top - bottom) * b.getCount() / max;
+            float x = i * slot + (slot - barWidth) / 2;
+
+            template.setColorFill(new BaseColor(0, 123, 255));
+            template.rectangle(x, bottom, barWidth, barHeight);
+            template.fill();
+
+            template.beginText();
+            template.setColorFill(BaseColor.DARK_GRAY);
+            template.setFontAndSize(font, 8);
+            template.showTextAligned(Element.ALIGN_CENTER, String.valueOf(b.getCount()), x + barWidth / 2, bottom + barHeight + 3, 0);
+            template.showTextAligned(Element.ALIGN_CENTER, b.getLabel().split(" ")[0], x + barWidth / 2, 5, 0);
+            template.endText();
+        }
+
+        return Image.getInstance(template);
+    }
+
+    /**
+     * Generates a student's report card for a term: a table of their scores by subject, then the average.
+     *
+     * @param filePath    The path where the PDF file will be saved.
+     * @param studentName The student's name.
+     * @param gradeLevel  The student's grade level (may be null).
+     * @param term        The term reported on.
+     * @param rows        One row per grade: subject, class, score (may be null), comments (may be null).
+     * @throws DocumentException If an error occurs while creating the PDF document.
+     * @throws IOException If an I/O error occurs while writing the file.
+     */
+    public static void generateReportCard(String filePath, String studentName, String gradeLevel, String term,
+                                          List<String[]> rows) throws DocumentException, IOException {
+
+        Document document = new Document(PageSize.A4);
+        Tracing.Span span = Tracing.report("Report card PDF", filePath);
+
+        try {
+            PdfWriter.getInstance(document, new FileOutputStream(filePath));
+            document.open();
+
+            Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+            Paragraph title = new Paragraph("Report Card - " + term, titleFont);
+            title.setAlignment(Element.ALIGN_CENTER);
+            title.setSpacingAfter(10);
+            document.add(title);
+
+            Font infoFont = new Font(Font.FontFamily.HELVETICA, 12, Font.NORMAL);
+            document.add(new Paragraph("Student: " + studentName, infoFont));
+            if (gradeLevel != null && !gradeLevel.isEmpty()) {
+                document.add(new Paragraph("Grade Level: " + gradeLevel, infoFont));
+            }
+
+            PdfPTable table = new PdfPTable(new float[]{3f, 2f, 1f, 4f});
+            table.setWidthPercentage(100);
+            table.setSpacingBefore(15f);
+            table.setSpacingAfter(10f);
+
+            Font headerFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
+            for (String header : new String[]{"Subject", "Class", "Score", "Comments"}) {
+                PdfPCell headerCell = new PdfPCell(new Phrase(header, headerFont));
+                headerCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                headerCell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+                headerCell.setPadding(5);
+                table.addCell(headerCell);
+            }
+
+            Font dataFont = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
+            BigDecimal total = BigDecimal.ZERO;
+            int scored = 0;
+            for (String[] row : rows) {
+                for (String cellData : row) {
+                    PdfPCell dataCell = new PdfPCell(new Phrase(cellData != null ? cellData : "", dataFont));
+                    dataCell.setPadding(5);
+                    table.addCell(dataCell);
+                }
+                if (row[2] != null) {
+                    total = total.add(new BigDecimal(row[2]));
+                    scored++;
+                }
+            }
+            document.add(table);
+
+            if (scored > 0) {
+                Font averageFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
+                document.add(new Paragraph("Average: " + total.divide(BigDecimal.valueOf(scored), 2, RoundingMode.HALF_UP), averageFont));
+            }
+            span.succeeded();
+
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+            span.close();
+        }
+    }
+
+    // You can add more methods here for different report types,
+    // like reports with images, specific formatting, etc.
+    // For example:
+    // public static void generateStudentTranscript(Student student, List<Grade> grades, String filePath) { ... }
+    // public static void generateFeeStatement(Student student, List<FeeRecord> fees, String filePath) { ... }
+
+}
@@ -0,0 +1,35 @@
+-- Migration for existing databases: indexes behind the server-side sorting and filtering of the admin tables.
+-- Fresh installs get the same columns and indexes from schema.sql; run this once on databases created before.
+-- Each secondary index implicitly ends with the table's primary key, which is what the paged queries use as
+-- their final sort column, so "ORDER BY column, id LIMIT n OFFSET m" is answered by an index scan.
+
+USE school_db;
+
+-- Indexes added to schema.sql before this folder existed: the covering index of the fee arrears view
+-- and the name index used by the student typeahead lookups
+ALTER TABLE fees
+    ADD INDEX idx_fees_arrears (class_id, term, amount_due, amount_paid, date_last_paid);
+ALTER TABLE students
+    ADD INDEX idx_students_name (name);
+
+-- Students: sort/filter by grade level and status
+ALTER TABLE students
+    ADD INDEX idx_students_grade_level (grade_level),
+    ADD INDEX idx_students_status (status);
+
+-- Teachers: sort/filter by name and subject
+ALTER TABLE teachers
+    ADD INDEX idx_teachers_name (name),
+    ADD INDEX idx_teachers_subject (subject);
+
+-- Classes: sort/filter by grade level and fee (class_name is already indexed by its UNIQUE constraint)
+ALTER TABLE classes
+    ADD INDEX idx_classes_grade_level (grade_level),
+    ADD INDEX idx_classes_fee (fee);
+
+-- Fees: the outstanding balance becomes a stored generated column so it can be indexed
+ALTER TABLE fees
+    ADD COLUMN balance DECIMAL(10,2) AS (amount_due - COALESCE(amount_paid, 0)) STORED,
+    ADD INDEX idx_fees_balance (balance),
+    ADD INDEX idx_fees_term (term),
+    ADD INDEX idx_fees_date_last_paid (date_last_paid);
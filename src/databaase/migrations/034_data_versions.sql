@@ -0,0 +1,120 @@
+-- Migration for existing databases: per-table change counters for the admin panel's tab cache.
+-- Fresh installs get the same table and triggers from schema.sql; run this once on databases created before.
+-- Without it the admin panel still works, but reloads a tab's data every time the tab is selected.
+
+USE school_db;
+
+-- Data versions table
+-- One change counter per table, bumped by the triggers below on every insert, update and delete.
+-- The admin panel compares the counters with those seen when a tab was loaded, so re-opening a tab
+-- only re-queries its data when one of the tables behind it has changed.
+CREATE TABLE IF NOT EXISTS data_versions (
+    table_name VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT IGNORE INTO data_versions (table_name) VALUES
+('students'),
+('teachers'),
+('classes'),
+('subjects'),
+('class_assignments'),
+('enrollments'),
+('grades'),
+('fees');
+
+DROP TRIGGER IF EXISTS trg_students_ai;
+CREATE TRIGGER trg_students_ai AFTER INSERT ON students FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'students';
+
+DROP TRIGGER IF EXISTS trg_students_au;
+CREATE TRIGGER trg_students_au AFTER UPDATE ON students FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'students';
+
+DROP TRIGGER IF EXISTS trg_students_ad;
+CREATE TRIGGER trg_students_ad AFTER DELETE ON students FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'students';
+
+DROP TRIGGER IF EXISTS trg_teachers_ai;
+CREATE TRIGGER trg_teachers_ai AFTER INSERT ON teachers FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'teachers';
+
+DROP TRIGGER IF EXISTS trg_teachers_au;
+CREATE TRIGGER trg_teachers_au AFTER UPDATE ON teachers FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'teachers';
+
+DROP TRIGGER IF EXISTS trg_teachers_ad;
+CREATE TRIGGER trg_teachers_ad AFTER DELETE ON teachers FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'teachers';
+
+DROP TRIGGER IF EXISTS trg_classes_ai;
+CREATE TRIGGER trg_classes_ai AFTER INSERT ON classes FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'classes';
+
+DROP TRIGGER IF EXISTS trg_classes_au;
+CREATE TRIGGER trg_classes_au AFTER UPDATE ON classes FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'classes';
+
+DROP TRIGGER IF EXISTS trg_classes_ad;
+CREATE TRIGGER trg_classes_ad AFTER DELETE ON classes FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'classes';
+
+DROP TRIGGER IF EXISTS trg_subjects_ai;
+CREATE TRIGGER trg_subjects_ai AFTER INSERT ON subjects FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'subjects';
+
+DROP TRIGGER IF EXISTS trg_subjects_au;
+CREATE TRIGGER trg_subjects_au AFTER UPDATE ON subjects FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'subjects';
+
+DROP TRIGGER IF EXISTS trg_subjects_ad;
+CREATE TRIGGER trg_subjects_ad AFTER DELETE ON subjects FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'subjects';
+
+DROP TRIGGER IF EXISTS trg_class_assignments_ai;
+CREATE TRIGGER trg_class_assignments_ai AFTER INSERT ON class_assignments FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'class_assignments';
+
+DROP TRIGGER IF EXISTS trg_class_assignments_au;
+CREATE TRIGGER trg_class_assignments_au AFTER UPDATE ON class_assignments FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'class_assignments';
+
+DROP TRIGGER IF EXISTS trg_class_assignments_ad;
+CREATE TRIGGER trg_class_assignments_ad AFTER DELETE ON class_assignments FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'class_assignments';
+
+DROP TRIGGER IF EXISTS trg_enrollments_ai;
+CREATE TRIGGER trg_enrollments_ai AFTER INSERT ON enrollments FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'enrollments';
+
+DROP TRIGGER IF EXISTS trg_enrollments_au;
+CREATE TRIGGER trg_enrollments_au AFTER UPDATE ON enrollments FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'enrollments';
+
+DROP TRIGGER IF EXISTS trg_enrollments_ad;
+CREATE TRIGGER trg_enrollments_ad AFTER DELETE ON enrollments FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'enrollments';
+
+DROP TRIGGER IF EXISTS trg_grades_ai;
+CREATE TRIGGER trg_grades_ai AFTER INSERT ON grades FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'grades';
+
+DROP TRIGGER IF EXISTS trg_grades_au;
+CREATE TRIGGER trg_grades_au AFTER UPDATE ON grades FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'grades';
+
+DROP TRIGGER IF EXISTS trg_grades_ad;
+CREATE TRIGGER trg_grades_ad AFTER DELETE ON grades FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'grades';
+
+DROP TRIGGER IF EXISTS trg_fees_ai;
+CREATE TRIGGER trg_fees_ai AFTER INSERT ON fees FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'fees';
+
+DROP TRIGGER IF EXISTS trg_fees_au;
+CREATE TRIGGER trg_fees_au AFTER UPDATE ON fees FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'fees';
+
+DROP TRIGGER IF EXISTS trg_fees_ad;
+CREATE TRIGGER trg_fees_ad AFTER DELETE ON fees FOR EACH ROW
+    UPDATE data_versions SET version = version + 1 WHERE table_name = 'fees';
@@ -0,0 +1,11 @@
+-- Migration for existing databases: row versions for optimistic locking of student, class, fee and grade edits.
+-- Fresh installs get the same columns from schema.sql; run this once on databases created before.
+-- Updates from the admin and teacher panels only succeed if row_version still has the value read with the
+-- row, and increment it; a mismatch means someone else saved the row first and the user is asked to resolve it.
+
+USE school_db;
+
+ALTER TABLE students ADD COLUMN row_version INT NOT NULL DEFAULT 0;
+ALTER TABLE classes ADD COLUMN row_version INT NOT NULL DEFAULT 0;
+ALTER TABLE grades ADD COLUMN row_version INT NOT NULL DEFAULT 0;
+ALTER TABLE fees ADD COLUMN row_version INT NOT NULL DEFAULT 0;
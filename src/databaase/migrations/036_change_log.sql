@@ -0,0 +1,114 @@
+-- Migration for existing databases: the change log behind the panels' automatic refresh.
+-- Fresh installs get the same table and triggers from schema.sql; run this once on databases created before
+-- (after 034_data_versions.sql; MySQL 5.7.2 or later is needed for a second trigger on the same event).
+-- Without it the panels still work, but only show other people's changes when a tab is reloaded.
+
+USE school_db;
+
+-- Change log
+-- One compact row per inserted, updated or deleted row, appended by the triggers below. Open panels poll it
+-- with "change_id > last seen" and patch or reload only what changed. Entries older than a day are purged
+-- by the admin client; a client only ever needs the last few seconds.
+CREATE TABLE IF NOT EXISTS change_log (
+    change_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(64) NOT NULL,
+    row_id INT NOT NULL, -- Primary key of the changed row
+    operation CHAR(1) NOT NULL, -- 'I' insert, 'U' update, 'D' delete
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+DROP TRIGGER IF EXISTS trg_students_log_ai;
+CREATE TRIGGER trg_students_log_ai AFTER INSERT ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('students', NEW.student_id, 'I');
+
+DROP TRIGGER IF EXISTS trg_students_log_au;
+CREATE TRIGGER trg_students_log_au AFTER UPDATE ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('students', NEW.student_id, 'U');
+
+DROP TRIGGER IF EXISTS trg_students_log_ad;
+CREATE TRIGGER trg_students_log_ad AFTER DELETE ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('students', OLD.student_id, 'D');
+
+DROP TRIGGER IF EXISTS trg_teachers_log_ai;
+CREATE TRIGGER trg_teachers_log_ai AFTER INSERT ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('teachers', NEW.teacher_id, 'I');
+
+DROP TRIGGER IF EXISTS trg_teachers_log_au;
+CREATE TRIGGER trg_teachers_log_au AFTER UPDATE ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('teachers', NEW.teacher_id, 'U');
+
+DROP TRIGGER IF EXISTS trg_teachers_log_ad;
+CREATE TRIGGER trg_teachers_log_ad AFTER DELETE ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('teachers', OLD.teacher_id, 'D');
+
+DROP TRIGGER IF EXISTS trg_classes_log_ai;
+CREATE TRIGGER trg_classes_log_ai AFTER INSERT ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('classes', NEW.class_id, 'I');
+
+DROP TRIGGER IF EXISTS trg_classes_log_au;
+CREATE TRIGGER trg_classes_log_au AFTER UPDATE ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('classes', NEW.class_id, 'U');
+
+DROP TRIGGER IF EXISTS trg_classes_log_ad;
+CREATE TRIGGER trg_classes_log_ad AFTER DELETE ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('classes', OLD.class_id, 'D');
+
+DROP TRIGGER IF EXISTS trg_subjects_log_ai;
+CREATE TRIGGER trg_subjects_log_ai AFTER INSERT ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('subjects', NEW.subject_id, 'I');
+
+DROP TRIGGER IF EXISTS trg_subjects_log_au;
+CREATE TRIGGER trg_subjects_log_au AFTER UPDATE ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('subjects', NEW.subject_id, 'U');
+
+DROP TRIGGER IF EXISTS trg_subjects_log_ad;
+CREATE TRIGGER trg_subjects_log_ad AFTER DELETE ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('subjects', OLD.subject_id, 'D');
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_ai;
+CREATE TRIGGER trg_class_assignments_log_ai AFTER INSERT ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('class_assignments', NEW.assignment_id, 'I');
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_au;
+CREATE TRIGGER trg_class_assignments_log_au AFTER UPDATE ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('class_assignments', NEW.assignment_id, 'U');
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_ad;
+CREATE TRIGGER trg_class_assignments_log_ad AFTER DELETE ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('class_assignments', OLD.assignment_id, 'D');
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_ai;
+CREATE TRIGGER trg_enrollments_log_ai AFTER INSERT ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('enrollments', NEW.enrollment_id, 'I');
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_au;
+CREATE TRIGGER trg_enrollments_log_au AFTER UPDATE ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('enrollments', NEW.enrollment_id, 'U');
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_ad;
+CREATE TRIGGER trg_enrollments_log_ad AFTER DELETE ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('enrollments', OLD.enrollment_id, 'D');
+
+DROP TRIGGER IF EXISTS trg_grades_log_ai;
+CREATE TRIGGER trg_grades_log_ai AFTER INSERT ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('grades', NEW.grade_id, 'I');
+
+DROP TRIGGER IF EXISTS trg_grades_log_au;
+CREATE TRIGGER trg_grades_log_au AFTER UPDATE ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('grades', NEW.grade_id, 'U');
+
+DROP TRIGGER IF EXISTS trg_grades_log_ad;
+CREATE TRIGGER trg_grades_log_ad AFTER DELETE ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('grades', OLD.grade_id, 'D');
+
+DROP TRIGGER IF EXISTS trg_fees_log_ai;
+CREATE TRIGGER trg_fees_log_ai AFTER INSERT ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('fees', NEW.fee_id, 'I');
+
+DROP TRIGGER IF EXISTS trg_fees_log_au;
+CREATE TRIGGER trg_fees_log_au AFTER UPDATE ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('fees', NEW.fee_id, 'U');
+
+DROP TRIGGER IF EXISTS trg_fees_log_ad;
+CREATE TRIGGER trg_fees_log_ad AFTER DELETE ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) VALUES ('fees', OLD.fee_id, 'D');
@@ -0,0 +1,8 @@
+-- Migration for existing databases: room for hashed passwords in the users table.
+-- Fresh installs get the same column from schema.sql; run this once on databases created before.
+-- Existing plain text passwords keep working: each is replaced with a salted PBKDF2 hash
+-- (pbkdf2-sha256$<iterations>$<salt>$<hash>) the first time its user logs in.
+
+USE school_db;
+
+ALTER TABLE users MODIFY password VARCHAR(255) NOT NULL;
@@ -0,0 +1,26 @@
+-- Migration for existing databases: composite indexes for the access paths of the teacher panel, the
+-- reports and the term lists. Fresh installs get the same indexes from schema.sql; run this once on
+-- databases created before. com.school.QueryPlanCheck lists the plans these indexes fix.
+-- The single-column index MySQL created for the class_assignments.teacher_id foreign key is dropped by
+-- MySQL itself once the composite index below can serve the foreign key.
+
+USE school_db;
+
+-- Grades: the term lists (SELECT DISTINCT term) read one entry per term from this index instead of
+-- every grade, and the reports and the score distribution find a subject's grades for a term from it
+-- alone. term comes first so the term lists can use it; the reports filter on both columns anyway.
+-- Measured with 50,000 generated students (1.07 million grades) on MariaDB 11.4: the term list took
+-- 558 ms (a scan and filesort of every grade) without this index, 584 ms with (subject_id, term)
+-- instead, which it cannot use, and 1-4 ms with this one (a loose index scan of 3 entries).
+ALTER TABLE grades
+    ADD INDEX idx_grades_term_subject (term, subject_id, enrollment_id, score);
+
+-- Enrollments by class are served by the index of the class_id foreign key. A covering
+-- (class_id, student_id) index saved nothing measurable on the ~30 enrollments of a class, and made the
+-- optimizer read the enrollments tab's first page through every class with a filesort (105 ms instead
+-- of 4-7 ms), so there is none.
+
+-- Class assignments: everything the teacher panel filters by teacher, answered from the index alone;
+-- the UNIQUE (class_id, teacher_id, subject_id) only serves lookups by class
+ALTER TABLE class_assignments
+    ADD INDEX idx_class_assignments_teacher (teacher_id, class_id, subject_id);
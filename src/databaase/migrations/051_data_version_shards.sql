@@ -0,0 +1,133 @@
+-- Migration for existing databases: splits each table's data_versions counter into shards.
+-- Fresh installs get the same table and triggers from schema.sql; run this once on databases created before
+-- (after 034_data_versions.sql).
+-- With one counter row per table, every write to a table waited on that row's lock until the writer
+-- committed, so concurrent grade entry serialized on it. Each connection now bumps its own shard
+-- (CONNECTION_ID() % 32); DataVersions reads the sum of a table's shards. The existing counts stay in shard 0.
+
+USE school_db;
+
+ALTER TABLE data_versions
+    ADD COLUMN shard TINYINT NOT NULL DEFAULT 0 AFTER table_name,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (table_name, shard);
+
+DROP TRIGGER IF EXISTS trg_students_ai;
+CREATE TRIGGER trg_students_ai AFTER INSERT ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('students', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_students_au;
+CREATE TRIGGER trg_students_au AFTER UPDATE ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('students', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_students_ad;
+CREATE TRIGGER trg_students_ad AFTER DELETE ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('students', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_ai;
+CREATE TRIGGER trg_teachers_ai AFTER INSERT ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('teachers', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_au;
+CREATE TRIGGER trg_teachers_au AFTER UPDATE ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('teachers', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_ad;
+CREATE TRIGGER trg_teachers_ad AFTER DELETE ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('teachers', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_ai;
+CREATE TRIGGER trg_classes_ai AFTER INSERT ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('classes', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_au;
+CREATE TRIGGER trg_classes_au AFTER UPDATE ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('classes', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_ad;
+CREATE TRIGGER trg_classes_ad AFTER DELETE ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('classes', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_ai;
+CREATE TRIGGER trg_subjects_ai AFTER INSERT ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('subjects', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_au;
+CREATE TRIGGER trg_subjects_au AFTER UPDATE ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('subjects', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_ad;
+CREATE TRIGGER trg_subjects_ad AFTER DELETE ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('subjects', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_ai;
+CREATE TRIGGER trg_class_assignments_ai AFTER INSERT ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('class_assignments', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_au;
+CREATE TRIGGER trg_class_assignments_au AFTER UPDATE ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('class_assignments', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_ad;
+CREATE TRIGGER trg_class_assignments_ad AFTER DELETE ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('class_assignments', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_ai;
+CREATE TRIGGER trg_enrollments_ai AFTER INSERT ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('enrollments', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_au;
+CREATE TRIGGER trg_enrollments_au AFTER UPDATE ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('enrollments', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_ad;
+CREATE TRIGGER trg_enrollments_ad AFTER DELETE ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('enrollments', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_ai;
+CREATE TRIGGER trg_grades_ai AFTER INSERT ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('grades', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_au;
+CREATE TRIGGER trg_grades_au AFTER UPDATE ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('grades', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_ad;
+CREATE TRIGGER trg_grades_ad AFTER DELETE ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('grades', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_ai;
+CREATE TRIGGER trg_fees_ai AFTER INSERT ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('fees', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_au;
+CREATE TRIGGER trg_fees_au AFTER UPDATE ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('fees', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_ad;
+CREATE TRIGGER trg_fees_ad AFTER DELETE ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) VALUES ('fees', CONNECTION_ID() % 32, 1)
+        ON DUPLICATE KEY UPDATE version = version + 1;
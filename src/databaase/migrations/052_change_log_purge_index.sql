@@ -0,0 +1,10 @@
+-- Migration for existing databases: an index for purging old change log entries.
+-- Fresh installs get the same index from schema.sql; run this once on databases created before
+-- (after 036_change_log.sql).
+-- Without it, the purge scanned the log by primary key and locked every entry it examined, which held
+-- up the triggers' inserts into the log, i.e. every write in the school, for the length of the scan.
+
+USE school_db;
+
+ALTER TABLE change_log
+    ADD INDEX idx_change_log_changed_at (changed_at);
@@ -0,0 +1,224 @@
+-- Migration for existing databases: lets the data generator load without firing the triggers row by row.
+-- Fresh installs get the same triggers from schema.sql; run this once on databases created before
+-- (after 051_data_version_shards.sql and 036_change_log.sql).
+-- The triggers now skip sessions that set @sms_bulk_load. The generator sets it for its own connection and,
+-- when done, bumps each table's data version once and logs one reload marker per table (operation 'R').
+-- Without this, every generated row added a change log entry and a data_versions update.
+
+USE school_db;
+
+DROP TRIGGER IF EXISTS trg_students_ai;
+CREATE TRIGGER trg_students_ai AFTER INSERT ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'students', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_students_au;
+CREATE TRIGGER trg_students_au AFTER UPDATE ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'students', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_students_ad;
+CREATE TRIGGER trg_students_ad AFTER DELETE ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'students', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_ai;
+CREATE TRIGGER trg_teachers_ai AFTER INSERT ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'teachers', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_au;
+CREATE TRIGGER trg_teachers_au AFTER UPDATE ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'teachers', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_ad;
+CREATE TRIGGER trg_teachers_ad AFTER DELETE ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'teachers', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_ai;
+CREATE TRIGGER trg_classes_ai AFTER INSERT ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'classes', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_au;
+CREATE TRIGGER trg_classes_au AFTER UPDATE ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'classes', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_ad;
+CREATE TRIGGER trg_classes_ad AFTER DELETE ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'classes', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_ai;
+CREATE TRIGGER trg_subjects_ai AFTER INSERT ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'subjects', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_au;
+CREATE TRIGGER trg_subjects_au AFTER UPDATE ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'subjects', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_ad;
+CREATE TRIGGER trg_subjects_ad AFTER DELETE ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'subjects', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_ai;
+CREATE TRIGGER trg_class_assignments_ai AFTER INSERT ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'class_assignments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_au;
+CREATE TRIGGER trg_class_assignments_au AFTER UPDATE ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'class_assignments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_ad;
+CREATE TRIGGER trg_class_assignments_ad AFTER DELETE ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'class_assignments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_ai;
+CREATE TRIGGER trg_enrollments_ai AFTER INSERT ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'enrollments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_au;
+CREATE TRIGGER trg_enrollments_au AFTER UPDATE ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'enrollments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_ad;
+CREATE TRIGGER trg_enrollments_ad AFTER DELETE ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'enrollments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_ai;
+CREATE TRIGGER trg_grades_ai AFTER INSERT ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'grades', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_au;
+CREATE TRIGGER trg_grades_au AFTER UPDATE ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'grades', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_ad;
+CREATE TRIGGER trg_grades_ad AFTER DELETE ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'grades', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_ai;
+CREATE TRIGGER trg_fees_ai AFTER INSERT ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'fees', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_au;
+CREATE TRIGGER trg_fees_au AFTER UPDATE ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'fees', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_ad;
+CREATE TRIGGER trg_fees_ad AFTER DELETE ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'fees', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_students_log_ai;
+CREATE TRIGGER trg_students_log_ai AFTER INSERT ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'students', NEW.student_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_students_log_au;
+CREATE TRIGGER trg_students_log_au AFTER UPDATE ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'students', NEW.student_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_students_log_ad;
+CREATE TRIGGER trg_students_log_ad AFTER DELETE ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'students', OLD.student_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_teachers_log_ai;
+CREATE TRIGGER trg_teachers_log_ai AFTER INSERT ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'teachers', NEW.teacher_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_teachers_log_au;
+CREATE TRIGGER trg_teachers_log_au AFTER UPDATE ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'teachers', NEW.teacher_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_teachers_log_ad;
+CREATE TRIGGER trg_teachers_log_ad AFTER DELETE ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'teachers', OLD.teacher_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_classes_log_ai;
+CREATE TRIGGER trg_classes_log_ai AFTER INSERT ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'classes', NEW.class_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_classes_log_au;
+CREATE TRIGGER trg_classes_log_au AFTER UPDATE ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'classes', NEW.class_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_classes_log_ad;
+CREATE TRIGGER trg_classes_log_ad AFTER DELETE ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'classes', OLD.class_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_subjects_log_ai;
+CREATE TRIGGER trg_subjects_log_ai AFTER INSERT ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'subjects', NEW.subject_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_subjects_log_au;
+CREATE TRIGGER trg_subjects_log_au AFTER UPDATE ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'subjects', NEW.subject_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_subjects_log_ad;
+CREATE TRIGGER trg_subjects_log_ad AFTER DELETE ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'subjects', OLD.subject_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_ai;
+CREATE TRIGGER trg_class_assignments_log_ai AFTER INSERT ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'class_assignments', NEW.assignment_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_au;
+CREATE TRIGGER trg_class_assignments_log_au AFTER UPDATE ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'class_assignments', NEW.assignment_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_ad;
+CREATE TRIGGER trg_class_assignments_log_ad AFTER DELETE ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'class_assignments', OLD.assignment_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_ai;
+CREATE TRIGGER trg_enrollments_log_ai AFTER INSERT ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'enrollments', NEW.enrollment_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_au;
+CREATE TRIGGER trg_enrollments_log_au AFTER UPDATE ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'enrollments', NEW.enrollment_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_ad;
+CREATE TRIGGER trg_enrollments_log_ad AFTER DELETE ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'enrollments', OLD.enrollment_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_grades_log_ai;
+CREATE TRIGGER trg_grades_log_ai AFTER INSERT ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'grades', NEW.grade_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_grades_log_au;
+CREATE TRIGGER trg_grades_log_au AFTER UPDATE ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'grades', NEW.grade_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_grades_log_ad;
+CREATE TRIGGER trg_grades_log_ad AFTER DELETE ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'grades', OLD.grade_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_fees_log_ai;
+CREATE TRIGGER trg_fees_log_ai AFTER INSERT ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'fees', NEW.fee_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_fees_log_au;
+CREATE TRIGGER trg_fees_log_au AFTER UPDATE ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'fees', NEW.fee_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_fees_log_ad;
+CREATE TRIGGER trg_fees_log_ad AFTER DELETE ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'fees', OLD.fee_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
@@ -15,9 +15,9 @@ USE school_db;
 CREATE TABLE IF NOT EXISTS users (
     user_id INT AUTO_INCREMENT PRIMARY KEY,
     username VARCHAR(50) UNIQUE NOT NULL,
-    -- In a real application, passwords should be hashed (e.g., using BCrypt) and stored securely.
-    -- For this example, we are storing plain text passwords.
-    password VARCHAR(100) NOT NULL,
+    -- Salted PBKDF2 hash: pbkdf2-sha256$<iterations>$<salt>$<hash>. Plain text passwords (such as the
+    -- dummy users below) are still accepted and replaced with a hash the first time the user logs in.
+    password VARCHAR(255) NOT NULL,
     -- Role can be 'Admin' or 'Teacher'. More roles can be added as needed.
     role ENUM('Admin', 'Teacher') NOT NULL,
     -- Optional link to the teachers table for users with the 'Teacher' role.
@@ -31,7 +31,10 @@ CREATE TABLE IF NOT EXISTS users (
 CREATE TABLE IF NOT EXISTS teachers (
     teacher_id INT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
-    subject VARCHAR(100) -- The primary subject the teacher teaches.
+    subject VARCHAR(100), -- The primary subject the teacher teaches.
+    -- Indexes for sorting/filtering the admin teacher table.
+    INDEX idx_teachers_name (name),
+    INDEX idx_teachers_subject (subject)
 );
 
 -- Students table
@@ -41,7 +44,15 @@ CREATE TABLE IF NOT EXISTS students (
     name VARCHAR(100) NOT NULL,
     grade_level VARCHAR(20), -- e.g., '1st Grade', 'High School Senior'
     -- Added a status column for potential future use (e.g., 'Active', 'Graduated', 'Left')
-    status VARCHAR(50) DEFAULT 'Active'
+    status VARCHAR(50) DEFAULT 'Active',
+    -- Incremented by every update; edits are saved only if it still has the value read with the row (optimistic locking).
+    row_version INT NOT NULL DEFAULT 0,
+    -- Index for the student typeahead lookups (name LIKE 'prefix%' ORDER BY name).
+    INDEX idx_students_name (name),
+    -- Indexes for sorting/filtering the admin student table (InnoDB appends the primary key,
+    -- so ORDER BY column, student_id LIMIT n is an index scan).
+    INDEX idx_students_grade_level (grade_level),
+    INDEX idx_students_status (status)
 );
 
 -- Classes table
@@ -51,7 +62,12 @@ CREATE TABLE IF NOT EXISTS classes (
     class_name VARCHAR(50) UNIQUE NOT NULL,
     grade_level VARCHAR(20), -- The grade level associated with the class.
     -- Added a fee column for potential future fee management features
-    fee INT DEFAULT 0
+    fee INT DEFAULT 0,
+    -- Incremented by every update; edits are saved only if it still has the value read with the row (optimistic locking).
+    row_version INT NOT NULL DEFAULT 0,
+    -- Indexes for sorting/filtering the admin class table (class_name is already indexed by UNIQUE).
+    INDEX idx_classes_grade_level (grade_level),
+    INDEX idx_classes_fee (fee)
 );
 
 -- Subjects table
@@ -70,6 +86,8 @@ CREATE TABLE IF NOT EXISTS class_assignments (
     subject_id INT NOT NULL,
     -- Ensures that a specific combination of class, teacher, and subject is unique.
     UNIQUE (class_id, teacher_id, subject_id),
+    -- The teacher panel's lookups by teacher, answered from the index alone.
+    INDEX idx_class_assignments_teacher (teacher_id, class_id, subject_id),
     FOREIGN KEY (class_id) REFERENCES classes(class_id) ON DELETE CASCADE,
     FOREIGN KEY (teacher_id) REFERENCES teachers(teacher_id) ON DELETE CASCADE,
     FOREIGN KEY (subject_id) REFERENCES subjects(subject_id) ON DELETE CASCADE
@@ -100,8 +118,12 @@ CREATE TABLE IF NOT EXISTS grades (
     comments TEXT,
     term VARCHAR(50) NOT NULL, -- e.g., 'Term 1', 'Semester 2', 'Final'
     date_recorded DATE, -- The date the grade was recorded.
+    -- Incremented by every update; edits are saved only if it still has the value read with the row (optimistic locking).
+    row_version INT NOT NULL DEFAULT 0,
     -- Ensures a unique grade entry for a student in a specific subject and term.
     UNIQUE (enrollment_id, subject_id, term),
+    -- The term lists (one index entry per term) and a subject's grades for a term, for the reports.
+    INDEX idx_grades_term_subject (term, subject_id, enrollment_id, score),
     FOREIGN KEY (enrollment_id) REFERENCES enrollments(enrollment_id) ON DELETE CASCADE,
     FOREIGN KEY (subject_id) REFERENCES subjects(subject_id) ON DELETE CASCADE
 );
@@ -116,12 +138,277 @@ CREATE TABLE IF NOT EXISTS fees (
     amount_due DECIMAL(10,2) NOT NULL, -- Total fee amount due for the term
     amount_paid DECIMAL(10,2) DEFAULT 0.00, -- Total amount paid for the term
     date_last_paid DATE, -- Date of the last payment
+    -- Incremented by every update; edits are saved only if it still has the value read with the row (optimistic locking).
+    row_version INT NOT NULL DEFAULT 0,
+    -- Outstanding amount, kept by MySQL so the fee table can be sorted and filtered by it through an index.
+    balance DECIMAL(10,2) AS (amount_due - COALESCE(amount_paid, 0)) STORED,
     -- Ensures a unique fee record for a student in a specific class and term.
     UNIQUE (student_id, class_id, term),
+    -- Covering index for the arrears view: the per class/term aggregate is answered from the index alone.
+    INDEX idx_fees_arrears (class_id, term, amount_due, amount_paid, date_last_paid),
+    -- Indexes for sorting/filtering the admin fee table.
+    INDEX idx_fees_balance (balance),
+    INDEX idx_fees_term (term),
+    INDEX idx_fees_date_last_paid (date_last_paid),
     FOREIGN KEY (student_id) REFERENCES students(student_id) ON DELETE CASCADE,
     FOREIGN KEY (class_id) REFERENCES classes(class_id) ON DELETE CASCADE
 );
 
+-- Data versions table
+-- Change counters per table, bumped by the triggers below on every insert, update and delete.
+-- The admin panel compares the counters with those seen when a tab was loaded, so re-opening a tab
+-- only re-queries its data when one of the tables behind it has changed.
+-- Each table's counter is split into shards, one per connection (CONNECTION_ID() % 32), and read as
+-- their sum, so concurrent writers to the same table do not wait on each other's counter row lock.
+-- The triggers here and for the change log skip sessions that set @sms_bulk_load (the data generator),
+-- which bump each table's version and log a reload marker once when they are done instead.
+CREATE TABLE IF NOT EXISTS data_versions (
+    table_name VARCHAR(64) NOT NULL,
+    shard TINYINT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (table_name, shard)
+);
+
+INSERT IGNORE INTO data_versions (table_name) VALUES
+('students'),
+('teachers'),
+('classes'),
+('subjects'),
+('class_assignments'),
+('enrollments'),
+('grades'),
+('fees');
+
+DROP TRIGGER IF EXISTS trg_students_ai;
+CREATE TRIGGER trg_students_ai AFTER INSERT ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'students', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_students_au;
+CREATE TRIGGER trg_students_au AFTER UPDATE ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'students', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_students_ad;
+CREATE TRIGGER trg_students_ad AFTER DELETE ON students FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'students', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_ai;
+CREATE TRIGGER trg_teachers_ai AFTER INSERT ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'teachers', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_au;
+CREATE TRIGGER trg_teachers_au AFTER UPDATE ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'teachers', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_teachers_ad;
+CREATE TRIGGER trg_teachers_ad AFTER DELETE ON teachers FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'teachers', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_ai;
+CREATE TRIGGER trg_classes_ai AFTER INSERT ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'classes', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_au;
+CREATE TRIGGER trg_classes_au AFTER UPDATE ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'classes', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_classes_ad;
+CREATE TRIGGER trg_classes_ad AFTER DELETE ON classes FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'classes', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_ai;
+CREATE TRIGGER trg_subjects_ai AFTER INSERT ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'subjects', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_au;
+CREATE TRIGGER trg_subjects_au AFTER UPDATE ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'subjects', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_subjects_ad;
+CREATE TRIGGER trg_subjects_ad AFTER DELETE ON subjects FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'subjects', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_ai;
+CREATE TRIGGER trg_class_assignments_ai AFTER INSERT ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'class_assignments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_au;
+CREATE TRIGGER trg_class_assignments_au AFTER UPDATE ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'class_assignments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_ad;
+CREATE TRIGGER trg_class_assignments_ad AFTER DELETE ON class_assignments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'class_assignments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_ai;
+CREATE TRIGGER trg_enrollments_ai AFTER INSERT ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'enrollments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_au;
+CREATE TRIGGER trg_enrollments_au AFTER UPDATE ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'enrollments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_enrollments_ad;
+CREATE TRIGGER trg_enrollments_ad AFTER DELETE ON enrollments FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'enrollments', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_ai;
+CREATE TRIGGER trg_grades_ai AFTER INSERT ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'grades', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_au;
+CREATE TRIGGER trg_grades_au AFTER UPDATE ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'grades', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_grades_ad;
+CREATE TRIGGER trg_grades_ad AFTER DELETE ON grades FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'grades', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_ai;
+CREATE TRIGGER trg_fees_ai AFTER INSERT ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'fees', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_au;
+CREATE TRIGGER trg_fees_au AFTER UPDATE ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'fees', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+DROP TRIGGER IF EXISTS trg_fees_ad;
+CREATE TRIGGER trg_fees_ad AFTER DELETE ON fees FOR EACH ROW
+    INSERT INTO data_versions (table_name, shard, version) SELECT 'fees', CONNECTION_ID() % 32, 1 FROM DUAL WHERE @sms_bulk_load IS NULL
+        ON DUPLICATE KEY UPDATE version = version + 1;
+
+-- Change log
+-- One compact row per inserted, updated or deleted row, appended by the triggers below. Open panels poll it
+-- with "change_id > last seen" and patch or reload only what changed. Entries older than a day are purged
+-- by the admin client; a client only ever needs the last few seconds.
+CREATE TABLE IF NOT EXISTS change_log (
+    change_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(64) NOT NULL,
+    row_id INT NOT NULL, -- Primary key of the changed row
+    operation CHAR(1) NOT NULL, -- 'I' insert, 'U' update, 'D' delete, 'R' table bulk loaded (row_id 0): reload it
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- Finds where the purge of old entries stops without scanning the log
+    INDEX idx_change_log_changed_at (changed_at)
+);
+
+DROP TRIGGER IF EXISTS trg_students_log_ai;
+CREATE TRIGGER trg_students_log_ai AFTER INSERT ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'students', NEW.student_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_students_log_au;
+CREATE TRIGGER trg_students_log_au AFTER UPDATE ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'students', NEW.student_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_students_log_ad;
+CREATE TRIGGER trg_students_log_ad AFTER DELETE ON students FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'students', OLD.student_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_teachers_log_ai;
+CREATE TRIGGER trg_teachers_log_ai AFTER INSERT ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'teachers', NEW.teacher_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_teachers_log_au;
+CREATE TRIGGER trg_teachers_log_au AFTER UPDATE ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'teachers', NEW.teacher_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_teachers_log_ad;
+CREATE TRIGGER trg_teachers_log_ad AFTER DELETE ON teachers FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'teachers', OLD.teacher_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_classes_log_ai;
+CREATE TRIGGER trg_classes_log_ai AFTER INSERT ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'classes', NEW.class_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_classes_log_au;
+CREATE TRIGGER trg_classes_log_au AFTER UPDATE ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'classes', NEW.class_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_classes_log_ad;
+CREATE TRIGGER trg_classes_log_ad AFTER DELETE ON classes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'classes', OLD.class_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_subjects_log_ai;
+CREATE TRIGGER trg_subjects_log_ai AFTER INSERT ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'subjects', NEW.subject_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_subjects_log_au;
+CREATE TRIGGER trg_subjects_log_au AFTER UPDATE ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'subjects', NEW.subject_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_subjects_log_ad;
+CREATE TRIGGER trg_subjects_log_ad AFTER DELETE ON subjects FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'subjects', OLD.subject_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_ai;
+CREATE TRIGGER trg_class_assignments_log_ai AFTER INSERT ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'class_assignments', NEW.assignment_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_au;
+CREATE TRIGGER trg_class_assignments_log_au AFTER UPDATE ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'class_assignments', NEW.assignment_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_class_assignments_log_ad;
+CREATE TRIGGER trg_class_assignments_log_ad AFTER DELETE ON class_assignments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'class_assignments', OLD.assignment_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_ai;
+CREATE TRIGGER trg_enrollments_log_ai AFTER INSERT ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'enrollments', NEW.enrollment_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_au;
+CREATE TRIGGER trg_enrollments_log_au AFTER UPDATE ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'enrollments', NEW.enrollment_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_enrollments_log_ad;
+CREATE TRIGGER trg_enrollments_log_ad AFTER DELETE ON enrollments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'enrollments', OLD.enrollment_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_grades_log_ai;
+CREATE TRIGGER trg_grades_log_ai AFTER INSERT ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'grades', NEW.grade_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_grades_log_au;
+CREATE TRIGGER trg_grades_log_au AFTER UPDATE ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'grades', NEW.grade_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_grades_log_ad;
+CREATE TRIGGER trg_grades_log_ad AFTER DELETE ON grades FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'grades', OLD.grade_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_fees_log_ai;
+CREATE TRIGGER trg_fees_log_ai AFTER INSERT ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'fees', NEW.fee_id, 'I' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_fees_log_au;
+CREATE TRIGGER trg_fees_log_au AFTER UPDATE ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'fees', NEW.fee_id, 'U' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
+DROP TRIGGER IF EXISTS trg_fees_log_ad;
+CREATE TRIGGER trg_fees_log_ad AFTER DELETE ON fees FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, operation) SELECT 'fees', OLD.fee_id, 'D' FROM DUAL WHERE @sms_bulk_load IS NULL;
+
 -- --------------------
 -- DUMMY DATA INSERTS
 -- --------------------